@@ -61,6 +61,20 @@ public final class AbortableComparator<E> implements Comparator<E> {
         return Finish.COMPLETED;
     }
 
+    /**
+     * Sort the array <code>e</code>, splitting the work across the common
+     * fork-join pool, using this comparator with the additional ability to
+     * abort the sort.
+     */
+    public Finish abortableParallelSort(E[] e) {
+        try {
+            Arrays.parallelSort(e, this);
+        } catch (AbandonSort s) {
+            return Finish.ABORTED;
+        }
+        return Finish.COMPLETED;
+    }
+
     /**
      * Arrange that the next on-frequency cancellation test in compare will
      * succeed, aborting the sort.
@@ -49,6 +49,16 @@ public class BagFactory
     {
         return new SortedDataBag<>(policy, serializerFactory, comparator);
     }
+
+    /**
+     * Get a sorted data bag, choosing whether to sort with several threads
+     * and how many spill files to merge at once.
+     */
+    public static <T> SortedDataBag<T> newSortedBag(ThresholdPolicy<T> policy, SerializationFactory<T> serializerFactory, Comparator<T> comparator,
+                                                    boolean parallelSort, int mergeFanIn)
+    {
+        return new SortedDataBag<>(policy, serializerFactory, comparator, parallelSort, mergeFanIn);
+    }
     
     /**
      * Get a distinct data bag.
@@ -29,7 +29,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.PriorityQueue;
 
 import org.apache.jena.atlas.AtlasException;
 import org.apache.jena.atlas.data.AbortableComparator.Finish;
@@ -64,6 +63,9 @@ import org.apache.jena.atlas.lib.Sink;
  * Implementation Notes: Data is stored in an ArrayList as it comes in. When it
  * is time to spill, that data is sorted and written to disk. An iterator will
  * read in each file and perform a merge-sort as the results are returned.
+ * At most <code>mergeFanIn</code> files are merged at once; if there are more,
+ * they are first merged into fewer, larger, files. Each sort can optionally be
+ * split across several threads with {@link Arrays#parallelSort}.
  * </p>
  */
 public class SortedDataBag<E> extends AbstractDataBag<E> {
@@ -76,6 +78,8 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
     protected final ThresholdPolicy<E> policy;
     protected final SerializationFactory<E> serializationFactory;
     protected final AbortableComparator<E> comparator;
+    protected final boolean parallelSort;
+    protected final int mergeFanIn;
 
     protected boolean finishedAdding = false;
     protected boolean spilled = false;
@@ -83,9 +87,22 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
 
     public SortedDataBag(ThresholdPolicy<E> policy, SerializationFactory<E> serializerFactory,
             Comparator<? super E> comparator) {
+        this(policy, serializerFactory, comparator, false, MAX_SPILL_FILES);
+    }
+
+    /**
+     * @param parallelSort Sort each run, and the in-memory items, using several threads.
+     * @param mergeFanIn The maximum number of spill files to merge at the same time (at least 2).
+     */
+    public SortedDataBag(ThresholdPolicy<E> policy, SerializationFactory<E> serializerFactory,
+            Comparator<? super E> comparator, boolean parallelSort, int mergeFanIn) {
+        if (mergeFanIn < 2)
+            throw new IllegalArgumentException("SortedDataBag: merge fan-in must be at least 2: " + mergeFanIn);
         this.policy = policy;
         this.serializationFactory = serializerFactory;
         this.comparator = new AbortableComparator<E>(comparator);
+        this.parallelSort = parallelSort;
+        this.mergeFanIn = mergeFanIn;
     }
 
     /**
@@ -154,7 +171,7 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
             // never get around to using it anyway.
 
             E[] array = (E[]) memory.toArray();
-            if (comparator.abortableSort(array) == Finish.COMPLETED) {
+            if (sort(array) == Finish.COMPLETED) {
                 Sink<E> serializer = serializationFactory.createSerializer(out);
                 try {
                     for (Object tuple : array) {
@@ -171,6 +188,10 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
         }
     }
 
+    private Finish sort(E[] array) {
+        return parallelSort ? comparator.abortableParallelSort(array) : comparator.abortableSort(array);
+    }
+
     @Override
     public void flush() {
         spill();
@@ -207,7 +228,7 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
         // like all the the other methods)
         if (!finishedAdding && memSize > 1) {
             E[] array = (E[]) memory.toArray();
-            comparator.abortableSort(array); // don't care if we aborted or not
+            sort(array); // don't care if we aborted or not
             memory = Arrays.asList(array);
         }
 
@@ -249,14 +270,14 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
     }
 
     private void preMerge() {
-        if (getSpillFiles() == null || getSpillFiles().size() <= MAX_SPILL_FILES) {
+        if (getSpillFiles() == null || getSpillFiles().size() <= mergeFanIn) {
             return;
         }
 
         try {
-            while (getSpillFiles().size() > MAX_SPILL_FILES) {
+            while (getSpillFiles().size() > mergeFanIn) {
                 Sink<E> sink = serializationFactory.createSerializer(getSpillStream());
-                Iterator<E> ssi = iterator(MAX_SPILL_FILES);
+                Iterator<E> ssi = iterator(mergeFanIn);
                 try {
                     while (ssi.hasNext()) {
                         sink.send(ssi.next());
@@ -266,8 +287,8 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
                     sink.close();
                 }
 
-                List<File> toRemove = new ArrayList<>(MAX_SPILL_FILES);
-                for (int i = 0; i < MAX_SPILL_FILES; i++) {
+                List<File> toRemove = new ArrayList<>(mergeFanIn);
+                for (int i = 0; i < mergeFanIn; i++) {
                     File file = getSpillFiles().get(i);
                     file.delete();
                     toRemove.add(file);
@@ -295,47 +316,88 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
 
     /**
      * An iterator that handles getting the next tuple from the bag.
+     * <p>
+     * A k-way merge: a binary heap of the inputs, ordered by their current
+     * item. After an item is returned, the input's next item replaces the top
+     * of the heap and is sifted down, which is one pass down the heap for
+     * each item. Ties go to the earlier input, making the merge stable.
      */
     protected static class SpillSortIterator<T> implements Iterator<T>, Closeable {
         private final List<Iterator<T>> inputs;
         private final Comparator<? super T> comp;
-        private final PriorityQueue<Item<T>> minHeap;
+        // Current item of each input.
+        private final Object[] heads;
+        // Heap of input indexes.
+        private final int[] heap;
+        private int heapSize = 0;
 
         public SpillSortIterator(List<Iterator<T>> inputs, Comparator<? super T> comp) {
             this.inputs = inputs;
             this.comp = comp;
-            this.minHeap = new PriorityQueue<>(inputs.size());
+            this.heads = new Object[inputs.size()];
+            this.heap = new int[inputs.size()];
 
             // Prime the heap
             for (int i = 0; i < inputs.size(); i++) {
-                replaceItem(i);
-            }
-        }
-
-        private void replaceItem(int index) {
-            Iterator<T> it = inputs.get(index);
-            if (it.hasNext()) {
-                T tuple = it.next();
-                minHeap.add(new Item<>(index, tuple, comp));
+                Iterator<T> it = inputs.get(i);
+                if (it.hasNext()) {
+                    heads[i] = it.next();
+                    heap[heapSize++] = i;
+                }
             }
+            for (int i = heapSize / 2 - 1; i >= 0; i--)
+                siftDown(i);
         }
 
         @Override
         public boolean hasNext() {
-            return (minHeap.peek() != null);
+            return heapSize > 0;
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public T next() {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
 
-            Item<T> curr = minHeap.poll();
+            int index = heap[0];
+            T tuple = (T) heads[index];
             // Read replacement item
-            replaceItem(curr.getIndex());
+            Iterator<T> it = inputs.get(index);
+            if (it.hasNext()) {
+                heads[index] = it.next();
+            } else {
+                heads[index] = null;
+                heap[0] = heap[--heapSize];
+            }
+            if (heapSize > 0)
+                siftDown(0);
+            return tuple;
+        }
+
+        private void siftDown(int pos) {
+            int index = heap[pos];
+            int half = heapSize / 2;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int right = child + 1;
+                if (right < heapSize && less(heap[right], heap[child]))
+                    child = right;
+                if (!less(heap[child], index))
+                    break;
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = index;
+        }
 
-            return curr.getTuple();
+        @SuppressWarnings("unchecked")
+        private boolean less(int i, int j) {
+            T x = (T) heads[i];
+            T y = (T) heads[j];
+            int r = (null != comp) ? comp.compare(x, y) : ((Comparable<T>) x).compareTo(y);
+            return r < 0 || (r == 0 && i < j);
         }
 
         @Override
@@ -349,48 +411,6 @@ public class SortedDataBag<E> extends AbstractDataBag<E> {
                 Iter.close(it);
             }
         }
-
-        private final class Item<U> implements Comparable<Item<U>> {
-            private final int index;
-            private final U tuple;
-            private final Comparator<? super U> c;
-
-            public Item(int index, U tuple, Comparator<? super U> c) {
-                this.index = index;
-                this.tuple = tuple;
-                this.c = c;
-            }
-
-            public int getIndex() {
-                return index;
-            }
-
-            public U getTuple() {
-                return tuple;
-            }
-
-            @Override
-            @SuppressWarnings("unchecked")
-            public int compareTo(Item<U> o) {
-                return (null != c) ? c.compare(tuple, o.getTuple()) : ((Comparable<U>) tuple).compareTo(o.getTuple());
-            }
-
-            @SuppressWarnings("unchecked")
-            @Override
-            public boolean equals(Object obj) {
-                if (obj instanceof Item) {
-                    return compareTo((Item<U>) obj) == 0;
-                }
-
-                return false;
-            }
-
-            @Override
-            public int hashCode() {
-                return tuple.hashCode();
-            }
-        }
-
     }
 
 }
@@ -273,7 +273,8 @@ public class ARQ
      * choosing the value.
      * <p/>
      * Operations currently affected by this symbol: <br>
-     * ORDER BY, SPARQL Update, CONSTRUCT (optionally)
+     * ORDER BY, SPARQL Update, CONSTRUCT (optionally), hash joins and hash left joins,
+     * GROUP BY (when all the aggregators are combinable: COUNT, SUM, MIN, MAX, AVG)
      * <p/>
      * TODO: Give a reasonable suggested value here.  10,000?
      * <p/>
@@ -281,8 +282,63 @@ public class ARQ
      */
     // Some possible additions to the list:
     // Sort: DISTINCT, merge joins<br>
-    // Hash table: GROUP BY, MINUS, SERVICE, VALUES, and hash joins <br>
+    // Hash table: MINUS, SERVICE, VALUES <br>
     public static final Symbol spillToDiskThreshold = SystemARQ.allocSymbol("spillToDiskThreshold") ;
+
+    /**
+     * Context key for parallel query execution (default "false").
+     * When true, independent parts of a query - the branches of a UNION and the
+     * right hand side of a join or OPTIONAL - are executed on other threads
+     * and their results passed back through bounded buffers.
+     * <p/>
+     * The dataset must support reads from several threads at once.
+     * Query cancellation and timeouts stop the other threads.
+     */
+    public static final Symbol parallelExecution = SystemARQ.allocSymbol("parallelExecution") ;
+
+    /**
+     * Context key for property paths {@code p+} and {@code p*} where {@code p} is a
+     * link, inverse link or alternative of these (default "true").
+     * When true, these are evaluated a set of nodes at a time:
+     * breadth-first from a bound end, and bidirectionally when both ends are bound.
+     * When neither end is bound, see {@link #pathClosureAll}.
+     * @see org.apache.jena.sparql.path.eval.PathClosure
+     */
+    public static final Symbol pathSetEvaluation = SystemARQ.allocSymbol("pathSetEvaluation") ;
+
+    /**
+     * Context key for property paths {@code p+} and {@code p*}, as for
+     * {@link #pathSetEvaluation}, with neither end bound (default "false").
+     * When true, the whole closure is computed, over all edges, before the first
+     * result is returned. This is faster overall when all results are used but the
+     * closure is held in memory, which can be quadratic in the number of nodes.
+     * When false, the results are produced one start node at a time.
+     * A {@link org.apache.jena.sparql.path.eval.PathIndex} is used regardless.
+     */
+    public static final Symbol pathClosureAll = SystemARQ.allocSymbol("pathClosureAll") ;
+
+    /**
+     * Context key for a {@link org.apache.jena.sparql.path.eval.PathIndex}, the
+     * materialized transitive closure of some properties of a dataset.
+     * Set in the dataset context by {@code PathIndex.create}; {@code p+} and
+     * {@code p*} over an indexed property are then answered from the index.
+     */
+    public static final Symbol pathIndex = SystemARQ.allocSymbol("pathIndex") ;
+
+    /**
+     * Context key for ORDER BY: sort using several threads (default "false").
+     * Applies to the in-memory sort and to each run written to disk
+     * when {@link #spillToDiskThreshold} is set.
+     */
+    public static final Symbol parallelSort = SystemARQ.allocSymbol("parallelSort") ;
+
+    /**
+     * Context key for ORDER BY: the maximum number of sorted runs on disk that
+     * are merged at the same time (default 100). More runs than this are first
+     * merged into fewer, larger runs.
+     * Only used when {@link #spillToDiskThreshold} is set.
+     */
+    public static final Symbol sortMergeFanIn = SystemARQ.allocSymbol("sortMergeFanIn") ;
     
     // Optimizer controls.
     
@@ -467,6 +523,24 @@ public class ARQ
     // However, StageGeneratorGeneric does reorder based on partial results. 
     public static final Symbol optReorderBGP = SystemARQ.allocSymbol("optReorderBGP");
 
+    /**
+     * Context key controlling whether the standard optimizer applies cost-based
+     * join ordering: basic graph patterns are reordered, and joins choose between
+     * index and hash joins, using estimates from the statistics in {@link #costStats}.
+     * <p>By default, this transformation is NOT applied.
+     * @see org.apache.jena.sparql.algebra.optimize.TransformJoinCost
+     */
+    public static final Symbol optCostBasedJoinOrder = SystemARQ.allocSymbol("optCostBasedJoinOrder");
+
+    /**
+     * Context key for the statistics (a {@link org.apache.jena.sparql.engine.optimizer.CostStats})
+     * used by cost-based join ordering. If not set, query engines provide their own;
+     * for general datasets these are worked out from the default graph as needed.
+     * Set this in a dataset's context to use gathered statistics, for example from
+     * {@link org.apache.jena.sparql.engine.optimizer.CostStatsBase#gather}.
+     */
+    public static final Symbol costStats = SystemARQ.allocSymbol("costStats");
+
     /** 
      *  Context key controlling whether the main query engine processes property functions.
      *  <p>By default, this is applied.
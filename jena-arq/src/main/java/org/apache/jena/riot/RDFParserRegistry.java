@@ -170,6 +170,20 @@ public class RDFParserRegistry
 
         @Override
         public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+            ReaderRIOT parallel = parallelReader(lang, context) ;
+            if ( parallel != null && parserProfile == null ) {
+                parallel.setErrorHandler(errorHandler) ;
+                parallel.read(in, baseURI, ct, output, context) ;
+                return ;
+            }
+            ReaderRIOT pipelined = pipelinedReader(lang, context) ;
+            if ( pipelined != null ) {
+                if ( parserProfile != null )
+                    pipelined.setParserProfile(parserProfile) ;
+                pipelined.setErrorHandler(errorHandler) ;
+                pipelined.read(in, baseURI, ct, output, context) ;
+                return ;
+            }
             LangRIOT parser = RiotParsers.createParser(in, lang, baseURI, output) ;
             if ( parserProfile != null )
                 parser.setProfile(parserProfile);
@@ -195,6 +209,31 @@ public class RDFParserRegistry
         }
     }
 
+    /** The parallel reader, if {@link RIOT#parallelParse} is set and applies to the language, else null. */
+    private static ReaderRIOT parallelReader(Lang lang, Context context) {
+        if ( ! sameLang(NTRIPLES, lang) && ! sameLang(NQUADS, lang) )
+            return null ;
+        Context cxt = ( context != null ) ? context : RIOT.getContext() ;
+        Object x = cxt.get(RIOT.parallelParse) ;
+        if ( x == null )
+            return null ;
+        if ( "unordered".equalsIgnoreCase(x.toString()) )
+            return new ReaderNTuplesParallel(lang, Runtime.getRuntime().availableProcessors(), ReaderNTuplesParallel.DftBlockSize, false) ;
+        if ( cxt.isTrue(RIOT.parallelParse) )
+            return new ReaderNTuplesParallel(lang) ;
+        return null ;
+    }
+
+    /** The pipelined reader, if {@link RIOT#pipelineParse} is set and applies to the language, else null. */
+    private static ReaderRIOT pipelinedReader(Lang lang, Context context) {
+        if ( ! sameLang(TURTLE, lang) && ! sameLang(TRIG, lang) && ! sameLang(N3, lang) )
+            return null ;
+        Context cxt = ( context != null ) ? context : RIOT.getContext() ;
+        if ( ! cxt.isTrue(RIOT.pipelineParse) )
+            return null ;
+        return new ReaderRIOTPipelined(lang) ;
+    }
+
     private static class ReaderRIOTFactoryJSONLD implements ReaderRIOTFactory {
         @Override
         public ReaderRIOT create(Lang language) {
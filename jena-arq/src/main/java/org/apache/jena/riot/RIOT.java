@@ -50,6 +50,18 @@ public class RIOT {
     
     /** Control of multiline literals */ 
     public static final Symbol multilineLiterals = Symbol.create("riot.multiline_literals") ;
+
+    /** Parse N-Triples and N-Quads in parallel, in blocks of lines.
+     * The value is "true", for output in input order, or "unordered".
+     * @see org.apache.jena.riot.lang.ReaderNTuplesParallel
+     */
+    public static final Symbol parallelParse = Symbol.create("riot.parallel_parse") ;
+
+    /** Parse Turtle, TriG and N3 as a pipeline: tokenizing, parsing and output
+     * run on separate threads.
+     * @see org.apache.jena.riot.lang.ReaderRIOTPipelined
+     */
+    public static final Symbol pipelineParse = Symbol.create("riot.pipeline_parse") ;
     
     /** The system-wide context */
     public static Context getContext() {
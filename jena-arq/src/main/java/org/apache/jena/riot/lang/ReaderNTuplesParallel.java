@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.Reader ;
+import java.nio.ByteBuffer ;
+import java.util.ArrayDeque ;
+import java.util.Arrays ;
+import java.util.Deque ;
+import java.util.UUID ;
+import java.util.concurrent.* ;
+
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.atlas.lib.ThreadLib ;
+import org.apache.jena.atlas.web.ContentType ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.* ;
+import org.apache.jena.riot.system.* ;
+import org.apache.jena.riot.tokens.Tokenizer ;
+import org.apache.jena.riot.tokens.TokenizerFactory ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.util.Context ;
+
+/**
+ * Parallel reader for the line-based formats N-Triples and N-Quads.
+ * <p>
+ * The input is read sequentially in blocks which are cut at the last newline
+ * so that each block holds whole lines. Blocks are parsed concurrently, each
+ * with its own tokenizer and parser profile, and the results are passed to
+ * the {@link StreamRDF} on the calling thread, so the destination does not need
+ * to be thread-safe. In ordered mode, output is in the same order as the input;
+ * otherwise blocks are delivered as they finish.
+ * <p>
+ * Blank node labels are document-scoped: all blocks allocate from the same
+ * seed so the same label in different blocks gives the same blank node.
+ * Compressed input is decompressed by the reading thread; only parsing is parallel.
+ * <p>
+ * This reader is used for N-Triples and N-Quads when {@link RIOT#parallelParse}
+ * is set in the context.
+ */
+public class ReaderNTuplesParallel implements ReaderRIOT
+{
+    /** Default size of a block of input, in bytes. */
+    public static final int DftBlockSize = 4*1024*1024 ;
+
+    private static final ExecutorService executor = ThreadLib.daemonExecutor() ;
+
+    private final Lang lang ;
+    private final int parallelism ;
+    private final int blockSize ;
+    private final boolean ordered ;
+    private ErrorHandler errorHandler ;
+
+    public ReaderNTuplesParallel(Lang lang) {
+        this(lang, Runtime.getRuntime().availableProcessors(), DftBlockSize, true) ;
+    }
+
+    /**
+     * @param lang          N-Triples or N-Quads
+     * @param parallelism   Maximum number of blocks parsed at the same time
+     * @param blockSize     Size of a block in bytes; longer lines grow the block.
+     * @param ordered       Whether output is in input order.
+     */
+    public ReaderNTuplesParallel(Lang lang, int parallelism, int blockSize, boolean ordered) {
+        if ( ! RDFLanguages.sameLang(RDFLanguages.NTRIPLES, lang) && ! RDFLanguages.sameLang(RDFLanguages.NQUADS, lang) )
+            throw new RiotException("Not a line-based language: "+lang) ;
+        this.lang = lang ;
+        this.parallelism = Math.max(1, parallelism) ;
+        this.blockSize = Math.max(1024, blockSize) ;
+        this.ordered = ordered ;
+        this.errorHandler = ErrorHandlerFactory.getDefaultErrorHandler() ;
+    }
+
+    @Override
+    public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        UUID seed = UUID.randomUUID() ;
+        int maxInFlight = 2*parallelism ;
+        Deque<Future<CollectorStreamRDF>> pending = new ArrayDeque<>() ;
+        CompletionService<CollectorStreamRDF> completion = new ExecutorCompletionService<>(executor) ;
+        output.start() ;
+        try {
+            byte[] buffer = new byte[blockSize] ;
+            int len = 0 ;
+            long line = 0 ;
+            for (;;) {
+                int n = in.read(buffer, len, buffer.length-len) ;
+                if ( n > 0 ) {
+                    len += n ;
+                    if ( len < buffer.length )
+                        continue ;
+                }
+                boolean eof = ( n < 0 ) ;
+                int split = eof ? len : lastNewline(buffer, len) ;
+                if ( split <= 0 ) {
+                    if ( eof )
+                        break ;
+                    // A line longer than the block.
+                    buffer = Arrays.copyOf(buffer, 2*buffer.length) ;
+                    continue ;
+                }
+                byte[] block = Arrays.copyOf(buffer, split) ;
+                Callable<CollectorStreamRDF> task = parseTask(block, seed, line) ;
+                pending.add(ordered ? executor.submit(task) : completion.submit(task)) ;
+                line += countNewlines(block) ;
+                System.arraycopy(buffer, split, buffer, 0, len-split) ;
+                len = len-split ;
+                if ( pending.size() >= maxInFlight )
+                    deliver(pending, completion, output) ;
+                if ( eof )
+                    break ;
+            }
+            while ( ! pending.isEmpty() )
+                deliver(pending, completion, output) ;
+        } catch (IOException ex) {
+            IO.exception(ex) ;
+        } finally {
+            for ( Future<CollectorStreamRDF> f : pending )
+                f.cancel(true) ;
+            output.finish() ;
+        }
+    }
+
+    @Override
+    public void read(Reader reader, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        // Character input can't be split by bytes.
+        LangRIOT parser = RiotParsers.createParser(reader, lang, baseURI, output) ;
+        parser.getProfile().setHandler(errorHandler) ;
+        parser.parse() ;
+    }
+
+    private Callable<CollectorStreamRDF> parseTask(byte[] block, UUID seed, long lineOffset) {
+        ErrorHandler handler = errorHandler != null ? errorHandler : ErrorHandlerFactory.getDefaultErrorHandler() ;
+        return ()-> {
+            CollectorStreamRDF collector = new CollectorStreamRDF() ;
+            Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(ByteBuffer.wrap(block)) ;
+            ParserProfile profile = RiotLib.profile(lang, null, new ErrorHandlerOffset(handler, lineOffset)) ;
+            profile.setFactoryRDF(RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHash(seed))) ;
+            LangRIOT parser = RDFLanguages.sameLang(RDFLanguages.NTRIPLES, lang)
+                ? new LangNTriples(tokenizer, profile, collector)
+                : new LangNQuads(tokenizer, profile, collector) ;
+            parser.parse() ;
+            return collector ;
+        } ;
+    }
+
+    /** Wait for the next block and send its contents to the output. */
+    private void deliver(Deque<Future<CollectorStreamRDF>> pending, CompletionService<CollectorStreamRDF> completion, StreamRDF output) {
+        try {
+            Future<CollectorStreamRDF> future ;
+            if ( ordered )
+                future = pending.removeFirst() ;
+            else {
+                future = completion.take() ;
+                pending.remove(future) ;
+            }
+            CollectorStreamRDF block = future.get() ;
+            for ( Triple t : block.getTriples() )
+                output.triple(t) ;
+            for ( Quad q : block.getQuads() )
+                output.quad(q) ;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt() ;
+            throw new RiotException("Interrupted while parsing", ex) ;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() ;
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException)cause ;
+            if ( cause instanceof Error )
+                throw (Error)cause ;
+            throw new RiotException(cause) ;
+        }
+    }
+
+    private static int lastNewline(byte[] bytes, int len) {
+        for ( int i = len-1 ; i >= 0 ; i-- ) {
+            if ( bytes[i] == '\n' )
+                return i+1 ;
+        }
+        return 0 ;
+    }
+
+    private static long countNewlines(byte[] bytes) {
+        long count = 0 ;
+        for ( byte b : bytes ) {
+            if ( b == '\n' )
+                count++ ;
+        }
+        return count ;
+    }
+
+    /** Report errors with line numbers relative to the whole input, not the block. */
+    private static class ErrorHandlerOffset implements ErrorHandler {
+        private final ErrorHandler other ;
+        private final long offset ;
+
+        ErrorHandlerOffset(ErrorHandler other, long offset) {
+            this.other = other ;
+            this.offset = offset ;
+        }
+
+        private long line(long line) { return line < 0 ? line : line+offset ; }
+
+        @Override public void warning(String message, long line, long col)  { other.warning(message, line(line), col) ; }
+        @Override public void error(String message, long line, long col)    { other.error(message, line(line), col) ; }
+        @Override public void fatal(String message, long line, long col)    { other.fatal(message, line(line), col) ; }
+    }
+
+    @Override public ErrorHandler getErrorHandler()                     { return errorHandler ; }
+    @Override public void setErrorHandler(ErrorHandler errorHandler)    { this.errorHandler = errorHandler ; }
+
+    /** Parser profiles are per-block, created by this reader. */
+    @Override public ParserProfile getParserProfile()                   { return null ; }
+    @Override public void setParserProfile(ParserProfile profile)       { }
+}
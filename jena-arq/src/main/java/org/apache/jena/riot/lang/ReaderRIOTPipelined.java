@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.InputStream ;
+import java.io.Reader ;
+import java.util.Arrays ;
+import java.util.concurrent.* ;
+import java.util.function.Consumer ;
+
+import org.apache.jena.atlas.lib.ThreadLib ;
+import org.apache.jena.atlas.web.ContentType ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.* ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.riot.system.ErrorHandlerFactory ;
+import org.apache.jena.riot.system.ParserProfile ;
+import org.apache.jena.riot.system.ParserProfileBase ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.tokens.Tokenizer ;
+import org.apache.jena.riot.tokens.TokenizerFactory ;
+import org.apache.jena.riot.tokens.TokenizerPipe ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.util.Context ;
+
+/**
+ * Reader that runs a RIOT parser as a pipeline of three threads:
+ * <ol>
+ * <li>tokenizing, see {@link TokenizerPipe}</li>
+ * <li>the grammar, IRI resolution and checking, and node creation</li>
+ * <li>the calling thread, which sends the output to the {@link StreamRDF}</li>
+ * </ol>
+ * Stages are connected by bounded buffers of batches so a slow stage holds back
+ * the others. The {@link StreamRDF} is only called from the calling thread.
+ * The error handler is called from the grammar thread.
+ * Unless a parser profile is given, the profile for the parse keeps a cache of
+ * resolved IRIs (see {@link ParserProfileBase#setResolvedCache}).
+ * <p>
+ * This reader is used for Turtle, TriG and N3 when {@link RIOT#pipelineParse}
+ * is set in the context.
+ */
+public class ReaderRIOTPipelined implements ReaderRIOT
+{
+    private static final int BatchSize  = 1000 ;
+    private static final int QueueSize  = 16 ;
+
+    private static final ExecutorService executor = ThreadLib.daemonExecutor() ;
+
+    private final Lang lang ;
+    private ErrorHandler errorHandler ;
+    private ParserProfile parserProfile = null ;
+
+    public ReaderRIOTPipelined(Lang lang) {
+        this.lang = lang ;
+        this.errorHandler = ErrorHandlerFactory.getDefaultErrorHandler() ;
+    }
+
+    @Override
+    public void read(InputStream in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        read(TokenizerFactory.makeTokenizerUTF8(in), baseURI, output) ;
+    }
+
+    @Override
+    public void read(Reader in, String baseURI, ContentType ct, StreamRDF output, Context context) {
+        @SuppressWarnings("deprecation")
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizer(in) ;
+        read(tokenizer, baseURI, output) ;
+    }
+
+    private void read(Tokenizer tokenizer, String baseURI, StreamRDF output) {
+        Tokenizer tokens = new TokenizerPipe(tokenizer) ;
+        StreamPipe pipe = new StreamPipe() ;
+        LangRIOT parser = RiotParsers.createParser(tokens, lang, baseURI, pipe) ;
+        if ( parser == null )
+            throw new RiotException("No pipelined parser for "+lang) ;
+        if ( parserProfile != null )
+            parser.setProfile(parserProfile) ;
+        else if ( parser.getProfile() instanceof ParserProfileBase )
+            // Created for this parse, and only used by the grammar thread.
+            ((ParserProfileBase)parser.getProfile()).setResolvedCache(true) ;
+        if ( errorHandler != null )
+            parser.getProfile().setHandler(errorHandler) ;
+        executor.submit(()->{
+            try {
+                parser.parse() ;
+                pipe.end(null) ;
+            } catch (RuntimeException | Error ex) {
+                pipe.end(ex) ;
+            }
+        }) ;
+        try {
+            pipe.deliver(output) ;
+        } finally {
+            // Stop the other stages if the output failed.
+            pipe.close() ;
+            tokens.close() ;
+        }
+    }
+
+    /** Marks the end of parsing, with the exception that ended it, if any. */
+    private static final class End {
+        final Throwable error ;
+        End(Throwable error) { this.error = error ; }
+    }
+
+    /** StreamRDF that passes events over to the calling thread in batches. */
+    private static final class StreamPipe implements StreamRDF {
+        private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(QueueSize) ;
+        private volatile boolean closed = false ;
+        private Object[] batch = new Object[BatchSize] ;
+        private int size = 0 ;
+
+        // Triples and quads are passed as they are; other events as actions.
+        @Override public void start()                           { add((Consumer<StreamRDF>)(s)->s.start()) ; }
+        @Override public void triple(Triple triple)             { add(triple) ; }
+        @Override public void quad(Quad quad)                   { add(quad) ; }
+        @Override public void base(String base)                 { add((Consumer<StreamRDF>)(s)->s.base(base)) ; }
+        @Override public void prefix(String prefix, String iri) { add((Consumer<StreamRDF>)(s)->s.prefix(prefix, iri)) ; }
+        @Override public void finish()                          { add((Consumer<StreamRDF>)(s)->s.finish()) ; }
+
+        private void add(Object event) {
+            batch[size++] = event ;
+            if ( size == BatchSize && !flush() )
+                throw new RiotException("Parsing cancelled") ;
+        }
+
+        void end(Throwable error) {
+            batch[size++] = new End(error) ;
+            flush() ;
+        }
+
+        private boolean flush() {
+            Object[] b = ( size == BatchSize ) ? batch : Arrays.copyOf(batch, size) ;
+            batch = new Object[BatchSize] ;
+            size = 0 ;
+            try {
+                while ( !queue.offer(b, 100, TimeUnit.MILLISECONDS) ) {
+                    if ( closed )
+                        return false ;
+                }
+                return true ;
+            } catch (InterruptedException ex) {
+                return false ;
+            }
+        }
+
+        void close() {
+            closed = true ;
+            queue.clear() ;
+        }
+
+        @SuppressWarnings("unchecked")
+        void deliver(StreamRDF output) {
+            for (;;) {
+                Object[] b ;
+                try { b = queue.take() ; }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt() ;
+                    throw new RiotException("Interrupted while parsing", ex) ;
+                }
+                for ( Object event : b ) {
+                    if ( event instanceof Triple )
+                        output.triple((Triple)event) ;
+                    else if ( event instanceof Quad )
+                        output.quad((Quad)event) ;
+                    else if ( event instanceof End ) {
+                        Throwable error = ((End)event).error ;
+                        if ( error == null )
+                            return ;
+                        if ( error instanceof RuntimeException )
+                            throw (RuntimeException)error ;
+                        if ( error instanceof Error )
+                            throw (Error)error ;
+                        throw new RiotException(error) ;
+                    } else
+                        ((Consumer<StreamRDF>)event).accept(output) ;
+                }
+            }
+        }
+    }
+
+    @Override public ErrorHandler getErrorHandler()                     { return errorHandler ; }
+    @Override public void setErrorHandler(ErrorHandler errorHandler)    { this.errorHandler = errorHandler ; }
+
+    @Override public ParserProfile getParserProfile()                   { return parserProfile ; }
+    @Override public void setParserProfile(ParserProfile parserProfile) {
+        this.parserProfile = parserProfile ;
+        this.errorHandler = parserProfile.getHandler() ;
+    }
+}
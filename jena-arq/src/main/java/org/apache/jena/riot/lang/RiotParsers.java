@@ -60,6 +60,10 @@ public class RiotParsers {
         if ( lang == CSV )
             return new LangCSV (input, baseIRI, baseIRI, ErrorHandlerFactory.getDefaultErrorHandler(),  dest);
             
+        if ( lang == NTRIPLES || lang == NQUADS ) {
+            Tokenizer tokenizer = TokenizerFactory.makeTokenizerBytes(input) ;
+            return createParser(tokenizer, lang, baseIRI, dest) ;
+        }
         Tokenizer tokenizer = ( lang == RDFJSON ) ?
             new TokenizerJSON(PeekReader.makeUTF8(input)) :
                 TokenizerFactory.makeTokenizerUTF8(input) ;
@@ -154,7 +158,7 @@ public class RiotParsers {
 
     /*package*/ static  LangNTriples createParserNTriples(InputStream input, CharSpace charSpace, StreamRDF dest) {
         Tokenizer tokenizer = charSpace == CharSpace.ASCII
-            ? TokenizerFactory.makeTokenizerASCII(input) : TokenizerFactory.makeTokenizerUTF8(input);
+            ? TokenizerFactory.makeTokenizerASCII(input) : TokenizerFactory.makeTokenizerBytes(input);
         return createParserNTriples(tokenizer, dest) ;
     }
 
@@ -169,7 +173,7 @@ public class RiotParsers {
     }
 
     /*package*/ static LangNQuads createParserNQuads(InputStream input, CharSpace charSpace, StreamRDF dest) {
-        Tokenizer tokenizer = charSpace == CharSpace.ASCII ? TokenizerFactory.makeTokenizerASCII(input) : TokenizerFactory.makeTokenizerUTF8(input) ;
+        Tokenizer tokenizer = charSpace == CharSpace.ASCII ? TokenizerFactory.makeTokenizerASCII(input) : TokenizerFactory.makeTokenizerBytes(input) ;
         return createParserNQuads(tokenizer, dest) ;
     }
 
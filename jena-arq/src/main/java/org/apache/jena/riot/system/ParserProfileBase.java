@@ -18,6 +18,8 @@
 
 package org.apache.jena.riot.system ;
 
+import java.util.HashMap ;
+import java.util.Map ;
 import java.util.Objects ;
 
 import org.apache.jena.datatypes.RDFDatatype ;
@@ -43,6 +45,11 @@ public class ParserProfileBase implements ParserProfile {
     protected boolean      strictMode = SysRIOT.isStrictMode() ;
     protected FactoryRDF   factory ;
 
+    // Resolved IRIs for the current base, keyed by the IRI as written; null for no cache.
+    private static final int ResolvedCacheSize = 5000 ;
+    private IRIResolver resolvedFor = null ;
+    private Map<String, String> resolved = null ;
+
     public ParserProfileBase(Prologue prologue, ErrorHandler errorHandler) {
         this(prologue, errorHandler, RiotLib.factoryRDF()) ;
     }
@@ -88,7 +95,45 @@ public class ParserProfileBase implements ParserProfile {
    
     @Override
     public String resolveIRI(String uriStr, long line, long col) {
-        return prologue.getResolver().resolveToString(uriStr) ;
+        String x = lookupResolved(uriStr) ;
+        if ( x == null ) {
+            x = prologue.getResolver().resolveToString(uriStr) ;
+            cacheResolved(uriStr, x) ;
+        }
+        return x ;
+    }
+
+    /**
+     * Keep a cache of resolved (and, for a checking profile, checked) IRIs.
+     * Off by default. The cache is not thread safe: only turn it on for a profile
+     * used by one parser, such as one created for a single parse, and not for a
+     * profile shared between parsers.
+     */
+    public void setResolvedCache(boolean enabled) {
+        resolved = enabled ? new HashMap<>() : null ;
+        resolvedFor = null ;
+    }
+
+    /** The resolved form of an IRI string, if already seen with the current base, else null. */
+    protected String lookupResolved(String uriStr) {
+        if ( resolved == null )
+            return null ;
+        IRIResolver resolver = prologue.getResolver() ;
+        if ( resolver != resolvedFor ) {
+            // New base.
+            resolved.clear() ;
+            resolvedFor = resolver ;
+        }
+        return resolved.get(uriStr) ;
+    }
+
+    /** Record the resolved form of an IRI string for the current base. */
+    protected void cacheResolved(String uriStr, String iriStr) {
+        if ( resolved == null )
+            return ;
+        if ( resolved.size() >= ResolvedCacheSize )
+            resolved.clear() ;
+        resolved.put(uriStr, iriStr) ;
     }
 
     @Override
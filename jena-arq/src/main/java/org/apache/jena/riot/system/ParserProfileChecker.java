@@ -53,8 +53,16 @@ public class ParserProfileChecker extends ParserProfileBase // implements Parser
 
     @Override
     public String resolveIRI(String uriStr, long line, long col) {
+        String x = lookupResolved(uriStr) ;
+        if ( x != null )
+            return x ;
         // Go via code that checks.
-        return makeIRI(uriStr, line, col).toString() ;
+        IRI iri = makeIRI(uriStr, line, col) ;
+        x = iri.toString() ;
+        // Only an IRI with nothing to report can skip the checks next time.
+        if ( !iri.isRelative() && !iri.hasViolation(true) )
+            cacheResolved(uriStr, x) ;
+        return x ;
     }
 
     @Override
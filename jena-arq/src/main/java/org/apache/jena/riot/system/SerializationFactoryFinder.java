@@ -38,11 +38,12 @@ import org.apache.jena.riot.tokens.Tokenizer ;
 import org.apache.jena.riot.tokens.TokenizerFactory ;
 import org.apache.jena.sparql.core.Quad ;
 import org.apache.jena.sparql.engine.binding.Binding ;
-import org.apache.jena.sparql.engine.binding.BindingInputStream ;
-import org.apache.jena.sparql.engine.binding.BindingOutputStream ;
+import org.apache.jena.sparql.engine.binding.BindingBinaryInputStream ;
+import org.apache.jena.sparql.engine.binding.BindingBinaryOutputStream ;
 
 public class SerializationFactoryFinder
 {
+    /** Bindings are written in a compact binary form; use only for temporary files. */
     public static SerializationFactory<Binding> bindingSerializationFactory()
     {
         return new SerializationFactory<Binding>()
@@ -50,13 +51,13 @@ public class SerializationFactoryFinder
             @Override
             public Sink<Binding> createSerializer(OutputStream out)
             {
-                return new BindingOutputStream(out);
+                return new BindingBinaryOutputStream(out);
             }
             
             @Override
             public Iterator<Binding> createDeserializer(InputStream in)
             {
-                return new BindingInputStream(in);
+                return new BindingBinaryInputStream(in);
             }
 
             @Override
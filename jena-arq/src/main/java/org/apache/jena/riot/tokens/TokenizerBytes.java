@@ -0,0 +1,648 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens;
+
+import static org.apache.jena.atlas.lib.Chars.* ;
+import static org.apache.jena.riot.system.RiotChars.* ;
+
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.nio.ByteBuffer ;
+import java.util.Arrays ;
+import java.util.NoSuchElementException ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.apache.jena.atlas.io.IO ;
+import org.apache.jena.riot.RiotParseException ;
+
+/**
+ * Tokenizer for N-Triples and N-Quads that works directly on UTF-8 bytes.
+ * <p>
+ * This produces the same tokens as {@link TokenizerText} for the terms of the
+ * line-based formats (IRIs, blank nodes, literals and DOT) but without going
+ * through a character reader. Runs of ASCII in IRIs and strings are copied
+ * straight from the byte buffer, and repeated IRIs, blank node labels and
+ * language tags reuse the same {@code String}.
+ * <p>
+ * Input is either an {@code InputStream} or a {@link ByteBuffer}, which may be
+ * a memory-mapped file. Anything that is not part of N-Triples or N-Quads is a
+ * parse error.
+ */
+
+public final class TokenizerBytes implements Tokenizer
+{
+    private static final int BufferSize     = 128*1024 ;
+    // Power of two.
+    private static final int CacheSize      = 4096 ;
+    private static final int INIT_LINE      = 1 ;
+    private static final int INIT_COL       = 1 ;
+
+    // ASCII bytes that need no further attention in an IRI or in a string.
+    private static final boolean[] plainIRI     = new boolean[128] ;
+    private static final boolean[] plainString  = new boolean[128] ;
+    static {
+        for ( int i = 0x21 ; i < 128 ; i++ )
+            plainIRI[i] = true ;
+        for ( char ch : "<>\"{}|^`\\".toCharArray() )
+            plainIRI[ch] = false ;
+        for ( int i = 0 ; i < 128 ; i++ )
+            plainString[i] = true ;
+        for ( char ch : "\n\"'\\".toCharArray() )
+            plainString[ch] = false ;
+    }
+
+    private final InputStream input ;       // Null for a ByteBuffer.
+    private final ByteBuffer source ;       // Null for an InputStream or a ByteBuffer with an array.
+    private byte[] buffer ;
+    private int pos ;
+    private int limit ;
+    private boolean exhausted ;
+
+    private long line = INIT_LINE ;
+    private long col = INIT_COL ;
+    // Length in bytes of the last codepoint decoded.
+    private int cpLength = 0 ;
+
+    private char[] chars = new char[200] ;
+    private int len = 0 ;
+    private final String[] cache = new String[CacheSize] ;
+
+    private Token token = null ;
+    private boolean finished = false ;
+
+    /*package*/ TokenizerBytes(InputStream input) {
+        this.input = input ;
+        this.source = null ;
+        this.buffer = new byte[BufferSize] ;
+        this.pos = 0 ;
+        this.limit = 0 ;
+        this.exhausted = false ;
+        skipBOM() ;
+    }
+
+    /*package*/ TokenizerBytes(ByteBuffer bytes) {
+        this.input = null ;
+        if ( bytes.hasArray() ) {
+            // Use the array in-place.
+            this.source = null ;
+            this.buffer = bytes.array() ;
+            this.pos = bytes.arrayOffset()+bytes.position() ;
+            this.limit = bytes.arrayOffset()+bytes.limit() ;
+            this.exhausted = true ;
+        } else {
+            // Direct or mapped : copy out in blocks.
+            this.source = bytes.duplicate() ;
+            this.buffer = new byte[BufferSize] ;
+            this.pos = 0 ;
+            this.limit = 0 ;
+            this.exhausted = false ;
+        }
+        skipBOM() ;
+    }
+
+    @Override
+    public final boolean hasNext() {
+        if ( finished )
+            return false ;
+        if ( token != null )
+            return true ;
+        try {
+            skip() ;
+            if ( peekByte() == EOF ) {
+                finished = true ;
+                return false ;
+            }
+            token = parseToken() ;
+            return true ;
+        } catch (AtlasException ex) {
+            if ( ex.getCause() != null )
+                throw new RiotParseException("Bad input stream [" + ex.getCause() + "]", line, col) ;
+            throw new RiotParseException("Bad input stream", line, col) ;
+        }
+    }
+
+    @Override
+    public final boolean eof() {
+        return hasNext() ;
+    }
+
+    @Override
+    public final Token next() {
+        if ( !hasNext() )
+            throw new NoSuchElementException() ;
+        Token t = token ;
+        token = null ;
+        return t ;
+    }
+
+    @Override
+    public final Token peek() {
+        if ( !hasNext() )
+            return null ;
+        return token ;
+    }
+
+    @Override
+    public void remove()            { throw new UnsupportedOperationException() ; }
+
+    @Override
+    public long getLine()           { return line ; }
+
+    @Override
+    public long getColumn()         { return col ; }
+
+    @Override
+    public void close() {
+        if ( input != null )
+            IO.close(input) ;
+    }
+
+    // ---- Tokens
+
+    private Token parseToken() {
+        Token token = new Token(line, col) ;
+        int ch = peekByte() ;
+        switch (ch) {
+            case CH_LT:
+                advance() ;
+                token.setImage(readIRI()) ;
+                token.setType(TokenType.IRI) ;
+                return token ;
+            case CH_QUOTE1:
+            case CH_QUOTE2:
+                return readLiteral(token, ch) ;
+            case CH_UNDERSCORE:
+                expect("_:") ;
+                token.setImage(readBlankNodeLabel()) ;
+                token.setType(TokenType.BNODE) ;
+                return token ;
+            case CH_DOT:
+                advance() ;
+                token.setType(TokenType.DOT) ;
+                return token ;
+            default:
+                exception("Unexpected character: '%c' (0x%02X)", (char)ch, ch) ;
+                return null ;
+        }
+    }
+
+    private Token readLiteral(Token token, int quoteChar) {
+        advance() ;
+        if ( peekByte() == quoteChar ) {
+            advance() ;
+            if ( peekByte() == quoteChar )
+                exception("Long strings are not legal in N-Triples or N-Quads") ;
+            token.setImage("") ;
+        } else
+            token.setImage(readString(quoteChar)) ;
+        token.setType((quoteChar == CH_QUOTE1) ? TokenType.STRING1 : TokenType.STRING2) ;
+
+        skip() ;
+        int ch = peekByte() ;
+        if ( ch == CH_AT ) {
+            advance() ;
+            Token mainToken = new Token(token) ;
+            mainToken.setType(TokenType.LITERAL_LANG) ;
+            mainToken.setSubToken1(token) ;
+            mainToken.setImage2(langTag()) ;
+            return mainToken ;
+        }
+        if ( ch == '^' ) {
+            expect("^^") ;
+            skip() ;
+            Token mainToken = new Token(token) ;
+            mainToken.setSubToken1(token) ;
+            if ( peekByte() != CH_LT )
+                exception("Datatype URI required after ^^ - URI or prefixed name expected") ;
+            Token subToken = new Token(line, col) ;
+            advance() ;
+            subToken.setImage(readIRI()) ;
+            subToken.setType(TokenType.IRI) ;
+            mainToken.setSubToken2(subToken) ;
+            mainToken.setType(TokenType.LITERAL_DT) ;
+            return mainToken ;
+        }
+        return token ;
+    }
+
+    // [8]  IRIREF  ::= '<' ([^#x00-#x20<>"{}|^`\] | UCHAR)* '>'
+    private String readIRI() {
+        len = 0 ;
+        for (;;) {
+            // Fast path.
+            while ( pos < limit ) {
+                byte b = buffer[pos] ;
+                if ( b < 0 || !plainIRI[b] )
+                    break ;
+                pos++ ;
+                col++ ;
+                appendChar((char)b) ;
+            }
+            int ch = readCodepoint() ;
+            switch (ch) {
+                case EOF:
+                    exception("Broken IRI (End of file)") ;
+                case NL:
+                    exception("Broken IRI (newline): %s", string()) ;
+                case CR:
+                    exception("Broken IRI (CR): %s", string()) ;
+                case CH_GT:
+                    return cached() ;
+                case CH_RSLASH:
+                    ch = readUnicodeEscape() ;
+                    break ;
+                case CH_LT:
+                    exception("Bad character in IRI (bad character: '<'): <%s<...>", string()) ;
+                case TAB:
+                    exception("Bad character in IRI (Tab character): <%s[tab]...>", string()) ;
+                case SPC:
+                    exception("Bad character in IRI (space): <%s[space]...>", string()) ;
+                case '{': case '}': case '"': case '|': case '^': case '`' :
+                    exception("Illegal character in IRI (codepoint 0x%02X, '%c'): <%s[%c]...>", ch, (char)ch, string(), (char)ch) ;
+                default:
+                    if ( ch <= 0x19 )
+                        exception("Illegal character in IRI (control char 0x%02X): %s", ch, string()) ;
+            }
+            appendCodepoint(ch) ;
+        }
+    }
+
+    private String readString(int quoteChar) {
+        long y = line ;
+        long x = col ;
+        len = 0 ;
+        for (;;) {
+            // Fast path.
+            while ( pos < limit ) {
+                byte b = buffer[pos] ;
+                if ( b < 0 || !plainString[b] )
+                    break ;
+                pos++ ;
+                col++ ;
+                appendChar((char)b) ;
+            }
+            int ch = readCodepoint() ;
+            if ( ch == EOF )
+                exception$("Broken token: " + string(), y, x) ;
+            if ( ch == NL )
+                exception$("Broken token (newline): " + string(), y, x) ;
+            if ( ch == quoteChar )
+                return string() ;
+            if ( ch == CH_RSLASH )
+                ch = readLiteralEscape() ;
+            appendCodepoint(ch) ;
+        }
+    }
+
+    // BLANK_NODE_LABEL    ::=     '_:' (PN_CHARS_U | [0-9]) ((PN_CHARS | '.')* PN_CHARS)?
+    private String readBlankNodeLabel() {
+        len = 0 ;
+        int ch = codepointAt(0) ;
+        if ( ch == EOF )
+            exception("Blank node label missing (EOF found)") ;
+        if ( isWhitespace(ch) )
+            exception("Blank node label missing") ;
+        if ( !isPNChars_U_N(ch) )
+            exception("Blank node label does not start with alphabetic or _ :" + (char)ch) ;
+        consumeCodepoint(ch) ;
+        appendCodepoint(ch) ;
+
+        for (;;) {
+            ch = codepointAt(0) ;
+            if ( ch == CH_DOT ) {
+                // DOT can't be last.
+                int n = 1 ;
+                while ( codepointAt(n) == CH_DOT )
+                    n++ ;
+                boolean more = isPNChars(codepointAt(n)) ;
+                int dots = more ? n : n-1 ;
+                for ( int i = 0 ; i < dots ; i++ ) {
+                    advance() ;
+                    appendChar('.') ;
+                }
+                if ( !more )
+                    break ;
+                continue ;
+            }
+            if ( !isPNChars(ch) )
+                break ;
+            consumeCodepoint(ch) ;
+            appendCodepoint(ch) ;
+        }
+        return cached() ;
+    }
+
+    private String langTag() {
+        len = 0 ;
+        a2z() ;
+        if ( len == 0 )
+            exception("Bad language tag") ;
+        while ( peekByte() == '-' ) {
+            advance() ;
+            appendChar('-') ;
+            int x = len ;
+            a2zN() ;
+            if ( len == x )
+                exception("Bad language tag") ;
+        }
+        return cached() ;
+    }
+
+    private void a2z() {
+        for (;;) {
+            int ch = peekByte() ;
+            if ( !isA2Z(ch) )
+                return ;
+            advance() ;
+            appendChar((char)ch) ;
+        }
+    }
+
+    private void a2zN() {
+        for (;;) {
+            int ch = peekByte() ;
+            if ( !isA2ZN(ch) )
+                return ;
+            advance() ;
+            appendChar((char)ch) ;
+        }
+    }
+
+    private void skip() {
+        for (;;) {
+            int ch = peekByte() ;
+            if ( ch == CH_HASH ) {
+                advance() ;
+                // Comment. Skip to NL
+                for (;;) {
+                    ch = peekByte() ;
+                    if ( ch == EOF || isNewlineChar(ch) )
+                        break ;
+                    advance() ;
+                }
+            }
+            if ( ch == EOF || !isWhitespace(ch) )
+                return ;
+            advance() ;
+        }
+    }
+
+    // ---- Escape sequences
+
+    private int readLiteralEscape() {
+        int c = readCodepoint() ;
+        if ( c == EOF )
+            exception("Escape sequence not completed") ;
+
+        switch (c) {
+            case 'n':   return NL ;
+            case 'r':   return CR ;
+            case 't':   return '\t' ;
+            case 'f':   return '\f' ;
+            case 'b':   return BSPACE ;
+            case '"':   return '"' ;
+            case '\'':  return '\'' ;
+            case '\\':  return '\\' ;
+            case 'u':   return readHexSequence(4) ;
+            case 'U':   return readUnicode8Escape() ;
+            default:
+                exception("Illegal escape sequence value: %c (0x%02X)", c, c) ;
+                return 0 ;
+        }
+    }
+
+    // Read a unicode escape : does not allow \\ bypass
+    private int readUnicodeEscape() {
+        int ch = readCodepoint() ;
+        if ( ch == EOF )
+            exception("Broken escape sequence") ;
+
+        switch (ch) {
+            case 'u': return readHexSequence(4) ;
+            case 'U': return readUnicode8Escape() ;
+            default:
+                exception("Illegal unicode escape sequence value: \\%c (0x%02X)", ch, ch) ;
+        }
+        return 0 ;
+    }
+
+    private int readUnicode8Escape() {
+        int ch8 = readHexSequence(8) ;
+        if ( ch8 > Character.MAX_CODE_POINT )
+            exception("Illegal code point in \\U sequence value: 0x%08X", ch8) ;
+        return ch8 ;
+    }
+
+    private int readHexSequence(int N) {
+        int x = 0 ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            int ch = readCodepoint() ;
+            if ( ch == EOF )
+                exception("Not a hexadecimal character (end of file)") ;
+            int d = valHexChar(ch) ;
+            if ( d < 0 )
+                exception("Not a hexadecimal character: " + (char)ch) ;
+            x = (x << 4) + d ;
+        }
+        return x ;
+    }
+
+    private void expect(String str) {
+        for ( int i = 0 ; i < str.length() ; i++ ) {
+            int ch = peekByte() ;
+            if ( ch == EOF )
+                exception("End of input during expected string: " + str) ;
+            if ( ch != str.charAt(i) )
+                exception("expected \"" + str + "\"") ;
+            advance() ;
+        }
+    }
+
+    // ---- Characters
+
+    private void appendChar(char ch) {
+        if ( len == chars.length )
+            chars = Arrays.copyOf(chars, 2*len) ;
+        chars[len++] = ch ;
+    }
+
+    private void appendCodepoint(int ch) {
+        if ( ch <= 0xFFFF ) {
+            appendChar((char)ch) ;
+            return ;
+        }
+        if ( !Character.isSupplementaryCodePoint(ch) )
+            exception("Illegal codepoint: 0x%04X", ch) ;
+        appendChar(Character.highSurrogate(ch)) ;
+        appendChar(Character.lowSurrogate(ch)) ;
+    }
+
+    private String string() {
+        return new String(chars, 0, len) ;
+    }
+
+    /** The string for the characters collected, reusing a previous string if possible. */
+    private String cached() {
+        int h = 0 ;
+        for ( int i = 0 ; i < len ; i++ )
+            h = 31*h + chars[i] ;
+        int idx = (h ^ (h >>> 16)) & (CacheSize-1) ;
+        String s = cache[idx] ;
+        if ( s != null && s.length() == len && s.hashCode() == h && sameChars(s) )
+            return s ;
+        s = string() ;
+        cache[idx] = s ;
+        return s ;
+    }
+
+    private boolean sameChars(String s) {
+        for ( int i = 0 ; i < len ; i++ ) {
+            if ( s.charAt(i) != chars[i] )
+                return false ;
+        }
+        return true ;
+    }
+
+    // ---- Bytes
+
+    /** Next byte, not consumed, or EOF */
+    private int peekByte() {
+        if ( pos < limit || ensure(1) )
+            return buffer[pos] & 0xFF ;
+        return EOF ;
+    }
+
+    /** Consume one byte. */
+    private void advance() {
+        byte b = buffer[pos++] ;
+        if ( b == '\n' ) {
+            line++ ;
+            col = INIT_COL ;
+        } else if ( (b & 0xC0) != 0x80 )
+            // Not a UTF-8 continuation byte.
+            col++ ;
+    }
+
+    private int readCodepoint() {
+        int ch = codepointAt(0) ;
+        if ( ch != EOF )
+            consumeCodepoint(ch) ;
+        return ch ;
+    }
+
+    private void consumeCodepoint(int ch) {
+        if ( ch == NL ) {
+            advance() ;
+            return ;
+        }
+        pos += cpLength ;
+        col += ( ch > 0xFFFF ) ? 2 : 1 ;
+    }
+
+    /** Decode the codepoint starting i bytes ahead, or EOF. Sets cpLength. */
+    private int codepointAt(int i) {
+        if ( !ensure(i+1) )
+            return EOF ;
+        int b = buffer[pos+i] & 0xFF ;
+        if ( b < 0x80 ) {
+            cpLength = 1 ;
+            return b ;
+        }
+        int n ;
+        int cp ;
+        int min ;
+        if ( (b & 0xE0) == 0xC0 ) {
+            n = 1 ; cp = b & 0x1F ; min = 0x80 ;
+        } else if ( (b & 0xF0) == 0xE0 ) {
+            n = 2 ; cp = b & 0x0F ; min = 0x800 ;
+        } else if ( (b & 0xF8) == 0xF0 ) {
+            n = 3 ; cp = b & 0x07 ; min = 0x10000 ;
+        } else
+            throw badEncoding() ;
+        if ( !ensure(i+n+1) )
+            throw badEncoding() ;
+        for ( int j = 1 ; j <= n ; j++ ) {
+            int x = buffer[pos+i+j] & 0xFF ;
+            if ( (x & 0xC0) != 0x80 )
+                throw badEncoding() ;
+            cp = (cp << 6) | (x & 0x3F) ;
+        }
+        if ( cp < min || cp > Character.MAX_CODE_POINT || ( cp >= 0xD800 && cp <= 0xDFFF ) )
+            throw badEncoding() ;
+        cpLength = n+1 ;
+        return cp ;
+    }
+
+    private void skipBOM() {
+        // As PeekReader, the BOM counts as a column.
+        if ( ensure(3) && buffer[pos] == (byte)0xEF && buffer[pos+1] == (byte)0xBB && buffer[pos+2] == (byte)0xBF ) {
+            pos += 3 ;
+            col++ ;
+        }
+    }
+
+    /** Make at least n bytes available, unless at the end of the input. */
+    private boolean ensure(int n) {
+        while ( limit-pos < n ) {
+            if ( exhausted )
+                return false ;
+            if ( pos > 0 ) {
+                System.arraycopy(buffer, pos, buffer, 0, limit-pos) ;
+                limit -= pos ;
+                pos = 0 ;
+            }
+            if ( limit == buffer.length )
+                buffer = Arrays.copyOf(buffer, 2*buffer.length) ;
+            int x = fill(buffer, limit, buffer.length-limit) ;
+            if ( x < 0 )
+                exhausted = true ;
+            else
+                limit += x ;
+        }
+        return true ;
+    }
+
+    private int fill(byte[] bytes, int offset, int length) {
+        if ( input != null ) {
+            try { return input.read(bytes, offset, length) ; }
+            catch (IOException ex) { IO.exception(ex) ; return -1 ; }
+        }
+        int x = Math.min(length, source.remaining()) ;
+        if ( x == 0 )
+            return -1 ;
+        source.get(bytes, offset, x) ;
+        return x ;
+    }
+
+    // ---- Errors
+
+    private RiotParseException badEncoding() {
+        return new RiotParseException("Bad character encoding", line, col) ;
+    }
+
+    private void exception(String message, Object... args) {
+        if ( args.length > 0 )
+            message = String.format(message, args) ;
+        exception$(message, line, col) ;
+    }
+
+    private static void exception$(String message, long line, long col) {
+        throw new RiotParseException(message, line, col) ;
+    }
+}
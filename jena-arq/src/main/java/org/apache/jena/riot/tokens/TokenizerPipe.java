@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens;
+
+import java.util.NoSuchElementException ;
+import java.util.concurrent.* ;
+
+import org.apache.jena.atlas.lib.ThreadLib ;
+import org.apache.jena.riot.RiotException ;
+
+/**
+ * A tokenizer that runs another tokenizer on a separate thread, passing tokens
+ * over in batches through a bounded buffer. The parser reading from this
+ * tokenizer overlaps with the work of tokenizing.
+ * <p>
+ * Errors from the underlying tokenizer are rethrown at the point in the token
+ * stream where they happened.
+ */
+public class TokenizerPipe implements Tokenizer
+{
+    private static final int BatchSize  = 1000 ;
+    private static final int QueueSize  = 16 ;
+
+    private static final ExecutorService executor = ThreadLib.daemonExecutor() ;
+
+    private static class Batch {
+        final Token[] tokens = new Token[BatchSize] ;
+        int size = 0 ;
+        boolean last = false ;
+        RuntimeException error = null ;
+        // Position at the end of the batch.
+        long line ;
+        long col ;
+    }
+
+    private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QueueSize) ;
+    private volatile boolean closed = false ;
+    private Batch batch = null ;
+    private int idx = 0 ;
+    private long line = 1 ;
+    private long col = 1 ;
+
+    public TokenizerPipe(Tokenizer tokenizer) {
+        executor.submit(()->produce(tokenizer)) ;
+    }
+
+    private void produce(Tokenizer tokenizer) {
+        try {
+            for (;;) {
+                Batch b = new Batch() ;
+                try {
+                    while ( b.size < BatchSize && tokenizer.hasNext() )
+                        b.tokens[b.size++] = tokenizer.next() ;
+                    b.last = ( b.size < BatchSize ) ;
+                } catch (RuntimeException ex) {
+                    b.error = ex ;
+                    b.last = true ;
+                }
+                b.line = tokenizer.getLine() ;
+                b.col = tokenizer.getColumn() ;
+                while ( !queue.offer(b, 100, TimeUnit.MILLISECONDS) ) {
+                    if ( closed )
+                        return ;
+                }
+                if ( b.last )
+                    return ;
+            }
+        } catch (InterruptedException ex) {
+            // Stop.
+        } finally {
+            tokenizer.close() ;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        for (;;) {
+            if ( batch != null ) {
+                if ( idx < batch.size )
+                    return true ;
+                if ( batch.error != null ) {
+                    RuntimeException ex = batch.error ;
+                    batch.error = null ;
+                    throw ex ;
+                }
+                if ( batch.last )
+                    return false ;
+            }
+            try { batch = queue.take() ; }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt() ;
+                throw new RiotException("Interrupted while tokenizing", ex) ;
+            }
+            idx = 0 ;
+            line = batch.line ;
+            col = batch.col ;
+        }
+    }
+
+    @Override
+    public Token next() {
+        if ( !hasNext() )
+            throw new NoSuchElementException() ;
+        return batch.tokens[idx++] ;
+    }
+
+    @Override
+    public Token peek() {
+        if ( !hasNext() )
+            return null ;
+        return batch.tokens[idx] ;
+    }
+
+    @Override
+    public boolean eof() {
+        return !hasNext() ;
+    }
+
+    /** Position after the tokens delivered so far, to the granularity of a batch. */
+    @Override
+    public long getLine()       { return line ; }
+
+    @Override
+    public long getColumn()     { return col ; }
+
+    @Override
+    public void remove()        { throw new UnsupportedOperationException() ; }
+
+    @Override
+    public void close() {
+        closed = true ;
+        queue.clear() ;
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.jena.sparql.SystemARQ ;
 import org.apache.jena.sparql.algebra.* ;
 import org.apache.jena.sparql.algebra.op.OpLabel ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.sparql.util.Symbol ;
 import org.slf4j.Logger ;
@@ -210,6 +211,13 @@ public class Optimize implements Rewrite
         // Find joins/leftJoin that can be done by index joins (generally preferred as fixed memory overhead).
         if ( context.isTrueOrUndef(ARQ.optIndexJoinStrategy) )
             op = apply("Index Join strategy", new TransformJoinStrategy(), op) ;
+
+        // Cost-based join order and join strategy. Before filter placement, which follows the order of patterns.
+        if ( context.isTrue(ARQ.optCostBasedJoinOrder) ) {
+            Object stats = context.get(ARQ.costStats) ;
+            if ( stats instanceof CostStats )
+                op = apply("Cost-based join order", new TransformJoinCost((CostStats)stats), op) ;
+        }
                 
         // Place filters close to where their dependency variables are defined.
         // This prunes the output of that step as early as possible.
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.algebra.optimize;
+
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.TransformCopy ;
+import org.apache.jena.sparql.algebra.op.* ;
+import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.main.JoinClassifier ;
+import org.apache.jena.sparql.engine.optimizer.CostModel ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderCost ;
+
+/** Cost-based join ordering and join strategy.
+ * <ul>
+ * <li>Basic graph patterns are reordered by {@link ReorderCost}, taking account of
+ *     range filters directly over the pattern.</li>
+ * <li>Each step of a (sequence), as made by {@link TransformJoinStrategy},
+ *     becomes a hash (join) if the {@link CostModel} estimates that evaluating
+ *     the step once and joining is cheaper than evaluating it for every row so far.</li>
+ * </ul>
+ * Run after {@link TransformJoinStrategy} and before filter placement.
+ */
+public class TransformJoinCost extends TransformCopy
+{
+    private final CostModel model ;
+
+    public TransformJoinCost(CostStats stats)
+    {
+        this(new CostModel(stats)) ;
+    }
+
+    public TransformJoinCost(CostModel model)
+    {
+        this.model = model ;
+    }
+
+    @Override
+    public Op transform(OpBGP opBGP)
+    {
+        BasicPattern pattern = opBGP.getPattern() ;
+        if ( pattern.size() < 2 )
+            return opBGP ;
+        return new OpBGP(new ReorderCost(model).reorder(pattern)) ;
+    }
+
+    @Override
+    public Op transform(OpQuadPattern opQuadPattern)
+    {
+        BasicPattern pattern = opQuadPattern.getBasicPattern() ;
+        if ( pattern.size() < 2 )
+            return opQuadPattern ;
+        return new OpQuadPattern(opQuadPattern.getGraphNode(), new ReorderCost(model).reorder(pattern)) ;
+    }
+
+    @Override
+    public Op transform(OpFilter opFilter, Op subOp)
+    {
+        if ( subOp instanceof OpBGP && ((OpBGP)subOp).getPattern().size() >= 2 )
+        {
+            BasicPattern pattern = ((OpBGP)subOp).getPattern() ;
+            Map<Var, Double> selectivity = model.selectivity(opFilter.getExprs(), pattern.getList()) ;
+            if ( ! selectivity.isEmpty() )
+                subOp = new OpBGP(new ReorderCost(model, selectivity).reorder(pattern)) ;
+        }
+        return super.transform(opFilter, subOp) ;
+    }
+
+    @Override
+    public Op transform(OpSequence opSequence, List<Op> elts)
+    {
+        if ( elts.size() < 2 )
+            return super.transform(opSequence, elts) ;
+        boolean changed = false ;
+        List<Op> current = new ArrayList<>() ;
+        current.add(elts.get(0)) ;
+        for ( int i = 1 ; i < elts.size() ; i++ )
+        {
+            Op left = asOp(current) ;
+            Op right = elts.get(i) ;
+            double indexJoin = model.indexJoinCost(left, right, Collections.emptySet()) ;
+            double hashJoin = model.hashJoinCost(left, right, Collections.emptySet()) ;
+            if ( hashJoin < indexJoin && JoinClassifier.isLinear(left, right) )
+            {
+                current.clear() ;
+                current.add(OpJoin.create(left, right)) ;
+                changed = true ;
+            }
+            else
+                current.add(right) ;
+        }
+        if ( ! changed )
+            return super.transform(opSequence, elts) ;
+        return asOp(current) ;
+    }
+
+    private static Op asOp(List<Op> ops)
+    {
+        if ( ops.size() == 1 )
+            return ops.get(0) ;
+        OpSequence seq = OpSequence.create() ;
+        ops.forEach(seq::add) ;
+        return seq ;
+    }
+}
@@ -77,16 +77,21 @@ public class ExecutionContext implements FunctionEnv
 //    public ExecutionContext getExecutionContext()       { return this ; }
 
     
+    // Synchronized : with parallel execution, iterators are opened and closed on several threads.
     public void openIterator(QueryIterator qIter)
     {
-        openIterators.add(qIter) ;
-        if ( allIterators != null )
-            allIterators.add(qIter) ;
+        synchronized(openIterators) {
+            openIterators.add(qIter) ;
+            if ( allIterators != null )
+                allIterators.add(qIter) ;
+        }
     }
 
     public void closedIterator(QueryIterator qIter)
     {
-        openIterators.remove(qIter) ;
+        synchronized(openIterators) {
+            openIterators.remove(qIter) ;
+        }
     }
 
     public Iterator<QueryIterator> listOpenIterators()  { return openIterators.iterator() ; }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.binding;
+
+import java.io.BufferedInputStream ;
+import java.io.DataInputStream ;
+import java.io.EOFException ;
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.apache.jena.atlas.iterator.IteratorSlotted ;
+import org.apache.jena.datatypes.RDFDatatype ;
+import org.apache.jena.datatypes.TypeMapper ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.sparql.core.Var ;
+
+/** Read bindings written by {@link BindingBinaryOutputStream}. */
+public class BindingBinaryInputStream extends IteratorSlotted<Binding>
+{
+    private final DataInputStream in ;
+    private final List<Var> vars = new ArrayList<>() ;
+    private final List<RDFDatatype> datatypes = new ArrayList<>() ;
+    private byte[] buffer = new byte[256] ;
+
+    public BindingBinaryInputStream(InputStream in)
+    {
+        this.in = new DataInputStream(new BufferedInputStream(in, 128*1024)) ;
+    }
+
+    @Override
+    protected Binding moveToNext()
+    {
+        try {
+            int b = in.read() ;
+            if ( b < 0 )
+                // End of input.
+                return null ;
+            int n = readInt(b) ;
+            BindingMap binding = BindingFactory.create() ;
+            for ( int i = 0 ; i < n ; i++ )
+            {
+                int id = readInt(readByte()) ;
+                if ( id == vars.size() )
+                    vars.add(Var.alloc(readString())) ;
+                Node node = readNode() ;
+                // Undefined: leave unbound.
+                if ( node != null )
+                    binding.add(vars.get(id), node) ;
+            }
+            return binding ;
+        } catch (IOException ex) { throw new AtlasException(ex) ; }
+    }
+
+    @Override
+    protected boolean hasMore()
+    {
+        return true ;
+    }
+
+    private Node readNode() throws IOException
+    {
+        int kind = readByte() ;
+        switch (kind)
+        {
+            case BindingBinaryOutputStream.UNDEF :
+                return null ;
+            case BindingBinaryOutputStream.URI :
+                return NodeFactory.createURI(readString()) ;
+            case BindingBinaryOutputStream.BNODE :
+                return NodeFactory.createBlankNode(readString()) ;
+            case BindingBinaryOutputStream.STRING :
+                return NodeFactory.createLiteral(readString()) ;
+            case BindingBinaryOutputStream.LANG_STRING : {
+                String lex = readString() ;
+                return NodeFactory.createLiteral(lex, readString()) ;
+            }
+            case BindingBinaryOutputStream.TYPED_LITERAL : {
+                String lex = readString() ;
+                int id = readInt(readByte()) ;
+                if ( id == datatypes.size() )
+                    datatypes.add(TypeMapper.getInstance().getSafeTypeByName(readString())) ;
+                return NodeFactory.createLiteral(lex, datatypes.get(id)) ;
+            }
+            default :
+                throw new AtlasException("Bad node kind: "+kind) ;
+        }
+    }
+
+    private int readByte() throws IOException
+    {
+        int b = in.read() ;
+        if ( b < 0 )
+            throw new EOFException() ;
+        return b ;
+    }
+
+    // First byte already read.
+    private int readInt(int b) throws IOException
+    {
+        int x = b & 0x7F ;
+        int shift = 7 ;
+        while ( ( b & 0x80 ) != 0 )
+        {
+            b = readByte() ;
+            x |= ( b & 0x7F ) << shift ;
+            shift += 7 ;
+        }
+        return x ;
+    }
+
+    private String readString() throws IOException
+    {
+        int len = readInt(readByte()) ;
+        if ( len > buffer.length )
+            buffer = new byte[Math.max(len, 2*buffer.length)] ;
+        in.readFully(buffer, 0, len) ;
+        return new String(buffer, 0, len, StandardCharsets.UTF_8) ;
+    }
+
+    @Override
+    protected void closeIterator()
+    {
+        try { in.close() ; }
+        catch (IOException ex) { throw new AtlasException(ex) ; }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.binding;
+
+import java.io.BufferedOutputStream ;
+import java.io.DataOutputStream ;
+import java.io.IOException ;
+import java.io.OutputStream ;
+import java.nio.charset.StandardCharsets ;
+import java.util.HashMap ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.Sink ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.util.FmtUtils ;
+
+/** Write bindings in a compact binary form, for temporary files such as
+ *  the spill files of data bags. Read with {@link BindingBinaryInputStream}.
+ * <p>
+ * The format is not a stable or exchange format.
+ * <ul>
+ * <li>A row is the number of variables, then for each variable its number
+ *     followed by its value; a variable with no value (undefined) is written with
+ *     the UNDEF kind and no value.</li>
+ * <li>A variable is given the next number the first time it is used and
+ *     its name follows its number.</li>
+ * <li>Datatype IRIs are numbered in the same way.</li>
+ * <li>Numbers are variable length integers; strings are the length of the UTF-8 bytes, then the bytes.</li>
+ * </ul>
+ */
+public class BindingBinaryOutputStream implements Sink<Binding>
+{
+    // Node kinds.
+    static final int UNDEF          = 0 ;
+    static final int URI            = 1 ;
+    static final int BNODE          = 2 ;
+    static final int STRING         = 3 ;
+    static final int LANG_STRING    = 4 ;
+    static final int TYPED_LITERAL  = 5 ;
+
+    private final DataOutputStream out ;
+    private final Map<Var, Integer> vars = new HashMap<>() ;
+    private final Map<String, Integer> datatypes = new HashMap<>() ;
+
+    public BindingBinaryOutputStream(OutputStream out)
+    {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 128*1024)) ;
+    }
+
+    @Override
+    public void send(Binding binding)
+    {
+        try {
+            // The number of entries written, which need not be binding.size().
+            List<Var> vs = Iter.toList(binding.vars()) ;
+            writeInt(vs.size()) ;
+            for ( Var v : vs )
+            {
+                Integer id = vars.get(v) ;
+                if ( id == null )
+                {
+                    id = vars.size() ;
+                    vars.put(v, id) ;
+                    writeInt(id) ;
+                    writeString(v.getVarName()) ;
+                }
+                else
+                    writeInt(id) ;
+                writeNode(binding.get(v)) ;
+            }
+        } catch (IOException ex) { throw new AtlasException(ex) ; }
+    }
+
+    private void writeNode(Node node) throws IOException
+    {
+        if ( node == null )
+            out.write(UNDEF) ;
+        else if ( node.isURI() )
+        {
+            out.write(URI) ;
+            writeString(node.getURI()) ;
+        }
+        else if ( node.isBlank() )
+        {
+            out.write(BNODE) ;
+            writeString(node.getBlankNodeLabel()) ;
+        }
+        else if ( node.isLiteral() )
+        {
+            String lang = node.getLiteralLanguage() ;
+            String dt = node.getLiteralDatatypeURI() ;
+            if ( lang != null && ! lang.isEmpty() )
+            {
+                out.write(LANG_STRING) ;
+                writeString(node.getLiteralLexicalForm()) ;
+                writeString(lang) ;
+            }
+            else if ( dt == null || dt.equals(STRING_DT) )
+            {
+                out.write(STRING) ;
+                writeString(node.getLiteralLexicalForm()) ;
+            }
+            else
+            {
+                out.write(TYPED_LITERAL) ;
+                writeString(node.getLiteralLexicalForm()) ;
+                Integer id = datatypes.get(dt) ;
+                if ( id == null )
+                {
+                    id = datatypes.size() ;
+                    datatypes.put(dt, id) ;
+                    writeInt(id) ;
+                    writeString(dt) ;
+                }
+                else
+                    writeInt(id) ;
+            }
+        }
+        else
+            throw new AtlasException("Can't write node: "+FmtUtils.stringForNode(node)) ;
+    }
+
+    private static final String STRING_DT = "http://www.w3.org/2001/XMLSchema#string" ;
+
+    private void writeString(String s) throws IOException
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8) ;
+        writeInt(bytes.length) ;
+        out.write(bytes) ;
+    }
+
+    // Variable length, 7 bits per byte, high bit set for "more".
+    private void writeInt(int x) throws IOException
+    {
+        while ( ( x & ~0x7F ) != 0 )
+        {
+            out.write(( x & 0x7F ) | 0x80) ;
+            x >>>= 7 ;
+        }
+        out.write(x) ;
+    }
+
+    @Override
+    public void flush()
+    {
+        try { out.flush() ; }
+        catch (IOException ex) { throw new AtlasException(ex) ; }
+    }
+
+    @Override
+    public void close()
+    {
+        try { out.close() ; }
+        catch (IOException ex) { throw new AtlasException(ex) ; }
+    }
+}
@@ -19,15 +19,23 @@
 package org.apache.jena.sparql.engine.http;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.jena.atlas.io.IO;
+import org.apache.jena.graph.Node ;
 import org.apache.jena.query.Query ;
 import org.apache.jena.query.QueryExecException ;
 import org.apache.jena.query.ResultSet ;
 import org.apache.jena.query.ResultSetFactory ;
+import org.apache.jena.riot.ResultSetMgr ;
+import org.apache.jena.riot.WebContent ;
+import org.apache.jena.riot.resultset.ResultSetLang ;
 import org.apache.jena.sparql.SystemARQ ;
 import org.apache.jena.sparql.algebra.Op ;
 import org.apache.jena.sparql.algebra.OpAsQuery ;
@@ -36,7 +44,11 @@ import org.apache.jena.sparql.algebra.op.OpService ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.Rename ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.binding.BindingMap ;
 import org.apache.jena.sparql.engine.iterator.QueryIter ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorResultSet ;
 import org.apache.jena.sparql.mgt.Explain ;
 import org.apache.jena.sparql.util.Context ;
@@ -101,6 +113,47 @@ public class Service {
      */
     public static final Symbol queryTimeout = SystemARQ.allocSymbol(base, "queryTimeout");
 
+    /**
+     * Number of incoming bindings sent to the remote endpoint in one request.
+     * The bindings are sent as a VALUES block and the results joined back
+     * locally. A value of 1 or less (the default) sends one request per
+     * binding with the binding substituted into the remote query.
+     */
+    public static final Symbol serviceBulkBindings = SystemARQ.allocSymbol(base, "serviceBulkBindings");
+
+    /**
+     * Maximum number of bulk requests in progress at the same time for one
+     * SERVICE operator. Only used when {@link #serviceBulkBindings} is set.
+     * Default 1.
+     */
+    public static final Symbol serviceBulkParallelism = SystemARQ.allocSymbol(base, "serviceBulkParallelism");
+
+    /**
+     * Stream the results of the remote request into the local execution as
+     * they are needed, instead of reading the whole response first. The HTTP
+     * connection is held open until the results are consumed or the query
+     * iterator closed, so a SERVICE call back into the same server can
+     * deadlock. Default false.
+     */
+    public static final Symbol serviceStreaming = SystemARQ.allocSymbol(base, "serviceStreaming");
+
+    /**
+     * Ask for results in the binary Thrift format (as provided by Fuseki),
+     * with XML as the fallback. Default false.
+     */
+    public static final Symbol serviceResultsThrift = SystemARQ.allocSymbol(base, "serviceResultsThrift");
+
+    /**
+     * A {@link ServiceResultCache} for the results of SERVICE requests.
+     * Repeated requests with the same query, including any incoming bindings,
+     * to the same endpoint are answered from the cache. The entry count and
+     * time-to-live are set when the cache is created.
+     */
+    public static final Symbol serviceCache = SystemARQ.allocSymbol(base, "serviceCache");
+
+    private static final String acceptThrift = WebContent.contentTypeResultsThrift + ", "
+                                               + WebContent.contentTypeResultsXML + ";q=0.9";
+
     /**
      * Executes a service operator
      * 
@@ -111,6 +164,23 @@ public class Service {
      * @return Query iterator of service results
      */
     public static QueryIterator exec(OpService op, Context context) {
+        return exec(op, null, context);
+    }
+
+    /**
+     * Executes a service operator for a block of bindings. The bindings are
+     * sent as a VALUES block of the remote query. The results are not joined
+     * with the bindings; that is left to the caller.
+     * 
+     * @param op
+     *            Service
+     * @param bindings
+     *            Bindings to send, or null
+     * @param context
+     *            Context
+     * @return Query iterator of service results
+     */
+    public static QueryIterator exec(OpService op, List<Binding> bindings, Context context) {
         if ( context != null && context.isFalse(serviceAllowed) )
             throw new QueryExecException("SERVICE execution disabled") ;
         
@@ -126,32 +196,11 @@ public class Service {
         // values.
         Op opRemote = Rename.reverseVarRename(op.getSubOp(), true);
 
-        // JENA-494 There is a bug here that the renaming means that if this is
-        // deeply nested and joined to other things at the same level of you end
-        // up with the variables being disjoint and the same results
-        // The naive fix for this is to map the variables visible in the inner
-        // operator to those visible in the rewritten operator
-        // There may be some cases where the re-mapping is incorrect due to
-        // deeply nested SERVICE clauses
-        Map<Var, Var> varMapping = new HashMap<>();
-        Set<Var> originalVars = OpVars.visibleVars(op);
-        Set<Var> remoteVars = OpVars.visibleVars(opRemote);
-
+        Map<Var, Var> varMapping = varMapping(op, opRemote);
         boolean requiresRemapping = false;
-        for (Var v : originalVars) {
-            if (v.getName().contains("/")) {
-                // A variable which was scope renamed so has a different name
-                String origName = v.getName().substring(v.getName().lastIndexOf('/') + 1);
-                Var remoteVar = Var.alloc(origName);
-                if (remoteVars.contains(remoteVar)) {
-                    varMapping.put(remoteVar, v);
-                    requiresRemapping = true;
-                }
-            } else {
-                // A variable which does not have a different name
-                if (remoteVars.contains(v))
-                    varMapping.put(v, v);
-            }
+        for (Map.Entry<Var, Var> e : varMapping.entrySet()) {
+            if (!e.getKey().equals(e.getValue()))
+                requiresRemapping = true;
         }
 
         // Explain.explain("HTTP", opRemote, context) ;
@@ -176,47 +225,168 @@ public class Service {
 //        else
         //@formatter:on
         query = OpAsQuery.asQuery(opRemote);
+        if (bindings != null)
+            setValues(query, bindings, varMapping);
 
         Explain.explain("HTTP", query, context);
         String uri = op.getService().getURI();
-        HttpQuery httpQuery = configureQuery(uri, context, query);
+        Context serviceCxt = serviceContext(uri, context);
+        ServiceResultCache cache = resultCache(serviceCxt);
+        String cacheKey = null;
+        QueryIterator qIter;
+        if (cache != null) {
+            cacheKey = ServiceResultCache.key(uri, serviceCxt, query);
+            List<Binding> rows = cache.get(cacheKey);
+            if (rows != null)
+                qIter = new QueryIterPlainWrapper(rows.iterator());
+            else
+                qIter = execCached(uri, serviceCxt, query, cache, cacheKey);
+        } else
+            qIter = execRemote(uri, serviceCxt, query);
+
+        // In some cases we may need to apply a re-mapping
+        // This solves JENA-494 the naive way and may be brittle for complex
+        // nested SERVICE clauses
+        if (requiresRemapping) {
+            qIter = QueryIter.map(qIter, varMapping);
+        }
+
+        return qIter;
+    }
+
+    /** Make the request, streaming or materializing the results. */
+    private static QueryIterator execRemote(String uri, Context serviceCxt, Query query) {
+        HttpQuery httpQuery = configureQuery(uri, serviceCxt, query);
         InputStream in = httpQuery.exec();
+        ResultSet rs;
+        try {
+            rs = readResults(in, httpQuery.getContentType());
+        } catch (RuntimeException ex) {
+            IO.close(in);
+            throw ex;
+        }
 
+        if (serviceCxt.isTrue(serviceStreaming)) {
+            // Rows are read from the connection as the consumer asks for them.
+            return new QueryIterStreamResults(rs, in);
+        }
         // Read the whole of the results now.
         // Avoids the problems with calling back into the same system e.g.
         // Fuseki+SERVICE <http://localhost:3030/...>
-
-        ResultSet rs = ResultSetFactory.fromXML(in);
         QueryIterator qIter = QueryIter.materialize(new QueryIteratorResultSet(rs));
         // And close connection now, not when qIter is closed.
         IO.close(in);
+        return qIter;
+    }
 
-        // In some cases we may need to apply a re-mapping
-        // This solves JENA-494 the naive way and may be brittle for complex
-        // nested SERVICE clauses
-        if (requiresRemapping) {
-            qIter = QueryIter.map(qIter, varMapping);
+    /** Make the request and record the results. Results for the cache are always read fully. */
+    private static QueryIterator execCached(String uri, Context serviceCxt, Query query, ServiceResultCache cache, String cacheKey) {
+        HttpQuery httpQuery = configureQuery(uri, serviceCxt, query);
+        InputStream in = httpQuery.exec();
+        List<Binding> rows = new ArrayList<>();
+        try {
+            ResultSet rs = readResults(in, httpQuery.getContentType());
+            while (rs.hasNext())
+                rows.add(rs.nextBinding());
+        } finally {
+            IO.close(in);
         }
+        cache.put(cacheKey, rows);
+        return new QueryIterPlainWrapper(rows.iterator());
+    }
 
-        return qIter;
+    private static ServiceResultCache resultCache(Context context) {
+        Object obj = context.get(serviceCache);
+        if (obj == null)
+            return null;
+        if (obj instanceof ServiceResultCache)
+            return (ServiceResultCache) obj;
+        throw new QueryExecException("Not a ServiceResultCache: " + obj);
     }
 
     /**
-     * Create and configure the HttpQuery object.
-     * 
-     * The parentContext is not modified but is used to create a new context
-     * copy.
-     * 
-     * @param uri
-     *            The uri of the endpoint
-     * @param parentContext
-     *            The initial context.
-     * @param Query
-     *            the Query to execute.
-     * @return An HttpQuery configured as per the context.
+     * The variables of the service operator that are visible in the remote
+     * query. These are the variables that can be sent as a VALUES block.
      */
-    private static HttpQuery configureQuery(String uri, Context parentContext, Query query) {
-        HttpQuery httpQuery = new HttpQuery(uri);
+    public static Set<Var> remoteVars(OpService op) {
+        Op opRemote = Rename.reverseVarRename(op.getSubOp(), true);
+        return new HashSet<>(varMapping(op, opRemote).values());
+    }
+
+    /** Mapping from remote variable to local variable. */
+    private static Map<Var, Var> varMapping(OpService op, Op opRemote) {
+        // JENA-494 There is a bug here that the renaming means that if this is
+        // deeply nested and joined to other things at the same level of you end
+        // up with the variables being disjoint and the same results
+        // The naive fix for this is to map the variables visible in the inner
+        // operator to those visible in the rewritten operator
+        // There may be some cases where the re-mapping is incorrect due to
+        // deeply nested SERVICE clauses
+        Map<Var, Var> varMapping = new HashMap<>();
+        Set<Var> originalVars = OpVars.visibleVars(op);
+        Set<Var> remoteVars = OpVars.visibleVars(opRemote);
+
+        for (Var v : originalVars) {
+            if (v.getName().contains("/")) {
+                // A variable which was scope renamed so has a different name
+                String origName = v.getName().substring(v.getName().lastIndexOf('/') + 1);
+                Var remoteVar = Var.alloc(origName);
+                if (remoteVars.contains(remoteVar)) {
+                    varMapping.put(remoteVar, v);
+                }
+            } else {
+                // A variable which does not have a different name
+                if (remoteVars.contains(v))
+                    varMapping.put(v, v);
+            }
+        }
+        return varMapping;
+    }
+
+    /**
+     * Add the bindings as the VALUES block of the remote query. The mapping is
+     * from remote variable to local variable. Only variables visible in the
+     * remote query are sent. Blank nodes can not be written in VALUES so these
+     * are sent as UNDEF, the local join rejects any mismatches.
+     * <p>
+     * Duplicate rows are sent once. Callers joining the results back should
+     * only send bindings that bind the same variables so that each remote
+     * result comes from exactly one row.
+     */
+    /*package*/ static void setValues(Query query, List<Binding> bindings, Map<Var, Var> varMapping) {
+        List<Var> vars = new ArrayList<>();
+        for (Map.Entry<Var, Var> e : varMapping.entrySet()) {
+            for (Binding b : bindings) {
+                Node n = b.get(e.getValue());
+                if (n != null && !n.isBlank()) {
+                    vars.add(e.getKey());
+                    break;
+                }
+            }
+        }
+        // No variables in common: the remote results are the same for every
+        // binding. A VALUES block with no variables would repeat them.
+        if (vars.isEmpty())
+            return;
+        Set<Binding> rows = new LinkedHashSet<>();
+        for (Binding b : bindings) {
+            BindingMap row = BindingFactory.create();
+            for (Var v : vars) {
+                Node n = b.get(varMapping.get(v));
+                if (n != null && !n.isBlank())
+                    row.add(v, n);
+            }
+            rows.add(row);
+        }
+        query.setValuesDataBlock(vars, new ArrayList<>(rows));
+    }
+
+    /**
+     * The context for a request to a service: the given context with any
+     * settings for the service IRI from {@link #serviceContext} applied.
+     * The parentContext is not modified.
+     */
+    private static Context serviceContext(String uri, Context parentContext) {
         Context context = new Context(parentContext);
 
         // add the context settings from the service context
@@ -227,12 +397,30 @@ public class Service {
             if (serviceContext != null)
                 context.putAll(serviceContext);
         }
+        return context;
+    }
+
+    /**
+     * Create and configure the HttpQuery object.
+     * 
+     * @param uri
+     *            The uri of the endpoint
+     * @param context
+     *            The context for the service.
+     * @param Query
+     *            the Query to execute.
+     * @return An HttpQuery configured as per the context.
+     */
+    private static HttpQuery configureQuery(String uri, Context context, Query query) {
+        HttpQuery httpQuery = new HttpQuery(uri);
 
         // configure the query object.
         httpQuery.merge(QueryEngineHTTP.getServiceParams(uri, context));
         httpQuery.addParam(HttpParams.pQuery, query.toString());
         httpQuery.setAllowGZip(context.isTrueOrUndef(queryGzip));
         httpQuery.setAllowDeflate(context.isTrueOrUndef(queryDeflate));
+        if (context.isTrue(serviceResultsThrift))
+            httpQuery.setAccept(acceptThrift);
 
         String user = context.getAsString(queryAuthUser);
         String pwd = context.getAsString(queryAuthPwd);
@@ -248,6 +436,47 @@ public class Service {
         return httpQuery;
     }
 
+    /** Parse the response according to the content type returned. */
+    private static ResultSet readResults(InputStream in, String contentType) {
+        if (WebContent.contentTypeResultsThrift.equals(contentType))
+            return ResultSetMgr.read(in, ResultSetLang.SPARQLResultSetThrift);
+        return ResultSetFactory.fromXML(in);
+    }
+
+    /**
+     * Results read from the HTTP response as they are needed. The response is
+     * closed at the end of the results or when the iterator is closed.
+     */
+    /*package*/ static class QueryIterStreamResults extends QueryIteratorResultSet {
+        private InputStream in;
+
+        QueryIterStreamResults(ResultSet rs, InputStream in) {
+            super(rs);
+            this.in = in;
+        }
+
+        @Override
+        protected boolean hasNextBinding() {
+            boolean b = super.hasNextBinding();
+            if (!b)
+                closeStream();
+            return b;
+        }
+
+        @Override
+        protected void closeIterator() {
+            super.closeIterator();
+            closeStream();
+        }
+
+        private void closeStream() {
+            if (in != null) {
+                IO.close(in);
+                in = null;
+            }
+        }
+    }
+
     /**
      * Modified from QueryExecutionBase
      * 
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.http;
+
+import java.util.List ;
+
+import org.apache.jena.atlas.lib.Cache ;
+import org.apache.jena.atlas.lib.CacheFactory ;
+import org.apache.jena.query.Query ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.util.Context ;
+
+/** A cache of the results of SERVICE requests.
+ *  <p>
+ *  Entries are keyed on the endpoint, the user for authentication and the text of
+ *  the remote query. The remote query is generated from the algebra of the SERVICE
+ *  body with any incoming bindings substituted or sent as VALUES, so the same
+ *  sub-query for the same bindings is the same key.
+ *  <p>
+ *  The cache holds at most a fixed number of entries (least recently used are dropped)
+ *  and an entry is not used after its time-to-live has passed.
+ *  Results with more than a maximum number of rows are not cached.
+ *  <p>
+ *  To use, put a cache in the context under {@link Service#serviceCache}.
+ *  The cache may be shared between queries.
+ */
+public class ServiceResultCache
+{
+    public static final int DftMaxRows = 10000 ;
+
+    private static class Entry {
+        final List<Binding> rows ;
+        final long expires ;
+        Entry(List<Binding> rows, long expires) { this.rows = rows ; this.expires = expires ; }
+    }
+
+    private final Cache<String, Entry> cache ;
+    private final long ttl ;
+    private final int maxRows ;
+
+    /**
+     * @param maxEntries    Maximum number of results held.
+     * @param ttlMillis     Time in milliseconds for which an entry is used.
+     */
+    public ServiceResultCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, DftMaxRows) ;
+    }
+
+    /**
+     * @param maxEntries    Maximum number of results held.
+     * @param ttlMillis     Time in milliseconds for which an entry is used.
+     * @param maxRows       Results with more rows than this are not cached.
+     */
+    public ServiceResultCache(int maxEntries, long ttlMillis, int maxRows) {
+        this.cache = CacheFactory.createCache(maxEntries) ;
+        this.ttl = ttlMillis ;
+        this.maxRows = maxRows ;
+    }
+
+    /** The cache key for a request. */
+    public static String key(String serviceURI, Context context, Query query) {
+        String user = context == null ? null : context.getAsString(Service.queryAuthUser) ;
+        return serviceURI + "\n" + (user == null ? "" : user) + "\n" + query.toString() ;
+    }
+
+    /** Get the results for a key, or null if there are none or they have expired. */
+    public List<Binding> get(String key) {
+        Entry e = cache.getIfPresent(key) ;
+        if ( e == null )
+            return null ;
+        if ( System.currentTimeMillis() >= e.expires ) {
+            cache.remove(key) ;
+            return null ;
+        }
+        return e.rows ;
+    }
+
+    /** Record the results for a key. Returns false if the results were not cached. */
+    public boolean put(String key, List<Binding> rows) {
+        if ( rows.size() > maxRows || ttl <= 0 )
+            return false ;
+        cache.put(key, new Entry(rows, System.currentTimeMillis() + ttl)) ;
+        return true ;
+    }
+
+    /** Number of entries, including any that have expired but not yet been dropped. */
+    public long size() {
+        return cache.size() ;
+    }
+
+    public void clear() {
+        cache.clear() ;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.iterator;
+
+import java.util.ArrayList ;
+import java.util.Collection ;
+import java.util.List ;
+
+import org.apache.jena.atlas.data.BagFactory ;
+import org.apache.jena.atlas.data.DataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
+import org.apache.jena.atlas.lib.Pair ;
+import org.apache.jena.ext.com.google.common.collect.HashMultimap;
+import org.apache.jena.ext.com.google.common.collect.Multimap;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.riot.system.SerializationFactoryFinder ;
+import org.apache.jena.sparql.ARQConstants ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.binding.BindingMap ;
+import org.apache.jena.sparql.expr.ExprAggregator ;
+import org.apache.jena.sparql.expr.aggregate.Accumulator ;
+import org.apache.jena.sparql.expr.aggregate.AccumulatorCombinable ;
+
+/** Partial groups written to disk by {@link QueryIterGroup}.
+ * <p>
+ * Each row is a group key together with the partial state of its accumulators,
+ * which must all be {@link AccumulatorCombinable}.
+ * Rows are assigned to a partition by the hash of the group key so all the parts
+ * of a group are in the same partition, and the partitions can be merged one at a time.
+ */
+class GroupPartitions
+{
+    /** Number of partitions. */
+    static final int NumPartitions = 32 ;
+
+    private final List<Var> groupVars ;
+    private final List<ExprAggregator> aggregators ;
+    private final List<DataBag<Binding>> bags = new ArrayList<>() ;
+
+    GroupPartitions(List<Var> groupVars, List<ExprAggregator> aggregators) {
+        this.groupVars = groupVars ;
+        this.aggregators = aggregators ;
+        for ( int i = 0 ; i < NumPartitions ; i++ )
+            // Straight to disk.
+            bags.add(BagFactory.newDefaultBag(ThresholdPolicyFactory.count(0), SerializationFactoryFinder.bindingSerializationFactory())) ;
+    }
+
+    /** Are all the aggregators combinable? */
+    static boolean isCombinable(List<ExprAggregator> aggregators) {
+        if ( aggregators == null )
+            return true ;
+        for ( ExprAggregator agg : aggregators ) {
+            if ( ! ( agg.getAggregator().createAccumulator() instanceof AccumulatorCombinable ) )
+                return false ;
+        }
+        return true ;
+    }
+
+    static int partition(Binding key) {
+        int h = key.hashCode() ;
+        // Spread the bits : the key is also the key of the in-memory groups.
+        h ^= (h >>> 16) ;
+        h *= 0x85EBCA6B ;
+        h ^= (h >>> 13) ;
+        return Math.floorMod(h, NumPartitions) ;
+    }
+
+    private static Var partialVar(int agg, int idx) {
+        return Var.alloc(ARQConstants.allocVarMarker+"agg"+agg+"_"+idx) ;
+    }
+
+    /** Write out a group and the partial state of its accumulators */
+    void add(Binding key, Collection<Pair<Var, Accumulator>> accs) {
+        BindingMap row = BindingFactory.create() ;
+        row.addAll(key) ;
+        if ( aggregators != null ) {
+            for ( int i = 0 ; i < aggregators.size() ; i++ ) {
+                Node[] partial = find(accs, aggregators.get(i).getVar()).getPartial() ;
+                for ( int j = 0 ; j < partial.length ; j++ ) {
+                    if ( partial[j] != null )
+                        row.add(partialVar(i, j), partial[j]) ;
+                }
+            }
+        }
+        bags.get(partition(key)).add(row) ;
+    }
+
+    private static AccumulatorCombinable find(Collection<Pair<Var, Accumulator>> accs, Var var) {
+        for ( Pair<Var, Accumulator> pair : accs ) {
+            if ( var.equals(pair.getLeft()) )
+                return (AccumulatorCombinable)pair.getRight() ;
+        }
+        throw new IllegalStateException("No accumulator for "+var) ;
+    }
+
+    /** Merge the parts of the groups in a partition.
+     * The placeholder is used as the accumulator when there are no aggregators.
+     */
+    Multimap<Binding, Pair<Var, Accumulator>> merge(int partition, Pair<Var, Accumulator> placeholder) {
+        Multimap<Binding, Pair<Var, Accumulator>> accumulators = HashMultimap.create() ;
+        for ( Binding row : bags.get(partition) ) {
+            BindingMap key = BindingFactory.create() ;
+            for ( Var v : groupVars ) {
+                Node n = row.get(v) ;
+                if ( n != null )
+                    key.add(v, n) ;
+            }
+            if ( aggregators == null || aggregators.isEmpty() ) {
+                accumulators.put(key, placeholder) ;
+                continue ;
+            }
+            if ( !accumulators.containsKey(key) ) {
+                for ( ExprAggregator agg : aggregators )
+                    accumulators.put(key, Pair.create(agg.getVar(), agg.getAggregator().createAccumulator())) ;
+            }
+            Collection<Pair<Var, Accumulator>> accs = accumulators.get(key) ;
+            for ( int i = 0 ; i < aggregators.size() ; i++ ) {
+                AccumulatorCombinable acc = find(accs, aggregators.get(i).getVar()) ;
+                // Partial state has a fixed length for each aggregator.
+                Node[] partial = new Node[acc.getPartial().length] ;
+                for ( int j = 0 ; j < partial.length ; j++ )
+                    partial[j] = row.get(partialVar(i, j)) ;
+                acc.combine(partial) ;
+            }
+        }
+        return accumulators ;
+    }
+
+    void close() {
+        for ( DataBag<Binding> bag : bags )
+            bag.close() ;
+    }
+}
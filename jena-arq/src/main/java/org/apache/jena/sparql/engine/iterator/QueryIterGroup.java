@@ -22,9 +22,13 @@ import java.util.ArrayList ;
 import java.util.Collection ;
 import java.util.Iterator ;
 import java.util.List ;
+import java.util.NoSuchElementException ;
 
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.iterator.IteratorDelayedInitialization ;
+import org.apache.jena.atlas.lib.Closeable ;
 import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.ext.com.google.common.collect.HashMultimap;
 import org.apache.jena.ext.com.google.common.collect.Multimap;
@@ -66,6 +70,11 @@ public class QueryIterGroup extends QueryIterPlainWrapper
     //           and push rows through the aggregator function. 
     
     // Phase 2 : Go over the group bindings and assign the value of each aggregation.
+    
+    // If the number of groups goes over the spill threshold (ARQ.spillToDiskThreshold)
+    // and all the accumulators are combinable, the partial groups are written to disk
+    // and phase 1 starts again with no groups in memory. At the end, the parts of
+    // each group are merged, one partition of the groups at a time.
 	
 	private static Pair<Var, Accumulator> placeholder = Pair.create((Var)null, (Accumulator)null) ; 
 	
@@ -82,12 +91,29 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                 
                 // Phase 1 : assign bindings to buckets by key and pump through the aggregators.
                 Multimap<Binding, Pair<Var, Accumulator>> accumulators = HashMultimap.create() ;
+                ThresholdPolicy<Binding> policy = GroupPartitions.isCombinable(aggregators)
+                    ? ThresholdPolicyFactory.policyFromContext(execCxt.getContext())
+                    : ThresholdPolicyFactory.never() ;
+                GroupPartitions partitions = null ;
 
                 while ( iter.hasNext() )
                 {
                     Binding b = iter.nextBinding() ;
                     Binding key = genKey(groupVarExpr, b, execCxt) ;
 
+                    if ( !accumulators.containsKey(key) )
+                    {
+                        policy.increment(key) ;
+                        if ( policy.isThresholdExceeded() )
+                        {
+                            if ( partitions == null )
+                                partitions = new GroupPartitions(groupVarExpr.getVars(), aggregators) ;
+                            spill(accumulators, partitions) ;
+                            policy.reset() ;
+                            policy.increment(key) ;
+                        }
+                    }
+
                     if ( noAggregators )
                     {
                         // Put in a dummy to remember the input.
@@ -118,6 +144,12 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                 //   If there are no aggregators, there are no groups.
                 //   If there are aggregators, then they may have a default value. 
 
+                if ( partitions != null )
+                {
+                    spill(accumulators, partitions) ;
+                    return new IterPartitions(partitions, noAggregators) ;
+                }
+
                 if ( accumulators.isEmpty() )
                 {
                     if ( noAggregators )
@@ -147,36 +179,89 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                 }
 
                 // Phase 2 : There was input and so there are some groups.
-                // For each bucket, get binding, add aggregator values to the binding.
-                // We used AccNull so there are always accumulators. 
-                
-                if ( noAggregators )
-                    // We used placeholder so there are always the key. 
-                    return accumulators.keySet().iterator() ;
-                
-                List<Binding> results = new ArrayList<>() ;
-
-                for ( Binding k : accumulators.keySet() )
-                {
-                    Collection<Pair<Var, Accumulator>> accs = accumulators.get(k) ;
-                    BindingMap b = BindingFactory.create(k) ;
-                    
-                    for ( Pair<Var, Accumulator> pair : accs )
-                    {
-                        Var v = pair.getLeft() ;
-                        NodeValue value = pair.getRight().getValue() ;
-                        Node n = (value==null) ? null : value.asNode() ;
-                        if ( v == null || n == null )
-                        {} 
-                        else
-                            b.add(v, n) ;
-                    }
-                    results.add(b) ;
-                }
-                return results.iterator() ;
+                return groupResults(accumulators, noAggregators) ;
             }
         };
     }
+
+    private static void spill(Multimap<Binding, Pair<Var, Accumulator>> accumulators, GroupPartitions partitions)
+    {
+        for ( Binding k : accumulators.keySet() )
+            partitions.add(k, accumulators.get(k)) ;
+        accumulators.clear() ;
+    }
+
+    private static Iterator<Binding> groupResults(Multimap<Binding, Pair<Var, Accumulator>> accumulators, boolean noAggregators)
+    {
+        // For each bucket, get binding, add aggregator values to the binding.
+        // We used AccNull so there are always accumulators. 
+        
+        if ( noAggregators )
+            // We used placeholder so there are always the key. 
+            return accumulators.keySet().iterator() ;
+        
+        List<Binding> results = new ArrayList<>() ;
+
+        for ( Binding k : accumulators.keySet() )
+        {
+            Collection<Pair<Var, Accumulator>> accs = accumulators.get(k) ;
+            BindingMap b = BindingFactory.create(k) ;
+            
+            for ( Pair<Var, Accumulator> pair : accs )
+            {
+                Var v = pair.getLeft() ;
+                NodeValue value = pair.getRight().getValue() ;
+                Node n = (value==null) ? null : value.asNode() ;
+                if ( v == null || n == null )
+                {} 
+                else
+                    b.add(v, n) ;
+            }
+            results.add(b) ;
+        }
+        return results.iterator() ;
+    }
+
+    /** Results from groups that were spilled to disk, merging one partition at a time. */
+    private static class IterPartitions implements Iterator<Binding>, Closeable
+    {
+        private final GroupPartitions partitions ;
+        private final boolean noAggregators ;
+        private int next = 0 ;
+        private Iterator<Binding> current = null ;
+
+        IterPartitions(GroupPartitions partitions, boolean noAggregators)
+        {
+            this.partitions = partitions ;
+            this.noAggregators = noAggregators ;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( current == null || !current.hasNext() )
+            {
+                if ( next >= GroupPartitions.NumPartitions )
+                    return false ;
+                current = groupResults(partitions.merge(next++, placeholder), noAggregators) ;
+            }
+            return true ;
+        }
+
+        @Override
+        public Binding next()
+        {
+            if ( !hasNext() )
+                throw new NoSuchElementException() ;
+            return current.next() ;
+        }
+
+        @Override
+        public void close()
+        {
+            partitions.close() ;
+        }
+    }
     
     static private Binding genKey(VarExprList vars, Binding binding, ExecutionContext execCxt) 
     {
@@ -28,6 +28,7 @@ import org.apache.jena.atlas.data.ThresholdPolicy;
 import org.apache.jena.atlas.data.ThresholdPolicyFactory;
 import org.apache.jena.atlas.iterator.IteratorDelayedInitialization;
 import org.apache.jena.atlas.lib.Closeable;
+import org.apache.jena.query.ARQ;
 import org.apache.jena.query.QueryCancelledException;
 import org.apache.jena.query.SortCondition;
 import org.apache.jena.riot.system.SerializationFactoryFinder;
@@ -44,6 +45,8 @@ import org.apache.jena.sparql.engine.binding.BindingComparator;
  */
 
 public class QueryIterSort extends QueryIterPlainWrapper {
+    private static final int DftMergeFanIn = 100;
+
     private final QueryIterator embeddedIterator; // Keep a record of the
     // underlying source for
     // .cancel.
@@ -59,7 +62,10 @@ public class QueryIterSort extends QueryIterPlainWrapper {
         this.embeddedIterator = qIter;
 
         ThresholdPolicy<Binding> policy = ThresholdPolicyFactory.policyFromContext(context.getContext());
-        this.db = BagFactory.newSortedBag(policy, SerializationFactoryFinder.bindingSerializationFactory(), comparator);
+        boolean parallelSort = context.getContext().isTrue(ARQ.parallelSort);
+        int mergeFanIn = context.getContext().getInt(ARQ.sortMergeFanIn, DftMergeFanIn);
+        this.db = BagFactory.newSortedBag(policy, SerializationFactoryFinder.bindingSerializationFactory(), comparator,
+                                          parallelSort, mergeFanIn);
 
         this.setIterator(new SortedBindingIterator(qIter));
     }
@@ -18,10 +18,14 @@
 
 package org.apache.jena.sparql.engine.join;
 
+import java.util.Collection ;
 import java.util.Iterator ;
 import java.util.List ;
 
+import org.apache.jena.atlas.data.ThresholdPolicy ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
 import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.algebra.Algebra ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -29,12 +33,19 @@ import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.iterator.QueryIter2 ;
 import org.apache.jena.sparql.engine.iterator.QueryIterPeek ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
 import org.apache.jena.sparql.engine.join.JoinKey ;
 
 /** Hash join algorithm
  *  
  * This code materializes one input into the probe table
  * then hash joins the other input from the stream side.
+ * <p>
+ * If the probe table grows beyond the {@link ARQ#spillToDiskThreshold}, the join
+ * becomes a hybrid hash join: rows are partitioned by the hash of the join key,
+ * one partition is kept in memory and the rows of both sides for the other partitions
+ * are written to disk; each of those partitions is joined after the stream side has been read.
+ * Rows with no join key are kept in memory. 
  */
 
 public abstract class AbstractIterHashJoin extends QueryIter2 {
@@ -46,6 +57,11 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
     
     protected final JoinKey               joinKey ;
     protected final HashProbeTable        hashTable ;
+    // Set if the probe table spilled.
+    private HashPartitions              partitions      = null ;
+    // The probe table for the partition being joined.
+    private HashProbeTable              currentTable ;
+    private final ThresholdPolicy<Binding> policy ;
 
     private QueryIterator               iterStream ;
     private Binding                     rowStream       = null ;
@@ -79,6 +95,8 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         this.joinKey = joinKey ;
         this.iterStream = streamIter ;
         this.hashTable = new HashProbeTable(joinKey) ;
+        this.currentTable = hashTable ;
+        this.policy = ThresholdPolicyFactory.policyFromContext(execCxt != null ? execCxt.getContext() : ARQ.getContext()) ;
         this.iterCurrent = null ;
         buildHashTable(probeIter) ;
         
@@ -89,12 +107,77 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         for (; iter1.hasNext();) {
             Binding row1 = iter1.next() ;
             s_countProbe ++ ;
-            hashTable.put(row1) ;
+            if ( partitions == null ) {
+                hashTable.put(row1) ;
+                policy.increment(row1) ;
+                if ( policy.isThresholdExceeded() )
+                    spill() ;
+                continue ;
+            }
+            int p = partition(row1) ;
+            if ( p == 0 )
+                hashTable.put(row1) ;
+            else
+                partitions.addBuild(p, row1) ;
         }
         iter1.close() ;
         state = Phase.STREAM ;
     }
 
+    /** Switch to partitioning: keep partition 0 in the probe table, move the other rows to disk. */
+    private void spill() {
+        partitions = new HashPartitions() ;
+        hashTable.removeIf(hashKey -> HashPartitions.partition(hashKey) != 0,
+                           row -> partitions.addBuild(HashPartitions.partition(JoinLib.hash(joinKey, row)), row)) ;
+    }
+
+    /** The partition for a row; 0, the in-memory partition, for no join key. */
+    private int partition(Binding row) {
+        Object hashKey = JoinLib.hash(joinKey, row) ;
+        if ( hashKey == JoinLib.noKeyHash )
+            return 0 ;
+        return HashPartitions.partition(hashKey) ;
+    }
+
+    /** All the rows of the probe side. */
+    protected Iterator<Binding> probeRows() {
+        if ( partitions == null )
+            return hashTable.values() ;
+        return Iter.concat(hashTable.values(), partitions.buildRows()) ;
+    }
+
+    /** Match candidates for a stream row, or null if it has been put aside for a partition on disk. */
+    private Iterator<Binding> candidates(Binding row) {
+        if ( partitions == null || currentTable != hashTable )
+            return currentTable.getCandidates(row) ;
+        Object hashKey = JoinLib.hash(joinKey, row) ;
+        if ( hashKey == JoinLib.noKeyHash )
+            // Matches anything.
+            return Iter.concat(hashTable.getCandidates(row), partitions.buildRows()) ;
+        int p = HashPartitions.partition(hashKey) ;
+        if ( p == 0 )
+            return hashTable.getCandidates(row) ;
+        partitions.addStream(p, row) ;
+        return null ;
+    }
+
+    /** Start on the next partition on disk. Return false if there are none left. */
+    private boolean nextPartition() {
+        if ( partitions == null )
+            return false ;
+        int p = partitions.nextPartition() ;
+        if ( p < 0 )
+            return false ;
+        currentTable = new HashProbeTable(joinKey) ;
+        partitions.buildRows(p).forEachRemaining(currentTable::put) ;
+        // Rows with no join key match in every partition.
+        Collection<Binding> noKey = hashTable.getNoKey$() ;
+        noKey.forEach(currentTable::put) ;
+        iterStream.close() ;
+        iterStream = new QueryIterPlainWrapper(partitions.streamRows(p), getExecContext()) ;
+        return true ;
+    }
+
     @Override
     protected boolean hasNextBinding() {
         if ( isFinished() ) 
@@ -136,6 +219,8 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
             while ( iterCurrent == null ) {
                 // Move on to the next row from the right.
                 if ( ! iterStream.hasNext() ) {
+                    if ( nextPartition() )
+                        continue ;
                     state = Phase.TRAILER ;
                     iterTail = joinFinished() ;
                     if ( iterTail != null )
@@ -143,8 +228,11 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
                     return null ;
                 }
                 rowStream = iterStream.next() ;
+                iterCurrent = candidates(rowStream) ;
+                if ( iterCurrent == null )
+                    // Later.
+                    continue ;
                 s_countScan ++ ;
-                iterCurrent = hashTable.getCandidates(rowStream) ;
                 yielded = false ;
             }
             
@@ -230,12 +318,21 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         // In case it's a peek iterator.
         iterStream.close() ;
         hashTable.clear(); 
+        closePartitions() ;
     }
 
     @Override
     protected void requestSubCancel() {
         iterStream.close() ;
         hashTable.clear(); 
+        closePartitions() ;
+    }
+
+    private void closePartitions() {
+        if ( partitions != null )
+            partitions.close() ;
+        partitions = null ;
+        currentTable = hashTable ;
     }
 }
 
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+
+import org.apache.jena.atlas.data.BagFactory ;
+import org.apache.jena.atlas.data.DataBag ;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.riot.system.SerializationFactoryFinder ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+
+/** The partitions of a hash join that has spilled to disk.
+ * Rows are assigned to a partition by the hash of their join key.
+ * Partition 0 is kept in memory, in the probe table of the join;
+ * the build side rows and the stream side rows of the other partitions are written to disk
+ * and joined one partition at a time when the stream side has been read.
+ */
+class HashPartitions {
+    /** Number of partitions, including the one kept in memory. */
+    static final int NumPartitions = 32 ;
+
+    private final List<DataBag<Binding>> buildBags = new ArrayList<>() ;
+    private final List<DataBag<Binding>> streamBags = new ArrayList<>() ;
+    // Next partition to join.
+    private int next = 1 ;
+
+    HashPartitions() {
+        // Index 0 is the in-memory partition.
+        buildBags.add(null) ;
+        streamBags.add(null) ;
+        for ( int i = 1 ; i < NumPartitions ; i++ ) {
+            buildBags.add(newBag()) ;
+            streamBags.add(newBag()) ;
+        }
+    }
+
+    private static DataBag<Binding> newBag() {
+        // Straight to disk.
+        return BagFactory.newDefaultBag(ThresholdPolicyFactory.count(0), SerializationFactoryFinder.bindingSerializationFactory()) ;
+    }
+
+    /** The partition for a hash key (not {@link JoinLib#noKeyHash}) */
+    static int partition(Object hashKey) {
+        int h = hashKey.hashCode() ;
+        // Spread the bits : the hash key is also the probe table key.
+        h ^= (h >>> 16) ;
+        h *= 0x85EBCA6B ;
+        h ^= (h >>> 13) ;
+        return Math.floorMod(h, NumPartitions) ;
+    }
+
+    void addBuild(int partition, Binding row) {
+        buildBags.get(partition).add(row) ;
+    }
+
+    void addStream(int partition, Binding row) {
+        streamBags.get(partition).add(row) ;
+    }
+
+    /** All the build side rows written to disk. Call after the build side is complete. */
+    Iterator<Binding> buildRows() {
+        Iterator<Binding> iter = null ;
+        for ( int i = 1 ; i < NumPartitions ; i++ )
+            iter = Iter.concat(iter, buildBags.get(i).iterator()) ;
+        return iter ;
+    }
+
+    /** Move to the next partition with stream rows to join; return -1 if there are no more. */
+    int nextPartition() {
+        while ( next < NumPartitions ) {
+            int p = next++ ;
+            // Stream rows with nothing to join may still give results (left join).
+            if ( streamBags.get(p).size() > 0 )
+                return p ;
+        }
+        return -1 ;
+    }
+
+    Iterator<Binding> buildRows(int partition) {
+        return buildBags.get(partition).iterator() ;
+    }
+
+    Iterator<Binding> streamRows(int partition) {
+        return streamBags.get(partition).iterator() ;
+    }
+
+    void close() {
+        for ( int i = 1 ; i < NumPartitions ; i++ ) {
+            buildBags.get(i).close() ;
+            streamBags.get(i).close() ;
+        }
+    }
+}
@@ -22,6 +22,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter;
 import org.apache.jena.ext.com.google.common.collect.ArrayListMultimap;
@@ -111,6 +114,20 @@ class HashProbeTable {
                            noKeyBucket.iterator()) ;
     }
     
+    /** Remove the rows whose hash key passes the test, sending them to the consumer.
+     * Rows with no hash key are kept. 
+     */
+    public void removeIf(Predicate<Object> hashKeyTest, Consumer<Binding> removed) {
+        Iterator<Map.Entry<Object, Binding>> iter = buckets.entries().iterator();
+        while ( iter.hasNext() ) {
+            Map.Entry<Object, Binding> e = iter.next();
+            if ( hashKeyTest.test(e.getKey()) ) {
+                removed.accept(e.getValue());
+                iter.remove();
+            }
+        }
+    }
+
     public void clear() {
         buckets.clear();
     }
@@ -213,6 +213,12 @@ public class OpExecutor
             QueryIterator qIter = Join.join(left, right, execCxt) ;
             return qIter ;
         }
+        if ( QueryIterParallel.isParallel(execCxt) ) {
+            // Start the right hand side before the left hand side is evaluated.
+            QueryIterator right = new QueryIterParallel(opJoin.getRight(), root(), execCxt) ;
+            QueryIterator left = exec(opJoin.getLeft(), input) ;
+            return Join.join(left, right, execCxt) ;
+        }
         QueryIterator left = exec(opJoin.getLeft(), input) ;
         QueryIterator right = exec(opJoin.getRight(), root()) ;
         // Join key.
@@ -231,6 +237,11 @@ public class OpExecutor
     }
 
     protected QueryIterator execute(OpLeftJoin opLeftJoin, QueryIterator input) {
+        if ( QueryIterParallel.isParallel(execCxt) ) {
+            QueryIterator right = new QueryIterParallel(opLeftJoin.getRight(), root(), execCxt) ;
+            QueryIterator left = exec(opLeftJoin.getLeft(), input) ;
+            return Join.leftJoin(left, right, opLeftJoin.getExprs(), execCxt) ;
+        }
         QueryIterator left = exec(opLeftJoin.getLeft(), input) ;
         QueryIterator right = exec(opLeftJoin.getRight(), root()) ;
         QueryIterator qIter = Join.leftJoin(left, right, opLeftJoin.getExprs(), execCxt) ;
@@ -304,6 +315,9 @@ public class OpExecutor
     }
 
     protected QueryIterator execute(OpService opService, QueryIterator input) {
+        // Bulk requests need a fixed endpoint.
+        if ( opService.getService().isURI() && QueryIterServiceBulk.batchSize(execCxt) > 1 )
+            return new QueryIterServiceBulk(input, opService, execCxt) ;
         return new QueryIterService(input, opService, execCxt) ;
     }
 
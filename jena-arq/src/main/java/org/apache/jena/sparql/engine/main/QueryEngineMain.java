@@ -29,6 +29,8 @@ import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.iterator.QueryIterRoot ;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorCheck ;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorTiming ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.sparql.engine.optimizer.CostStatsGraph ;
 import org.apache.jena.sparql.util.Context ;
 
 public class QueryEngineMain extends QueryEngineBase
@@ -64,8 +66,21 @@ public class QueryEngineMain extends QueryEngineBase
     { 
         if ( context.isFalse(ARQ.optimization) )
             return minimalModifyOp(op) ;
+        if ( context.isTrue(ARQ.optCostBasedJoinOrder) && ! context.isDefined(ARQ.costStats) ) {
+            CostStats stats = createCostStats() ;
+            if ( stats != null )
+                context.set(ARQ.costStats, stats) ;
+        }
         return Algebra.optimize(op, super.context) ;
     }
+
+    /** Statistics for cost-based join ordering, when they are not in the context. */
+    protected CostStats createCostStats()
+    {
+        if ( dataset == null )
+            return null ;
+        return new CostStatsGraph(dataset.getDefaultGraph()) ;
+    }
     
     protected Op minimalModifyOp(Op op)
     {
@@ -21,6 +21,7 @@ package org.apache.jena.sparql.engine.main;
 import org.apache.jena.atlas.lib.Lib ;
 import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.graph.Graph ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.core.BasicPattern ;
 import org.apache.jena.sparql.core.Substitute ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -29,6 +30,9 @@ import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.iterator.QueryIterBlockTriples ;
 import org.apache.jena.sparql.engine.iterator.QueryIterPeek ;
 import org.apache.jena.sparql.engine.iterator.QueryIterRoot ;
+import org.apache.jena.sparql.engine.optimizer.CostModel ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderCost ;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderLib ;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderProc ;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation ;
@@ -49,6 +53,11 @@ public class StageGeneratorGeneric implements StageGenerator {
         // Choose reorder transformation and execution strategy.
 
         ReorderTransformation reorder = reorderFixed ;
+        if ( execCxt.getContext().isTrue(ARQ.optCostBasedJoinOrder) ) {
+            Object stats = execCxt.getContext().get(ARQ.costStats) ;
+            if ( stats instanceof CostStats )
+                reorder = new ReorderCost(new CostModel((CostStats)stats)) ;
+        }
         StageGenerator executor = StageBuilder.executeInline ;
 
         return execute(pattern, reorder, executor, input, execCxt) ;
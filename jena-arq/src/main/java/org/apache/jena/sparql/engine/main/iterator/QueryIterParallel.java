@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.main.iterator;
+
+import java.util.concurrent.ArrayBlockingQueue ;
+import java.util.concurrent.BlockingQueue ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.atlas.io.IndentedWriter ;
+import org.apache.jena.atlas.lib.Lib ;
+import org.apache.jena.atlas.lib.ThreadLib ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.query.QueryCancelledException ;
+import org.apache.jena.query.QueryExecException ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.iterator.QueryIter ;
+import org.apache.jena.sparql.engine.main.QC ;
+import org.apache.jena.sparql.serializer.SerializationContext ;
+
+/** Execute an operator on another thread.
+ *  Results are passed back through a bounded buffer so the other thread
+ *  can not run arbitrarily far ahead of the consumer.
+ *  <p>
+ *  Closing or cancelling this iterator stops the other thread.
+ *  An exception on the other thread is rethrown when the consumer reaches it.
+ *
+ *  @see ARQ#parallelExecution
+ */
+
+public class QueryIterParallel extends QueryIter
+{
+    public static final int BufferSize = 1000 ;
+
+    private static final ExecutorService executor = ThreadLib.daemonExecutor() ;
+
+    // End marker - compared by identity.
+    private static final Binding endMarker = BindingFactory.binding() ;
+
+    /** Whether parallel execution is enabled for this execution */
+    public static boolean isParallel(ExecutionContext execCxt)
+    {
+        return execCxt.getContext().isTrue(ARQ.parallelExecution) ;
+    }
+
+    private final Op op ;
+    private final BlockingQueue<Binding> queue = new ArrayBlockingQueue<>(BufferSize) ;
+    // Set by the consumer to stop the producer.
+    private volatile boolean stopped = false ;
+    private volatile QueryIterator producerIter = null ;
+    private volatile Throwable producerException = null ;
+
+    private Binding slot = null ;
+    private boolean finished = false ;
+
+    public QueryIterParallel(Op op, QueryIterator input, ExecutionContext execCxt)
+    {
+        super(execCxt) ;
+        this.op = op ;
+        executor.execute(()->produce(input)) ;
+    }
+
+    private void produce(QueryIterator input)
+    {
+        QueryIterator qIter = null ;
+        try {
+            qIter = QC.execute(op, input, getExecContext()) ;
+            producerIter = qIter ;
+            if ( stopped )
+                qIter.cancel() ;
+            while ( !stopped && qIter.hasNext() )
+                put(qIter.nextBinding()) ;
+        } catch (Throwable th) {
+            if ( !stopped )
+                producerException = th ;
+        } finally {
+            try {
+                if ( qIter != null )
+                    qIter.close() ;
+                else
+                    input.close() ;
+            } catch (Throwable th) {}
+            putEnd() ;
+        }
+    }
+
+    private void put(Binding binding) throws InterruptedException
+    {
+        while ( !queue.offer(binding, 100, TimeUnit.MILLISECONDS) ) {
+            if ( stopped )
+                return ;
+        }
+    }
+
+    // Always delivered so the consumer does not wait forever.
+    private void putEnd()
+    {
+        try {
+            while ( !queue.offer(endMarker, 100, TimeUnit.MILLISECONDS) ) {
+                if ( stopped )
+                    queue.clear() ;
+            }
+        } catch (InterruptedException ex) {
+            stopped = true ;
+            queue.clear() ;
+            queue.offer(endMarker) ;
+        }
+    }
+
+    @Override
+    protected boolean hasNextBinding()
+    {
+        if ( finished )
+            return false ;
+        if ( slot != null )
+            return true ;
+        Binding b ;
+        try { b = queue.take() ; }
+        catch (InterruptedException ex) { throw new QueryCancelledException() ; }
+        if ( b == endMarker ) {
+            finished = true ;
+            Throwable th = producerException ;
+            if ( th instanceof RuntimeException )
+                throw (RuntimeException)th ;
+            if ( th instanceof Error )
+                throw (Error)th ;
+            if ( th != null )
+                throw new QueryExecException(th) ;
+            return false ;
+        }
+        slot = b ;
+        return true ;
+    }
+
+    @Override
+    protected Binding moveToNextBinding()
+    {
+        Binding b = slot ;
+        slot = null ;
+        return b ;
+    }
+
+    @Override
+    protected void closeIterator()
+    {
+        stop() ;
+    }
+
+    @Override
+    protected void requestCancel()
+    {
+        stop() ;
+    }
+
+    private void stop()
+    {
+        stopped = true ;
+        QueryIterator qIter = producerIter ;
+        if ( qIter != null )
+            qIter.cancel() ;
+        // Unblock the producer.
+        queue.clear() ;
+    }
+
+    @Override
+    public void output(IndentedWriter out, SerializationContext sCxt)
+    {
+        out.println(Lib.className(this)) ;
+        out.incIndent() ;
+        op.output(out, sCxt) ;
+        out.decIndent() ;
+        out.ensureStartOfLine() ;
+    }
+}
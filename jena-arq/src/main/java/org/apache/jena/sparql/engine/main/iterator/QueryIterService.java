@@ -56,7 +56,8 @@ public class QueryIterService extends QueryIterRepeatApply
             // This iterator is materialized already otherwise we may end up
             // not servicing the HTTP connection as needed.
             // In extremis, can cause a deadlock when SERVICE loops back to this server.
-            // Add tracking.
+            // (Unless Service.serviceStreaming is set, when the connection stays open.)
+            // Add tracking so it is closed at the end of the query.
             qIter = QueryIter.makeTracked(qIter, getExecContext()) ;
         } catch (RuntimeException ex)
         {
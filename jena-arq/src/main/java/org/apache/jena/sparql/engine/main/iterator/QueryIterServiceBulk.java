@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.main.iterator;
+
+import java.util.ArrayList ;
+import java.util.Deque ;
+import java.util.HashMap ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.Map ;
+import java.util.concurrent.CancellationException ;
+import java.util.concurrent.ConcurrentLinkedDeque ;
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Future ;
+
+import org.apache.jena.atlas.io.IndentedWriter ;
+import org.apache.jena.atlas.lib.Lib ;
+import org.apache.jena.atlas.lib.ThreadLib ;
+import org.apache.jena.atlas.logging.Log ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.query.QueryCancelledException ;
+import org.apache.jena.query.QueryExecException ;
+import org.apache.jena.sparql.algebra.Algebra ;
+import org.apache.jena.sparql.algebra.op.OpService ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.http.Service ;
+import org.apache.jena.sparql.engine.iterator.QueryIter1 ;
+import org.apache.jena.sparql.serializer.SerializationContext ;
+
+/** Execute SERVICE for blocks of incoming bindings.
+ *  Each block is sent as a VALUES block in one remote request and the results
+ *  joined back with the bindings of the block. Several blocks can be in
+ *  progress at once; results are returned in the order of the input.
+ *  <p>
+ *  A block only contains bindings that bind the same variables of the
+ *  remote query so that each remote result joins with one row of the VALUES block.
+ *
+ *  @see Service#serviceBulkBindings
+ *  @see Service#serviceBulkParallelism
+ */
+
+public class QueryIterServiceBulk extends QueryIter1
+{
+    private static final ExecutorService executor = ThreadLib.daemonExecutor() ;
+
+    /** Number of bindings per remote request; 1 or less means one request per binding. */
+    public static int batchSize(ExecutionContext execCxt)
+    {
+        return execCxt.getContext().getInt(Service.serviceBulkBindings, 1) ;
+    }
+
+    private final OpService opService ;
+    private final List<Var> joinVars ;
+    private final int batchSize ;
+    private final int parallelism ;
+
+    // Requests in progress, in input order.
+    // Concurrent because cancel may be called from another thread.
+    private final Deque<Future<List<Binding>>> pending = new ConcurrentLinkedDeque<>() ;
+    private Iterator<Binding> current = null ;
+    // First binding of the next block.
+    private Binding lookahead = null ;
+
+    public QueryIterServiceBulk(QueryIterator input, OpService opService, ExecutionContext context)
+    {
+        super(input, context) ;
+        if ( context.getContext().isFalse(Service.serviceAllowed) )
+            throw new QueryExecException("SERVICE not allowed") ;
+        this.opService = opService ;
+        this.joinVars = new ArrayList<>(Service.remoteVars(opService)) ;
+        this.batchSize = Math.max(1, batchSize(context)) ;
+        this.parallelism = Math.max(1, context.getContext().getInt(Service.serviceBulkParallelism, 1)) ;
+    }
+
+    @Override
+    protected boolean hasNextBinding()
+    {
+        for ( ;; ) {
+            if ( current != null && current.hasNext() )
+                return true ;
+            current = null ;
+            fill() ;
+            if ( pending.isEmpty() )
+                return false ;
+            Future<List<Binding>> f = pending.removeFirst() ;
+            // Keep the remote endpoint busy while this block is consumed.
+            fill() ;
+            current = await(f).iterator() ;
+        }
+    }
+
+    @Override
+    protected Binding moveToNextBinding()
+    {
+        return current.next() ;
+    }
+
+    private void fill()
+    {
+        while ( pending.size() < parallelism ) {
+            List<Binding> block = nextBlock() ;
+            if ( block.isEmpty() )
+                return ;
+            pending.addLast(executor.submit(()->exec(block))) ;
+        }
+    }
+
+    // Read bindings, up to the batch size, that all bind the same join variables.
+    private List<Binding> nextBlock()
+    {
+        List<Binding> block = new ArrayList<>() ;
+        List<Var> shape = null ;
+        QueryIterator input = getInput() ;
+        while ( block.size() < batchSize ) {
+            Binding b = lookahead ;
+            lookahead = null ;
+            if ( b == null ) {
+                if ( ! input.hasNext() )
+                    break ;
+                b = input.nextBinding() ;
+            }
+            List<Var> s = shape(b) ;
+            if ( shape == null )
+                shape = s ;
+            else if ( ! shape.equals(s) ) {
+                lookahead = b ;
+                break ;
+            }
+            block.add(b) ;
+        }
+        return block ;
+    }
+
+    // Join variables that can be sent in VALUES for this binding.
+    private List<Var> shape(Binding binding)
+    {
+        List<Var> vars = new ArrayList<>(joinVars.size()) ;
+        for ( Var v : joinVars ) {
+            Node n = binding.get(v) ;
+            if ( n != null && ! n.isBlank() )
+                vars.add(v) ;
+        }
+        return vars ;
+    }
+
+    // Runs on an executor thread.
+    private List<Binding> exec(List<Binding> block)
+    {
+        List<Binding> remote = new ArrayList<>() ;
+        try {
+            QueryIterator qIter = Service.exec(opService, block, getExecContext().getContext()) ;
+            try {
+                while ( qIter.hasNext() )
+                    remote.add(qIter.nextBinding()) ;
+            } finally { qIter.close() ; }
+        } catch (RuntimeException ex)
+        {
+            if ( opService.getSilent() )
+            {
+                Log.warn(this, "SERVICE <" + opService.getService().toString() + ">: " + ex.getMessage()) ;
+                // Return the input
+                return block ;
+            }
+            throw ex ;
+        }
+        return join(block, remote, shape(block.get(0))) ;
+    }
+
+    /** Join each binding of the block with the remote results, keyed on the variables sent in VALUES. */
+    private static List<Binding> join(List<Binding> block, List<Binding> remote, List<Var> keyVars)
+    {
+        Map<List<Node>, List<Binding>> index = new HashMap<>() ;
+        // Results not binding all the key variables; checked against every binding.
+        List<Binding> others = new ArrayList<>() ;
+        for ( Binding r : remote ) {
+            List<Node> key = key(r, keyVars) ;
+            if ( key == null )
+                others.add(r) ;
+            else
+                index.computeIfAbsent(key, k->new ArrayList<>()).add(r) ;
+        }
+
+        List<Binding> results = new ArrayList<>() ;
+        for ( Binding b : block ) {
+            List<Binding> matches = index.get(key(b, keyVars)) ;
+            if ( matches != null )
+                merge(b, matches, results) ;
+            merge(b, others, results) ;
+        }
+        return results ;
+    }
+
+    private static void merge(Binding binding, List<Binding> remote, List<Binding> results)
+    {
+        for ( Binding r : remote ) {
+            Binding b = Algebra.merge(binding, r) ;
+            if ( b != null )
+                results.add(b) ;
+        }
+    }
+
+    private static List<Node> key(Binding binding, List<Var> keyVars)
+    {
+        List<Node> key = new ArrayList<>(keyVars.size()) ;
+        for ( Var v : keyVars ) {
+            Node n = binding.get(v) ;
+            if ( n == null )
+                return null ;
+            key.add(n) ;
+        }
+        return key ;
+    }
+
+    private static List<Binding> await(Future<List<Binding>> f)
+    {
+        try { return f.get() ; }
+        catch (InterruptedException | CancellationException ex) { throw new QueryCancelledException() ; }
+        catch (ExecutionException ex) {
+            Throwable th = ex.getCause() ;
+            if ( th instanceof RuntimeException )
+                throw (RuntimeException)th ;
+            if ( th instanceof Error )
+                throw (Error)th ;
+            throw new QueryExecException(th) ;
+        }
+    }
+
+    @Override
+    protected void requestSubCancel()
+    {
+        for ( Future<List<Binding>> f : pending )
+            f.cancel(true) ;
+    }
+
+    @Override
+    protected void closeSubIterator()
+    {
+        requestSubCancel() ;
+        pending.clear() ;
+        current = null ;
+    }
+
+    @Override
+    protected void details(IndentedWriter out, SerializationContext sCxt)
+    {
+        out.println(Lib.className(this)+" batch="+batchSize+" parallel="+parallelism) ;
+        out.incIndent() ;
+        opService.output(out, sCxt) ;
+        out.decIndent() ;
+    }
+}
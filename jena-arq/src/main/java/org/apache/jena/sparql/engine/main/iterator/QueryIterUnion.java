@@ -34,7 +34,8 @@ import org.apache.jena.sparql.serializer.SerializationContext ;
 
 
 /** Execute each sub stage against the input.
- *  Streamed SPARQL Union. */
+ *  Streamed SPARQL Union.
+ *  With parallel execution, the sub stages after the first are executed on other threads. */
 
 public class QueryIterUnion extends QueryIterRepeatApply 
 {
@@ -52,12 +53,17 @@ public class QueryIterUnion extends QueryIterRepeatApply
     protected QueryIterator nextStage(Binding binding)
     {
         QueryIterConcat unionQIter = new QueryIterConcat(getExecContext()) ;
+        boolean parallel = QueryIterParallel.isParallel(getExecContext()) ;
+        boolean first = true ;
         for (Op subOp : subOps)
         {
             subOp = QC.substitute(subOp, binding) ;
             QueryIterator parent = QueryIterSingleton.create(binding, getExecContext()) ;
-            QueryIterator qIter = QC.execute(subOp, parent, getExecContext()) ;
+            QueryIterator qIter = ( parallel && !first )
+                ? new QueryIterParallel(subOp, parent, getExecContext())
+                : QC.execute(subOp, parent, getExecContext()) ;
             unionQIter.add(qIter) ;
+            first = false ;
         }
         
         return unionQIter ;
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.Collection ;
+import java.util.Collections ;
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.Objects ;
+import java.util.Set ;
+
+import org.apache.jena.graph.Node ;
+
+/** A characteristic set: the set of predicates used by a group of subjects,
+ * the number of those subjects, and how many triples each predicate has
+ * over those subjects.
+ * <p>
+ * See "Characteristic sets: accurate cardinality estimation for RDF queries
+ * with multiple joins", Neumann and Moerkotte, ICDE 2011.
+ */
+public class CharacteristicSet
+{
+    private final Map<Node, Long> occurrences ;
+    private long subjects ;
+
+    public CharacteristicSet(Collection<Node> predicates)
+    {
+        this.occurrences = new HashMap<>() ;
+        for ( Node p : predicates )
+            occurrences.put(p, 0L) ;
+        this.subjects = 0 ;
+    }
+
+    /** Add a subject, with the number of triples it has for each predicate of the set. */
+    public void add(Map<Node, Long> counts)
+    {
+        add(1, counts) ;
+    }
+
+    /** Add, or with negative counts remove, the figures of another characteristic set for the same predicates. */
+    public void add(long subjectCount, Map<Node, Long> counts)
+    {
+        subjects += subjectCount ;
+        counts.forEach((p, n) -> occurrences.merge(p, n, Long::sum)) ;
+    }
+
+    public Set<Node> getPredicates()                { return Collections.unmodifiableSet(occurrences.keySet()) ; }
+
+    public long getSubjectCount()                   { return subjects ; }
+
+    /** Number of triples with the predicate, over the subjects of this set. */
+    public long getOccurrences(Node predicate)
+    {
+        Long x = occurrences.get(predicate) ;
+        return x == null ? 0 : x ;
+    }
+
+    public boolean containsAll(Collection<Node> predicates)
+    {
+        return occurrences.keySet().containsAll(predicates) ;
+    }
+
+    /** Estimated solutions of the star over these subjects, with one pattern for each of the predicates. */
+    public double estimate(Collection<Node> predicates)
+    {
+        if ( subjects <= 0 || ! containsAll(predicates) )
+            return 0 ;
+        double x = subjects ;
+        for ( Node p : predicates )
+            x = x * getOccurrences(p) / subjects ;
+        return x ;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return occurrences.keySet().hashCode() ;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if ( this == obj )
+            return true ;
+        if ( !(obj instanceof CharacteristicSet) )
+            return false ;
+        CharacteristicSet other = (CharacteristicSet)obj ;
+        return subjects == other.subjects && Objects.equals(occurrences, other.occurrences) ;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CS["+subjects+" "+occurrences+"]" ;
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.* ;
+
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.algebra.Op ;
+import org.apache.jena.sparql.algebra.OpVars ;
+import org.apache.jena.sparql.algebra.op.* ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.expr.* ;
+import org.apache.jena.sparql.graph.NodeConst ;
+
+/** Cardinality and cost estimates for cost-based join ordering.
+ * <p>
+ * Triple patterns are estimated from the predicate counts and the distinct
+ * subject and object counts of a {@link CostStats}. Stars of triple patterns
+ * on one subject variable use characteristic sets if there are any. The
+ * selectivity of a join on a variable is taken to be one over the larger of
+ * the number of distinct values on each side.
+ * <p>
+ * Costs count rows produced plus index lookups ({@link #ProbeCost} each).
+ * Subclasses say which pairs of triple patterns can be merge joined by the storage.
+ */
+public class CostModel
+{
+    /** Cost of one index lookup, relative to producing one row. */
+    public static double ProbeCost              = 1.0 ;
+    /** Cost of putting one row into a hash table. */
+    public static double HashBuildCost          = 2.0 ;
+    /** Selectivity of a range filter when there is no histogram. */
+    public static double DftRangeSelectivity    = 1.0/3 ;
+    /** Selectivity of other filters. */
+    public static double DftFilterSelectivity   = 0.5 ;
+    /** Cardinality of anything else. */
+    public static double DftCardinality         = 1000 ;
+
+    private static final double DftPredicates   = 100 ;
+    private static final double DftCount        = 1e6 ;
+
+    protected final CostStats stats ;
+
+    public CostModel(CostStats stats)
+    {
+        this.stats = stats ;
+    }
+
+    public CostStats getStats()                 { return stats ; }
+
+    /** Whether the storage can merge join two triple patterns, the first two of a basic graph pattern,
+     * on a variable they share. */
+    public boolean mergeJoin(Triple first, Triple second)
+    {
+        return false ;
+    }
+
+    // ---- Triple patterns
+
+    private double total()
+    {
+        long x = stats.getCount() ;
+        return x < 0 ? DftCount : x ;
+    }
+
+    private double count(Node p)
+    {
+        long x = stats.getCount(p) ;
+        if ( x >= 0 )
+            return x ;
+        return Math.max(1, total()/10) ;
+    }
+
+    private double distinctSubjects(Node p)
+    {
+        long x = stats.getDistinctSubjects(p) ;
+        if ( x >= 0 )
+            return Math.max(1, x) ;
+        return Math.max(1, count(p)/StatsMatcher.weightSP) ;
+    }
+
+    private double distinctObjects(Node p)
+    {
+        long x = stats.getDistinctObjects(p) ;
+        if ( x >= 0 )
+            return Math.max(1, x) ;
+        double w = NodeConst.nodeRDFType.equals(p) ? StatsMatcher.weightTypeO : StatsMatcher.weightPO ;
+        return Math.max(1, count(p)/w) ;
+    }
+
+    private static boolean fixed(Node n, Set<Var> bound)
+    {
+        return n.isConcrete() || ( Var.isVar(n) && bound.contains(Var.alloc(n)) ) ;
+    }
+
+    /** Estimated number of matches of a triple pattern.
+     * Variables in <code>bound</code> are taken to have a value.
+     */
+    public double cardinality(Triple t, Set<Var> bound)
+    {
+        Node s = t.getSubject() ;
+        Node p = t.getPredicate() ;
+        Node o = t.getObject() ;
+        boolean sFixed = fixed(s, bound) ;
+        boolean oFixed = fixed(o, bound) ;
+        if ( p.isConcrete() )
+        {
+            double n = count(p) ;
+            if ( sFixed )
+                n = n / distinctSubjects(p) ;
+            if ( oFixed )
+                n = n / distinctObjects(p) ;
+            return n ;
+        }
+        double n = total() ;
+        if ( fixed(p, bound) )
+            n = n / DftPredicates ;
+        if ( sFixed )
+            n = Math.min(n, 20) ;
+        if ( oFixed )
+            n = Math.min(n, 50) ;
+        if ( sFixed && oFixed )
+            n = Math.min(n, 1) ;
+        return n ;
+    }
+
+    /** Estimated number of different values of the variable over the matches of the triple pattern. */
+    public double distinct(Triple t, Var v, Set<Var> bound)
+    {
+        double card = cardinality(t, bound) ;
+        Node p = t.getPredicate() ;
+        double d ;
+        if ( v.equals(t.getPredicate()) )
+            d = DftPredicates ;
+        else if ( ! p.isConcrete() )
+            d = card ;
+        else if ( v.equals(t.getSubject()) )
+            d = distinctSubjects(p) ;
+        else
+            d = distinctObjects(p) ;
+        return Math.max(1, Math.min(d, card)) ;
+    }
+
+    // A part of a basic graph pattern: one triple pattern or a star.
+    private static class Unit
+    {
+        double card ;
+        Map<Var, Double> distinct = new HashMap<>() ;
+        void distinct(Var v, double d) { distinct.merge(v, d, Math::min) ; }
+    }
+
+    /** Estimated number of solutions of the triple patterns.
+     * Variables in <code>bound</code> are taken to have a value;
+     * <code>selectivity</code> gives the fraction of values of a variable passed by filters.
+     */
+    public double cardinality(List<Triple> triples, Set<Var> bound, Map<Var, Double> selectivity)
+    {
+        List<Unit> units = new ArrayList<>() ;
+        List<Triple> rest = stars(triples, bound, units) ;
+        for ( Triple t : rest )
+        {
+            Unit u = new Unit() ;
+            u.card = cardinality(t, bound) ;
+            for ( Var v : vars(t, bound) )
+                u.distinct(v, distinct(t, v, bound)) ;
+            units.add(u) ;
+        }
+
+        double card = 1 ;
+        Map<Var, Double> distinct = new HashMap<>() ;
+        for ( Unit u : units )
+        {
+            card = card * u.card ;
+            for ( Map.Entry<Var, Double> e : u.distinct.entrySet() )
+            {
+                Double d = distinct.get(e.getKey()) ;
+                if ( d == null )
+                    distinct.put(e.getKey(), e.getValue()) ;
+                else
+                {
+                    card = card / Math.max(d, e.getValue()) ;
+                    distinct.put(e.getKey(), Math.min(d, e.getValue())) ;
+                }
+            }
+            final double c = card ;
+            distinct.replaceAll((v, d) -> Math.max(1, Math.min(d, c))) ;
+        }
+        for ( Var v : distinct.keySet() )
+        {
+            Double sel = selectivity.get(v) ;
+            if ( sel != null )
+                card = card * sel ;
+        }
+        return card ;
+    }
+
+    // Find stars: triple patterns with the same subject variable, different
+    // concrete predicates and different object variables, where the statistics
+    // have characteristic sets. Returns the other triple patterns.
+    private List<Triple> stars(List<Triple> triples, Set<Var> bound, List<Unit> units)
+    {
+        Map<Node, List<Triple>> groups = new LinkedHashMap<>() ;
+        List<Triple> rest = new ArrayList<>() ;
+        for ( Triple t : triples )
+        {
+            if ( Var.isVar(t.getSubject()) && ! fixed(t.getSubject(), bound) && t.getPredicate().isURI() )
+                groups.computeIfAbsent(t.getSubject(), (k)->new ArrayList<>()).add(t) ;
+            else
+                rest.add(t) ;
+        }
+        for ( Map.Entry<Node, List<Triple>> e : groups.entrySet() )
+        {
+            List<Triple> group = e.getValue() ;
+            Unit u = group.size() >= 2 ? star(e.getKey(), group, bound) : null ;
+            if ( u == null )
+                rest.addAll(group) ;
+            else
+                units.add(u) ;
+        }
+        return rest ;
+    }
+
+    private Unit star(Node subject, List<Triple> group, Set<Var> bound)
+    {
+        Set<Node> predicates = new LinkedHashSet<>() ;
+        Set<Node> objects = new HashSet<>() ;
+        for ( Triple t : group )
+        {
+            if ( ! predicates.add(t.getPredicate()) )
+                return null ;
+            Node o = t.getObject() ;
+            if ( Var.isVar(o) && ! fixed(o, bound) && ( o.equals(subject) || ! objects.add(o) ) )
+                return null ;
+        }
+        double card = stats.getStarCount(predicates) ;
+        if ( card < 0 )
+            return null ;
+        Unit u = new Unit() ;
+        Var s = Var.alloc(subject) ;
+        for ( Triple t : group )
+        {
+            Node p = t.getPredicate() ;
+            if ( fixed(t.getObject(), bound) )
+                card = card / distinctObjects(p) ;
+            u.distinct(s, distinctSubjects(p)) ;
+            if ( Var.isVar(t.getObject()) && ! fixed(t.getObject(), bound) )
+                u.distinct(Var.alloc(t.getObject()), distinctObjects(p)) ;
+        }
+        final double c = card ;
+        u.distinct.replaceAll((v, d) -> Math.max(1, Math.min(d, c))) ;
+        u.card = card ;
+        return u ;
+    }
+
+    private static Set<Var> vars(Triple t, Set<Var> bound)
+    {
+        Set<Var> x = new LinkedHashSet<>() ;
+        for ( Node n : new Node[]{t.getSubject(), t.getPredicate(), t.getObject()} )
+        {
+            if ( Var.isVar(n) && ! bound.contains(Var.alloc(n)) )
+                x.add(Var.alloc(n)) ;
+        }
+        return x ;
+    }
+
+    /** Estimated cost of matching the triple patterns in the order given, using index lookups. */
+    public double cost(List<Triple> triples, Set<Var> bound, Map<Var, Double> selectivity)
+    {
+        double cost = 0 ;
+        double card = 1 ;
+        for ( int i = 0 ; i < triples.size() ; i++ )
+        {
+            double card2 = cardinality(triples.subList(0, i+1), bound, selectivity) ;
+            if ( i == 1 && bound.isEmpty() && mergeJoin(triples.get(0), triples.get(1)) )
+                cost += cardinality(triples.get(1), bound) ;
+            else
+                cost += card * ProbeCost ;
+            cost += card2 ;
+            card = card2 ;
+        }
+        return cost ;
+    }
+
+    /** Fraction of values of variables passed by range filters (<code>?v &lt; constant</code> and similar)
+     * when the variable is the object of a triple pattern with a concrete predicate.
+     */
+    public Map<Var, Double> selectivity(ExprList exprs, List<Triple> triples)
+    {
+        Map<Var, NodeValue[]> ranges = new HashMap<>() ;
+        for ( Expr e : exprs )
+        {
+            if ( ! ( e instanceof ExprFunction2 ) )
+                continue ;
+            ExprFunction2 f = (ExprFunction2)e ;
+            Expr a1 = f.getArg1() ;
+            Expr a2 = f.getArg2() ;
+            boolean lessThan ;
+            if ( e instanceof E_LessThan || e instanceof E_LessThanOrEqual )
+                lessThan = true ;
+            else if ( e instanceof E_GreaterThan || e instanceof E_GreaterThanOrEqual )
+                lessThan = false ;
+            else
+                continue ;
+            Var v ;
+            NodeValue nv ;
+            if ( a1.isVariable() && a2.isConstant() )
+            {
+                v = a1.asVar() ;
+                nv = a2.getConstant() ;
+            }
+            else if ( a2.isVariable() && a1.isConstant() )
+            {
+                v = a2.asVar() ;
+                nv = a1.getConstant() ;
+                lessThan = ! lessThan ;
+            }
+            else
+                continue ;
+            NodeValue[] range = ranges.computeIfAbsent(v, (k)->new NodeValue[2]) ;
+            // ?v < nv is an upper bound.
+            range[lessThan ? 1 : 0] = nv ;
+        }
+
+        Map<Var, Double> selectivity = new HashMap<>() ;
+        for ( Map.Entry<Var, NodeValue[]> e : ranges.entrySet() )
+        {
+            Var v = e.getKey() ;
+            double sel = -1 ;
+            for ( Triple t : triples )
+            {
+                if ( v.equals(t.getObject()) && t.getPredicate().isURI() )
+                {
+                    sel = stats.getRangeSelectivity(t.getPredicate(), e.getValue()[0], e.getValue()[1]) ;
+                    break ;
+                }
+            }
+            if ( sel < 0 )
+                sel = DftRangeSelectivity ;
+            selectivity.put(v, sel) ;
+        }
+        return selectivity ;
+    }
+
+    // ---- Algebra
+
+    /** Estimated number of results of an algebra expression. */
+    public double cardinality(Op op)
+    {
+        return cardinality(op, Collections.emptySet()) ;
+    }
+
+    /** Estimated number of results of an algebra expression with the variables in <code>bound</code>
+     * replaced by values.
+     */
+    public double cardinality(Op op, Set<Var> bound)
+    {
+        if ( op instanceof OpBGP )
+            return cardinality(((OpBGP)op).getPattern().getList(), bound, Collections.emptyMap()) ;
+        if ( op instanceof OpQuadPattern )
+            return cardinality(((OpQuadPattern)op).getBasicPattern().getList(), bound, Collections.emptyMap()) ;
+        if ( op instanceof OpTriple )
+            return cardinality(((OpTriple)op).getTriple(), bound) ;
+        if ( op instanceof OpTable )
+            return ((OpTable)op).getTable().size() ;
+        if ( op instanceof OpFilter )
+        {
+            OpFilter f = (OpFilter)op ;
+            if ( f.getSubOp() instanceof OpBGP )
+            {
+                List<Triple> triples = ((OpBGP)f.getSubOp()).getPattern().getList() ;
+                return cardinality(triples, bound, selectivity(f.getExprs(), triples)) ;
+            }
+            return cardinality(f.getSubOp(), bound) * DftFilterSelectivity ;
+        }
+        if ( op instanceof OpSlice )
+            return Math.min(cardinality(((OpSlice)op).getSubOp(), bound), ((OpSlice)op).getLength()) ;
+        if ( op instanceof OpGroup )
+        {
+            OpGroup g = (OpGroup)op ;
+            if ( g.getGroupVars().isEmpty() )
+                return 1 ;
+            return Math.max(1, cardinality(g.getSubOp(), subquery(g, bound))/10) ;
+        }
+        if ( op instanceof OpProject )
+            return cardinality(((OpProject)op).getSubOp(), subquery(op, bound)) ;
+        if ( op instanceof Op1 && ! ( op instanceof OpService ) )
+            return cardinality(((Op1)op).getSubOp(), bound) ;
+        if ( op instanceof OpUnion )
+            return cardinality(((OpUnion)op).getLeft(), bound) + cardinality(((OpUnion)op).getRight(), bound) ;
+        if ( op instanceof OpJoin )
+            return join(((OpJoin)op).getLeft(), ((OpJoin)op).getRight(), bound) ;
+        if ( op instanceof OpLeftJoin )
+            return leftJoin(((OpLeftJoin)op).getLeft(), ((OpLeftJoin)op).getRight(), bound) ;
+        if ( op instanceof OpConditional )
+            return leftJoin(((OpConditional)op).getLeft(), ((OpConditional)op).getRight(), bound) ;
+        if ( op instanceof OpMinus || op instanceof OpDiff )
+            return cardinality(((Op2)op).getLeft(), bound) ;
+        if ( op instanceof OpSequence )
+        {
+            List<Op> elts = ((OpSequence)op).getElements() ;
+            if ( elts.isEmpty() )
+                return 1 ;
+            Op acc = elts.get(0) ;
+            double card = cardinality(acc, bound) ;
+            for ( int i = 1 ; i < elts.size() ; i++ )
+            {
+                card = join(card, OpVars.visibleVars(acc), elts.get(i), bound) ;
+                acc = OpSequence.create(acc, elts.get(i)) ;
+            }
+            return card ;
+        }
+        if ( op instanceof OpDisjunction )
+        {
+            double x = 0 ;
+            for ( Op sub : ((OpN)op).getElements() )
+                x += cardinality(sub, bound) ;
+            return x ;
+        }
+        return DftCardinality ;
+    }
+
+    // Substitution does not go into a sub-query for variables that are not projected.
+    private static Set<Var> subquery(Op op, Set<Var> bound)
+    {
+        if ( bound.isEmpty() )
+            return bound ;
+        Set<Var> x = new HashSet<>(bound) ;
+        x.retainAll(OpVars.visibleVars(op)) ;
+        return x ;
+    }
+
+    private double join(Op left, Op right, Set<Var> bound)
+    {
+        return join(cardinality(left, bound), OpVars.visibleVars(left), right, bound) ;
+    }
+
+    private double join(double leftCard, Set<Var> leftVars, Op right, Set<Var> bound)
+    {
+        // Evaluating the right once for each left row, with the shared variables bound.
+        Set<Var> b = new HashSet<>(bound) ;
+        b.addAll(leftVars) ;
+        return leftCard * cardinality(right, b) ;
+    }
+
+    private double leftJoin(Op left, Op right, Set<Var> bound)
+    {
+        double card = cardinality(left, bound) ;
+        return Math.max(card, join(card, OpVars.visibleVars(left), right, bound)) ;
+    }
+
+    /** Estimated cost of evaluating an algebra expression once,
+     * with the variables in <code>bound</code> replaced by values.
+     */
+    public double cost(Op op, Set<Var> bound)
+    {
+        if ( op instanceof OpBGP )
+            return cost(((OpBGP)op).getPattern().getList(), bound, Collections.emptyMap()) ;
+        if ( op instanceof OpQuadPattern )
+            return cost(((OpQuadPattern)op).getBasicPattern().getList(), bound, Collections.emptyMap()) ;
+        if ( op instanceof OpTriple )
+            return ProbeCost + cardinality(op, bound) ;
+        if ( op instanceof OpTable )
+            return cardinality(op, bound) ;
+        if ( op instanceof OpGroup || op instanceof OpProject )
+            return cost(((Op1)op).getSubOp(), subquery(op, bound)) + cardinality(op, bound) ;
+        if ( op instanceof Op1 && ! ( op instanceof OpService ) )
+        {
+            Op sub = ((Op1)op).getSubOp() ;
+            return cost(sub, bound) + cardinality(sub, bound) ;
+        }
+        if ( op instanceof OpJoin || op instanceof OpLeftJoin || op instanceof OpMinus || op instanceof OpDiff )
+        {
+            // Both sides evaluated separately.
+            Op2 op2 = (Op2)op ;
+            return cost(op2.getLeft(), bound) + cost(op2.getRight(), bound)
+                + cardinality(op2.getLeft(), bound) + cardinality(op2.getRight(), bound) * HashBuildCost ;
+        }
+        if ( op instanceof OpUnion )
+            return cost(((OpUnion)op).getLeft(), bound) + cost(((OpUnion)op).getRight(), bound) ;
+        if ( op instanceof OpConditional )
+        {
+            OpConditional c = (OpConditional)op ;
+            return cost(c.getLeft(), bound) + indexJoinCost(c.getLeft(), c.getRight(), bound) ;
+        }
+        if ( op instanceof OpSequence )
+        {
+            List<Op> elts = ((OpSequence)op).getElements() ;
+            if ( elts.isEmpty() )
+                return 0 ;
+            Op acc = elts.get(0) ;
+            double cost = cost(acc, bound) ;
+            for ( int i = 1 ; i < elts.size() ; i++ )
+            {
+                cost += indexJoinCost(acc, elts.get(i), bound) ;
+                acc = OpSequence.create(acc, elts.get(i)) ;
+            }
+            return cost ;
+        }
+        if ( op instanceof OpDisjunction )
+        {
+            double x = 0 ;
+            for ( Op sub : ((OpN)op).getElements() )
+                x += cost(sub, bound) ;
+            return x ;
+        }
+        return cardinality(op, bound) ;
+    }
+
+    /** Estimated cost, not counting evaluating the left side, of an index join:
+     * evaluating the right side once for each left row.
+     */
+    public double indexJoinCost(Op left, Op right, Set<Var> bound)
+    {
+        double leftCard = cardinality(left, bound) ;
+        Set<Var> b = new HashSet<>(bound) ;
+        b.addAll(OpVars.visibleVars(left)) ;
+        return leftCard * ( ProbeCost + cost(right, b) ) ;
+    }
+
+    /** Estimated cost, not counting evaluating the left side, of a hash join:
+     * evaluating the right side once, putting it in a hash table and probing with each left row.
+     */
+    public double hashJoinCost(Op left, Op right, Set<Var> bound)
+    {
+        return cost(right, bound) + cardinality(right, bound) * HashBuildCost + cardinality(left, bound) ;
+    }
+}
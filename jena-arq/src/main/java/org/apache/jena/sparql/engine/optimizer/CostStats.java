@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.Collection ;
+
+import org.apache.jena.graph.Node ;
+import org.apache.jena.sparql.expr.NodeValue ;
+
+/** Statistics for cost-based join ordering ({@link CostModel}).
+ * <p>
+ * Counts are numbers of triples; any figure may be {@link #UNKNOWN},
+ * in which case the cost model makes a guess.
+ */
+public interface CostStats
+{
+    public static final long UNKNOWN = -1 ;
+
+    /** Total number of triples. */
+    public long getCount() ;
+
+    /** Number of triples with this predicate. */
+    public long getCount(Node predicate) ;
+
+    /** Number of different subjects of triples with this predicate. */
+    public long getDistinctSubjects(Node predicate) ;
+
+    /** Number of different objects of triples with this predicate. */
+    public long getDistinctObjects(Node predicate) ;
+
+    /** Estimated number of solutions of a star of triple patterns
+     * <code>?s p1 ?o1 . ?s p2 ?o2 ...</code>, one for each predicate,
+     * from characteristic sets.
+     */
+    public default double getStarCount(Collection<Node> predicates)
+    { return UNKNOWN ; }
+
+    /** Estimated fraction of the triples with this predicate that have an
+     * object between <code>low</code> and <code>high</code>, inclusive,
+     * from a histogram of object values. Either bound may be null.
+     */
+    public default double getRangeSelectivity(Node predicate, NodeValue low, NodeValue high)
+    { return UNKNOWN ; }
+}
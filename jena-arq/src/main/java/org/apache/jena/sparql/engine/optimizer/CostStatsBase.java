@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.* ;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.expr.NodeValue ;
+
+/** Statistics held in memory: predicate counts, distinct subjects and objects
+ * for each predicate, characteristic sets and histograms of object values.
+ * <p>
+ * Predicates not recorded have a count of zero.
+ */
+public class CostStatsBase implements CostStats
+{
+    private long count = 0 ;
+    private final Map<Node, long[]> predicates = new HashMap<>() ;
+    private final Map<Set<Node>, CharacteristicSet> charSets = new HashMap<>() ;
+    private final Map<Node, Histogram> histograms = new HashMap<>() ;
+
+    public CostStatsBase() {}
+
+    public void setCount(long count)            { this.count = count ; }
+
+    /** Record the figures for a predicate. */
+    public void setPredicate(Node predicate, long count, long distinctSubjects, long distinctObjects)
+    {
+        predicates.put(predicate, new long[]{count, distinctSubjects, distinctObjects}) ;
+    }
+
+    public Set<Node> getPredicates()            { return Collections.unmodifiableSet(predicates.keySet()) ; }
+
+    public void addCharacteristicSet(CharacteristicSet cs)
+    {
+        charSets.put(new HashSet<>(cs.getPredicates()), cs) ;
+    }
+
+    public Collection<CharacteristicSet> getCharacteristicSets()
+    {
+        return Collections.unmodifiableCollection(charSets.values()) ;
+    }
+
+    public void setHistogram(Node predicate, Histogram histogram)
+    {
+        histograms.put(predicate, histogram) ;
+    }
+
+    public Histogram getHistogram(Node predicate)
+    {
+        return histograms.get(predicate) ;
+    }
+
+    @Override
+    public long getCount()
+    {
+        return count ;
+    }
+
+    @Override
+    public long getCount(Node predicate)
+    {
+        return get(predicate, 0) ;
+    }
+
+    @Override
+    public long getDistinctSubjects(Node predicate)
+    {
+        return get(predicate, 1) ;
+    }
+
+    @Override
+    public long getDistinctObjects(Node predicate)
+    {
+        return get(predicate, 2) ;
+    }
+
+    private long get(Node predicate, int idx)
+    {
+        long[] x = predicates.get(predicate) ;
+        if ( x == null )
+            return 0 ;
+        return x[idx] ;
+    }
+
+    @Override
+    public double getStarCount(Collection<Node> predicates)
+    {
+        if ( charSets.isEmpty() )
+            return UNKNOWN ;
+        double x = 0 ;
+        for ( CharacteristicSet cs : charSets.values() )
+            x += cs.estimate(predicates) ;
+        return x ;
+    }
+
+    @Override
+    public double getRangeSelectivity(Node predicate, NodeValue low, NodeValue high)
+    {
+        Histogram h = histograms.get(predicate) ;
+        if ( h == null )
+            return UNKNOWN ;
+        double lo = low == null ? Double.NEGATIVE_INFINITY : Histogram.value(low) ;
+        double hi = high == null ? Double.POSITIVE_INFINITY : Histogram.value(high) ;
+        if ( Double.isNaN(lo) || Double.isNaN(hi) )
+            return UNKNOWN ;
+        double numeric = h.getTotal() ;
+        long total = getCount(predicate) ;
+        if ( total <= 0 )
+            return UNKNOWN ;
+        // Objects that are not numbers or dateTimes do not match.
+        return h.selectivity(lo, hi) * Math.min(1.0, numeric / total) ;
+    }
+
+    /** Gather statistics from a graph. This reads the whole graph, subject by subject. */
+    public static CostStatsBase gather(Graph graph)
+    {
+        CostStatsCollector collector = new CostStatsCollector() ;
+        Iterator<Triple> iter = graph.find(Node.ANY, Node.ANY, Node.ANY) ;
+        Set<Node> subjects = new HashSet<>() ;
+        while ( iter.hasNext() )
+            subjects.add(iter.next().getSubject()) ;
+        for ( Node s : subjects )
+        {
+            Iterator<Triple> iter2 = graph.find(s, Node.ANY, Node.ANY) ;
+            while ( iter2.hasNext() )
+                collector.record(iter2.next()) ;
+        }
+        return collector.results() ;
+    }
+}
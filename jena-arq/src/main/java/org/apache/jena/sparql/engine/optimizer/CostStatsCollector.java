@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.Arrays ;
+import java.util.HashMap ;
+import java.util.HashSet ;
+import java.util.Map ;
+import java.util.Set ;
+
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+
+/** Collect {@link CostStatsBase} statistics from a stream of triples.
+ * Triples must arrive grouped by subject (as from an SPO index)
+ * for the characteristic sets and distinct subject counts to be right.
+ */
+public class CostStatsCollector
+{
+    private static class PredicateStats
+    {
+        long count = 0 ;
+        long subjects = 0 ;
+        Set<Node> objects = new HashSet<>() ;
+        double[] values = new double[16] ;
+        int numValues = 0 ;
+    }
+
+    private long count = 0 ;
+    private final Map<Node, PredicateStats> predicates = new HashMap<>() ;
+    private final Map<Set<Node>, CharacteristicSet> charSets = new HashMap<>() ;
+
+    private Node currentSubject = null ;
+    private final Map<Node, Long> currentPredicates = new HashMap<>() ;
+
+    public void record(Triple triple)
+    {
+        record(triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+    }
+
+    public void record(Node s, Node p, Node o)
+    {
+        if ( ! s.equals(currentSubject) )
+            finishSubject() ;
+        currentSubject = s ;
+        count++ ;
+        PredicateStats ps = predicates.get(p) ;
+        if ( ps == null )
+        {
+            ps = new PredicateStats() ;
+            predicates.put(p, ps) ;
+        }
+        ps.count++ ;
+        if ( ! currentPredicates.containsKey(p) )
+            ps.subjects++ ;
+        currentPredicates.merge(p, 1L, Long::sum) ;
+        ps.objects.add(o) ;
+        double v = Histogram.value(o) ;
+        if ( ! Double.isNaN(v) )
+        {
+            if ( ps.numValues == ps.values.length )
+                ps.values = Arrays.copyOf(ps.values, 2*ps.values.length) ;
+            ps.values[ps.numValues++] = v ;
+        }
+    }
+
+    private void finishSubject()
+    {
+        if ( currentPredicates.isEmpty() )
+            return ;
+        Set<Node> key = new HashSet<>(currentPredicates.keySet()) ;
+        CharacteristicSet cs = charSets.get(key) ;
+        if ( cs == null )
+        {
+            cs = new CharacteristicSet(key) ;
+            charSets.put(key, cs) ;
+        }
+        cs.add(currentPredicates) ;
+        currentPredicates.clear() ;
+        currentSubject = null ;
+    }
+
+    public CostStatsBase results()
+    {
+        finishSubject() ;
+        CostStatsBase stats = new CostStatsBase() ;
+        stats.setCount(count) ;
+        predicates.forEach((p, ps) -> {
+            stats.setPredicate(p, ps.count, ps.subjects, ps.objects.size()) ;
+            if ( ps.numValues > 0 )
+                stats.setHistogram(p, Histogram.create(Arrays.copyOf(ps.values, ps.numValues), Histogram.DftBuckets)) ;
+        }) ;
+        charSets.values().forEach(stats::addCharacteristicSet) ;
+        return stats ;
+    }
+}
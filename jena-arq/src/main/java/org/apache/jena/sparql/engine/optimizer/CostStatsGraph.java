@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.HashMap ;
+import java.util.HashSet ;
+import java.util.Map ;
+import java.util.Set ;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.GraphStatisticsHandler ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.util.iterator.ExtendedIterator ;
+
+/** Statistics worked out as needed from a graph, for graphs without gathered statistics.
+ * <p>
+ * Counts come from the graph's {@link GraphStatisticsHandler} if it has one.
+ * Distinct subjects and objects come from looking at up to
+ * {@link #ScanLimit} triples of each predicate and scaling up.
+ * Results are kept, so an object of this class should only be used while the graph
+ * does not change, such as for one query execution.
+ */
+public class CostStatsGraph implements CostStats
+{
+    public static int ScanLimit = 10000 ;
+
+    private final Graph graph ;
+    private final Map<Node, long[]> predicates = new HashMap<>() ;
+    private long count = -2 ;
+
+    public CostStatsGraph(Graph graph)
+    {
+        this.graph = graph ;
+    }
+
+    @Override
+    public long getCount()
+    {
+        if ( count == -2 )
+            count = graph.size() ;
+        return count ;
+    }
+
+    @Override
+    public long getCount(Node predicate)
+    {
+        return stats(predicate)[0] ;
+    }
+
+    @Override
+    public long getDistinctSubjects(Node predicate)
+    {
+        return stats(predicate)[1] ;
+    }
+
+    @Override
+    public long getDistinctObjects(Node predicate)
+    {
+        return stats(predicate)[2] ;
+    }
+
+    private long[] stats(Node predicate)
+    {
+        long[] x = predicates.get(predicate) ;
+        if ( x == null )
+        {
+            x = scan(predicate) ;
+            predicates.put(predicate, x) ;
+        }
+        return x ;
+    }
+
+    private long[] scan(Node predicate)
+    {
+        long total = UNKNOWN ;
+        GraphStatisticsHandler handler = graph.getStatisticsHandler() ;
+        if ( handler != null )
+            total = handler.getStatistic(Node.ANY, predicate, Node.ANY) ;
+
+        Set<Node> subjects = new HashSet<>() ;
+        Set<Node> objects = new HashSet<>() ;
+        long n = 0 ;
+        boolean complete ;
+        ExtendedIterator<Triple> iter = graph.find(Node.ANY, predicate, Node.ANY) ;
+        try {
+            while ( iter.hasNext() && n < ScanLimit )
+            {
+                Triple t = iter.next() ;
+                subjects.add(t.getSubject()) ;
+                objects.add(t.getObject()) ;
+                n++ ;
+            }
+            complete = ! iter.hasNext() ;
+        } finally { iter.close() ; }
+
+        if ( complete )
+            return new long[]{n, subjects.size(), objects.size()} ;
+        if ( total < 0 )
+            return new long[]{UNKNOWN, UNKNOWN, UNKNOWN} ;
+        // Scale up from the sample.
+        double f = (double)total / n ;
+        return new long[]{total, (long)Math.ceil(subjects.size()*f), (long)Math.ceil(objects.size()*f)} ;
+    }
+}
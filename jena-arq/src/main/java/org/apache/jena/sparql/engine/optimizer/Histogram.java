@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer;
+
+import java.util.Arrays ;
+
+import org.apache.jena.graph.Node ;
+import org.apache.jena.sparql.expr.NodeValue ;
+
+/** An equi-depth histogram of numeric or dateTime values.
+ * Each bucket covers a range of values and is built to hold about
+ * the same number of values. DateTime values are in milliseconds since
+ * the epoch.
+ */
+public class Histogram
+{
+    public static final int DftBuckets = 32 ;
+
+    // Bucket i covers bounds[i] to bounds[i+1].
+    private final double[] bounds ;
+    private final long[] counts ;
+
+    /** Build a histogram: the values array is sorted. */
+    public static Histogram create(double[] values, int numBuckets)
+    {
+        Arrays.sort(values) ;
+        int n = values.length ;
+        if ( n == 0 )
+            return new Histogram(new double[0], new long[0]) ;
+        numBuckets = Math.max(1, Math.min(numBuckets, n)) ;
+        double[] bounds = new double[numBuckets+1] ;
+        long[] counts = new long[numBuckets] ;
+        bounds[0] = values[0] ;
+        for ( int i = 1 ; i < numBuckets ; i++ )
+            bounds[i] = values[(int)((long)i*n/numBuckets)] ;
+        bounds[numBuckets] = values[n-1] ;
+        int b = 0 ;
+        for ( double v : values )
+        {
+            while ( b < numBuckets-1 && v >= bounds[b+1] )
+                b++ ;
+            counts[b]++ ;
+        }
+        return new Histogram(bounds, counts) ;
+    }
+
+    /** A histogram from bucket boundaries (one more than the number of counts) and counts. */
+    public Histogram(double[] bounds, long[] counts)
+    {
+        if ( counts.length > 0 && bounds.length != counts.length+1 )
+            throw new IllegalArgumentException("Histogram: bounds and counts do not match") ;
+        this.bounds = bounds ;
+        this.counts = counts ;
+    }
+
+    public int getBucketCount()                 { return counts.length ; }
+    public double[] getBounds()                 { return bounds ; }
+    public long[] getCounts()                   { return counts ; }
+
+    public long getTotal()
+    {
+        long x = 0 ;
+        for ( long c : counts )
+            x += c ;
+        return x ;
+    }
+
+    /** Add (or, with a negative delta, remove) a value. The end buckets stretch to take values outside the histogram. */
+    public void add(double value, long delta)
+    {
+        if ( counts.length == 0 || Double.isNaN(value) )
+            return ;
+        int n = counts.length ;
+        if ( value < bounds[0] )
+            bounds[0] = value ;
+        if ( value > bounds[n] )
+            bounds[n] = value ;
+        int b = 0 ;
+        while ( b < n-1 && value >= bounds[b+1] )
+            b++ ;
+        counts[b] = Math.max(0, counts[b]+delta) ;
+    }
+
+    /** Estimated fraction of the values between low and high, inclusive.
+     * Use {@link Double#NEGATIVE_INFINITY} and {@link Double#POSITIVE_INFINITY} for open ranges.
+     */
+    public double selectivity(double low, double high)
+    {
+        long total = getTotal() ;
+        if ( total == 0 || low > high )
+            return 0 ;
+        double x = 0 ;
+        for ( int i = 0 ; i < counts.length ; i++ )
+        {
+            double lo = bounds[i] ;
+            double hi = bounds[i+1] ;
+            if ( high < lo || low > hi )
+                continue ;
+            if ( hi <= lo || ( low <= lo && high >= hi ) )
+            {
+                x += counts[i] ;
+                continue ;
+            }
+            // Partial overlap - values are taken to be spread evenly over the bucket.
+            double overlap = ( Math.min(high, hi) - Math.max(low, lo) ) / ( hi - lo ) ;
+            x += counts[i] * overlap ;
+        }
+        return Math.min(1.0, x / total) ;
+    }
+
+    /** The value used by histograms, or NaN if the node is not a number or dateTime literal. */
+    public static double value(Node node)
+    {
+        if ( node == null || ! node.isLiteral() )
+            return Double.NaN ;
+        try {
+            return value(NodeValue.makeNode(node)) ;
+        } catch (RuntimeException ex) { return Double.NaN ; }
+    }
+
+    /** The value used by histograms, or NaN if not a number or dateTime. */
+    public static double value(NodeValue nv)
+    {
+        if ( nv == null )
+            return Double.NaN ;
+        if ( nv.isNumber() )
+            return nv.getDouble() ;
+        if ( nv.isDateTime() )
+            return nv.getDateTime().toGregorianCalendar().getTimeInMillis() ;
+        return Double.NaN ;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Histogram"+Arrays.toString(bounds)+Arrays.toString(counts) ;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.optimizer.reorder;
+
+import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.Collections ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.optimizer.CostModel ;
+
+/** Cost-based reordering of a basic graph pattern.
+ * <p>
+ * For up to {@link #MaxDP} triple patterns, dynamic programming over the subsets
+ * of the pattern finds the order (a left-deep plan of index joins, with the first
+ * two patterns merge joined where the {@link CostModel} allows) of least estimated cost.
+ * Cross products are only used when the pattern is not connected.
+ * Larger patterns are ordered greedily, smallest estimated result next.
+ */
+public class ReorderCost implements ReorderTransformation
+{
+    public static int MaxDP = 12 ;
+
+    private final CostModel model ;
+    private final Map<Var, Double> selectivity ;
+
+    public ReorderCost(CostModel model)
+    {
+        this(model, Collections.emptyMap()) ;
+    }
+
+    /** Reorder, with the fraction of values of some variables that pass filters. */
+    public ReorderCost(CostModel model, Map<Var, Double> selectivity)
+    {
+        this.model = model ;
+        this.selectivity = selectivity ;
+    }
+
+    @Override
+    public BasicPattern reorder(BasicPattern pattern)
+    {
+        return reorderIndexes(pattern).reorder(pattern) ;
+    }
+
+    @Override
+    public ReorderProc reorderIndexes(BasicPattern pattern)
+    {
+        List<Triple> triples = pattern.getList() ;
+        int n = triples.size() ;
+        if ( n < 2 )
+            return ReorderLib.identityProc() ;
+        int[] order = ( n <= MaxDP ) ? dynamic(triples) : greedy(triples) ;
+        return new ReorderProcIndexes(order) ;
+    }
+
+    private int[] dynamic(List<Triple> triples)
+    {
+        int n = triples.size() ;
+        int size = 1 << n ;
+        int[] adjacent = adjacency(triples) ;
+
+        double[] card = new double[size] ;
+        double[] cost = new double[size] ;
+        int[] last = new int[size] ;
+        Triple[] subset = new Triple[n] ;
+        for ( int mask = 1 ; mask < size ; mask++ )
+        {
+            int k = 0 ;
+            for ( int i = 0 ; i < n ; i++ )
+                if ( ( mask & (1<<i) ) != 0 )
+                    subset[k++] = triples.get(i) ;
+            card[mask] = model.cardinality(Arrays.asList(subset).subList(0, k), Collections.emptySet(), selectivity) ;
+            cost[mask] = Double.POSITIVE_INFINITY ;
+        }
+        for ( int i = 0 ; i < n ; i++ )
+        {
+            cost[1<<i] = card[1<<i] ;
+            last[1<<i] = i ;
+        }
+
+        for ( int mask = 1 ; mask < size ; mask++ )
+        {
+            if ( Integer.bitCount(mask) < 2 )
+                continue ;
+            boolean connected = false ;
+            for ( int t = 0 ; t < n && ! connected ; t++ )
+            {
+                int rest = mask & ~(1<<t) ;
+                if ( ( mask & (1<<t) ) != 0 && ( adjacent[t] & rest ) != 0 )
+                    connected = true ;
+            }
+            for ( int t = 0 ; t < n ; t++ )
+            {
+                if ( ( mask & (1<<t) ) == 0 )
+                    continue ;
+                int rest = mask & ~(1<<t) ;
+                if ( connected && ( adjacent[t] & rest ) == 0 )
+                    continue ;
+                double step ;
+                if ( Integer.bitCount(rest) == 1 && model.mergeJoin(triples.get(last[rest]), triples.get(t)) )
+                    step = card[1<<t] ;
+                else
+                    step = card[rest] * CostModel.ProbeCost ;
+                double c = cost[rest] + step + card[mask] ;
+                if ( c < cost[mask] )
+                {
+                    cost[mask] = c ;
+                    last[mask] = t ;
+                }
+            }
+        }
+
+        int[] order = new int[n] ;
+        int mask = size - 1 ;
+        for ( int i = n-1 ; i >= 0 ; i-- )
+        {
+            order[i] = last[mask] ;
+            mask = mask & ~(1<<order[i]) ;
+        }
+        return order ;
+    }
+
+    // For each triple pattern, the set of other triple patterns it shares a variable with.
+    private static int[] adjacency(List<Triple> triples)
+    {
+        int n = triples.size() ;
+        int[] adjacent = new int[n] ;
+        for ( int i = 0 ; i < n ; i++ )
+            for ( int j = 0 ; j < n ; j++ )
+                if ( i != j && shareVar(triples.get(i), triples.get(j)) )
+                    adjacent[i] |= (1<<j) ;
+        return adjacent ;
+    }
+
+    private static boolean shareVar(Triple t1, Triple t2)
+    {
+        for ( Node n1 : new Node[]{t1.getSubject(), t1.getPredicate(), t1.getObject()} )
+        {
+            if ( ! Var.isVar(n1) )
+                continue ;
+            if ( n1.equals(t2.getSubject()) || n1.equals(t2.getPredicate()) || n1.equals(t2.getObject()) )
+                return true ;
+        }
+        return false ;
+    }
+
+    private int[] greedy(List<Triple> triples)
+    {
+        int n = triples.size() ;
+        int[] order = new int[n] ;
+        boolean[] used = new boolean[n] ;
+        List<Triple> done = new ArrayList<>() ;
+        for ( int i = 0 ; i < n ; i++ )
+        {
+            int best = -1 ;
+            boolean bestConnected = false ;
+            double bestCard = Double.POSITIVE_INFINITY ;
+            for ( int t = 0 ; t < n ; t++ )
+            {
+                if ( used[t] )
+                    continue ;
+                boolean connected = done.isEmpty() ;
+                for ( Triple d : done )
+                    connected = connected || shareVar(d, triples.get(t)) ;
+                done.add(triples.get(t)) ;
+                double c = model.cardinality(done, Collections.emptySet(), selectivity) ;
+                done.remove(done.size()-1) ;
+                if ( best < 0 || ( connected && ! bestConnected ) || ( connected == bestConnected && c < bestCard ) )
+                {
+                    best = t ;
+                    bestConnected = connected ;
+                    bestCard = c ;
+                }
+            }
+            used[best] = true ;
+            order[i] = best ;
+            done.add(triples.get(best)) ;
+        }
+        return order ;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.expr.aggregate;
+
+import org.apache.jena.graph.Node ;
+
+/** An Accumulator whose partial results can be merged.
+ *  <p>
+ *  A group can then be aggregated in several parts, for example when
+ *  grouping spills to disk, and the parts combined without going back
+ *  over the rows of the group.
+ *  <p>
+ *  The partial state is an array of nodes, with a fixed length for each
+ *  aggregator. An element is null for "no value".
+ */
+
+public interface AccumulatorCombinable extends Accumulator
+{
+    /** The partial state of this accumulator */
+    public Node[] getPartial() ;
+
+    /** Merge in the partial state of another accumulator of the same aggregator */
+    public void combine(Node[] partial) ;
+}
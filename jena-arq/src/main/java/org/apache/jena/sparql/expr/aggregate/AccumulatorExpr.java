@@ -21,6 +21,7 @@ package org.apache.jena.sparql.expr.aggregate;
 import java.util.HashSet ;
 import java.util.Set ;
 
+import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.expr.Expr ;
 import org.apache.jena.sparql.expr.ExprEvalException ;
@@ -80,6 +81,33 @@ public abstract class AccumulatorExpr implements Accumulator
 
     /** Get the count of accumulated values */ 
     protected long getAccCount() { return accCount ; }
+
+    /** Number of leading slots used by {@link #getPartialCounts} in partial state */
+    protected static final int PartialCountsLength = 2 ;
+
+    /** Partial state of the counts kept here, for subclasses that are {@link AccumulatorCombinable}.
+     * The subclass adds its own state after these slots.
+     */
+    protected Node[] getPartialCounts(int length) {
+        Node[] partial = new Node[PartialCountsLength+length] ;
+        partial[0] = longToNode(accCount) ;
+        partial[1] = longToNode(errorCount) ;
+        return partial ;
+    }
+
+    /** Merge the counts from partial state made by {@link #getPartialCounts} */
+    protected void combineCounts(Node[] partial) {
+        accCount += nodeToLong(partial[0]) ;
+        errorCount += nodeToLong(partial[1]) ;
+    }
+
+    /*package*/ static Node longToNode(long x) {
+        return NodeValue.makeInteger(x).asNode() ;
+    }
+
+    /*package*/ static long nodeToLong(Node n) {
+        return NodeValue.makeNode(n).getInteger().longValue() ;
+    }
     
     /** Called if no errors to get the accumulated result */
     protected abstract NodeValue getAccValue() ; 
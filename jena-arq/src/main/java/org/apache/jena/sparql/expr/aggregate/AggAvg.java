@@ -60,7 +60,7 @@ public class AggAvg extends AggregatorBase
     }
     
     // ---- Accumulator
-    private static class AccAvg extends AccumulatorExpr
+    private static class AccAvg extends AccumulatorExpr implements AccumulatorCombinable
     {
         // Non-empty case but still can be nothing because the expression may be undefined.
         private NodeValue total = noValuesToAvg ;
@@ -106,5 +106,24 @@ public class AggAvg extends AggregatorBase
             NodeValue nvCount = NodeValue.makeInteger(count) ;
             return XSDFuncOp.numDivide(total, nvCount) ;
         }
+
+        @Override
+        public Node[] getPartial() {
+            Node[] partial = getPartialCounts(2) ;
+            partial[PartialCountsLength] = ( count == 0 ) ? null : total.asNode() ;
+            partial[PartialCountsLength+1] = longToNode(count) ;
+            return partial ;
+        }
+
+        @Override
+        public void combine(Node[] partial) {
+            combineCounts(partial) ;
+            Node n = partial[PartialCountsLength] ;
+            if ( n == null )
+                return ;
+            NodeValue nv = NodeValue.makeNode(n) ;
+            total = ( count == 0 ) ? nv : XSDFuncOp.numAdd(nv, total) ;
+            count += (int)nodeToLong(partial[PartialCountsLength+1]) ;
+        }
     }
 }
@@ -70,7 +70,7 @@ public class AggCount extends AggregatorBase
         return true ;
     }
 
-    static class AccCount implements Accumulator
+    static class AccCount implements AccumulatorCombinable
     {
         private long count = 0 ;
         public AccCount()   { }
@@ -80,5 +80,11 @@ public class AggCount extends AggregatorBase
         // Errors can't occur.
         @Override
         public NodeValue getValue()             { return NodeValue.makeInteger(count) ; }
+
+        @Override
+        public Node[] getPartial()              { return new Node[]{ AccumulatorExpr.longToNode(count) } ; }
+
+        @Override
+        public void combine(Node[] partial)     { count += AccumulatorExpr.nodeToLong(partial[0]) ; }
     }
 }
@@ -56,7 +56,7 @@ public class AggCountVar extends AggregatorBase
     public Node getValueEmpty()     { return NodeConst.nodeZero ; } 
 
     // ---- Accumulator
-    private static class AccCountVar extends AccumulatorExpr
+    private static class AccCountVar extends AccumulatorExpr implements AccumulatorCombinable
     {
         private long count = 0 ;
         public AccCountVar(Expr expr)   { super(expr, false) ; }
@@ -76,5 +76,18 @@ public class AggCountVar extends AggregatorBase
 
         @Override
         public NodeValue getAccValue()             { return NodeValue.makeInteger(count) ; }
+
+        @Override
+        public Node[] getPartial() {
+            Node[] partial = getPartialCounts(1) ;
+            partial[PartialCountsLength] = longToNode(count) ;
+            return partial ;
+        }
+
+        @Override
+        public void combine(Node[] partial) {
+            combineCounts(partial) ;
+            count += nodeToLong(partial[PartialCountsLength]) ;
+        }
     }
 }
@@ -40,7 +40,7 @@ abstract class AggMaxBase extends AggregatorBase
     public final Node getValueEmpty()     { return null ; } 
 
     // ---- Accumulator
-    private static class AccMax extends AccumulatorExpr
+    private static class AccMax extends AccumulatorExpr implements AccumulatorCombinable
     {
         // Non-empty case but still can be nothing because the expression may be undefined.
         private NodeValue maxSoFar = null ;
@@ -73,5 +73,20 @@ abstract class AggMaxBase extends AggregatorBase
         @Override
         public NodeValue getAccValue()
         { return maxSoFar ; }
+
+        @Override
+        public Node[] getPartial() {
+            Node[] partial = getPartialCounts(1) ;
+            partial[PartialCountsLength] = ( maxSoFar == null ) ? null : maxSoFar.asNode() ;
+            return partial ;
+        }
+
+        @Override
+        public void combine(Node[] partial) {
+            combineCounts(partial) ;
+            Node n = partial[PartialCountsLength] ;
+            if ( n != null )
+                accumulate(NodeValue.makeNode(n), null, null) ;
+        }
     }
 }
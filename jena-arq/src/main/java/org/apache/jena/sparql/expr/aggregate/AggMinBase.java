@@ -40,7 +40,7 @@ abstract class AggMinBase extends AggregatorBase
     public final Node getValueEmpty()     { return null ; } 
 
     // ---- Accumulator
-    private static class AccMin extends AccumulatorExpr
+    private static class AccMin extends AccumulatorExpr implements AccumulatorCombinable
     {
         // Non-empty case but still can be nothing because the expression may be undefined.
         private NodeValue minSoFar = null ;
@@ -73,5 +73,20 @@ abstract class AggMinBase extends AggregatorBase
         @Override
         public NodeValue getAccValue()
         { return minSoFar ; }
+
+        @Override
+        public Node[] getPartial() {
+            Node[] partial = getPartialCounts(1) ;
+            partial[PartialCountsLength] = ( minSoFar == null ) ? null : minSoFar.asNode() ;
+            return partial ;
+        }
+
+        @Override
+        public void combine(Node[] partial) {
+            combineCounts(partial) ;
+            Node n = partial[PartialCountsLength] ;
+            if ( n != null )
+                accumulate(NodeValue.makeNode(n), null, null) ;
+        }
     }
 }
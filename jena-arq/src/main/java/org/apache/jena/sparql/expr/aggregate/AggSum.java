@@ -59,7 +59,7 @@ public class AggSum  extends AggregatorBase
     } 
 
     // ---- Accumulator
-    private static class AccSum extends AccumulatorExpr
+    private static class AccSum extends AccumulatorExpr implements AccumulatorCombinable
     {
         // Non-empty case but still can be nothing because the expression may be undefined.
         private NodeValue total = null ;
@@ -87,5 +87,20 @@ public class AggSum  extends AggregatorBase
         @Override
         public NodeValue getAccValue()
         { return total ; }
+
+        @Override
+        public Node[] getPartial() {
+            Node[] partial = getPartialCounts(1) ;
+            partial[PartialCountsLength] = ( total == null ) ? null : total.asNode() ;
+            return partial ;
+        }
+
+        @Override
+        public void combine(Node[] partial) {
+            combineCounts(partial) ;
+            Node n = partial[PartialCountsLength] ;
+            if ( n != null )
+                accumulate(NodeValue.makeNode(n), null, null) ;
+        }
     }
 }
@@ -21,7 +21,9 @@ package org.apache.jena.sparql.path;
 import java.util.ArrayList ;
 import java.util.Iterator ;
 import java.util.List ;
+import java.util.Map ;
 import java.util.Objects;
+import java.util.Set ;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter ;
@@ -45,6 +47,7 @@ import org.apache.jena.sparql.engine.iterator.QueryIterConcat ;
 import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
 import org.apache.jena.sparql.engine.iterator.QueryIterYieldN ;
 import org.apache.jena.sparql.mgt.Explain ;
+import org.apache.jena.sparql.path.eval.PathClosure ;
 import org.apache.jena.sparql.path.eval.PathEval ;
 import org.apache.jena.sparql.pfunction.PropertyFunctionFactory ;
 import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry ;
@@ -162,6 +165,13 @@ public class PathLib
     private static QueryIterator evalGroundedPath(Binding binding, 
                                                   Graph graph, Node subject, Path path, Node object,
                                                   ExecutionContext execCxt) {
+        // Literals may match by value; leave those to full evaluation.
+        PathClosure closure = PathClosure.create(path, execCxt.getContext()) ;
+        if ( closure != null && ! object.isLiteral() ) {
+            int count = closure.exists(graph, subject, object) ? 1 : 0 ;
+            return new QueryIterYieldN(count, binding, execCxt) ;
+        }
+
         Iterator<Node> iter = PathEval.eval(graph, subject, path, execCxt.getContext()) ;
         // Now count the number of matches.
         
@@ -177,6 +187,18 @@ public class PathLib
 
     // Brute force evaluation of a TriplePath where neither subject nor object are bound 
     private static QueryIterator execUngroundedPath(Binding binding, Graph graph, Var sVar, Path path, Var oVar, ExecutionContext execCxt) {
+        PathClosure closure = PathClosure.create(path, execCxt.getContext()) ;
+        Map<Node, Set<Node>> all = ( closure != null ) ? closure.evalAllIfEnabled(graph) : null ;
+        if ( all != null ) {
+            QueryIterConcat qIterCat = new QueryIterConcat(execCxt) ;
+            for ( Map.Entry<Node, Set<Node>> e : all.entrySet() ) {
+                Binding b2 = BindingFactory.binding(binding, sVar, e.getKey()) ;
+                Iterator<Binding> iter = Iter.iter(e.getValue().iterator()).map(n -> BindingFactory.binding(b2, oVar, n)) ;
+                qIterCat.add(new QueryIterPlainWrapper(iter, execCxt)) ;
+            }
+            return qIterCat ;
+        }
+
         // Starting points.
         Iterator<Node> iter = determineUngroundedStartingSet(graph, path, execCxt) ;
         QueryIterConcat qIterCat = new QueryIterConcat(execCxt) ;
@@ -193,6 +215,17 @@ public class PathLib
     }
     
     private static QueryIterator execUngroundedPathSameVar(Binding binding, Graph graph, Var var, Path path, ExecutionContext execCxt) {
+        PathClosure closure = PathClosure.create(path, execCxt.getContext()) ;
+        Map<Node, Set<Node>> all = ( closure != null ) ? closure.evalAllIfEnabled(graph) : null ;
+        if ( all != null ) {
+            List<Binding> results = new ArrayList<>() ;
+            for ( Map.Entry<Node, Set<Node>> e : all.entrySet() ) {
+                if ( e.getValue().contains(e.getKey()) )
+                    results.add(BindingFactory.binding(binding, var, e.getKey())) ;
+            }
+            return new QueryIterPlainWrapper(results.iterator(), execCxt) ;
+        }
+
         // Try each end, ungrounded.
         // Slightly more efficient would be to add a per-engine to do this.
         Iterator<Node> iter = determineUngroundedStartingSet(graph, path, execCxt) ;
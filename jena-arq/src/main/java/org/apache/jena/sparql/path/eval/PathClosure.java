@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path.eval ;
+
+import java.util.* ;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.path.* ;
+import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.graph.GraphUtils ;
+import org.apache.jena.util.iterator.ExtendedIterator ;
+
+/** Set-at-a-time evaluation of {@code p+} and {@code p*}, SPARQL semantics,
+ *  where {@code p} is a link, an inverse link or an alternative of these.
+ *  <ul>
+ *  <li>One end bound: breadth-first search, a frontier of nodes at a time.
+ *  <li>Both ends bound: bidirectional search from both ends, expanding the smaller frontier.
+ *  <li>Neither end bound: one scan of the edges, then semi-naive evaluation of the closure,
+ *      grouping the new pairs on their end node so each node is expanded once per round
+ *      for all the start nodes that reached it. The whole closure is held in memory
+ *      so this is only used if {@link ARQ#pathClosureAll} is set, or there is a {@link PathIndex}.
+ *  </ul>
+ *  Paths that do not have this form, or use a property function, are left to
+ *  {@link PathEngine PathEngines}.
+ *  A single link with a {@link PathIndex} for the dataset is answered from the index.
+ *  @see ARQ#pathSetEvaluation
+ */
+public class PathClosure
+{
+    private static class Link {
+        final Node property ;
+        final boolean forward ;
+        Link(Node property, boolean forward) { this.property = property ; this.forward = forward ; }
+    }
+
+    private final List<Link> links ;
+    private final boolean zero ;
+    private final Context context ;
+
+    private PathClosure(List<Link> links, boolean zero, Context context) {
+        this.links = links ;
+        this.zero = zero ;
+        this.context = context ;
+    }
+
+    /** Return an evaluator for the path, or null if the path is not handled. */
+    public static PathClosure create(Path path, Context context) {
+        if ( context != null && context.isFalse(ARQ.pathSetEvaluation) )
+            return null ;
+        boolean zero ;
+        if ( path instanceof P_OneOrMore1 )
+            zero = false ;
+        else if ( path instanceof P_ZeroOrMore1 )
+            zero = true ;
+        else
+            return null ;
+        List<Link> links = new ArrayList<>() ;
+        if ( ! links(((P_Path1)path).getSubPath(), true, links) )
+            return null ;
+
+        // Property functions in paths are done by the PathEngine.
+        if ( context == null || context.isTrueOrUndef(ARQ.propertyFunctions) ) {
+            PropertyFunctionRegistry registry = PropertyFunctionRegistry.chooseRegistry(context) ;
+            if ( registry != null ) {
+                for ( Link link : links ) {
+                    if ( registry.get(link.property.getURI()) != null )
+                        return null ;
+                }
+            }
+        }
+        return new PathClosure(links, zero, context) ;
+    }
+
+    private static boolean links(Path path, boolean forward, List<Link> acc) {
+        if ( path instanceof P_Link ) {
+            acc.add(new Link(((P_Link)path).getNode(), forward)) ;
+            return true ;
+        }
+        if ( path instanceof P_ReverseLink ) {
+            acc.add(new Link(((P_ReverseLink)path).getNode(), !forward)) ;
+            return true ;
+        }
+        if ( path instanceof P_Inverse )
+            return links(((P_Inverse)path).getSubPath(), !forward, acc) ;
+        if ( path instanceof P_Alt ) {
+            P_Alt alt = (P_Alt)path ;
+            return links(alt.getLeft(), forward, acc) && links(alt.getRight(), forward, acc) ;
+        }
+        return false ;
+    }
+
+    /** The nodes reached from {@code start}, following the path forwards or backwards. */
+    public Set<Node> eval(Graph graph, Node start, boolean forward) {
+        PathIndex.Closure index = index(graph) ;
+        if ( index != null ) {
+            Set<Node> x = index.reach(start, forward == links.get(0).forward, zero) ;
+            if ( x != null )
+                return x ;
+        }
+        Set<Node> visited = new LinkedHashSet<>() ;
+        List<Node> frontier ;
+        if ( zero ) {
+            visited.add(start) ;
+            frontier = Collections.singletonList(start) ;
+        } else
+            frontier = expand(graph, Collections.singletonList(start), forward, visited) ;
+        while ( ! frontier.isEmpty() )
+            frontier = expand(graph, frontier, forward, visited) ;
+        return visited ;
+    }
+
+    /** Whether there is a path from {@code start} to {@code end}. */
+    public boolean exists(Graph graph, Node start, Node end) {
+        PathIndex.Closure index = index(graph) ;
+        if ( index != null ) {
+            Boolean b = links.get(0).forward ? index.exists(start, end, zero) : index.exists(end, start, zero) ;
+            if ( b != null )
+                return b ;
+        }
+        if ( zero && start.equals(end) )
+            return true ;
+        // Nodes reached from start (by at least one step for p+) and nodes reaching end.
+        Set<Node> fwdVisited = new HashSet<>() ;
+        Set<Node> bwdVisited = new HashSet<>() ;
+        if ( zero )
+            fwdVisited.add(start) ;
+        bwdVisited.add(end) ;
+        List<Node> fwdFrontier = expand(graph, Collections.singletonList(start), true, fwdVisited) ;
+        List<Node> bwdFrontier = Collections.singletonList(end) ;
+        if ( fwdVisited.contains(end) )
+            return true ;
+        while ( ! fwdFrontier.isEmpty() || ! bwdFrontier.isEmpty() ) {
+            boolean doForward = bwdFrontier.isEmpty()
+                || ( ! fwdFrontier.isEmpty() && fwdFrontier.size() <= bwdFrontier.size() ) ;
+            if ( doForward ) {
+                fwdFrontier = expand(graph, fwdFrontier, true, fwdVisited) ;
+                if ( meets(fwdFrontier, bwdVisited) )
+                    return true ;
+            } else {
+                bwdFrontier = expand(graph, bwdFrontier, false, bwdVisited) ;
+                if ( meets(bwdFrontier, fwdVisited) )
+                    return true ;
+            }
+        }
+        return false ;
+    }
+
+    /** As {@link #evalAll} if {@link ARQ#pathClosureAll} is set or the closure is
+     *  available from a {@link PathIndex}, otherwise null: the whole closure is held in memory. */
+    public Map<Node, Set<Node>> evalAllIfEnabled(Graph graph) {
+        if ( context != null && context.isTrue(ARQ.pathClosureAll) )
+            return evalAll(graph) ;
+        PathIndex.Closure index = index(graph) ;
+        if ( index == null )
+            return null ;
+        return index.all(graph, links.get(0).forward, zero) ;
+    }
+
+    // The closure index for a step of one link, if the dataset has one.
+    private PathIndex.Closure index(Graph graph) {
+        if ( links.size() != 1 )
+            return null ;
+        return PathIndex.find(context, graph, links.get(0).property) ;
+    }
+
+    private static boolean meets(List<Node> nodes, Set<Node> visited) {
+        for ( Node n : nodes ) {
+            if ( visited.contains(n) )
+                return true ;
+        }
+        return false ;
+    }
+
+    /** All pairs (start, end) connected by the path, grouped by start. */
+    public Map<Node, Set<Node>> evalAll(Graph graph) {
+        PathIndex.Closure index = index(graph) ;
+        if ( index != null ) {
+            Map<Node, Set<Node>> x = index.all(graph, links.get(0).forward, zero) ;
+            if ( x != null )
+                return x ;
+        }
+        // One scan of the edges of the step.
+        Map<Node, List<Node>> successors = new HashMap<>() ;
+        for ( Link link : links ) {
+            ExtendedIterator<Triple> iter = graph.find(Node.ANY, link.property, Node.ANY) ;
+            try {
+                while ( iter.hasNext() ) {
+                    Triple t = iter.next() ;
+                    Node from = link.forward ? t.getSubject() : t.getObject() ;
+                    Node to = link.forward ? t.getObject() : t.getSubject() ;
+                    successors.computeIfAbsent(from, k->new ArrayList<>()).add(to) ;
+                }
+            } finally { iter.close() ; }
+        }
+
+        Map<Node, Set<Node>> closure = new LinkedHashMap<>() ;
+        if ( zero ) {
+            // Every node reaches itself.
+            Iterator<Node> iter = GraphUtils.allNodes(graph) ;
+            while ( iter.hasNext() ) {
+                Node n = iter.next() ;
+                closure.computeIfAbsent(n, k->new LinkedHashSet<>()).add(n) ;
+            }
+        }
+
+        closure(successors, closure) ;
+        return closure ;
+    }
+
+    /** Add the pairs of the transitive closure (one or more steps) of the
+     *  successor relation to {@code closure}, semi-naive: new pairs are grouped by
+     *  end node so each node's successors are expanded once per round. */
+    /*package*/ static void closure(Map<Node, ? extends Collection<Node>> successors, Map<Node, Set<Node>> closure) {
+        // New pairs, keyed by end node: end -> starts.
+        Map<Node, List<Node>> delta = new HashMap<>() ;
+        for ( Map.Entry<Node, ? extends Collection<Node>> e : successors.entrySet() ) {
+            Node start = e.getKey() ;
+            Set<Node> reached = closure.computeIfAbsent(start, k->new LinkedHashSet<>()) ;
+            for ( Node end : e.getValue() ) {
+                if ( reached.add(end) )
+                    delta.computeIfAbsent(end, k->new ArrayList<>()).add(start) ;
+            }
+        }
+        while ( ! delta.isEmpty() ) {
+            Map<Node, List<Node>> next = new HashMap<>() ;
+            for ( Map.Entry<Node, List<Node>> e : delta.entrySet() ) {
+                Collection<Node> succ = successors.get(e.getKey()) ;
+                if ( succ == null )
+                    continue ;
+                for ( Node start : e.getValue() ) {
+                    Set<Node> reached = closure.get(start) ;
+                    for ( Node end : succ ) {
+                        if ( reached.add(end) )
+                            next.computeIfAbsent(end, k->new ArrayList<>()).add(start) ;
+                    }
+                }
+            }
+            delta = next ;
+        }
+    }
+
+    // One step from each frontier node; returns the nodes not visited before.
+    private List<Node> expand(Graph graph, List<Node> frontier, boolean forward, Set<Node> visited) {
+        List<Node> next = new ArrayList<>() ;
+        for ( Node node : frontier ) {
+            for ( Link link : links ) {
+                boolean fwd = ( link.forward == forward ) ;
+                ExtendedIterator<Triple> iter = fwd
+                    ? graph.find(node, link.property, Node.ANY)
+                    : graph.find(Node.ANY, link.property, node) ;
+                try {
+                    while ( iter.hasNext() ) {
+                        Triple t = iter.next() ;
+                        Node n = fwd ? t.getObject() : t.getSubject() ;
+                        if ( visited.add(n) )
+                            next.add(n) ;
+                    }
+                } finally { iter.close() ; }
+            }
+        }
+        return next ;
+    }
+}
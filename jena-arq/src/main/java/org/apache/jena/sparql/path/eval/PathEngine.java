@@ -79,6 +79,12 @@ abstract public class PathEngine
         PathEval.eval$(graph, node, path, this, output) ;
     }
 
+    /** The closure index for a property of this graph, or null if there isn't one.
+     *  @see PathIndex */
+    /*package*/ final PathIndex.Closure closureIndex(Node property) {
+        return PathIndex.find(context, graph, property) ;
+    }
+
     protected abstract void flipDirection() ;
 
     protected abstract boolean direction() ;
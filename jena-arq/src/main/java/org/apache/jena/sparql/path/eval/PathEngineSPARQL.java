@@ -24,8 +24,10 @@ import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.path.P_FixedLength ;
+import org.apache.jena.sparql.path.P_Link ;
 import org.apache.jena.sparql.path.P_Mod ;
 import org.apache.jena.sparql.path.P_NegPropSet ;
+import org.apache.jena.sparql.path.P_ReverseLink ;
 import org.apache.jena.sparql.path.Path ;
 import org.apache.jena.sparql.util.Context ;
 
@@ -92,6 +94,8 @@ public class PathEngineSPARQL extends PathEngine
     
     @Override
     protected void doZeroOrMore(Path pathStep, Node node, Collection<Node> output) {
+        if ( indexed(pathStep, node, true, output) )
+            return ;
         Set<Node> visited = visitedAcc() ;
         ALP_1(forwardMode, 0, -1, node, pathStep, visited) ;
         output.addAll(visited) ;
@@ -99,6 +103,8 @@ public class PathEngineSPARQL extends PathEngine
 
     @Override
     protected void doOneOrMore(Path pathStep, Node node, Collection<Node> output) {
+        if ( indexed(pathStep, node, false, output) )
+            return ;
         Set<Node> visited = visitedAcc() ;
         // Do one step without including.
         Iter<Node> iter1 = eval(pathStep, node) ;
@@ -115,6 +121,28 @@ public class PathEngineSPARQL extends PathEngine
         output.add(node) ;
     }
 
+    // Use a PathIndex if there is one for a link step.
+    private boolean indexed(Path pathStep, Node node, boolean zero, Collection<Node> output) {
+        Node property ;
+        boolean forward ;
+        if ( pathStep instanceof P_Link ) {
+            property = ((P_Link)pathStep).getNode() ;
+            forward = forwardMode ;
+        } else if ( pathStep instanceof P_ReverseLink ) {
+            property = ((P_ReverseLink)pathStep).getNode() ;
+            forward = !forwardMode ;
+        } else
+            return false ;
+        PathIndex.Closure index = closureIndex(property) ;
+        if ( index == null )
+            return false ;
+        Set<Node> x = index.reach(node, forward, zero) ;
+        if ( x == null )
+            return false ;
+        output.addAll(x) ;
+        return true ;
+    }
+
     private void ALP_1(boolean forwardMode, int stepCount, int maxStepCount, Node node, Path path, Set<Node> visited) {
         if ( maxStepCount >= 0 && stepCount > maxStepCount )
             return ;
@@ -34,12 +34,18 @@ public class PathEval
 {
     /** Evaluate a path : SPARQL semantics */
     static public Iterator<Node> eval(Graph graph, Node node, Path path, Context context) {
+        PathClosure closure = PathClosure.create(path, context) ;
+        if ( closure != null )
+            return closure.eval(graph, node, true).iterator() ;
         return eval$(graph, node, path, new PathEngineSPARQL(graph, true, context)) ;
         // return eval$(graph, node, path, new PathEngineN(graph, true)) ;
     }
 
     /** Evaluate a path */
     static public Iterator<Node> evalReverse(Graph graph, Node node, Path path, Context context) {
+        PathClosure closure = PathClosure.create(path, context) ;
+        if ( closure != null )
+            return closure.eval(graph, node, false).iterator() ;
         return eval$(graph, node, path, new PathEngineSPARQL(graph, false, context)) ;
         // return eval$(graph, node, path, new PathEngineN(graph, false)) ;
     }
@@ -0,0 +1,475 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path.eval ;
+
+import java.util.* ;
+import java.util.concurrent.ConcurrentHashMap ;
+import java.util.concurrent.atomic.AtomicLong ;
+
+import org.apache.jena.atlas.lib.Pair ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.query.ReadWrite ;
+import org.apache.jena.shared.PrefixMapping ;
+import org.apache.jena.sparql.core.* ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.graph.GraphUtils ;
+import org.apache.jena.util.iterator.ExtendedIterator ;
+
+/** Materialized transitive closure of chosen properties of a dataset, used to
+ *  answer {@code p+} and {@code p*} for those properties.
+ *  <p>
+ *  For each graph and property, the nodes reachable by one or more steps
+ *  from each node (and the reverse) are held in memory. The closure for a
+ *  graph is computed when first needed. Changes made through the dataset
+ *  returned by {@link #create}, including through its graphs, keep it up to date:
+ *  additions are applied incrementally; a deletion, {@code clear} or
+ *  {@code setDefaultGraph} drops the closure, which is recomputed on next use.
+ *  This suits hierarchies that are queried often and change slowly, such as
+ *  {@code rdfs:subClassOf}.
+ *  <p>
+ *  Inside a write transaction, changes are kept until commit, and dropped on abort,
+ *  so other transactions do not see them. The writer itself does not use the
+ *  index for a closure it has changed. Each commit that changes the index starts
+ *  a new generation; a transaction that began before the latest change to a closure
+ *  does not use it, and a closure is only computed by a caller that sees the latest
+ *  generation. Callers that can not use the index evaluate the path as usual.
+ *  <p>
+ *  Changes made to the dataset other than through the returned dataset are not seen.
+ *
+ *  @see ARQ#pathIndex
+ */
+public class PathIndex implements DatasetChanges
+{
+    /**
+     * Index the properties of the dataset. Use the returned dataset for all
+     * operations; its context (shared with {@code dsg}) holds the index so
+     * query execution finds it.
+     */
+    public static DatasetGraph create(DatasetGraph dsg, Node... properties) {
+        PathIndex index = new PathIndex(dsg, Arrays.asList(properties)) ;
+        DatasetGraph dsg2 = new DatasetGraphMonitor(dsg, index) {
+            // Graphs are views of this dataset so graph level operations
+            // (SPARQL CLEAR, LOAD, COPY, MOVE, the Model API) go through the monitor.
+            @Override public Graph getDefaultGraph() {
+                return new GraphViewMonitored(this, Quad.defaultGraphNodeGenerated, super.getDefaultGraph()) ;
+            }
+            @Override public Graph getGraph(Node graphNode) {
+                if ( Quad.isDefaultGraph(graphNode) )
+                    return getDefaultGraph() ;
+                if ( Quad.isUnionGraph(graphNode) )
+                    // Read-only.
+                    return super.getGraph(graphNode) ;
+                return new GraphViewMonitored(this, graphNode, super.getGraph(graphNode)) ;
+            }
+            @Override public void setDefaultGraph(Graph g) {
+                super.setDefaultGraph(g) ;
+                index.graphChanged(Quad.defaultGraphIRI) ;
+            }
+            @Override public void clear() {
+                super.clear() ;
+                index.graphChanged(null) ;
+            }
+            @Override public void begin(ReadWrite mode) {
+                // Before starting so the generation is no later than the transaction.
+                index.begin(mode) ;
+                try { super.begin(mode) ; }
+                catch (RuntimeException ex) { index.endTxn() ; throw ex ; }
+            }
+            @Override public void commit() {
+                super.commit() ;
+                index.commit() ;
+            }
+            @Override public void abort() {
+                super.abort() ;
+                index.endTxn() ;
+            }
+            @Override public void end() {
+                super.end() ;
+                index.endTxn() ;
+            }
+        } ;
+        dsg2.getContext().set(ARQ.pathIndex, index) ;
+        return dsg2 ;
+    }
+
+    /** A graph of the monitored dataset, using the prefixes of the underlying graph. */
+    private static class GraphViewMonitored extends GraphView {
+        private final Graph base ;
+
+        GraphViewMonitored(DatasetGraph dsg, Node gn, Graph base) {
+            super(dsg, gn) ;
+            this.base = base ;
+        }
+
+        @Override
+        protected PrefixMapping createPrefixMapping() {
+            return base.getPrefixMapping() ;
+        }
+    }
+
+    /** The closure for the property of the graph, or null if there is no index for it. */
+    /*package*/ static Closure find(Context context, Graph graph, Node property) {
+        if ( context == null )
+            return null ;
+        Object obj = context.get(ARQ.pathIndex) ;
+        if ( ! ( obj instanceof PathIndex ) )
+            return null ;
+        return ((PathIndex)obj).closure(graph, property) ;
+    }
+
+    private final DatasetGraph dsg ;
+    private final Set<Node> properties ;
+    private final Map<Pair<Node, Node>, Entry> closures = new ConcurrentHashMap<>() ;
+    // Incremented by each change to the index.
+    private final AtomicLong generation = new AtomicLong(0) ;
+    // The generation when the transaction of this thread began, if any.
+    private final ThreadLocal<Long> txnGeneration = new ThreadLocal<>() ;
+    // Changes of the write transaction of this thread, if any.
+    private final ThreadLocal<Changes> pending = new ThreadLocal<>() ;
+
+    private PathIndex(DatasetGraph dsg, Collection<Node> properties) {
+        this.dsg = dsg ;
+        this.properties = new HashSet<>(properties) ;
+    }
+
+    /** The indexed properties. */
+    public Set<Node> getProperties() {
+        return Collections.unmodifiableSet(properties) ;
+    }
+
+    private Closure closure(Graph graph, Node property) {
+        if ( ! properties.contains(property) )
+            return null ;
+        Node gn = graphName(graph) ;
+        if ( gn == null )
+            return null ;
+        Changes changes = pending.get() ;
+        if ( changes != null && changes.touches(gn, property) )
+            // The index does not include this transaction's changes.
+            return null ;
+        Entry entry = closures.computeIfAbsent(Pair.create(gn, property), k->new Entry(gn, property)) ;
+        return new Closure(entry, viewGeneration()) ;
+    }
+
+    // The generation of the data seen by this thread.
+    private long viewGeneration() {
+        Long v = txnGeneration.get() ;
+        return ( v != null ) ? v : generation.get() ;
+    }
+
+    // The name of the graph in the dataset, or null.
+    private Node graphName(Graph graph) {
+        if ( graph instanceof GraphView ) {
+            Node gn = ((GraphView)graph).getGraphName() ;
+            if ( gn == null )
+                return Quad.defaultGraphIRI ;
+            return Quad.isUnionGraph(gn) ? null : gn ;
+        }
+        if ( graph == dsg.getDefaultGraph() )
+            return Quad.defaultGraphIRI ;
+        Iterator<Node> iter = dsg.listGraphNodes() ;
+        while ( iter.hasNext() ) {
+            Node gn = iter.next() ;
+            if ( graph == dsg.getGraph(gn) )
+                return gn ;
+        }
+        return null ;
+    }
+
+    private static Node graphKey(Node g) {
+        return ( g == null || Quad.isDefaultGraph(g) ) ? Quad.defaultGraphIRI : g ;
+    }
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void change(QuadAction qaction, Node g, Node s, Node p, Node o) {
+        if ( ! properties.contains(p) )
+            return ;
+        Pair<Node, Node> key = Pair.create(graphKey(g), p) ;
+        Changes changes = pending.get() ;
+        switch (qaction) {
+            case ADD :
+                if ( changes != null )
+                    changes.added.computeIfAbsent(key, k->new ArrayList<>()).add(Pair.create(s, o)) ;
+                else
+                    add(key, s, o, generation.incrementAndGet()) ;
+                break ;
+            case DELETE :
+                if ( changes != null )
+                    changes.deleted.add(key) ;
+                else
+                    invalidate(key, generation.incrementAndGet()) ;
+                break ;
+            default :
+                break ;
+        }
+    }
+
+    @Override
+    public void finish() {}
+
+    /** Drop all computed closures. */
+    @Override
+    public void reset() {
+        reset(generation.incrementAndGet()) ;
+    }
+
+    private void reset(long gen) {
+        for ( Entry entry : closures.values() )
+            entry.invalidate(gen) ;
+    }
+
+    /** The contents of a graph, or of all graphs (null), changed other than by quad changes. */
+    private void graphChanged(Node g) {
+        Changes changes = pending.get() ;
+        if ( changes != null ) {
+            if ( g == null )
+                changes.cleared = true ;
+            else
+                changes.graphs.add(g) ;
+            return ;
+        }
+        long gen = generation.incrementAndGet() ;
+        if ( g == null )
+            reset(gen) ;
+        else
+            invalidateGraph(g, gen) ;
+    }
+
+    private void begin(ReadWrite mode) {
+        txnGeneration.set(generation.get()) ;
+        if ( mode == ReadWrite.WRITE )
+            pending.set(new Changes()) ;
+    }
+
+    private void commit() {
+        Changes changes = pending.get() ;
+        pending.remove() ;
+        if ( changes == null || changes.isEmpty() )
+            return ;
+        long gen = generation.incrementAndGet() ;
+        if ( changes.cleared ) {
+            reset(gen) ;
+            return ;
+        }
+        changes.graphs.forEach(g->invalidateGraph(g, gen)) ;
+        changes.deleted.forEach(key->invalidate(key, gen)) ;
+        changes.added.forEach((key, pairs)->{
+            if ( changes.touchesInvalidated(key) )
+                return ;
+            for ( Pair<Node, Node> pair : pairs )
+                add(key, pair.getLeft(), pair.getRight(), gen) ;
+        }) ;
+    }
+
+    // Commit, abort, or end without commit.
+    private void endTxn() {
+        pending.remove() ;
+        txnGeneration.remove() ;
+    }
+
+    private void add(Pair<Node, Node> key, Node s, Node o, long gen) {
+        // Not yet computed: it will be computed from the data when needed.
+        Entry entry = closures.get(key) ;
+        if ( entry != null )
+            entry.add(s, o, gen) ;
+    }
+
+    private void invalidate(Pair<Node, Node> key, long gen) {
+        Entry entry = closures.get(key) ;
+        if ( entry != null )
+            entry.invalidate(gen) ;
+    }
+
+    private void invalidateGraph(Node g, long gen) {
+        closures.forEach((key, entry)->{
+            if ( key.getLeft().equals(g) )
+                entry.invalidate(gen) ;
+        }) ;
+    }
+
+    /** The changes made by a write transaction that has not yet committed. */
+    private static class Changes {
+        boolean cleared = false ;
+        final Set<Node> graphs = new HashSet<>() ;
+        final Set<Pair<Node, Node>> deleted = new HashSet<>() ;
+        final Map<Pair<Node, Node>, List<Pair<Node, Node>>> added = new LinkedHashMap<>() ;
+
+        boolean isEmpty() {
+            return ! cleared && graphs.isEmpty() && deleted.isEmpty() && added.isEmpty() ;
+        }
+
+        boolean touches(Node g, Node p) {
+            Pair<Node, Node> key = Pair.create(g, p) ;
+            return touchesInvalidated(key) || added.containsKey(key) ;
+        }
+
+        boolean touchesInvalidated(Pair<Node, Node> key) {
+            return cleared || graphs.contains(key.getLeft()) || deleted.contains(key) ;
+        }
+    }
+
+    /** The closure of one property in one graph, as seen by a caller.
+     *  Each operation returns null if the closure is not usable at the generation
+     *  of the caller: it has changed since, or the caller can not compute it.
+     */
+    /*package*/ static class Closure {
+        private final Entry entry ;
+        private final long generation ;
+
+        private Closure(Entry entry, long generation) {
+            this.entry = entry ;
+            this.generation = generation ;
+        }
+
+        /** Nodes reached from the start node, following the property forwards or backwards. */
+        Set<Node> reach(Node start, boolean forward, boolean zero) {
+            synchronized(entry) {
+                return entry.usable(generation) ? entry.reach(start, forward, zero) : null ;
+            }
+        }
+
+        Boolean exists(Node start, Node end, boolean zero) {
+            synchronized(entry) {
+                return entry.usable(generation) ? entry.exists(start, end, zero) : null ;
+            }
+        }
+
+        /** All pairs, grouped by start. */
+        Map<Node, Set<Node>> all(Graph graph, boolean forward, boolean zero) {
+            synchronized(entry) {
+                return entry.usable(generation) ? entry.all(graph, forward, zero) : null ;
+            }
+        }
+    }
+
+    /** The closure of one property in one graph. */
+    private class Entry {
+        private final Node graphName ;
+        private final Node property ;
+        // Null when not computed.
+        private Map<Node, Set<Node>> successors = null ;
+        private Map<Node, Set<Node>> descendants = null ;
+        private Map<Node, Set<Node>> ancestors = null ;
+        // The generation the closure is correct from.
+        private long validFrom = 0 ;
+
+        Entry(Node graphName, Node property) {
+            this.graphName = graphName ;
+            this.property = property ;
+        }
+
+        /** Whether the closure, computing it if necessary, is the data seen at generation v. */
+        synchronized boolean usable(long v) {
+            if ( successors != null )
+                return validFrom <= v ;
+            // Only compute from the latest data.
+            if ( v != generation.get() )
+                return false ;
+            build() ;
+            validFrom = v ;
+            return true ;
+        }
+
+        synchronized Set<Node> reach(Node start, boolean forward, boolean zero) {
+            Set<Node> x = ( forward ? descendants : ancestors ).get(start) ;
+            Set<Node> result = new LinkedHashSet<>() ;
+            if ( zero )
+                result.add(start) ;
+            if ( x != null )
+                result.addAll(x) ;
+            return result ;
+        }
+
+        synchronized boolean exists(Node start, Node end, boolean zero) {
+            if ( zero && start.equals(end) )
+                return true ;
+            Set<Node> x = descendants.get(start) ;
+            return x != null && x.contains(end) ;
+        }
+
+        synchronized Map<Node, Set<Node>> all(Graph graph, boolean forward, boolean zero) {
+            Map<Node, Set<Node>> result = new LinkedHashMap<>() ;
+            if ( zero ) {
+                Iterator<Node> iter = GraphUtils.allNodes(graph) ;
+                while ( iter.hasNext() ) {
+                    Node n = iter.next() ;
+                    result.computeIfAbsent(n, k->new LinkedHashSet<>()).add(n) ;
+                }
+            }
+            for ( Map.Entry<Node, Set<Node>> e : ( forward ? descendants : ancestors ).entrySet() )
+                result.computeIfAbsent(e.getKey(), k->new LinkedHashSet<>()).addAll(e.getValue()) ;
+            return result ;
+        }
+
+        synchronized void add(Node s, Node o, long gen) {
+            if ( successors == null )
+                return ;
+            validFrom = gen ;
+            if ( ! successors.computeIfAbsent(s, k->new HashSet<>()).add(o) )
+                return ;
+            // Everything reaching s (and s) now reaches o and everything o reaches.
+            Set<Node> sources = new HashSet<>(ancestors.getOrDefault(s, Collections.emptySet())) ;
+            sources.add(s) ;
+            Set<Node> targets = new HashSet<>(descendants.getOrDefault(o, Collections.emptySet())) ;
+            targets.add(o) ;
+            for ( Node x : sources ) {
+                Set<Node> desc = descendants.computeIfAbsent(x, k->new LinkedHashSet<>()) ;
+                for ( Node y : targets ) {
+                    if ( desc.add(y) )
+                        ancestors.computeIfAbsent(y, k->new LinkedHashSet<>()).add(x) ;
+                }
+            }
+        }
+
+        synchronized void invalidate(long gen) {
+            validFrom = gen ;
+            successors = null ;
+            descendants = null ;
+            ancestors = null ;
+        }
+
+        private void build() {
+            Graph graph = Quad.isDefaultGraph(graphName) ? dsg.getDefaultGraph() : dsg.getGraph(graphName) ;
+            Map<Node, Set<Node>> succ = new HashMap<>() ;
+            ExtendedIterator<Triple> iter = graph.find(Node.ANY, property, Node.ANY) ;
+            try {
+                while ( iter.hasNext() ) {
+                    Triple t = iter.next() ;
+                    succ.computeIfAbsent(t.getSubject(), k->new HashSet<>()).add(t.getObject()) ;
+                }
+            } finally { iter.close() ; }
+            Map<Node, Set<Node>> desc = new HashMap<>() ;
+            PathClosure.closure(succ, desc) ;
+            Map<Node, Set<Node>> anc = new HashMap<>() ;
+            for ( Map.Entry<Node, Set<Node>> e : desc.entrySet() ) {
+                for ( Node y : e.getValue() )
+                    anc.computeIfAbsent(y, k->new LinkedHashSet<>()).add(e.getKey()) ;
+            }
+            successors = succ ;
+            descendants = desc ;
+            ancestors = anc ;
+        }
+    }
+}
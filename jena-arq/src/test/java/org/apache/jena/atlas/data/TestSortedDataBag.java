@@ -18,7 +18,12 @@
 
 package org.apache.jena.atlas.data;
 
+import java.io.DataInputStream ;
+import java.io.DataOutputStream ;
 import java.io.File ;
+import java.io.IOException ;
+import java.io.InputStream ;
+import java.io.OutputStream ;
 import java.util.ArrayList ;
 import java.util.Collections ;
 import java.util.Iterator ;
@@ -26,9 +31,11 @@ import java.util.List ;
 import java.util.Random ;
 
 import junit.framework.TestCase ;
+import org.apache.jena.atlas.AtlasException ;
 import org.apache.jena.atlas.data.SortedDataBag ;
 import org.apache.jena.atlas.data.ThresholdPolicyCount ;
 import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.Sink ;
 import org.apache.jena.datatypes.xsd.XSDDatatype ;
 import org.apache.jena.graph.NodeFactory ;
 import org.junit.Test ;
@@ -55,6 +62,11 @@ public class TestSortedDataBag extends TestCase
     }
     
     private void testSorting(int numBindings, int threshold)
+    {
+        testSorting(numBindings, threshold, false, SortedDataBag.MAX_SPILL_FILES);
+    }
+
+    private void testSorting(int numBindings, int threshold, boolean parallelSort, int mergeFanIn)
     {
         List<Binding> unsorted = randomBindings(numBindings);
         
@@ -69,7 +81,7 @@ public class TestSortedDataBag extends TestCase
         SortedDataBag<Binding> db = new SortedDataBag<>(
                 new ThresholdPolicyCount<Binding>(threshold),
                 SerializationFactoryFinder.bindingSerializationFactory(),
-                comparator);
+                comparator, parallelSort, mergeFanIn);
         try
         {
             db.addAll(unsorted);
@@ -113,6 +125,76 @@ public class TestSortedDataBag extends TestCase
         }
     }
     
+    @Test public void testSortingWithFanIn()
+    {
+        testSorting(1000, 10, false, 2);
+        testSorting(1000, 10, false, 3);
+        testSorting(5, 1, false, 2);
+    }
+
+    @Test public void testParallelSorting()
+    {
+        // In memory
+        testSorting(20000, 100000, true, 100);
+        // Spilled, with merge rounds
+        testSorting(20000, 1000, true, 4);
+        testSorting(1000, 10, true, 2);
+    }
+
+    @Test public void testSortingManyEqual()
+    {
+        // Many equal keys, several merge rounds.
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            items.add(i);
+        SortedDataBag<Integer> db = new SortedDataBag<>(
+                new ThresholdPolicyCount<Integer>(50),
+                new SerializationFactory<Integer>() {
+                    @Override
+                    public Sink<Integer> createSerializer(OutputStream out) {
+                        DataOutputStream dout = new DataOutputStream(out);
+                        return new Sink<Integer>() {
+                            @Override public void send(Integer item) {
+                                try { dout.writeInt(item); } catch (IOException ex) { throw new AtlasException(ex); }
+                            }
+                            @Override public void flush() {}
+                            @Override public void close() {
+                                try { dout.close(); } catch (IOException ex) { throw new AtlasException(ex); }
+                            }
+                        };
+                    }
+                    @Override
+                    public Iterator<Integer> createDeserializer(InputStream in) {
+                        DataInputStream din = new DataInputStream(in);
+                        List<Integer> x = new ArrayList<>();
+                        try {
+                            while (din.available() > 0)
+                                x.add(din.readInt());
+                        } catch (IOException ex) { throw new AtlasException(ex); }
+                        return x.iterator();
+                    }
+                    @Override
+                    public long getEstimatedMemorySize(Integer item) { return 0; }
+                },
+                (x, y) -> Integer.compare(x % 3, y % 3), false, 5);
+        List<Integer> sorted = new ArrayList<>();
+        try
+        {
+            db.addAll(items);
+            Iterator<Integer> iter = db.iterator();
+            while (iter.hasNext())
+                sorted.add(iter.next());
+            Iter.close(iter);
+        }
+        finally
+        {
+            db.close();
+        }
+        assertEquals(items.size(), sorted.size());
+        for (int i = 1; i < sorted.size(); i++)
+            assertTrue(sorted.get(i - 1) % 3 <= sorted.get(i) % 3);
+    }
+
     @Test public void testTemporaryFilesAreCleanedUpAfterCompletion()
     {
         List<Binding> unsorted = randomBindings(500);
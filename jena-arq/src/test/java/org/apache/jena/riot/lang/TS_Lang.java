@@ -44,6 +44,8 @@ import org.junit.runners.Suite ;
     , TestParserFactory.class
     , TestPipedRDFIterators.class
     , TestCollectorStream.class
+    , TestReaderNTuplesParallel.class
+    , TestReaderRIOTPipelined.class
 
 })
 
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream ;
+import java.io.InputStream ;
+import java.util.HashSet ;
+import java.util.List ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.RIOT ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.IsoMatcher ;
+import org.junit.Test ;
+
+public class TestReaderNTuplesParallel extends BaseTest
+{
+    private static String ntriples(int n, boolean bnodes) {
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < n ; i++ ) {
+            String s = bnodes ? "_:b"+(i%7) : "<http://example/s"+i+">" ;
+            sb.append(s).append(" <http://example/p> \"value "+i+"\" .\n") ;
+        }
+        return sb.toString() ;
+    }
+
+    private static InputStream input(String string) {
+        return new ByteArrayInputStream(StrUtils.asUTF8bytes(string)) ;
+    }
+
+    private static CollectorStreamRDF parallel(String string, Lang lang, boolean ordered) {
+        CollectorStreamRDF out = new CollectorStreamRDF() ;
+        new ReaderNTuplesParallel(lang, 4, 1024, ordered).read(input(string), null, null, out, null) ;
+        return out ;
+    }
+
+    private static CollectorStreamRDF sequential(String string, Lang lang) {
+        CollectorStreamRDF out = new CollectorStreamRDF() ;
+        RDFDataMgr.parse(out, input(string), lang) ;
+        return out ;
+    }
+
+    private static Graph graph(List<Triple> triples) {
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        triples.forEach(graph::add) ;
+        return graph ;
+    }
+
+    @Test public void parallel_ordered_01() {
+        String data = ntriples(2000, false) ;
+        assertEquals(sequential(data, Lang.NTRIPLES).getTriples(), parallel(data, Lang.NTRIPLES, true).getTriples()) ;
+    }
+
+    @Test public void parallel_unordered_01() {
+        String data = ntriples(2000, false) ;
+        List<Triple> expected = sequential(data, Lang.NTRIPLES).getTriples() ;
+        List<Triple> actual = parallel(data, Lang.NTRIPLES, false).getTriples() ;
+        assertEquals(expected.size(), actual.size()) ;
+        assertEquals(new HashSet<>(expected), new HashSet<>(actual)) ;
+    }
+
+    @Test public void parallel_empty_01() {
+        CollectorStreamRDF out = parallel("", Lang.NTRIPLES, true) ;
+        assertTrue(out.getTriples().isEmpty()) ;
+    }
+
+    @Test public void parallel_no_final_newline() {
+        String data = ntriples(100, false)+"<http://example/s> <http://example/p> <http://example/o> ." ;
+        assertEquals(sequential(data, Lang.NTRIPLES).getTriples(), parallel(data, Lang.NTRIPLES, true).getTriples()) ;
+    }
+
+    @Test public void parallel_long_line() {
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 5000 ; i++ )
+            sb.append('x') ;
+        String data = ntriples(10, false)+"<http://example/s> <http://example/p> \""+sb+"\" .\n"+ntriples(10, false) ;
+        assertEquals(sequential(data, Lang.NTRIPLES).getTriples(), parallel(data, Lang.NTRIPLES, true).getTriples()) ;
+    }
+
+    // Blank node labels are document-scoped across blocks.
+    @Test public void parallel_bnodes_01() {
+        String data = ntriples(2000, true) ;
+        List<Triple> triples = parallel(data, Lang.NTRIPLES, true).getTriples() ;
+        HashSet<Node> subjects = new HashSet<>() ;
+        triples.forEach(t->subjects.add(t.getSubject())) ;
+        assertEquals(7, subjects.size()) ;
+        Graph expected = graph(sequential(data, Lang.NTRIPLES).getTriples()) ;
+        assertTrue(expected.isIsomorphicWith(graph(triples))) ;
+    }
+
+    @Test public void parallel_nquads_01() {
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 2000 ; i++ )
+            sb.append("_:b"+(i%5)+" <http://example/p> \"value "+i+"\" <http://example/g"+(i%3)+"> .\n") ;
+        sb.append("<http://example/s> <http://example/p> <http://example/o> .\n") ;
+        String data = sb.toString() ;
+        DatasetGraph expected = DatasetGraphFactory.create() ;
+        sequential(data, Lang.NQUADS).getQuads().forEach(expected::add) ;
+        DatasetGraph actual = DatasetGraphFactory.create() ;
+        parallel(data, Lang.NQUADS, false).getQuads().forEach(actual::add) ;
+        assertTrue(IsoMatcher.isomorphic(expected, actual)) ;
+    }
+
+    // Error line numbers are for the whole input.
+    @Test public void parallel_error_line() {
+        String data = ntriples(500, false)+"<http://example/s> <http://example/p> .\n"+ntriples(500, false) ;
+        long[] errorLine = { -1 } ;
+        ReaderNTuplesParallel reader = new ReaderNTuplesParallel(Lang.NTRIPLES, 4, 1024, true) ;
+        reader.setErrorHandler(new ErrorHandler() {
+            @Override public void warning(String message, long line, long col) {}
+            @Override public void error(String message, long line, long col)   { errorLine[0] = line ; throw new RiotException(message) ; }
+            @Override public void fatal(String message, long line, long col)   { errorLine[0] = line ; throw new RiotException(message) ; }
+        }) ;
+        try {
+            reader.read(input(data), null, null, new CollectorStreamRDF(), null) ;
+            fail("Expected a parse error") ;
+        } catch (RiotException ex) {}
+        assertEquals(501, errorLine[0]) ;
+    }
+
+    @Test public void parallel_context_01() {
+        String data = ntriples(2000, false) ;
+        Context cxt = new Context() ;
+        cxt.set(RIOT.parallelParse, true) ;
+        CollectorStreamRDF out = new CollectorStreamRDF() ;
+        RDFDataMgr.parse(out, input(data), null, Lang.NTRIPLES, cxt) ;
+        assertEquals(sequential(data, Lang.NTRIPLES).getTriples(), out.getTriples()) ;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream ;
+import java.io.InputStream ;
+import java.util.List ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.RIOT ;
+import org.apache.jena.riot.RiotException ;
+import org.apache.jena.riot.system.ErrorHandler ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.IsoMatcher ;
+import org.junit.Test ;
+
+public class TestReaderRIOTPipelined extends BaseTest
+{
+    private static String turtle(int n) {
+        StringBuilder sb = new StringBuilder() ;
+        sb.append("@prefix : <http://example/> .\n") ;
+        for ( int i = 0 ; i < n ; i++ )
+            sb.append(":s"+i+" :p \"value "+i+"\" ; :q <rel"+(i%10)+"> .\n") ;
+        return sb.toString() ;
+    }
+
+    private static InputStream input(String string) {
+        return new ByteArrayInputStream(StrUtils.asUTF8bytes(string)) ;
+    }
+
+    private static CollectorStreamRDF pipelined(String string, Lang lang) {
+        CollectorStreamRDF out = new CollectorStreamRDF() ;
+        new ReaderRIOTPipelined(lang).read(input(string), "http://base/", null, out, null) ;
+        return out ;
+    }
+
+    private static CollectorStreamRDF sequential(String string, Lang lang) {
+        CollectorStreamRDF out = new CollectorStreamRDF() ;
+        RDFDataMgr.parse(out, input(string), "http://base/", lang) ;
+        return out ;
+    }
+
+    private static Graph graph(List<Triple> triples) {
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        triples.forEach(graph::add) ;
+        return graph ;
+    }
+
+    @Test public void pipelined_turtle_01() {
+        String data = turtle(5000) ;
+        CollectorStreamRDF out = pipelined(data, Lang.TURTLE) ;
+        assertEquals(sequential(data, Lang.TURTLE).getTriples(), out.getTriples()) ;
+        assertEquals("http://example/x", out.getPrefixes().expand(":x")) ;
+    }
+
+    @Test public void pipelined_empty_01() {
+        CollectorStreamRDF out = pipelined("", Lang.TURTLE) ;
+        assertTrue(out.getTriples().isEmpty()) ;
+    }
+
+    // Relative IRIs resolve against the base in force at that point in the document.
+    @Test public void pipelined_base_01() {
+        String data = StrUtils.strjoinNL
+            (turtle(2000)
+            ,"<x> <p> <y> ."
+            ,"@base <http://other/> ."
+            ,"<x> <p> <y> ."
+            ,"BASE <http://another/>"
+            ,"<x> <p> <y> .") ;
+        List<Triple> triples = pipelined(data, Lang.TURTLE).getTriples() ;
+        assertEquals(sequential(data, Lang.TURTLE).getTriples(), triples) ;
+        int n = triples.size() ;
+        assertEquals(NodeFactory.createURI("http://base/x"), triples.get(n-3).getSubject()) ;
+        assertEquals(NodeFactory.createURI("http://other/x"), triples.get(n-2).getSubject()) ;
+        assertEquals(NodeFactory.createURI("http://another/x"), triples.get(n-1).getSubject()) ;
+    }
+
+    @Test public void pipelined_bnodes_01() {
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 2000 ; i++ )
+            sb.append("_:b"+(i%7)+" <http://example/p> [ <http://example/q> "+i+" ] .\n") ;
+        String data = sb.toString() ;
+        Graph expected = graph(sequential(data, Lang.TURTLE).getTriples()) ;
+        Graph actual = graph(pipelined(data, Lang.TURTLE).getTriples()) ;
+        assertTrue(expected.isIsomorphicWith(actual)) ;
+    }
+
+    @Test public void pipelined_trig_01() {
+        StringBuilder sb = new StringBuilder() ;
+        sb.append("PREFIX : <http://example/>\n") ;
+        for ( int i = 0 ; i < 1000 ; i++ )
+            sb.append(":g"+(i%3)+" { :s"+i+" :p _:b"+(i%5)+" }\n") ;
+        sb.append("{ :s :p :o }\n") ;
+        String data = sb.toString() ;
+        DatasetGraph expected = DatasetGraphFactory.create() ;
+        sequential(data, Lang.TRIG).getQuads().forEach(expected::add) ;
+        DatasetGraph actual = DatasetGraphFactory.create() ;
+        pipelined(data, Lang.TRIG).getQuads().forEach(actual::add) ;
+        assertTrue(IsoMatcher.isomorphic(expected, actual)) ;
+    }
+
+    @Test public void pipelined_error_line() {
+        String data = turtle(3000)+":s :p .\n"+turtle(10) ;
+        long[] errorLine = { -1 } ;
+        ReaderRIOTPipelined reader = new ReaderRIOTPipelined(Lang.TURTLE) ;
+        reader.setErrorHandler(new ErrorHandler() {
+            @Override public void warning(String message, long line, long col) {}
+            @Override public void error(String message, long line, long col)   { errorLine[0] = line ; throw new RiotException(message) ; }
+            @Override public void fatal(String message, long line, long col)   { errorLine[0] = line ; throw new RiotException(message) ; }
+        }) ;
+        CollectorStreamRDF out = new CollectorStreamRDF() ;
+        try {
+            reader.read(input(data), null, null, out, null) ;
+            fail("Expected a parse error") ;
+        } catch (RiotException ex) {}
+        assertEquals(3002, errorLine[0]) ;
+        // Triples before the error have been delivered.
+        assertEquals(6000, out.getTriples().size()) ;
+    }
+
+    // An exception from the destination stops the parser.
+    @Test public void pipelined_output_error() {
+        String data = turtle(5000) ;
+        CollectorStreamRDF out = new CollectorStreamRDF() {
+            @Override public void triple(Triple triple) {
+                if ( getTriples().size() == 100 )
+                    throw new RiotException("Stop") ;
+                super.triple(triple) ;
+            }
+        } ;
+        try {
+            new ReaderRIOTPipelined(Lang.TURTLE).read(input(data), null, null, out, null) ;
+            fail("Expected an exception") ;
+        } catch (RiotException ex) {
+            assertEquals("Stop", ex.getMessage()) ;
+        }
+    }
+
+    @Test public void pipelined_context_01() {
+        String data = turtle(2000) ;
+        Context cxt = new Context() ;
+        cxt.set(RIOT.pipelineParse, true) ;
+        CollectorStreamRDF out = new CollectorStreamRDF() ;
+        RDFDataMgr.parse(out, input(data), "http://base/", Lang.TURTLE, cxt) ;
+        assertEquals(sequential(data, Lang.TURTLE).getTriples(), out.getTriples()) ;
+    }
+}
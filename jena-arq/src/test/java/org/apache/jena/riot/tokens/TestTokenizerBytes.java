@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.tokens ;
+
+import java.io.ByteArrayInputStream ;
+import java.io.InputStream ;
+import java.nio.ByteBuffer ;
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.riot.RiotParseException ;
+import org.junit.Test ;
+
+public class TestTokenizerBytes extends BaseTest {
+
+    private static List<Token> tokens(Tokenizer tokenizer) {
+        List<Token> tokens = new ArrayList<>() ;
+        while ( tokenizer.hasNext() )
+            tokens.add(tokenizer.next()) ;
+        return tokens ;
+    }
+
+    // Input stream that returns one byte at a time.
+    private static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1)) ;
+            }
+        } ;
+    }
+
+    private static void sameToken(Token expected, Token actual) {
+        if ( expected == null ) {
+            assertNull(actual) ;
+            return ;
+        }
+        assertEquals(expected, actual) ;
+        assertEquals(expected.getLine(), actual.getLine()) ;
+        assertEquals(expected.getColumn(), actual.getColumn()) ;
+        sameToken(expected.getSubToken1(), actual.getSubToken1()) ;
+        sameToken(expected.getSubToken2(), actual.getSubToken2()) ;
+    }
+
+    private static void sameTokens(List<Token> expected, List<Token> actual) {
+        assertEquals(expected.size(), actual.size()) ;
+        for ( int i = 0 ; i < expected.size() ; i++ )
+            sameToken(expected.get(i), actual.get(i)) ;
+    }
+
+    /** Tokenize with TokenizerText and TokenizerBytes, with each kind of input, and compare */
+    private static void test(String string) {
+        byte[] bytes = StrUtils.asUTF8bytes(string) ;
+        List<Token> expected = tokens(TokenizerFactory.makeTokenizerUTF8(new ByteArrayInputStream(bytes))) ;
+        sameTokens(expected, tokens(TokenizerFactory.makeTokenizerBytes(new ByteArrayInputStream(bytes)))) ;
+        sameTokens(expected, tokens(TokenizerFactory.makeTokenizerBytes(trickle(bytes)))) ;
+        sameTokens(expected, tokens(TokenizerFactory.makeTokenizerBytes(ByteBuffer.wrap(bytes)))) ;
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length) ;
+        direct.put(bytes).flip() ;
+        sameTokens(expected, tokens(TokenizerFactory.makeTokenizerBytes(direct))) ;
+    }
+
+    private static void testBad(String string) {
+        byte[] bytes = StrUtils.asUTF8bytes(string) ;
+        try {
+            tokens(TokenizerFactory.makeTokenizerBytes(new ByteArrayInputStream(bytes))) ;
+            fail("Expected a parse exception: "+string) ;
+        } catch (RiotParseException ex) {}
+    }
+
+    @Test public void tokenBytes_01()   { test("") ; }
+    @Test public void tokenBytes_02()   { test("  \n\t  ") ; }
+    @Test public void tokenBytes_03()   { test("<http://example/x>") ; }
+    @Test public void tokenBytes_04()   { test("<http://example/s> <http://example/p> <http://example/o> .") ; }
+    @Test public void tokenBytes_05()   { test("_:b0 <http://example/p> _:b1 .\n_:b0 <http://example/p> _:b1 .") ; }
+    @Test public void tokenBytes_06()   { test("_:a.b.c ._:a..b .") ; }
+    @Test public void tokenBytes_07()   { test("\"abc\" 'def' \"\" ''") ; }
+    @Test public void tokenBytes_08()   { test("\"abc\"@en \"abc\"@en-GB-x1 \"abc\" @en") ; }
+    @Test public void tokenBytes_09()   { test("\"123\"^^<http://www.w3.org/2001/XMLSchema#integer> \"x\" ^^ <http://example/dt>") ; }
+    @Test public void tokenBytes_10()   { test("\"a\\tb\\nc\\\"d\\\\e\\u0041\\U0001F600\"") ; }
+    @Test public void tokenBytes_11()   { test("<http://example/\\u00E9t\\U0001F600>") ; }
+    @Test public void tokenBytes_12()   { test("\"h\u00E9llo w\u00F6rld \uD83D\uDE00\" <http://example/\u00E9> _:\u00E9t\u00E9") ; }
+    @Test public void tokenBytes_13()   { test("# Comment\n<http://example/s> # More\r\n<http://example/p> \"o\" .\n# End") ; }
+    @Test public void tokenBytes_14()   { test("\uFEFF<http://example/s> <http://example/p> <http://example/o> .") ; }
+    @Test public void tokenBytes_15()   { test("<http://example/s> <http://example/p> <http://example/o> <http://example/g> .") ; }
+
+    // Blank node label then DOT.
+    @Test public void tokenBytes_bnode_dot() {
+        List<Token> tokens = tokens(TokenizerFactory.makeTokenizerBytes(ByteBuffer.wrap(StrUtils.asUTF8bytes("_:b1. _:b2.. _:b3.x.")))) ;
+        assertEquals(6, tokens.size()) ;
+        assertEquals("b1", tokens.get(0).getImage()) ;
+        assertEquals(TokenType.DOT, tokens.get(1).getType()) ;
+        assertEquals("b2.", tokens.get(2).getImage()) ;
+        assertEquals(TokenType.DOT, tokens.get(3).getType()) ;
+        assertEquals("b3.x", tokens.get(4).getImage()) ;
+        assertEquals(TokenType.DOT, tokens.get(5).getType()) ;
+    }
+
+    @Test public void tokenBytes_16() {
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 20000 ; i++ )
+            sb.append("<http://example/s"+(i%10)+"> <http://example/p> \"value "+i+"\"@en _:b"+(i%100)+" .\n") ;
+        test(sb.toString()) ;
+    }
+
+    // Repeated IRIs give the same string.
+    @Test public void tokenBytes_cache_01() {
+        List<Token> tokens = tokens(TokenizerFactory.makeTokenizerBytes(ByteBuffer.wrap(StrUtils.asUTF8bytes("<http://example/p> <http://example/p>")))) ;
+        assertSame(tokens.get(0).getImage(), tokens.get(1).getImage()) ;
+    }
+
+    @Test public void tokenBytes_bad_01()   { testBad("<http://example/s") ; }
+    @Test public void tokenBytes_bad_02()   { testBad("<http://example/ s>") ; }
+    @Test public void tokenBytes_bad_03()   { testBad("\"abc") ; }
+    @Test public void tokenBytes_bad_04()   { testBad("\"abc\ndef\"") ; }
+    @Test public void tokenBytes_bad_05()   { testBad("_: ") ; }
+    @Test public void tokenBytes_bad_06()   { testBad("\"abc\"@") ; }
+    @Test public void tokenBytes_bad_07()   { testBad("\"abc\"^^ex:dt") ; }
+    @Test public void tokenBytes_bad_08()   { testBad("\"\"\"long\"\"\"") ; }
+    @Test public void tokenBytes_bad_09()   { testBad("ex:x") ; }
+    @Test public void tokenBytes_bad_10()   { testBad("\"\\q\"") ; }
+
+    @Test public void tokenBytes_bad_encoding() {
+        byte[] bytes = { '"', (byte)0xC3, '"' } ;
+        try {
+            tokens(TokenizerFactory.makeTokenizerBytes(new ByteArrayInputStream(bytes))) ;
+            fail("Expected a parse exception") ;
+        } catch (RiotParseException ex) {}
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.runners.Suite ;
       , TestService.class
       , TestQueryEngineHTTP.class
       , TestQueryEngineMultiThreaded.class
+      , TestParallelExecution.class
 })
 
 public class TS_Engine {}
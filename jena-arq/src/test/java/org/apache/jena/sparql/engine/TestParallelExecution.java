@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.* ;
+import org.apache.jena.rdf.model.Model ;
+import org.apache.jena.rdf.model.ModelFactory ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.resultset.ResultSetCompare ;
+import org.apache.jena.sparql.util.NodeFactoryExtra ;
+import org.junit.Test ;
+
+/** Parallel execution of independent parts of a query compared to normal execution */
+public class TestParallelExecution extends BaseTest {
+    private static Model data = build(5000) ;
+
+    private static Model build(int n) {
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        Node p = NodeFactory.createURI("http://example/p") ;
+        Node q = NodeFactory.createURI("http://example/q") ;
+        for ( int i = 0 ; i < n ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/s"+i) ;
+            graph.add(Triple.create(s, p, NodeFactoryExtra.intToNode(i%10))) ;
+            if ( i%3 == 0 )
+                graph.add(Triple.create(s, q, NodeFactoryExtra.intToNode(i))) ;
+        }
+        return ModelFactory.createModelForGraph(graph) ;
+    }
+
+    private static final String PRE = "PREFIX : <http://example/> " ;
+
+    @Test public void parallel_union_01() {
+        test("SELECT * { { ?s :p ?o } UNION { ?s :q ?o } UNION { ?s :p 1 } }") ;
+    }
+
+    @Test public void parallel_join_01() {
+        // The FILTER stops this becoming a sequence.
+        test("SELECT * { { ?s :p ?o } { ?s :q ?v FILTER(?o < 5) } }") ;
+    }
+
+    @Test public void parallel_join_02() {
+        // No results on the right.
+        test("SELECT * { { ?s :p ?o } { ?s :q 'x' } }", 0) ;
+    }
+
+    @Test public void parallel_leftjoin_01() {
+        test("SELECT * { ?s :p ?o OPTIONAL { ?s :q ?v } }") ;
+    }
+
+    @Test public void parallel_leftjoin_02() {
+        test("SELECT * { ?s :p ?o OPTIONAL { ?s :q ?v OPTIONAL { ?v :p ?z } FILTER(?z = ?o) } }") ;
+    }
+
+    @Test public void parallel_nested_01() {
+        test("SELECT * { { ?s :p 2 } UNION { { ?s :p 3 } OPTIONAL { ?s :q ?v } } }") ;
+    }
+
+    @Test public void parallel_limit_01() {
+        // Stop before the other threads finish.
+        test("SELECT * { { ?s :p ?o } UNION { ?s :q ?o } } LIMIT 5", 5) ;
+    }
+
+    @Test(expected=QueryCancelledException.class)
+    public void parallel_abort_01() {
+        Query query = QueryFactory.create(PRE+"SELECT * { { ?s :p ?o } UNION { ?s :q ?o } }") ;
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, data) ) {
+            qExec.getContext().set(ARQ.parallelExecution, true) ;
+            ResultSet rs = qExec.execSelect() ;
+            rs.next() ;
+            qExec.abort() ;
+            while ( rs.hasNext() )
+                rs.next() ;
+        }
+    }
+
+    private static void test(String queryString) {
+        test(queryString, -1) ;
+    }
+
+    private static void test(String queryString, int expectedSize) {
+        Query query = QueryFactory.create(PRE+queryString) ;
+        ResultSetRewindable expected ;
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, data) ) {
+            expected = ResultSetFactory.copyResults(qExec.execSelect()) ;
+        }
+        ResultSetRewindable actual ;
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, data) ) {
+            qExec.getContext().set(ARQ.parallelExecution, true) ;
+            actual = ResultSetFactory.copyResults(qExec.execSelect()) ;
+        }
+        if ( expectedSize >= 0 ) {
+            assertEquals(expectedSize, actual.size()) ;
+            if ( query.hasLimit() )
+                // Which results is not determined.
+                return ;
+        }
+        else
+            assertTrue(expected.size() > 0) ;
+        assertTrue(ResultSetCompare.equalsByTerm(expected, actual)) ;
+    }
+}
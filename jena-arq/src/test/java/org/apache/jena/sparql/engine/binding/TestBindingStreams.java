@@ -21,6 +21,8 @@ package org.apache.jena.sparql.engine.binding;
 import java.io.ByteArrayInputStream ;
 import java.io.ByteArrayOutputStream ;
 import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.Iterator ;
 import java.util.List ;
 
 import org.apache.jena.atlas.junit.BaseTest ;
@@ -106,7 +108,61 @@ public class TestBindingStreams extends BaseTest
 
     @Test public void bindingStream_63()              { testWriteRead(bb3) ; }
 
+    // Binary form.
+    static Binding bx1 = build("(?a 'abc'@en) (?b 'xyz') (?c '2015-01-01'^^<http://www.w3.org/2001/XMLSchema#date>)") ;
+    static Binding bx2 = build("(?c 1.5) (?d 'other'^^<http://example/dt>) (?a 2)") ;
+
+    @Test public void bindingStream_70()        { testWriteReadBinary(b12, b0, b19, b02) ; }
+    @Test public void bindingStream_71()        { testWriteReadBinary(bb1, bb2, bb3, x10) ; }
+    @Test public void bindingStream_72()        { testWriteReadBinary(bx1, bx2, bx1, b10) ; }
+    @Test public void bindingStream_73()        { testWriteReadBinary() ; }
+
+    @Test
+    public void bindingStream_74()
+    {
+        // Long strings and many variables.
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 100000 ; i++ )
+            sb.append((char)('a'+(i%26))) ;
+        BindingMap b = BindingFactory.create() ;
+        b.add(Var.alloc("long"), NodeFactory.createLiteral(sb.toString())) ;
+        for ( int i = 0 ; i < 300 ; i++ )
+            b.add(Var.alloc("v"+i), NodeFactory.createURI("http://example/"+i)) ;
+        testWriteReadBinary(b, b12, b) ;
+    }
+
     
+    @Test
+    public void bindingStream_75()
+    {
+        // A variable with no value.
+        Var a = Var.alloc("a") ;
+        Var c = Var.alloc("c") ;
+        Node n = NodeFactory.createURI("http://example/x") ;
+        Binding b = new BindingBase(null) {
+            @Override protected Iterator<Var> vars1()       { return Arrays.asList(a, c).iterator() ; }
+            @Override protected int size1()                 { return 2 ; }
+            @Override protected boolean isEmpty1()          { return false ; }
+            @Override protected boolean contains1(Var var)  { return var.equals(a) || var.equals(c) ; }
+            @Override protected Node get1(Var var)          { return var.equals(a) ? n : null ; }
+        } ;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        BindingBinaryOutputStream output = new BindingBinaryOutputStream(out) ;
+        output.send(b) ;
+        output.send(b12) ;
+        output.close() ;
+
+        BindingBinaryInputStream input = new BindingBinaryInputStream(new ByteArrayInputStream(out.toByteArray())) ;
+        Binding b1 = input.next() ;
+        Binding b2 = input.next() ;
+        assertFalse(input.hasNext()) ;
+        input.close() ;
+        assertEquals(n, b1.get(a)) ;
+        assertNull(b1.get(c)) ;
+        assertEquals(1, b1.size()) ;
+        assertTrue(equalBindings(b12, b2)) ;
+    }
+
     static void testRead(String x, Binding ... bindings)
     {
         Tokenizer t = TokenizerFactory.makeTokenizerString(x) ;
@@ -161,6 +217,28 @@ public class TestBindingStreams extends BaseTest
     }
     
 
+    static void testWriteReadBinary(Binding ... bindings)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        BindingBinaryOutputStream output = new BindingBinaryOutputStream(out) ;
+        for ( Binding b : bindings )
+            output.send(b) ;
+        output.close() ;
+
+        BindingBinaryInputStream input = new BindingBinaryInputStream(new ByteArrayInputStream(out.toByteArray())) ;
+        List<Binding> results = new ArrayList<>() ;
+        for ( ; input.hasNext() ; )
+            results.add(input.next()) ;
+        input.close() ;
+        assertEquals(bindings.length, results.size()) ;
+        for ( int i = 0 ; i < bindings.length ; i++ )
+        {
+            Binding b1 = bindings[i] ;
+            Binding b2 = results.get(i) ;
+            assertTrue("Bindings do not match: expected="+b1+" got="+b2, equalBindings(b1, b2)) ;
+        }
+    }
+
     private static boolean equalBindings(Binding binding1, Binding binding2)
     {
         // Need to have the exact same terms coming back (therefore we can't use BNodeIso to compare values)
@@ -18,8 +18,13 @@
 
 package org.apache.jena.sparql.engine.http;
 
+import java.io.ByteArrayInputStream ;
+import java.io.InputStream ;
 import java.net.SocketException ;
+import java.util.ArrayList ;
+import java.util.Arrays ;
 import java.util.HashMap ;
+import java.util.List ;
 import java.util.Map ;
 
 import org.apache.http.conn.ConnectTimeoutException ;
@@ -30,13 +35,23 @@ import org.apache.jena.query.ARQ ;
 import org.apache.jena.query.Query ;
 import org.apache.jena.query.QueryExecutionFactory ;
 import org.apache.jena.query.QueryFactory ;
+import org.apache.jena.query.ResultSetFactory ;
+import org.apache.jena.sparql.algebra.OpAsQuery ;
 import org.apache.jena.sparql.algebra.op.OpBGP ;
 import org.apache.jena.sparql.algebra.op.OpService ;
 import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.engine.http.QueryEngineHTTP ;
 import org.apache.jena.sparql.engine.http.QueryExceptionHTTP ;
 import org.apache.jena.sparql.engine.http.Service ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
+import org.apache.jena.sparql.engine.main.iterator.QueryIterServiceBulk ;
 import org.apache.jena.sparql.modify.UpdateProcessRemoteBase ;
+import org.apache.jena.sparql.sse.SSE ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.update.UpdateExecutionFactory ;
 import org.apache.jena.update.UpdateFactory ;
@@ -333,4 +348,145 @@ public class TestService {
             serviceContext.remove(Service.queryAuthPwd);
         }
     }
+
+    private static final Var x = Var.alloc("x") ;
+    private static final Var y = Var.alloc("y") ;
+
+    private static Map<Var, Var> varMapping(Var... vars) {
+        Map<Var, Var> map = new HashMap<>() ;
+        for ( Var v : vars )
+            map.put(v, v) ;
+        return map ;
+    }
+
+    @Test
+    public void bulk_values_01() {
+        Query query = QueryFactory.create("SELECT * { ?x ?p ?y }") ;
+        List<Binding> bindings = Arrays.asList(BindingFactory.binding(x, SSE.parseNode("<http://example/a>")),
+                                               BindingFactory.binding(x, SSE.parseNode("<http://example/a>")),
+                                               BindingFactory.binding(x, SSE.parseNode("<http://example/b>"))) ;
+        Service.setValues(query, bindings, varMapping(x, y)) ;
+        Assert.assertTrue(query.hasValues()) ;
+        Assert.assertEquals(Arrays.asList(x), query.getValuesVariables()) ;
+        // Duplicates sent once.
+        Assert.assertEquals(2, query.getValuesData().size()) ;
+    }
+
+    @Test
+    public void bulk_values_02() {
+        // Blank nodes are not sent.
+        Query query = QueryFactory.create("SELECT * { ?x ?p ?y }") ;
+        List<Binding> bindings = Arrays.asList(BindingFactory.binding(x, SSE.parseNode("_:b"))) ;
+        Service.setValues(query, bindings, varMapping(x, y)) ;
+        Assert.assertFalse(query.hasValues()) ;
+    }
+
+    @Test
+    public void bulk_values_03() {
+        // Only variables visible in the remote query are sent.
+        Query query = QueryFactory.create("SELECT * { ?x ?p ?o }") ;
+        Binding b = BindingFactory.binding(BindingFactory.binding(x, SSE.parseNode("<http://example/a>")),
+                                           y, SSE.parseNode("<http://example/c>")) ;
+        Service.setValues(query, Arrays.asList(b), varMapping(x)) ;
+        Assert.assertEquals(Arrays.asList(x), query.getValuesVariables()) ;
+    }
+
+    @Test
+    public void bulk_silent_01() {
+        // A failing SILENT bulk SERVICE passes the input through, in order.
+        BasicPattern basicPattern = new BasicPattern();
+        basicPattern.add(Triple.create(x, Var.alloc("p"), y));
+        Node serviceNode = NodeFactory.createURI(SERVICE);
+        OpService opService = new OpService(serviceNode, new OpBGP(basicPattern), true);
+
+        Context context = new Context();
+        ARQ.setNormalMode(context);
+        context.set(Service.queryTimeout, 10);
+        context.set(Service.serviceBulkBindings, 2);
+        context.set(Service.serviceBulkParallelism, 2);
+        ExecutionContext execCxt = new ExecutionContext(context, null, null, null) ;
+
+        List<Binding> input = new ArrayList<>() ;
+        for ( int i = 0 ; i < 5 ; i++ )
+            input.add(BindingFactory.binding(x, NodeFactory.createURI("http://example/"+i))) ;
+        QueryIterator qIter = new QueryIterServiceBulk(new QueryIterPlainWrapper(input.iterator(), execCxt), opService, execCxt) ;
+        List<Binding> output = new ArrayList<>() ;
+        while ( qIter.hasNext() )
+            output.add(qIter.nextBinding()) ;
+        qIter.close() ;
+        Assert.assertEquals(input, output) ;
+    }
+
+    @Test
+    public void streaming_results_01() {
+        String xml = String.join("\n",
+            "<?xml version=\"1.0\"?>",
+            "<sparql xmlns=\"http://www.w3.org/2005/sparql-results#\">",
+            "  <head><variable name=\"x\"/></head>",
+            "  <results>",
+            "    <result><binding name=\"x\"><uri>http://example/a</uri></binding></result>",
+            "    <result><binding name=\"x\"><uri>http://example/b</uri></binding></result>",
+            "  </results>",
+            "</sparql>") ;
+        boolean[] closed = { false } ;
+        InputStream in = new ByteArrayInputStream(xml.getBytes()) {
+            @Override public void close() { closed[0] = true ; }
+        } ;
+        QueryIterator qIter = new Service.QueryIterStreamResults(ResultSetFactory.fromXML(in), in) ;
+        Assert.assertTrue(qIter.hasNext()) ;
+        qIter.nextBinding() ;
+        Assert.assertFalse(closed[0]) ;
+        qIter.nextBinding() ;
+        Assert.assertFalse(qIter.hasNext()) ;
+        // Response closed at the end of the results.
+        Assert.assertTrue(closed[0]) ;
+        qIter.close() ;
+    }
+
+    @Test
+    public void service_cache_01() {
+        // Answered from the cache: the endpoint is not contacted.
+        BasicPattern basicPattern = new BasicPattern();
+        basicPattern.add(Triple.create(x, Var.alloc("p"), y));
+        OpService opService = new OpService(NodeFactory.createURI(SERVICE), new OpBGP(basicPattern), false);
+
+        Context context = new Context();
+        ARQ.setNormalMode(context);
+        ServiceResultCache cache = new ServiceResultCache(10, 60000) ;
+        context.set(Service.serviceCache, cache);
+
+        Query query = OpAsQuery.asQuery(opService.getSubOp()) ;
+        List<Binding> rows = Arrays.asList(BindingFactory.binding(x, SSE.parseNode("<http://example/a>"))) ;
+        Assert.assertTrue(cache.put(ServiceResultCache.key(SERVICE, context, query), rows)) ;
+
+        QueryIterator qIter = Service.exec(opService, context) ;
+        Assert.assertTrue(qIter.hasNext()) ;
+        Assert.assertEquals(rows.get(0), qIter.nextBinding()) ;
+        Assert.assertFalse(qIter.hasNext()) ;
+        qIter.close() ;
+    }
+
+    @Test
+    public void service_cache_02() {
+        List<Binding> rows = Arrays.asList(BindingFactory.binding(x, SSE.parseNode("<http://example/a>"))) ;
+        ServiceResultCache cache = new ServiceResultCache(10, 60000) ;
+        cache.put("K", rows) ;
+        Assert.assertEquals(rows, cache.get("K")) ;
+        Assert.assertNull(cache.get("K2")) ;
+        cache.clear() ;
+        Assert.assertNull(cache.get("K")) ;
+    }
+
+    @Test
+    public void service_cache_03() {
+        // Expired or too large: not used.
+        List<Binding> rows = Arrays.asList(BindingFactory.binding(x, SSE.parseNode("<http://example/a>")),
+                                           BindingFactory.binding(x, SSE.parseNode("<http://example/b>"))) ;
+        ServiceResultCache cache1 = new ServiceResultCache(10, 0) ;
+        Assert.assertFalse(cache1.put("K", rows)) ;
+        Assert.assertNull(cache1.get("K")) ;
+        ServiceResultCache cache2 = new ServiceResultCache(10, 60000, 1) ;
+        Assert.assertFalse(cache2.put("K", rows)) ;
+        Assert.assertNull(cache2.get("K")) ;
+    }
 }
@@ -27,6 +27,7 @@ import org.junit.runners.Suite ;
     , TestDistinctMem.class
     , TestDistinctDataBag.class 
     , TestDistinctDataBagLimited.class 
+    , TestQueryIterGroup.class
 })
 public class TS_QueryIterators {
 
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.iterator;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.* ;
+import org.apache.jena.rdf.model.Model ;
+import org.apache.jena.rdf.model.ModelFactory ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.apache.jena.sparql.resultset.ResultSetCompare ;
+import org.apache.jena.sparql.util.NodeFactoryExtra ;
+import org.junit.Test ;
+
+/** GROUP BY when the groups spill to disk compared to grouping in memory */
+public class TestQueryIterGroup extends BaseTest {
+    private static Model data = build(200) ;
+
+    private static Model build(int n) {
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        Node p = NodeFactory.createURI("http://example/p") ;
+        Node q = NodeFactory.createURI("http://example/q") ;
+        for ( int i = 0 ; i < n ; i++ ) {
+            Node s = NodeFactory.createURI("http://example/s"+i) ;
+            graph.add(Triple.create(s, p, NodeFactoryExtra.intToNode(i%37))) ;
+            // Some non-numeric values for errors.
+            Node v = ( i%50 == 7 ) ? NodeFactory.createLiteral("x"+i) : NodeFactoryExtra.intToNode(i) ;
+            graph.add(Triple.create(s, q, v)) ;
+        }
+        return ModelFactory.createModelForGraph(graph) ;
+    }
+
+    private static final String PRE = "PREFIX : <http://example/> " ;
+
+    @Test public void group_spill_01() {
+        test("SELECT ?g (count(*) AS ?c) { ?s :p ?g } GROUP BY ?g") ;
+    }
+
+    @Test public void group_spill_02() {
+        test("SELECT ?g (count(?v) AS ?c) (sum(?v) AS ?sum) (avg(?v) AS ?avg) { ?s :p ?g ; :q ?v } GROUP BY ?g") ;
+    }
+
+    @Test public void group_spill_03() {
+        test("SELECT ?g (min(?v) AS ?min) (max(?v) AS ?max) { ?s :p ?g ; :q ?v } GROUP BY ?g") ;
+    }
+
+    @Test public void group_spill_04() {
+        // Errors in SUM.
+        test("SELECT ?g (sum(?v) AS ?sum) { ?s :p ?g ; :q ?v FILTER(?g < 10) } GROUP BY ?g") ;
+    }
+
+    @Test public void group_spill_05() {
+        // No aggregators.
+        test("SELECT ?g { ?s :p ?g } GROUP BY ?g") ;
+    }
+
+    @Test public void group_spill_06() {
+        // Not combinable : grouping stays in memory.
+        test("SELECT ?g (group_concat(?v) AS ?x) (count(DISTINCT ?v) AS ?c) { ?s :p ?g ; :q ?v } GROUP BY ?g") ;
+    }
+
+    @Test public void group_spill_07() {
+        // Unbound group key and expression group key.
+        test("SELECT ?k (count(*) AS ?c) { ?s :p ?g OPTIONAL { ?s :q ?v FILTER(?v > 100) } } GROUP BY (?v/10 AS ?k)") ;
+    }
+
+    private static void test(String queryString) {
+        Query query = QueryFactory.create(PRE+queryString) ;
+        ResultSetRewindable expected ;
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, data) ) {
+            expected = ResultSetFactory.copyResults(qExec.execSelect()) ;
+        }
+        ResultSetRewindable actual ;
+        try ( QueryExecution qExec = QueryExecutionFactory.create(query, data) ) {
+            qExec.getContext().set(ARQ.spillToDiskThreshold, 5L) ;
+            actual = ResultSetFactory.copyResults(qExec.execSelect()) ;
+        }
+        assertTrue(expected.size() > 0) ;
+        assertTrue(ResultSetCompare.equalsByTerm(expected, actual)) ;
+    }
+}
@@ -23,16 +23,22 @@ import java.util.List ;
 import org.apache.jena.atlas.io.IndentedWriter ;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.query.ResultSet ;
 import org.apache.jena.query.ResultSetFactory ;
 import org.apache.jena.sparql.algebra.Table ;
 import org.apache.jena.sparql.algebra.TableFactory ;
+import org.apache.jena.sparql.core.DatasetGraph ;
 import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.main.OpExecutorFactory ;
 import org.apache.jena.sparql.expr.ExprList ;
 import org.apache.jena.sparql.resultset.ResultSetCompare ;
 import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.sparql.util.Context ;
 import org.junit.Assert ;
 
 /** Tests for inner/equi joins */ 
@@ -40,6 +46,13 @@ public abstract class AbstractTestJoin extends Assert {
 
     protected static Table table0() { return parseTableInt("(table)") ; } 
 
+    /** Execution context where a hash join probe table spills to disk after one row. */
+    protected static ExecutionContext spillContext() {
+        Context context = new Context() ;
+        context.set(ARQ.spillToDiskThreshold, 1L) ;
+        return new ExecutionContext(context, (Graph)null, (DatasetGraph)null, (OpExecutorFactory)null) ;
+    }
+
     // Table of one row and no colums.
     protected static Table table1() { 
         return parseTableInt("(table (row))") ; }
@@ -27,6 +27,7 @@ import org.junit.runners.Suite ;
     TestPath.class
     , TestPath2.class
     , TestPathPF.class
+    , TestPathIndex.class
 })
 
 public class TS_Path
@@ -20,6 +20,7 @@ package org.apache.jena.sparql.path;
 
 import java.util.ArrayList ;
 import java.util.Arrays ;
+import java.util.HashSet ;
 import java.util.Iterator ;
 import java.util.List ;
 
@@ -48,6 +49,7 @@ import org.apache.jena.sparql.sse.Item ;
 import org.apache.jena.sparql.sse.SSE ;
 import org.apache.jena.sparql.sse.builders.BuilderPath ;
 import org.apache.jena.sparql.sse.writers.WriterPath ;
+import org.apache.jena.sparql.util.Context ;
 import org.junit.Assert ;
 import org.junit.Test ;
 
@@ -309,6 +311,49 @@ public class TestPath extends BaseTest
         assertEquals(2, x.size()) ;
     }
 
+    // Set-at-a-time evaluation (PathClosure) and the PathEngine give the same answers.
+    @Test public void path_closure_01()   { testClosure(graph1, "?x", "(path+ :p)", "?y") ; }
+    @Test public void path_closure_02()   { testClosure(graph3, "?x", "(path* :p)", "?y") ; }
+    @Test public void path_closure_03()   { testClosure(graph7, "?x", "(path+ :p)", "?y") ; }
+    @Test public void path_closure_04()   { testClosure(graph7, "?x", "(path+ :p)", "?x") ; }
+    @Test public void path_closure_05()   { testClosure(graph7, "?x", "(path* :p)", "?x") ; }
+    @Test public void path_closure_06()   { testClosure(graph2, "?x", "(path+ (alt :p :q))", "?y") ; }
+    @Test public void path_closure_07()   { testClosure(graph4, "?x", "(path+ (alt :p (reverse :q)))", "?y") ; }
+    @Test public void path_closure_08()   { testClosure(graph7, "<n1>", "(path+ :p)", "?y") ; }
+    @Test public void path_closure_09()   { testClosure(graph7, "?x", "(path+ :p)", "<n3>") ; }
+    @Test public void path_closure_10()   { testClosure(graph1, "?x", "(path+ (reverse :p))", "?y") ; }
+
+    // Both ends bound: bidirectional search.
+    @Test public void path_closure_20()   { testClosure(graph7, "<n1>", "(path+ :p)", "<n3>") ; }
+    @Test public void path_closure_21()   { testClosure(graph7, "<n3>", "(path+ :p)", "<n1>") ; }
+    @Test public void path_closure_22()   { testClosure(graph7, "<n1>", "(path+ :p)", "<n1>") ; }
+    @Test public void path_closure_23()   { testClosure(graph1, "<n1>", "(path+ :p)", "<n1>") ; }
+    @Test public void path_closure_24()   { testClosure(graph1, "<n1>", "(path* :p)", "<n1>") ; }
+    @Test public void path_closure_25()   { testClosure(graph4, "<n1>", "(path* :p)", "<n4>") ; }
+    @Test public void path_closure_26()   { testClosure(graph4, "<n1>", "(path+ :p)", "<n6>") ; }
+
+    private static void testClosure(Graph graph, String start$, String pathStr, String finish$)
+    {
+        Node start = SSE.parseNode(start$, pmap) ;
+        Node finish = SSE.parseNode(finish$, pmap) ;
+        Path path = SSE.parsePath(pathStr, pmap) ;
+        Context cxt1 = ARQ.getContext().copy() ;
+        cxt1.set(ARQ.pathSetEvaluation, true) ;
+        cxt1.set(ARQ.pathClosureAll, true) ;
+        Context cxt2 = ARQ.getContext().copy() ;
+        cxt2.set(ARQ.pathSetEvaluation, false) ;
+        // Set evaluation, one start node at a time when neither end is bound.
+        Context cxt3 = ARQ.getContext().copy() ;
+        cxt3.set(ARQ.pathSetEvaluation, true) ;
+        List<Binding> x1 = Iter.toList(PathLib.execTriplePath(BindingFactory.root(), start, path, finish, new ExecutionContext(cxt1, graph, null, null))) ;
+        List<Binding> x2 = Iter.toList(PathLib.execTriplePath(BindingFactory.root(), start, path, finish, new ExecutionContext(cxt2, graph, null, null))) ;
+        List<Binding> x3 = Iter.toList(PathLib.execTriplePath(BindingFactory.root(), start, path, finish, new ExecutionContext(cxt3, graph, null, null))) ;
+        assertEquals(x2.size(), x1.size()) ;
+        assertEquals(new HashSet<>(x2), new HashSet<>(x1)) ;
+        assertEquals(x2.size(), x3.size()) ;
+        assertEquals(new HashSet<>(x2), new HashSet<>(x3)) ;
+    }
+
     // TODO Shortest path is not implemented yet.  These also need to be verified that they are correct.
 //    @Ignore @Test public void path_40()   { test(graph1, n1,   "shortest(:p*)",       n1) ; }
 //    @Ignore @Test public void path_41()   { test(graph1, n1,   "shortest(:p+)",       n2) ; }
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path;
+
+import java.nio.charset.StandardCharsets ;
+import java.nio.file.Files ;
+import java.nio.file.Path ;
+import java.util.Collections ;
+import java.util.HashSet ;
+import java.util.Set ;
+import java.util.concurrent.* ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.query.* ;
+import org.apache.jena.rdf.model.* ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.path.eval.PathIndex ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.update.UpdateAction ;
+import org.junit.Test ;
+
+public class TestPathIndex extends BaseTest
+{
+    private static Node p = SSE.parseNode(":p") ;
+    private static Node q = SSE.parseNode(":q") ;
+    private static Node gn = SSE.parseNode(":g") ;
+
+    private static DatasetGraph data() {
+        DatasetGraph dsg = DatasetGraphFactory.create() ;
+        dsg.add(SSE.parseQuad("(_ :a :p :b)")) ;
+        dsg.add(SSE.parseQuad("(_ :b :p :c)")) ;
+        dsg.add(SSE.parseQuad("(_ :c :p :d)")) ;
+        dsg.add(SSE.parseQuad("(_ :x :q :y)")) ;
+        dsg.add(SSE.parseQuad("(:g :a :p :z)")) ;
+        return dsg ;
+    }
+
+    private static Set<String> query(DatasetGraph dsg, String pattern) {
+        String qs = "PREFIX : <http://example/> SELECT ?y { "+pattern+" }" ;
+        Set<String> results = new HashSet<>() ;
+        try ( QueryExecution qExec = QueryExecutionFactory.create(qs, DatasetFactory.wrap(dsg)) ) {
+            ResultSet rs = qExec.execSelect() ;
+            while ( rs.hasNext() ) {
+                RDFNode n = rs.next().get("y") ;
+                results.add(n == null ? "" : n.toString()) ;
+            }
+        }
+        return results ;
+    }
+
+    private static void test(String pattern) {
+        // Same results with and without the index.
+        // (The index is in the dataset context so use separate datasets.)
+        DatasetGraph dsg = PathIndex.create(data(), p, q) ;
+        assertEquals(query(data(), pattern), query(dsg, pattern)) ;
+    }
+
+    @Test public void pathIndex_01() { test(":a :p+ ?y") ; }
+    @Test public void pathIndex_02() { test(":a :p* ?y") ; }
+    @Test public void pathIndex_03() { test("?y :p+ :d") ; }
+    @Test public void pathIndex_04() { test("?x :p* ?y") ; }
+    @Test public void pathIndex_05() { test(":d ^:p+ ?y") ; }
+    @Test public void pathIndex_06() { test(":a :p/:p* ?y") ; }
+    @Test public void pathIndex_07() { test("GRAPH :g { :a :p+ ?y }") ; }
+    @Test public void pathIndex_08() { test("FILTER EXISTS { :a :p+ :d } BIND(1 AS ?y)") ; }
+
+    @Test public void pathIndex_update_01() {
+        DatasetGraph dsg = PathIndex.create(data(), p) ;
+        assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+        // Incremental addition.
+        dsg.add(Quad.defaultGraphIRI, SSE.parseNode(":d"), p, SSE.parseNode(":e")) ;
+        assertEquals(4, query(dsg, ":a :p+ ?y").size()) ;
+        assertEquals(4, query(dsg, "?y :p+ :e").size()) ;
+        // Deletion recomputes.
+        dsg.delete(Quad.defaultGraphIRI, SSE.parseNode(":b"), p, SSE.parseNode(":c")) ;
+        assertEquals(1, query(dsg, ":a :p+ ?y").size()) ;
+        assertEquals(2, query(dsg, "?y :p+ :e").size()) ;
+    }
+
+    @Test public void pathIndex_update_02() {
+        DatasetGraph dsg = PathIndex.create(data(), p) ;
+        assertEquals(1, query(dsg, "GRAPH :g { :a :p+ ?y }").size()) ;
+        dsg.add(gn, SSE.parseNode(":z"), p, SSE.parseNode(":a")) ;
+        // Cycle: a -> z -> a
+        assertEquals(2, query(dsg, "GRAPH :g { :a :p+ ?y }").size()) ;
+        // Default graph not affected.
+        assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+    }
+
+    @Test public void pathIndex_update_03() {
+        // Graph level operations go through the index.
+        DatasetGraph dsg = PathIndex.create(data(), p) ;
+        assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+        assertEquals(1, query(dsg, "GRAPH :g { :a :p+ ?y }").size()) ;
+        UpdateAction.parseExecute("CLEAR DEFAULT", dsg) ;
+        assertEquals(0, query(dsg, ":a :p+ ?y").size()) ;
+        UpdateAction.parseExecute("PREFIX : <http://example/> CLEAR GRAPH :g", dsg) ;
+        assertEquals(0, query(dsg, "GRAPH :g { :a :p+ ?y }").size()) ;
+    }
+
+    @Test public void pathIndex_update_04() throws Exception {
+        DatasetGraph dsg = PathIndex.create(data(), p) ;
+        assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+        Path file = Files.createTempFile("pathIndex", ".nt") ;
+        try {
+            Files.write(file, Collections.singletonList("<http://example/d> <http://example/p> <http://example/e> ."),
+                        StandardCharsets.UTF_8) ;
+            UpdateAction.parseExecute("LOAD <"+file.toUri()+">", dsg) ;
+        } finally { Files.delete(file) ; }
+        assertEquals(4, query(dsg, ":a :p+ ?y").size()) ;
+        // COPY replaces the named graph.
+        UpdateAction.parseExecute("PREFIX : <http://example/> COPY DEFAULT TO :g", dsg) ;
+        assertEquals(4, query(dsg, "GRAPH :g { :a :p+ ?y }").size()) ;
+    }
+
+    @Test public void pathIndex_update_05() {
+        // Model API
+        DatasetGraph dsg = PathIndex.create(data(), p) ;
+        assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+        Model model = DatasetFactory.wrap(dsg).getDefaultModel() ;
+        model.add(model.createResource("http://example/d"), model.createProperty("http://example/p"),
+                  model.createResource("http://example/e")) ;
+        assertEquals(4, query(dsg, ":a :p+ ?y").size()) ;
+        model.removeAll() ;
+        assertEquals(0, query(dsg, ":a :p+ ?y").size()) ;
+    }
+
+    private static DatasetGraph dataTxn() {
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem() ;
+        dsg.add(SSE.parseQuad("(_ :a :p :b)")) ;
+        dsg.add(SSE.parseQuad("(_ :b :p :c)")) ;
+        return dsg ;
+    }
+
+    // Query on another thread, which is not in the transaction of this thread.
+    private static int queryOther(DatasetGraph dsg, String pattern) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor() ;
+        try {
+            return executor.submit(()->query(dsg, pattern).size()).get() ;
+        } finally { executor.shutdown() ; }
+    }
+
+    @Test public void pathIndex_txn_01() throws Exception {
+        // Additions are seen by others on commit.
+        DatasetGraph dsg = PathIndex.create(dataTxn(), p) ;
+        assertEquals(2, query(dsg, ":a :p+ ?y").size()) ;
+        dsg.begin(ReadWrite.WRITE) ;
+        try {
+            dsg.add(Quad.defaultGraphIRI, SSE.parseNode(":c"), p, SSE.parseNode(":d")) ;
+            assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+            assertEquals(2, queryOther(dsg, ":a :p+ ?y")) ;
+            dsg.commit() ;
+        } finally { dsg.end() ; }
+        assertEquals(3, queryOther(dsg, ":a :p+ ?y")) ;
+        assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+    }
+
+    @Test public void pathIndex_txn_02() throws Exception {
+        // Abort: the index is unchanged.
+        DatasetGraph dsg = PathIndex.create(dataTxn(), p) ;
+        assertEquals(2, query(dsg, ":a :p+ ?y").size()) ;
+        dsg.begin(ReadWrite.WRITE) ;
+        try {
+            dsg.add(Quad.defaultGraphIRI, SSE.parseNode(":c"), p, SSE.parseNode(":d")) ;
+            UpdateAction.parseExecute("PREFIX : <http://example/> DELETE DATA { :a :p :b }", dsg) ;
+            assertEquals(0, query(dsg, ":a :p+ ?y").size()) ;
+            dsg.abort() ;
+        } finally { dsg.end() ; }
+        assertEquals(2, queryOther(dsg, ":a :p+ ?y")) ;
+        assertEquals(2, query(dsg, ":a :p+ ?y").size()) ;
+    }
+
+    // A reader that began before a commit which adds :c :p :d.
+    private static void oldReader(boolean computed) throws Exception {
+        DatasetGraph dsg = PathIndex.create(dataTxn(), p) ;
+        if ( computed )
+            assertEquals(2, query(dsg, ":a :p+ ?y").size()) ;
+        CountDownLatch begun = new CountDownLatch(1) ;
+        CountDownLatch committed = new CountDownLatch(1) ;
+        ExecutorService executor = Executors.newSingleThreadExecutor() ;
+        try {
+            Future<Integer> reader = executor.submit(()->{
+                dsg.begin(ReadWrite.READ) ;
+                try {
+                    begun.countDown() ;
+                    committed.await() ;
+                    return query(dsg, ":a :p+ ?y").size() ;
+                } finally { dsg.end() ; }
+            }) ;
+            begun.await() ;
+            dsg.begin(ReadWrite.WRITE) ;
+            try {
+                dsg.add(Quad.defaultGraphIRI, SSE.parseNode(":c"), p, SSE.parseNode(":d")) ;
+                dsg.commit() ;
+            } finally { dsg.end() ; }
+            committed.countDown() ;
+            // The reader sees the data as it was when it began.
+            assertEquals(2, reader.get().intValue()) ;
+        } finally { executor.shutdown() ; }
+        // Later queries see the commit.
+        assertEquals(3, query(dsg, ":a :p+ ?y").size()) ;
+        assertEquals(3, queryOther(dsg, ":a :p+ ?y")) ;
+    }
+
+    @Test public void pathIndex_txn_03() throws Exception { oldReader(false) ; }
+    @Test public void pathIndex_txn_04() throws Exception { oldReader(true) ; }
+}
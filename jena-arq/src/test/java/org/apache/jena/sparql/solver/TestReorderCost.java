@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.solver;
+
+import static org.apache.jena.sparql.solver.TestSolverLib.bgp ;
+
+import java.util.Arrays ;
+import java.util.HashMap ;
+import java.util.HashSet ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.core.BasicPattern ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.optimizer.* ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderCost ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation ;
+import org.apache.jena.sparql.expr.NodeValue ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.junit.Test ;
+
+public class TestReorderCost extends BaseTest
+{
+    private static Node p = NodeFactory.createURI("http://example/p") ;
+    private static Node q = NodeFactory.createURI("http://example/q") ;
+    private static Node r = NodeFactory.createURI("http://example/r") ;
+
+    private static CostStatsBase stats()
+    {
+        CostStatsBase stats = new CostStatsBase() ;
+        stats.setCount(2000) ;
+        stats.setPredicate(p, 1000, 1000, 10) ;
+        stats.setPredicate(q, 10, 10, 10) ;
+        stats.setPredicate(r, 100, 100, 100) ;
+        return stats ;
+    }
+
+    private static void reorder(CostStats stats, String input, String expected)
+    {
+        ReorderTransformation transform = new ReorderCost(new CostModel(stats)) ;
+        BasicPattern bgp = transform.reorder(bgp(input)) ;
+        assertEquals(bgp(expected), bgp) ;
+    }
+
+    @Test public void cost_reorder_01()
+    {
+        reorder(stats(), "(bgp (?x :p ?y) (?x :q ?z))", "(bgp (?x :q ?z) (?x :p ?y))") ;
+    }
+
+    @Test public void cost_reorder_02()
+    {
+        // A constant makes the pattern selective.
+        reorder(stats(), "(bgp (?x :q ?z) (:s :p ?y))", "(bgp (:s :p ?y) (?x :q ?z))") ;
+    }
+
+    @Test public void cost_reorder_03()
+    {
+        // Avoid the cross product of the two small patterns.
+        BasicPattern bgp = new ReorderCost(new CostModel(stats())).reorder(bgp("(bgp (?a :q ?b) (?b :p ?c) (?c :r ?d))")) ;
+        assertEquals(3, bgp.size()) ;
+        assertEquals(p, bgp.get(1).getPredicate()) ;
+    }
+
+    @Test public void cost_reorder_04()
+    {
+        // Beyond the limit for dynamic programming.
+        int max = ReorderCost.MaxDP ;
+        try {
+            ReorderCost.MaxDP = 1 ;
+            reorder(stats(), "(bgp (?x :p ?y) (?x :q ?z))", "(bgp (?x :q ?z) (?x :p ?y))") ;
+        } finally { ReorderCost.MaxDP = max ; }
+    }
+
+    @Test public void cost_star_01()
+    {
+        CostStatsBase stats = stats() ;
+        // 5 subjects have both :p and :q.
+        CharacteristicSet cs = new CharacteristicSet(Arrays.asList(p, q)) ;
+        Map<Node, Long> counts = new HashMap<>() ;
+        counts.put(p, 5L) ;
+        counts.put(q, 5L) ;
+        cs.add(5, counts) ;
+        stats.addCharacteristicSet(cs) ;
+        assertEquals(5, stats.getStarCount(Arrays.asList(p, q)), 0.001) ;
+        assertEquals(5, stats.getStarCount(Arrays.asList(q)), 0.001) ;
+        assertEquals(0, stats.getStarCount(Arrays.asList(p, r)), 0.001) ;
+
+        List<Triple> triples = bgp("(bgp (?x :p ?y) (?x :q ?z))").getList() ;
+        double card = new CostModel(stats).cardinality(triples, new HashSet<Var>(), new HashMap<Var, Double>()) ;
+        assertEquals(5, card, 0.001) ;
+    }
+
+    @Test public void cost_histogram_01()
+    {
+        double[] values = new double[100] ;
+        for ( int i = 0 ; i < values.length ; i++ )
+            values[i] = i ;
+        Histogram h = Histogram.create(values, 10) ;
+        assertEquals(100, h.getTotal()) ;
+        assertEquals(0.5, h.selectivity(0, 49), 0.05) ;
+        assertEquals(1.0, h.selectivity(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY), 0.001) ;
+        assertEquals(0.0, h.selectivity(200, 300), 0.001) ;
+    }
+
+    @Test public void cost_gather_01()
+    {
+        Graph graph = SSE.parseGraph("(prefix ((: <http://example/>)) (graph (:s1 :p 1) (:s1 :q 2) (:s2 :p 3) (:s2 :p 4) (:s3 :p 5)))") ;
+        CostStatsBase stats = CostStatsBase.gather(graph) ;
+        assertEquals(5, stats.getCount()) ;
+        assertEquals(4, stats.getCount(p)) ;
+        assertEquals(3, stats.getDistinctSubjects(p)) ;
+        assertEquals(4, stats.getDistinctObjects(p)) ;
+        assertEquals(0, stats.getCount(r)) ;
+        // Range over the object values of :p
+        double sel = stats.getRangeSelectivity(p, NodeValue.makeInteger(3), null) ;
+        assertTrue(sel > 0.25 && sel <= 1.0) ;
+    }
+
+    @Test public void cost_graph_01()
+    {
+        Graph graph = SSE.parseGraph("(prefix ((: <http://example/>)) (graph (:s1 :p 1) (:s1 :q 2) (:s2 :p 3)))") ;
+        CostStats stats = new CostStatsGraph(graph) ;
+        assertEquals(3, stats.getCount()) ;
+        assertEquals(2, stats.getCount(p)) ;
+        assertEquals(1, stats.getDistinctSubjects(q)) ;
+    }
+}
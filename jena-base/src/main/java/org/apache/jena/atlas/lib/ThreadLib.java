@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.atlas.lib;
+
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.atomic.AtomicInteger ;
+
+/** Threads for work done in the background of a calling thread. */
+public class ThreadLib
+{
+    private ThreadLib() {}
+
+    private static final AtomicInteger counter = new AtomicInteger(0) ;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool((r)->{
+        Thread thread = new Thread(r, "Jena-worker-"+counter.incrementAndGet()) ;
+        thread.setDaemon(true) ;
+        return thread ;
+    }) ;
+
+    /**
+     * The shared executor of daemon threads, for parallel query execution,
+     * pipelined and parallel parsing and similar.
+     * <p>
+     * Threads are created as needed and reused when idle; it is not bounded
+     * because tasks, such as the stages of a pipeline, may wait for each other.
+     * Callers must not shut it down.
+     */
+    public static ExecutorService daemonExecutor() {
+        return executor ;
+    }
+}
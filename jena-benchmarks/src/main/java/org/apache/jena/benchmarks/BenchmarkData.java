@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.io.ByteArrayOutputStream ;
+import java.util.ArrayList ;
+import java.util.LinkedHashSet ;
+import java.util.List ;
+import java.util.Random ;
+import java.util.Set ;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+
+/** Synthetic, reproducible data for the benchmarks.
+ * <p>
+ * Data is generated from a fixed seed so runs are comparable and
+ * no network or data files are needed.  The shape is a set of
+ * subjects, each with a fixed number of properties chosen from
+ * a small set of predicates; objects are a mix of IRIs (links
+ * to other subjects), integers, plain strings and language tagged strings.
+ */
+public class BenchmarkData
+{
+    public static final String NS = "http://example/bench/" ;
+    public static final long SEED = 0x5EED_BE4CL ;
+
+    private BenchmarkData() {}
+
+    public static Node subject(int i)       { return NodeFactory.createURI(NS+"s"+i) ; }
+    public static Node predicate(int i)     { return NodeFactory.createURI(NS+"p"+i) ; }
+
+    /** Generate {@code numSubjects * propertiesPerSubject} triples over {@code numPredicates} predicates */
+    public static List<Triple> triples(int numSubjects, int numPredicates, int propertiesPerSubject) {
+        Random random = new Random(SEED) ;
+        List<Triple> triples = new ArrayList<>(numSubjects*propertiesPerSubject) ;
+        for ( int i = 0 ; i < numSubjects ; i++ ) {
+            Node s = subject(i) ;
+            for ( int j = 0 ; j < propertiesPerSubject ; j++ ) {
+                Node p = predicate(random.nextInt(numPredicates)) ;
+                Node o = object(random, numSubjects) ;
+                triples.add(Triple.create(s, p, o)) ;
+            }
+        }
+        return triples ;
+    }
+
+    /** A graph of the triples from {@link #triples}, with a prefix for the namespace. */
+    public static Graph graph(int numSubjects, int numPredicates, int propertiesPerSubject) {
+        Graph graph = GraphFactory.createDefaultGraph() ;
+        graph.getPrefixMapping().setNsPrefix("", NS) ;
+        for ( Triple t : triples(numSubjects, numPredicates, propertiesPerSubject) )
+            graph.add(t) ;
+        return graph ;
+    }
+
+    /** All the nodes used in a list of triples, in first-seen order. */
+    public static List<Node> nodes(List<Triple> triples) {
+        Set<Node> nodes = new LinkedHashSet<>() ;
+        for ( Triple t : triples ) {
+            nodes.add(t.getSubject()) ;
+            nodes.add(t.getPredicate()) ;
+            nodes.add(t.getObject()) ;
+        }
+        return new ArrayList<>(nodes) ;
+    }
+
+    /** Serialize the data into bytes, in the given syntax. */
+    public static byte[] serialize(Graph graph, Lang lang) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+        RDFDataMgr.write(out, graph, lang) ;
+        return out.toByteArray() ;
+    }
+
+    private static Node object(Random random, int numSubjects) {
+        int x = random.nextInt(4) ;
+        switch (x) {
+            case 0 :  return subject(random.nextInt(numSubjects)) ;
+            case 1 :  return NodeFactory.createLiteral(Integer.toString(random.nextInt(100000)), XSDDatatype.XSDinteger) ;
+            case 2 :  return NodeFactory.createLiteral("string value "+random.nextInt(100000)) ;
+            default : return NodeFactory.createLiteral("cha\u00EEne "+random.nextInt(100000), "fr") ;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.arq;
+
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.Random ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.benchmarks.BenchmarkData ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.core.DatasetGraphFactory ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.binding.BindingMap ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
+import org.apache.jena.sparql.engine.join.JoinKey ;
+import org.apache.jena.sparql.engine.join.QueryIterHashJoin ;
+import org.apache.jena.sparql.graph.GraphFactory ;
+import org.openjdk.jmh.annotations.* ;
+import org.openjdk.jmh.infra.Blackhole ;
+
+/** {@link QueryIterHashJoin} over generated rows joining on one variable. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchHashJoin
+{
+    @Param({"10000", "100000"})
+    public int leftSize ;
+
+    @Param({"10000", "100000"})
+    public int rightSize ;
+
+    /** Number of distinct join key values. */
+    @Param({"5000"})
+    public int numKeys ;
+
+    private static final Var varKey   = Var.alloc("k") ;
+    private static final Var varLeft  = Var.alloc("a") ;
+    private static final Var varRight = Var.alloc("b") ;
+
+    private List<Binding> left ;
+    private List<Binding> right ;
+    private JoinKey joinKey ;
+    private ExecutionContext execCxt ;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(BenchmarkData.SEED) ;
+        left = rows(random, leftSize, varLeft) ;
+        right = rows(random, rightSize, varRight) ;
+        joinKey = JoinKey.create(varKey) ;
+        execCxt = new ExecutionContext(ARQ.getContext(), GraphFactory.createDefaultGraph(),
+                                       DatasetGraphFactory.create(), null) ;
+    }
+
+    @Benchmark
+    public void hashJoin(Blackhole blackhole) {
+        QueryIterator qIter = QueryIterHashJoin.create(joinKey,
+                                                       new QueryIterPlainWrapper(left.iterator(), execCxt),
+                                                       new QueryIterPlainWrapper(right.iterator(), execCxt),
+                                                       execCxt) ;
+        while(qIter.hasNext())
+            blackhole.consume(qIter.next()) ;
+        qIter.close() ;
+    }
+
+    private List<Binding> rows(Random random, int size, Var other) {
+        List<Binding> rows = new ArrayList<>(size) ;
+        for ( int i = 0 ; i < size ; i++ ) {
+            BindingMap b = BindingFactory.create() ;
+            b.add(varKey, BenchmarkData.subject(random.nextInt(numKeys))) ;
+            b.add(other, NodeFactory.createLiteral("v"+i)) ;
+            rows.add(b) ;
+        }
+        return rows ;
+    }
+}
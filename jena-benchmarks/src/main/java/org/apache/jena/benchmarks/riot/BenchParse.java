@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.riot;
+
+import java.io.ByteArrayInputStream ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.benchmarks.BenchmarkData ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.RDFLanguages ;
+import org.apache.jena.riot.lang.StreamRDFCounting ;
+import org.apache.jena.riot.system.StreamRDFLib ;
+import org.apache.jena.riot.tokens.Tokenizer ;
+import org.apache.jena.riot.tokens.TokenizerFactory ;
+import org.openjdk.jmh.annotations.* ;
+import org.openjdk.jmh.infra.Blackhole ;
+
+/** Parsing: tokenizing with {@code TokenizerText} and full parsing
+ * ({@code LangTurtle}, {@code LangNTriples}) to a counting sink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchParse
+{
+    @Param({"50000"})
+    public int numSubjects ;
+
+    /** Language short name, as understood by {@link RDFLanguages#shortnameToLang}. */
+    @Param({"TTL", "NT"})
+    public String syntax ;
+
+    private Lang lang ;
+    private byte[] bytes ;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        lang = RDFLanguages.shortnameToLang(syntax) ;
+        bytes = BenchmarkData.serialize(BenchmarkData.graph(numSubjects, 20, 5), lang) ;
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) {
+        Tokenizer tokenizer = TokenizerFactory.makeTokenizerUTF8(new ByteArrayInputStream(bytes)) ;
+        while(tokenizer.hasNext())
+            blackhole.consume(tokenizer.next()) ;
+        tokenizer.close() ;
+    }
+
+    @Benchmark
+    public long parse() {
+        StreamRDFCounting dest = StreamRDFLib.count() ;
+        RDFDataMgr.parse(dest, new ByteArrayInputStream(bytes), lang) ;
+        return dest.count() ;
+    }
+}
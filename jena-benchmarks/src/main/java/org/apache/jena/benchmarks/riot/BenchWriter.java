@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.riot;
+
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.atlas.io.NullOutputStream ;
+import org.apache.jena.benchmarks.BenchmarkData ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.riot.system.StreamOps ;
+import org.apache.jena.riot.writer.NTriplesWriter ;
+import org.apache.jena.riot.writer.WriterStreamRDFBlocks ;
+import org.openjdk.jmh.annotations.* ;
+
+/** Output: streaming Turtle ({@link WriterStreamRDFBlocks}) and {@link NTriplesWriter}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchWriter
+{
+    @Param({"50000"})
+    public int numSubjects ;
+
+    private Graph graph ;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = BenchmarkData.graph(numSubjects, 20, 5) ;
+    }
+
+    @Benchmark
+    public void writeBlocks() {
+        StreamOps.graphToStream(graph, new WriterStreamRDFBlocks(NullOutputStream.sink())) ;
+    }
+
+    @Benchmark
+    public void writeNTriples() {
+        NTriplesWriter.write(NullOutputStream.sink(), graph.find(null, null, null)) ;
+    }
+}
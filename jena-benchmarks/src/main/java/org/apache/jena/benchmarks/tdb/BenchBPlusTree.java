@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.tdb;
+
+import java.util.Iterator ;
+import java.util.Random ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.atlas.lib.Bytes ;
+import org.apache.jena.benchmarks.BenchmarkData ;
+import org.apache.jena.tdb.base.record.Record ;
+import org.apache.jena.tdb.base.record.RecordFactory ;
+import org.apache.jena.tdb.index.bplustree.BPlusTree ;
+import org.apache.jena.tdb.index.bplustree.BPlusTreeParams ;
+import org.apache.jena.tdb.sys.SystemTDB ;
+import org.openjdk.jmh.annotations.* ;
+import org.openjdk.jmh.infra.Blackhole ;
+
+/** B+Tree point and range lookups over triple-index shaped records (3 x NodeId key, no value). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchBPlusTree
+{
+    @Param({"100000", "1000000"})
+    public int size ;
+
+    @Param({"100"})
+    public int rangeLength ;
+
+    private BPlusTree bpt ;
+    private RecordFactory factory ;
+    private Random random ;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        factory = new RecordFactory(SystemTDB.LenIndexTripleRecord, 0) ;
+        int order = BPlusTreeParams.calcOrder(SystemTDB.BlockSize, factory) ;
+        bpt = BPlusTree.makeMem(order, -1, factory.keyLength(), factory.valueLength()) ;
+        // Only even keys so that half of the random probes miss.
+        for ( long i = 0 ; i < size ; i++ )
+            bpt.add(record(2*i)) ;
+        random = new Random(BenchmarkData.SEED) ;
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        bpt.close() ;
+    }
+
+    @Benchmark
+    public Record pointLookup() {
+        return bpt.find(record(random.nextInt(2*size))) ;
+    }
+
+    @Benchmark
+    public void rangeScan(Blackhole blackhole) {
+        long start = random.nextInt(2*(size-rangeLength)) ;
+        Iterator<Record> iter = bpt.iterator(record(start), record(start+2*rangeLength)) ;
+        while(iter.hasNext())
+            blackhole.consume(iter.next()) ;
+    }
+
+    /** Record with the value spread over the first and last key slots, as for a triple index. */
+    private Record record(long x) {
+        Record r = factory.create() ;
+        byte[] key = r.getKey() ;
+        Bytes.setLong(x, key, 0) ;
+        Bytes.setLong(x, key, 2*SystemTDB.SizeOfNodeId) ;
+        return r ;
+    }
+}
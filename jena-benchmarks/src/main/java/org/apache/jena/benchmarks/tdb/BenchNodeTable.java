@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.tdb;
+
+import java.util.List ;
+import java.util.Random ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.benchmarks.BenchmarkData ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.setup.Build ;
+import org.apache.jena.tdb.setup.StoreParams ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.nodetable.NodeTable ;
+import org.openjdk.jmh.annotations.* ;
+
+/** NodeId to Node and Node to NodeId resolution,
+ * with the usual caches ({@code NodeTableCache}) or going to the
+ * underlying {@code NodeTableNative} every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchNodeTable
+{
+    @Param({"100000"})
+    public int numSubjects ;
+
+    @Param({"cache", "native"})
+    public String nodeTableSetup ;
+
+    private NodeTable nodeTable ;
+    private Node[] nodes ;
+    private NodeId[] nodeIds ;
+    private Random random ;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StoreParams params = StoreParams.getDftStoreParams() ;
+        if ( nodeTableSetup.equals("native") )
+            params = StoreParams.builder(params)
+                .node2NodeIdCacheSize(-1).nodeId2NodeCacheSize(-1).nodeMissCacheSize(-1)
+                .build() ;
+        nodeTable = Build.makeNodeTable(Location.mem(), params) ;
+        List<Node> x = BenchmarkData.nodes(BenchmarkData.triples(numSubjects, 20, 5)) ;
+        nodes = x.toArray(new Node[x.size()]) ;
+        nodeIds = new NodeId[nodes.length] ;
+        for ( int i = 0 ; i < nodes.length ; i++ )
+            nodeIds[i] = nodeTable.getAllocateNodeId(nodes[i]) ;
+        nodeTable.sync() ;
+        random = new Random(BenchmarkData.SEED) ;
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        nodeTable.close() ;
+    }
+
+    @Benchmark
+    public Node nodeIdToNode() {
+        return nodeTable.getNodeForNodeId(nodeIds[random.nextInt(nodeIds.length)]) ;
+    }
+
+    @Benchmark
+    public NodeId nodeToNodeId() {
+        return nodeTable.getNodeIdForNode(nodes[random.nextInt(nodes.length)]) ;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.tdb;
+
+import java.util.Iterator ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.tuple.Tuple ;
+import org.apache.jena.atlas.lib.tuple.TupleFactory ;
+import org.apache.jena.benchmarks.BenchmarkData ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.solver.BindingNodeId ;
+import org.apache.jena.tdb.solver.StageMatchTuple ;
+import org.apache.jena.tdb.store.DatasetGraphTDB ;
+import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
+import org.apache.jena.tdb.sys.TDBMaker ;
+import org.openjdk.jmh.annotations.* ;
+import org.openjdk.jmh.infra.Blackhole ;
+
+/** Triple pattern matching at the NodeId level with {@link StageMatchTuple}:
+ * a single pattern scan and a two pattern subject-subject join
+ * ({@code ?s :p0 ?o . ?s :p1 ?x}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchStageMatchTuple
+{
+    @Param({"100000"})
+    public int numSubjects ;
+
+    private DatasetGraphTDB dsg ;
+    private NodeTupleTable nodeTupleTable ;
+    private ExecutionContext execCxt ;
+    private Tuple<Node> pattern1 ;
+    private Tuple<Node> pattern2 ;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dsg = TDBMaker.createDatasetGraphTDB(Location.mem(), null) ;
+        for ( Triple t : BenchmarkData.triples(numSubjects, 20, 5) )
+            dsg.getDefaultGraph().add(t) ;
+        nodeTupleTable = dsg.getTripleTable().getNodeTupleTable() ;
+        execCxt = new ExecutionContext(ARQ.getContext(), dsg.getDefaultGraph(), dsg, null) ;
+        Var s = Var.alloc("s") ;
+        pattern1 = TupleFactory.tuple(s, BenchmarkData.predicate(0), Var.alloc("o")) ;
+        pattern2 = TupleFactory.tuple(s, BenchmarkData.predicate(1), Var.alloc("x")) ;
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        dsg.close() ;
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        Iterator<BindingNodeId> iter = stage(Iter.singleton(new BindingNodeId()), pattern1) ;
+        while(iter.hasNext())
+            blackhole.consume(iter.next()) ;
+    }
+
+    @Benchmark
+    public void join(Blackhole blackhole) {
+        Iterator<BindingNodeId> iter = stage(Iter.singleton(new BindingNodeId()), pattern1) ;
+        iter = stage(iter, pattern2) ;
+        while(iter.hasNext())
+            blackhole.consume(iter.next()) ;
+    }
+
+    private Iterator<BindingNodeId> stage(Iterator<BindingNodeId> input, Tuple<Node> pattern) {
+        return new StageMatchTuple(nodeTupleTable, input, pattern, false, null, execCxt) ;
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.jena.tdb.base.file.Location ;
 import org.apache.jena.tdb.base.file.LocationLock ;
 import org.apache.jena.tdb.setup.DatasetBuilderStd ;
 import org.apache.jena.tdb.setup.StoreParams ;
+import org.apache.jena.tdb.solver.stats.CostStatsTDB ;
 import org.apache.jena.tdb.store.DatasetGraphTDB ;
 import org.apache.jena.tdb.sys.SystemTDB ;
 import org.apache.jena.tdb.transaction.* ;
@@ -253,6 +254,8 @@ public class StoreConnection
             }
             
             sConn.forceRecoverFromJournal() ;
+            // Statistics kept for cost-based join ordering.
+            dsg.setCostStats(CostStatsTDB.create(dsg, TDB.getContext().isTrue(TDB.symCostStats))) ;
             
             if (!location.isMemUnique())
                 // Don't cache use-once in-memory datasets.
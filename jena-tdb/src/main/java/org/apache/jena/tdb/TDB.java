@@ -98,6 +98,38 @@ public class TDB {
     /** Symbol to use the union of named graphs as the default graph of a query */
     public static final Symbol  symUnionDefaultGraph             = SystemTDB.allocSymbol("unionDefaultGraph") ;
 
+    /**
+     * Symbol to execute basic graph patterns batch-at-a-time: rows of NodeIds are
+     * passed between the steps of pattern matching in blocks, not one at a time.
+     */
+    public static final Symbol  symBatchExecution                = SystemTDB.allocSymbol("batchExecution") ;
+
+    /**
+     * Symbol to control the use of merge joins of the first two patterns of a basic
+     * graph pattern when both can be found in the order of a shared variable by index
+     * scans. When there are statistics, both patterns must also be estimated to have
+     * at least {@link org.apache.jena.tdb.solver.StageMergeJoin#MinScanSize} matches.
+     * Default: false.
+     */
+    public static final Symbol  symMergeJoin                     = SystemTDB.allocSymbol("mergeJoin") ;
+
+    /**
+     * Symbol to execute basic graph patterns in parallel: the matches of the first pattern
+     * are split into batches and the rest of the pattern is matched for each batch on
+     * a worker thread. The value is the number of workers, or "true" for the number of
+     * processors. Not used in write transactions. Default: off.
+     */
+    public static final Symbol  symParallelBGP                   = SystemTDB.allocSymbol("parallelBGP") ;
+
+    /**
+     * Symbol to keep statistics for cost-based join ordering (see {@code ARQ.optCostBasedJoinOrder})
+     * for a database: characteristic sets, distinct subject and object counts and histograms of
+     * inline values. The statistics are built when the database is first used, then updated on a
+     * background thread after write transactions commit, and kept in the file "coststats.opt". A database that already
+     * has that file always keeps it up to date. Default: false.
+     */
+    public static final Symbol  symCostStats                     = SystemTDB.allocSymbol("costStats") ;
+
     /**
      * A String enum Symbol that specifies the type of temporary storage for
      * transaction journal write blocks.
@@ -42,19 +42,38 @@ import org.apache.jena.tdb.base.record.Record ;
 import org.apache.jena.tdb.store.Hash ;
 import org.apache.jena.tdb.store.NodeId ;
 import org.apache.jena.tdb.store.NodeType ;
+import org.apache.jena.tdb.store.nodetable.NodeEncoding ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.nodetable.Nodec ;
+import org.apache.jena.tdb.store.nodetable.NodecBinary ;
 import org.apache.jena.tdb.store.nodetable.NodecSSE ;
 
 public class NodeLib
 {
     private static Nodec nodec = new NodecSSE() ;
+    private static Nodec nodecBinary = new NodecBinary() ;
+
+    /** The encoder/decoder for a {@link NodeEncoding}. */
+    public static Nodec nodec(NodeEncoding encoding)
+    {
+        switch(encoding)
+        {
+            case sse:       return nodec ;
+            case binary:    return nodecBinary ;
+        }
+        throw new TDBException("Unknown node encoding: "+encoding) ;
+    }
     
     // Characters in IRIs that are illegal and cause SSE problems, but we wish to keep.
     final private static char MarkerChar = '_' ;
     final private static char[] invalidIRIChars = { MarkerChar , ' ' } ; 
     
     public static long encodeStore(Node node, ObjectFile file)
+    {
+        return encodeStore(node, file, nodec) ;
+    }
+
+    public static long encodeStore(Node node, ObjectFile file, Nodec nodec)
     {
         // Buffer pool?
         
@@ -86,6 +105,11 @@ public class NodeLib
      * anadditional copy in getting the node into the ObjectFile
      */
     public static ByteBuffer encode(Node node)
+    {
+        return encode(node, nodec) ;
+    }
+
+    public static ByteBuffer encode(Node node, Nodec nodec)
     {
         int maxSize = nodec.maxSize(node) ;
         ByteBuffer bb = ByteBuffer.allocate(maxSize) ;
@@ -98,11 +122,13 @@ public class NodeLib
     /**
      * Decode a node - it is better to use fetchDecode which may avoid an
      * additional copy in getting the node from the ObjectFile.
+     * The encoding, SSE or binary, is detected from the bytes.
      */
     public static Node decode(ByteBuffer bb)
     {
         bb.position(0) ;
-        Node n = nodec.decode(bb, null) ;
+        Nodec x = NodecBinary.isBinary(bb) ? nodecBinary : nodec ;
+        Node n = x.decode(bb, null) ;
         return n ;
     }
 
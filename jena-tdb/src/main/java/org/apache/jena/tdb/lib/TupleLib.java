@@ -77,7 +77,7 @@ public class TupleLib
         return TupleFactory.asTuple(n) ;
     }
     
-    private static Triple triple(NodeTable nodeTable, Tuple<NodeId> tuple) 
+    public static Triple triple(NodeTable nodeTable, Tuple<NodeId> tuple) 
     {
         if ( tuple.len() != 3 )
             throw new TDBException("Tuple is not of length 3: "+tuple) ;
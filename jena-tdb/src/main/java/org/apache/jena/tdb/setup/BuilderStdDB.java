@@ -27,6 +27,7 @@ import org.apache.jena.tdb.index.IndexBuilder ;
 import org.apache.jena.tdb.index.RangeIndex ;
 import org.apache.jena.tdb.index.RangeIndexBuilder ;
 import org.apache.jena.tdb.lib.ColumnMap ;
+import org.apache.jena.tdb.lib.NodeLib ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.nodetable.NodeTableCache ;
 import org.apache.jena.tdb.store.nodetable.NodeTableInline ;
@@ -71,12 +72,10 @@ public class BuilderStdDB {
             RecordFactory recordFactory = new RecordFactory(SystemTDB.LenNodeHash, SystemTDB.SizeOfNodeId) ;
             Index idx = indexBuilder.buildIndex(fsIndex, recordFactory, params) ;
             ObjectFile objectFile = objectFileBuilder.buildObjectFile(fsObjectFile, Names.extNodeData) ;
-            NodeTable nodeTable = new NodeTableNative(idx, objectFile) ;
-            nodeTable = NodeTableCache.create(nodeTable, 
-                                              params.getNode2NodeIdCacheSize(),
-                                              params.getNodeId2NodeCacheSize(),
-                                              params.getNodeMissCacheSize()) ;
-            nodeTable = NodeTableInline.create(nodeTable) ;
+            NodeTable nodeTable = new NodeTableNative(idx, objectFile, NodeLib.nodec(params.getNodeEncoding())) ;
+            // Heap or off-heap caches, depending on params.
+            nodeTable = NodeTableCache.create(nodeTable, params) ;
+            nodeTable = NodeTableInline.create(nodeTable, params.getNodeIdVersion()) ;
             return nodeTable ;
         }
     }
@@ -23,6 +23,8 @@ import java.util.Objects ;
 import org.apache.jena.atlas.lib.StrUtils ;
 import org.apache.jena.tdb.base.block.FileMode ;
 import org.apache.jena.tdb.index.IndexParams ;
+import org.apache.jena.tdb.store.nodetable.NodeCacheType ;
+import org.apache.jena.tdb.store.nodetable.NodeEncoding ;
 import org.apache.jena.tdb.setup.StoreParamsBuilder.Item ;
 
 /** System parameters for a TDB database instance. 
@@ -51,6 +53,7 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
     /*package*/ final Item<Integer>            Node2NodeIdCacheSize ;
     /*package*/ final Item<Integer>            NodeId2NodeCacheSize ;
     /*package*/ final Item<Integer>            NodeMissCacheSize ;
+    /*package*/ final Item<NodeCacheType>      nodeCacheType ;
 
     /* These are items affect database layout and
      * only can be applied when a database is created.
@@ -62,6 +65,8 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
     /*package*/ final Item<Integer>            blockSize ;
     /*package*/ final Item<String>             indexNode2Id ;
     /*package*/ final Item<String>             indexId2Node ;
+    /*package*/ final Item<NodeEncoding>       nodeEncoding ;
+    /*package*/ final Item<Integer>            nodeIdVersion ;
     /*package*/ final Item<String>             primaryIndexTriples ;
     /*package*/ final Item<String[]>           tripleIndexes ;
     /*package*/ final Item<String>             primaryIndexQuads ;
@@ -87,8 +92,9 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
     /*package*/ StoreParams(Item<FileMode> fileMode, Item<Integer> blockSize,
                             Item<Integer> blockReadCacheSize, Item<Integer> blockWriteCacheSize,
                             Item<Integer> node2NodeIdCacheSize, Item<Integer> nodeId2NodeCacheSize,
-                            Item<Integer> nodeMissCacheSize,
-                            Item<String> indexNode2Id, Item<String> indexId2Node, 
+                            Item<Integer> nodeMissCacheSize, Item<NodeCacheType> nodeCacheType,
+                            Item<String> indexNode2Id, Item<String> indexId2Node, Item<NodeEncoding> nodeEncoding,
+                            Item<Integer> nodeIdVersion,
                             Item<String> primaryIndexTriples, Item<String[]> tripleIndexes,
                             Item<String> primaryIndexQuads, Item<String[]> quadIndexes,
                             Item<String> primaryIndexPrefix, Item<String[]> prefixIndexes,
@@ -100,9 +106,12 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         this.Node2NodeIdCacheSize   = node2NodeIdCacheSize ;
         this.NodeId2NodeCacheSize   = nodeId2NodeCacheSize ;
         this.NodeMissCacheSize      = nodeMissCacheSize ;
+        this.nodeCacheType          = nodeCacheType ;
 
         this.indexNode2Id           = indexNode2Id ;
         this.indexId2Node           = indexId2Node ;
+        this.nodeEncoding           = nodeEncoding ;
+        this.nodeIdVersion          = nodeIdVersion ;
         this.primaryIndexTriples    = primaryIndexTriples ;
         this.tripleIndexes          = tripleIndexes ;
         this.primaryIndexQuads      = primaryIndexQuads ;
@@ -200,6 +209,16 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         return NodeMissCacheSize.isSet ;
     }
 
+    @Override
+    public NodeCacheType getNodeCacheType() {
+        return nodeCacheType.value ;
+    }
+
+    @Override
+    public boolean isSetNodeCacheType() {
+        return nodeCacheType.isSet ;
+    }
+
     public String getIndexNode2Id() {
         return indexNode2Id.value ;
     }
@@ -208,6 +227,21 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         return indexId2Node.value ;
     }
 
+    /** Encoding used when writing new nodes to the node table.
+     * Nodes in either encoding can always be read.
+     */
+    public NodeEncoding getNodeEncoding() {
+        return nodeEncoding.value ;
+    }
+
+    /** Version of the NodeId format, which determines the kinds of values held inline.
+     * @see org.apache.jena.tdb.store.NodeId#INLINE_V1
+     * @see org.apache.jena.tdb.store.NodeId#INLINE_V2
+     */
+    public int getNodeIdVersion() {
+        return nodeIdVersion.value ;
+    }
+
     public String getPrimaryIndexTriples() {
         return primaryIndexTriples.value ;
     }
@@ -254,9 +288,12 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         fmt(buff, "Node2NodeIdCacheSize", getNode2NodeIdCacheSize(), Node2NodeIdCacheSize.isSet) ;
         fmt(buff, "NodeId2NodeCacheSize", getNodeId2NodeCacheSize(), NodeId2NodeCacheSize.isSet) ;
         fmt(buff, "NodeMissCacheSize", getNodeMissCacheSize(), NodeMissCacheSize.isSet) ;
+        fmt(buff, "nodeCacheType", getNodeCacheType().toString(), nodeCacheType.isSet) ;
 
         fmt(buff, "indexNode2Id", getIndexNode2Id(), indexNode2Id.isSet) ;
         fmt(buff, "indexId2Node", getIndexId2Node(), indexId2Node.isSet) ;
+        fmt(buff, "nodeEncoding", getNodeEncoding().toString(), nodeEncoding.isSet) ;
+        fmt(buff, "nodeIdVersion", getNodeIdVersion(), nodeIdVersion.isSet) ;
         fmt(buff, "primaryIndexTriples", getPrimaryIndexTriples(), primaryIndexTriples.isSet) ;
         fmt(buff, "tripleIndexes", getTripleIndexes(), tripleIndexes.isSet) ;
         fmt(buff, "primaryIndexQuads", getPrimaryIndexQuads(), primaryIndexQuads.isSet) ;
@@ -299,11 +336,14 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
         result = prime * result + ((Node2NodeIdCacheSize == null) ? 0 : Node2NodeIdCacheSize.hashCode()) ;
         result = prime * result + ((NodeId2NodeCacheSize == null) ? 0 : NodeId2NodeCacheSize.hashCode()) ;
         result = prime * result + ((NodeMissCacheSize == null) ? 0 : NodeMissCacheSize.hashCode()) ;
+        result = prime * result + ((nodeCacheType == null) ? 0 : nodeCacheType.hashCode()) ;
         result = prime * result + ((blockReadCacheSize == null) ? 0 : blockReadCacheSize.hashCode()) ;
         result = prime * result + ((blockSize == null) ? 0 : blockSize.hashCode()) ;
         result = prime * result + ((blockWriteCacheSize == null) ? 0 : blockWriteCacheSize.hashCode()) ;
         result = prime * result + ((fileMode == null) ? 0 : fileMode.hashCode()) ;
         result = prime * result + ((indexId2Node == null) ? 0 : indexId2Node.hashCode()) ;
+        result = prime * result + ((nodeEncoding == null) ? 0 : nodeEncoding.hashCode()) ;
+        result = prime * result + ((nodeIdVersion == null) ? 0 : nodeIdVersion.hashCode()) ;
         result = prime * result + ((indexNode2Id == null) ? 0 : indexNode2Id.hashCode()) ;
         result = prime * result + ((indexPrefix == null) ? 0 : indexPrefix.hashCode()) ;
         result = prime * result + ((prefixId2Node == null) ? 0 : prefixId2Node.hashCode()) ;
@@ -337,12 +377,18 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
             return false ;
         if ( !sameValues(params1.NodeMissCacheSize, params2.NodeMissCacheSize) )
             return false ;
+        if ( !sameValues(params1.nodeCacheType, params2.nodeCacheType) )
+            return false ;
         if ( !sameValues(params1.blockSize, params2.blockSize) )
             return false ;
         if ( !sameValues(params1.indexNode2Id, params2.indexNode2Id) )
             return false ;
         if ( !sameValues(params1.indexId2Node, params2.indexId2Node) )
             return false ;
+        if ( !sameValues(params1.nodeEncoding, params2.nodeEncoding) )
+            return false ;
+        if ( !sameValues(params1.nodeIdVersion, params2.nodeIdVersion) )
+            return false ;
         if ( !sameValues(params1.primaryIndexTriples, params2.primaryIndexTriples) )
             return false ;
         if ( !sameValues(params1.tripleIndexes, params2.tripleIndexes) )
@@ -392,6 +438,11 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
                 return false ;
         } else if ( !NodeMissCacheSize.equals(other.NodeMissCacheSize) )
             return false ;
+        if ( nodeCacheType == null ) {
+            if ( other.nodeCacheType != null )
+                return false ;
+        } else if ( !nodeCacheType.equals(other.nodeCacheType) )
+            return false ;
         if ( blockReadCacheSize == null ) {
             if ( other.blockReadCacheSize != null )
                 return false ;
@@ -417,6 +468,16 @@ public class StoreParams implements IndexParams, StoreParamsDynamic
                 return false ;
         } else if ( !indexId2Node.equals(other.indexId2Node) )
             return false ;
+        if ( nodeEncoding == null ) {
+            if ( other.nodeEncoding != null )
+                return false ;
+        } else if ( !nodeEncoding.equals(other.nodeEncoding) )
+            return false ;
+        if ( nodeIdVersion == null ) {
+            if ( other.nodeIdVersion != null )
+                return false ;
+        } else if ( !nodeIdVersion.equals(other.nodeIdVersion) )
+            return false ;
         if ( indexNode2Id == null ) {
             if ( other.indexNode2Id != null )
                 return false ;
@@ -19,6 +19,8 @@
 package org.apache.jena.tdb.setup;
 
 import org.apache.jena.tdb.base.block.FileMode ;
+import org.apache.jena.tdb.store.nodetable.NodeCacheType ;
+import org.apache.jena.tdb.store.nodetable.NodeEncoding ;
 
 public class StoreParamsBuilder {
     // Immutable.
@@ -74,6 +76,8 @@ public class StoreParamsBuilder {
 
     private Item<Integer>            NodeMissCacheSize     = new Item<>(StoreParamsConst.NodeMissCacheSize, false) ;
 
+    private Item<NodeCacheType>      nodeCacheType         = new Item<>(StoreParamsConst.nodeCacheType, false) ;
+
     /** Database layout - ignored after a database is created */
 
     private Item<Integer>            blockSize             = new Item<>(StoreParamsConst.blockSize, false) ;
@@ -81,6 +85,8 @@ public class StoreParamsBuilder {
     private Item<String>             indexNode2Id          = new Item<>(StoreParamsConst.indexNode2Id, false) ;
 
     private Item<String>             indexId2Node          = new Item<>(StoreParamsConst.indexId2Node, false) ;
+    private Item<NodeEncoding>       nodeEncoding          = new Item<>(StoreParamsConst.nodeEncoding, false) ;
+    private Item<Integer>            nodeIdVersion         = new Item<>(StoreParamsConst.nodeIdVersion, false) ;
 
     private Item<String>             primaryIndexTriples   = new Item<>(StoreParamsConst.primaryIndexTriples, false) ;
 
@@ -136,6 +142,9 @@ public class StoreParamsBuilder {
         if ( additionalParams.isSetNodeMissCacheSize() )
             b.nodeMissCacheSize(additionalParams.getNodeMissCacheSize()) ;
 
+        if ( additionalParams.isSetNodeCacheType() )
+            b.nodeCacheType(additionalParams.getNodeCacheType()) ;
+
         return b.build();
     }
     
@@ -151,9 +160,12 @@ public class StoreParamsBuilder {
         this.Node2NodeIdCacheSize   = other.Node2NodeIdCacheSize ; 
         this.NodeId2NodeCacheSize   = other.NodeId2NodeCacheSize ; 
         this.NodeMissCacheSize      = other.NodeMissCacheSize ; 
+        this.nodeCacheType          = other.nodeCacheType ; 
 
         this.indexNode2Id           = other.indexNode2Id ; 
         this.indexId2Node           = other.indexId2Node ; 
+        this.nodeEncoding           = other.nodeEncoding ; 
+        this.nodeIdVersion          = other.nodeIdVersion ; 
         
         this.primaryIndexTriples    = other.primaryIndexTriples ; 
         this.tripleIndexes          = other.tripleIndexes ; 
@@ -172,8 +184,8 @@ public class StoreParamsBuilder {
     public StoreParams build() {
         return new StoreParams(
                  fileMode, blockSize, blockReadCacheSize, blockWriteCacheSize, 
-                 Node2NodeIdCacheSize, NodeId2NodeCacheSize, NodeMissCacheSize,
-                 indexNode2Id, indexId2Node, primaryIndexTriples, tripleIndexes,
+                 Node2NodeIdCacheSize, NodeId2NodeCacheSize, NodeMissCacheSize, nodeCacheType,
+                 indexNode2Id, indexId2Node, nodeEncoding, nodeIdVersion, primaryIndexTriples, tripleIndexes,
                  primaryIndexQuads, quadIndexes, primaryIndexPrefix,
                  prefixIndexes, indexPrefix,
                  prefixNode2Id, prefixId2Node) ;
@@ -242,6 +254,15 @@ public class StoreParamsBuilder {
        return this ;
    }
 
+    public NodeCacheType getNodeCacheType() {
+        return nodeCacheType.value ;
+    }
+
+   public StoreParamsBuilder nodeCacheType(NodeCacheType nodeCacheType) {
+       this.nodeCacheType = new Item<>(nodeCacheType, true) ;
+       return this ;
+   }
+
     public String getIndexNode2Id() {
         return indexNode2Id.value ;
     }
@@ -260,6 +281,24 @@ public class StoreParamsBuilder {
        return this ;
    }
 
+    public NodeEncoding getNodeEncoding() {
+        return nodeEncoding.value ;
+    }
+
+   public StoreParamsBuilder nodeEncoding(NodeEncoding nodeEncoding) {
+       this.nodeEncoding = new Item<>(nodeEncoding, true) ;
+       return this ;
+   }
+
+    public int getNodeIdVersion() {
+        return nodeIdVersion.value ;
+    }
+
+   public StoreParamsBuilder nodeIdVersion(int nodeIdVersion) {
+       this.nodeIdVersion = new Item<>(nodeIdVersion, true) ;
+       return this ;
+   }
+
     public String getPrimaryIndexTriples() {
         return primaryIndexTriples.value ;
     }
@@ -27,7 +27,10 @@ import static org.apache.jena.tdb.setup.StoreParamsConst.fIndexId2Node ;
 import static org.apache.jena.tdb.setup.StoreParamsConst.fIndexNode2Id ;
 import static org.apache.jena.tdb.setup.StoreParamsConst.fIndexPrefix ;
 import static org.apache.jena.tdb.setup.StoreParamsConst.fNode2NodeIdCacheSize ;
+import static org.apache.jena.tdb.setup.StoreParamsConst.fNodeCacheType ;
+import static org.apache.jena.tdb.setup.StoreParamsConst.fNodeEncoding ;
 import static org.apache.jena.tdb.setup.StoreParamsConst.fNodeId2NodeCacheSize ;
+import static org.apache.jena.tdb.setup.StoreParamsConst.fNodeIdVersion ;
 import static org.apache.jena.tdb.setup.StoreParamsConst.fNodeMissCacheSize ;
 import static org.apache.jena.tdb.setup.StoreParamsConst.fPrefixId2Node ;
 import static org.apache.jena.tdb.setup.StoreParamsConst.fPrefixIndexes ;
@@ -54,6 +57,8 @@ import org.apache.jena.atlas.lib.Lib ;
 import org.apache.jena.tdb.TDBException ;
 import org.apache.jena.tdb.base.block.FileMode ;
 import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.store.nodetable.NodeCacheType ;
+import org.apache.jena.tdb.store.nodetable.NodeEncoding ;
 
 /** Encode and decode {@link StoreParams} */ 
 public class StoreParamsCodec {
@@ -100,8 +105,11 @@ public class StoreParamsCodec {
         encode(builder, key(fNode2NodeIdCacheSize),     params.getNode2NodeIdCacheSize()) ;
         encode(builder, key(fNodeId2NodeCacheSize),     params.getNodeId2NodeCacheSize()) ;
         encode(builder, key(fNodeMissCacheSize),        params.getNodeMissCacheSize()) ;
+        encode(builder, key(fNodeCacheType),            params.getNodeCacheType().name()) ;
         encode(builder, key(fIndexNode2Id),             params.getIndexNode2Id()) ;
         encode(builder, key(fIndexId2Node),             params.getIndexId2Node()) ;
+        encode(builder, key(fNodeEncoding),             params.getNodeEncoding().name()) ;
+        encode(builder, key(fNodeIdVersion),            params.getNodeIdVersion()) ;
         encode(builder, key(fPrimaryIndexTriples),      params.getPrimaryIndexTriples()) ;
         encode(builder, key(fTripleIndexes),            params.getTripleIndexes()) ;
         encode(builder, key(fPrimaryIndexQuads),        params.getPrimaryIndexQuads()) ;
@@ -143,8 +151,11 @@ public class StoreParamsCodec {
                 case fNode2NodeIdCacheSize:    builder.node2NodeIdCacheSize(getInt(json, key)) ;            break ;
                 case fNodeId2NodeCacheSize:    builder.nodeId2NodeCacheSize(getInt(json, key)) ;            break ;
                 case fNodeMissCacheSize:       builder.nodeMissCacheSize(getInt(json, key)) ;               break ;
+                case fNodeCacheType:           builder.nodeCacheType(NodeCacheType.valueOf(getString(json, key))) ; break ;
                 case fIndexNode2Id:            builder.indexNode2Id(getString(json, key)) ;                 break ;
                 case fIndexId2Node:            builder.indexId2Node(getString(json, key)) ;                 break ;
+                case fNodeEncoding:            builder.nodeEncoding(NodeEncoding.valueOf(getString(json, key))) ; break ;
+                case fNodeIdVersion:           builder.nodeIdVersion(getInt(json, key)) ;                   break ;
                 case fPrimaryIndexTriples:     builder.primaryIndexTriples(getString(json, key)) ;          break ;
                 case fTripleIndexes:           builder.tripleIndexes(getStringArray(json, key)) ;           break ;
                 case fPrimaryIndexQuads:       builder.primaryIndexQuads(getString(json, key)) ;            break ;
@@ -19,6 +19,9 @@
 package org.apache.jena.tdb.setup;
 
 import org.apache.jena.tdb.base.block.FileMode ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.nodetable.NodeCacheType ;
+import org.apache.jena.tdb.store.nodetable.NodeEncoding ;
 import org.apache.jena.tdb.sys.Names ;
 import org.apache.jena.tdb.sys.SystemTDB ;
 
@@ -51,6 +54,9 @@ public class StoreParamsConst {
     public static final String   fNodeMissCacheSize    = "node_miss_cache_size" ;
     public static final int      NodeMissCacheSize     = SystemTDB.NodeMissCacheSize ;
     
+    public static final String   fNodeCacheType        = "node_cache_type" ;
+    public static final NodeCacheType nodeCacheType    = NodeCacheType.heap ;
+    
     /** Database layout - ignored after a database is created */
     public static final String   fBlockSize            = "block_size" ;
     public static final int      blockSize             = SystemTDB.BlockSize ;
@@ -61,6 +67,12 @@ public class StoreParamsConst {
     public static final String   fIndexId2Node         = "index_id2node" ;
     public static final String   indexId2Node          = Names.indexId2Node ;
     
+    public static final String   fNodeEncoding         = "node_encoding" ;
+    public static final NodeEncoding nodeEncoding      = NodeEncoding.sse ;
+    
+    public static final String   fNodeIdVersion        = "node_id_version" ;
+    public static final int      nodeIdVersion         = NodeId.INLINE_V1 ;
+    
     public static final String   fPrimaryIndexTriples  = "triple_index_primary" ;
     public static final String   primaryIndexTriples   = Names.primaryIndexTriples ;
     
@@ -19,6 +19,7 @@
 package org.apache.jena.tdb.setup;
 
 import org.apache.jena.tdb.base.block.FileMode ;
+import org.apache.jena.tdb.store.nodetable.NodeCacheType ;
 
 /** Store parameters that can be adjusted after a store has been created,
  *  and given different values when the JVM attachs to a store area. 
@@ -50,5 +51,9 @@ public interface StoreParamsDynamic {
     /** Node cache for recording known misses */
     public Integer getNodeMissCacheSize() ;
     public boolean isSetNodeMissCacheSize() ;
+
+    /** Implementation of the Node->NodeId and NodeId->Node caches. */
+    public NodeCacheType getNodeCacheType() ;
+    public boolean isSetNodeCacheType() ;
 }
 
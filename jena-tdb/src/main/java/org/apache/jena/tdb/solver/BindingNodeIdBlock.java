@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.* ;
+
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.tdb.store.NodeId ;
+
+/** A block of rows of NodeIds, held by column: one {@code long[]} per variable.
+ * Used for batch-at-a-time execution of basic graph patterns.
+ * A slot of {@link #Unbound} means the variable is not bound in that row.
+ * Each row also has the parent binding, the binding the row was started from,
+ * as {@link BindingNodeId} does.
+ */
+public class BindingNodeIdBlock
+{
+    /** Default number of rows in a block */
+    public static final int DftBlockSize = 1024 ;
+
+    /** Column value for "no binding" */
+    public static final long Unbound = NodeId.NodeIdAny.getId() ;
+
+    private final Var[] vars ;
+    private final long[][] columns ;
+    private final Binding[] parents ;
+    private int size = 0 ;
+
+    public BindingNodeIdBlock(Var[] vars, int capacity) {
+        this.vars = vars ;
+        this.columns = new long[vars.length][capacity] ;
+        this.parents = new Binding[capacity] ;
+    }
+
+    public Var[] getVars()          { return vars ; }
+
+    public int size()               { return size ; }
+
+    public int capacity()           { return parents.length ; }
+
+    public boolean isFull()         { return size == parents.length ; }
+
+    public boolean isEmpty()        { return size == 0 ; }
+
+    /** The column number for a variable, or -1 */
+    public int column(Var var) {
+        for ( int i = 0 ; i < vars.length ; i++ )
+            if ( vars[i].equals(var) )
+                return i ;
+        return -1 ;
+    }
+
+    public long get(int row, int col)           { return columns[col][row] ; }
+
+    public Binding getParent(int row)           { return parents[row] ; }
+
+    /** Add a row - the values are in column order. Returns the row number. */
+    public int add(Binding parent, long[] values) {
+        int row = size++ ;
+        parents[row] = parent ;
+        for ( int i = 0 ; i < vars.length ; i++ )
+            columns[i][row] = values[i] ;
+        return row ;
+    }
+
+    /** Make the BindingNodeId for a row */
+    public BindingNodeId toBindingNodeId(int row) {
+        Binding parent = parents[row] ;
+        BindingNodeId b = ( parent == null ) ? new BindingNodeId() : new BindingNodeId(parent) ;
+        for ( int i = 0 ; i < vars.length ; i++ ) {
+            long v = columns[i][row] ;
+            if ( v != Unbound )
+                b.put(vars[i], NodeId.create(v)) ;
+        }
+        return b ;
+    }
+
+    /** Group BindingNodeIds into blocks */
+    public static Iterator<BindingNodeIdBlock> blocks(Iterator<BindingNodeId> iter, int blockSize) {
+        return new Iterator<BindingNodeIdBlock>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext() ;
+            }
+
+            @Override
+            public BindingNodeIdBlock next() {
+                if ( ! hasNext() )
+                    throw new NoSuchElementException() ;
+                List<BindingNodeId> rows = new ArrayList<>() ;
+                Set<Var> vars = new LinkedHashSet<>() ;
+                while ( iter.hasNext() && rows.size() < blockSize ) {
+                    BindingNodeId b = iter.next() ;
+                    rows.add(b) ;
+                    b.forEach(vars::add) ;
+                }
+                BindingNodeIdBlock block = new BindingNodeIdBlock(vars.toArray(new Var[vars.size()]), rows.size()) ;
+                long[] values = new long[block.vars.length] ;
+                for ( BindingNodeId b : rows ) {
+                    for ( int i = 0 ; i < values.length ; i++ ) {
+                        NodeId id = b.get(block.vars[i]) ;
+                        values[i] = ( id == null ) ? Unbound : id.getId() ;
+                    }
+                    block.add(b.getParentBinding(), values) ;
+                }
+                return block ;
+            }
+        } ;
+    }
+
+    /** Turn blocks back into BindingNodeIds, one row at a time */
+    public static Iterator<BindingNodeId> rows(Iterator<BindingNodeIdBlock> blocks) {
+        return new Iterator<BindingNodeId>() {
+            private BindingNodeIdBlock block = null ;
+            private int row = 0 ;
+
+            @Override
+            public boolean hasNext() {
+                while ( block == null || row >= block.size() ) {
+                    if ( ! blocks.hasNext() )
+                        return false ;
+                    block = blocks.next() ;
+                    row = 0 ;
+                }
+                return true ;
+            }
+
+            @Override
+            public BindingNodeId next() {
+                if ( ! hasNext() )
+                    throw new NoSuchElementException() ;
+                return block.toBindingNodeId(row++) ;
+            }
+        } ;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder() ;
+        sb.append(Arrays.asList(vars)).append(" : ").append(size).append(" rows") ;
+        return sb.toString() ;
+    }
+}
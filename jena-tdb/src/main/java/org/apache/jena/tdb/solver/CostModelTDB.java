@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.Collections ;
+import java.util.Set ;
+
+import org.apache.jena.atlas.lib.tuple.Tuple ;
+import org.apache.jena.atlas.lib.tuple.TupleFactory ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.optimizer.CostModel ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.tupletable.TupleIndex ;
+
+/** Cost model for basic graph patterns executed by TDB.
+ * The first two patterns are merge joined (see {@link StageMergeJoin}) when, for a variable
+ * they share, each pattern has an index that scans in the order of that variable
+ * and both are estimated to have at least {@link StageMergeJoin#MinScanSize} matches.
+ */
+public class CostModelTDB extends CostModel
+{
+    private final TupleIndex[] indexes ;
+    private final Node graphNode ;
+    private final boolean mergeJoin ;
+
+    /**
+     * @param stats     Statistics
+     * @param indexes   The indexes of the tuple table the patterns are matched against.
+     * @param graphNode The graph node for quad patterns, Node.ANY for the union graph, or null for triples.
+     * @param mergeJoin Whether merge joins are enabled.
+     */
+    public CostModelTDB(CostStats stats, TupleIndex[] indexes, Node graphNode, boolean mergeJoin)
+    {
+        super(stats) ;
+        this.indexes = indexes ;
+        this.graphNode = graphNode ;
+        // Union graph matching does not use the merge join.
+        this.mergeJoin = mergeJoin && ! Node.ANY.equals(graphNode) ;
+    }
+
+    @Override
+    public boolean mergeJoin(Triple first, Triple second)
+    {
+        if ( ! mergeJoin )
+            return false ;
+        // Otherwise probing the index for each match of the first pattern is cheaper.
+        Set<Var> bound = Collections.emptySet() ;
+        if ( cardinality(first, bound) < StageMergeJoin.MinScanSize || cardinality(second, bound) < StageMergeJoin.MinScanSize )
+            return false ;
+        Node[] left = nodes(first) ;
+        Node[] right = nodes(second) ;
+        Tuple<NodeId> leftPattern = pattern(left) ;
+        Tuple<NodeId> rightPattern = pattern(right) ;
+        for ( int i = 0 ; i < left.length ; i++ )
+        {
+            if ( ! left[i].isVariable() )
+                continue ;
+            for ( int j = 0 ; j < right.length ; j++ )
+            {
+                if ( left[i].equals(right[j]) && sorted(leftPattern, i) && sorted(rightPattern, j) )
+                    return true ;
+            }
+        }
+        return false ;
+    }
+
+    /** Is there an index that scans the pattern in order of the slot? */
+    private boolean sorted(Tuple<NodeId> pattern, int slot)
+    {
+        for ( TupleIndex index : indexes )
+        {
+            if ( index.weight(pattern, slot) >= 0 )
+                return true ;
+        }
+        return false ;
+    }
+
+    private Node[] nodes(Triple triple)
+    {
+        if ( graphNode == null )
+            return new Node[]{ triple.getSubject(), triple.getPredicate(), triple.getObject() } ;
+        return new Node[]{ graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject() } ;
+    }
+
+    // Only whether a slot is fixed matters when choosing an index.
+    private static Tuple<NodeId> pattern(Node[] nodes)
+    {
+        NodeId[] ids = new NodeId[nodes.length] ;
+        for ( int i = 0 ; i < nodes.length ; i++ )
+            ids[i] = nodes[i].isConcrete() ? NodeId.NodeDoesNotExist : NodeId.NodeIdAny ;
+        return TupleFactory.create(ids) ;
+    }
+}
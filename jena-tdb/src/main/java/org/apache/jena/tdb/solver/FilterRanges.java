@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.math.BigDecimal ;
+import java.math.RoundingMode ;
+import java.util.HashMap ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.expr.* ;
+import org.apache.jena.tdb.store.NodeIdRange ;
+
+/** Turn numeric comparisons of a variable with a constant, in a FILTER, into
+ * ranges of NodeIds the variable can take. Integers are inlined in NodeIds in
+ * value order so a range of integer values is a range of NodeIds, giving an
+ * index range scan when the variable is next in an index.
+ * <p>
+ * The ranges are a superset of the matching NodeIds (see {@link NodeIdRange#numeric});
+ * the FILTER must still be applied.
+ */
+public class FilterRanges
+{
+    /** Ranges for variables from the expressions, which are all ANDed together.
+     * Returns null if there are no comparisons that can be used.
+     */
+    public static Map<Var, List<NodeIdRange>> ranges(ExprList exprs)
+    {
+        Map<Var, long[]> bounds = new HashMap<>() ;
+        for ( Expr expr : exprs )
+            bound(expr, bounds) ;
+        if ( bounds.isEmpty() )
+            return null ;
+        Map<Var, List<NodeIdRange>> ranges = new HashMap<>() ;
+        bounds.forEach((v, b) -> ranges.put(v, NodeIdRange.numeric(b[0], b[1]))) ;
+        return ranges ;
+    }
+
+    private static void bound(Expr expr, Map<Var, long[]> bounds)
+    {
+        if ( expr instanceof E_LogicalAnd ) {
+            bound(((E_LogicalAnd)expr).getArg1(), bounds) ;
+            bound(((E_LogicalAnd)expr).getArg2(), bounds) ;
+            return ;
+        }
+        if ( ! ( expr instanceof ExprFunction2 ) )
+            return ;
+        ExprFunction2 f = (ExprFunction2)expr ;
+        Expr arg1 = f.getArg1() ;
+        Expr arg2 = f.getArg2() ;
+        
+        // Normalize to "var op constant" : constant on the left flips the comparison.
+        Var var ;
+        NodeValue nv ;
+        boolean flip ;
+        if ( arg1.isVariable() && arg2.isConstant() ) {
+            var = arg1.asVar() ;
+            nv = arg2.getConstant() ;
+            flip = false ;
+        } else if ( arg1.isConstant() && arg2.isVariable() ) {
+            var = arg2.asVar() ;
+            nv = arg1.getConstant() ;
+            flip = true ;
+        } else
+            return ;
+
+        BigDecimal value = value(nv) ;
+        if ( value == null )
+            return ;
+        BigDecimal floor = value.setScale(0, RoundingMode.FLOOR) ;
+        BigDecimal ceiling = value.setScale(0, RoundingMode.CEILING) ;
+
+        long lo = Long.MIN_VALUE ;
+        long hi = Long.MAX_VALUE ;
+        if ( expr instanceof E_Equals ) {
+            lo = toLong(ceiling) ;
+            hi = toLong(floor) ;
+        } else if ( expr instanceof E_GreaterThan ) {
+            if ( flip )     hi = toLong(ceiling.subtract(BigDecimal.ONE)) ;
+            else            lo = toLong(floor.add(BigDecimal.ONE)) ;
+        } else if ( expr instanceof E_GreaterThanOrEqual ) {
+            if ( flip )     hi = toLong(floor) ;
+            else            lo = toLong(ceiling) ;
+        } else if ( expr instanceof E_LessThan ) {
+            if ( flip )     lo = toLong(floor.add(BigDecimal.ONE)) ;
+            else            hi = toLong(ceiling.subtract(BigDecimal.ONE)) ;
+        } else if ( expr instanceof E_LessThanOrEqual ) {
+            if ( flip )     lo = toLong(ceiling) ;
+            else            hi = toLong(floor) ;
+        } else
+            return ;
+
+        long[] b = bounds.computeIfAbsent(var, (v) -> new long[]{Long.MIN_VALUE, Long.MAX_VALUE}) ;
+        b[0] = Math.max(b[0], lo) ;
+        b[1] = Math.min(b[1], hi) ;
+    }
+
+    /** The value of a numeric constant, or null */ 
+    private static BigDecimal value(NodeValue nv)
+    {
+        if ( nv.isInteger() )
+            return new BigDecimal(nv.getInteger()) ;
+        if ( nv.isDecimal() )
+            return nv.getDecimal() ;
+        if ( nv.isDouble() || nv.isFloat() ) {
+            double d = nv.getDouble() ;
+            // NaN and infinities do not give integer bounds.
+            if ( Double.isNaN(d) || Double.isInfinite(d) )
+                return null ;
+            return new BigDecimal(d) ;
+        }
+        return null ;
+    }
+
+    private static long toLong(BigDecimal x)
+    {
+        if ( x.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0 )
+            return Long.MAX_VALUE ;
+        if ( x.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) <= 0 )
+            return Long.MIN_VALUE ;
+        return x.longValueExact() ;
+    }
+}
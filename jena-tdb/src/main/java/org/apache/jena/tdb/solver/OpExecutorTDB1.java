@@ -18,12 +18,15 @@
 
 package org.apache.jena.tdb.solver;
 
+import java.util.List ;
+import java.util.Map ;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Node ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.ARQInternalErrorException ;
 import org.apache.jena.sparql.algebra.Op ;
 import org.apache.jena.sparql.algebra.op.* ;
@@ -34,18 +37,26 @@ import org.apache.jena.sparql.core.Substitute ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.iterator.QueryIterFilterExpr ;
 import org.apache.jena.sparql.engine.iterator.QueryIterPeek ;
 import org.apache.jena.sparql.engine.main.OpExecutor ;
 import org.apache.jena.sparql.engine.main.OpExecutorFactory ;
 import org.apache.jena.sparql.engine.main.QC ;
 import org.apache.jena.sparql.engine.main.iterator.QueryIterGraph ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderCost ;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderProc ;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation ;
+import org.apache.jena.sparql.expr.Expr ;
 import org.apache.jena.sparql.expr.ExprList ;
 import org.apache.jena.sparql.mgt.Explain ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.tdb.TDB ;
 import org.apache.jena.tdb.store.DatasetGraphTDB ;
 import org.apache.jena.tdb.store.GraphTDB ;
 import org.apache.jena.tdb.store.NodeId;
+import org.apache.jena.tdb.store.NodeIdRange ;
+import org.apache.jena.tdb.store.tupletable.TupleIndex ;
 import org.slf4j.Logger ;
 import org.slf4j.LoggerFactory ;
 
@@ -184,7 +195,7 @@ public class OpExecutorTDB1 extends OpExecutor
         if ( pattern.size() >= 2 )
         {
             // Must be 2 or triples to reorder. 
-            ReorderTransformation transform = graph.getDSG().getReorderTransform() ;
+            ReorderTransformation transform = reorderTransform(graph.getDSG(), null, execCxt) ;
             if ( transform != null )
             {
                 QueryIterPeek peek = QueryIterPeek.create(input, execCxt) ;
@@ -221,7 +232,7 @@ public class OpExecutorTDB1 extends OpExecutor
         // ---- Execute quads+filters
         if ( bgp.size() >= 2 )
         {
-            ReorderTransformation transform = ds.getReorderTransform() ;
+            ReorderTransformation transform = reorderTransform(ds, gn, execCxt) ;
     
             if ( transform != null )
             {
@@ -258,6 +269,23 @@ public class OpExecutorTDB1 extends OpExecutor
         return QC.execute(op, input, ec2) ;
     }
 
+    /** The reorder transformation: cost-based, if enabled and there are statistics, else the dataset's own.
+     *  The graph node is null for the default graph storage. */
+    private static ReorderTransformation reorderTransform(DatasetGraphTDB ds, Node gn, ExecutionContext execCxt)
+    {
+        Context context = execCxt.getContext() ;
+        if ( context.isTrue(ARQ.optCostBasedJoinOrder) && context.get(ARQ.costStats) instanceof CostStats )
+        {
+            CostStats stats = (CostStats)context.get(ARQ.costStats) ;
+            TupleIndex[] indexes = ( gn == null )
+                ? ds.getTripleTable().getNodeTupleTable().getTupleTable().getIndexes()
+                : ds.getQuadTable().getNodeTupleTable().getTupleTable().getIndexes() ;
+            boolean mergeJoin = ! context.isTrue(TDB.symBatchExecution) && context.isTrue(TDB.symMergeJoin) ;
+            return new ReorderCost(new CostModelTDB(stats, indexes, gn, mergeJoin)) ;
+        }
+        return ds.getReorderTransform() ;
+    }
+
     private static BasicPattern reorder(BasicPattern pattern, QueryIterPeek peek, ReorderTransformation transform)
     {
         if ( transform != null )
@@ -350,7 +378,10 @@ public class OpExecutorTDB1 extends OpExecutor
         }
     }
 
-    /** An op executor that simply executes a BGP or QuadPattern without any reordering */ 
+    /** An op executor that simply executes a BGP or QuadPattern without any reordering.
+     * A filter directly over a BGP or QuadPattern has its numeric comparisons
+     * turned into NodeId ranges to limit the index scans; the filter is still applied.
+     */ 
     private static class OpExecutorPlainTDB extends OpExecutor
     {
         Predicate<Tuple<NodeId>> filter = null ;
@@ -361,8 +392,31 @@ public class OpExecutorTDB1 extends OpExecutor
             filter = QC2.getFilter(execCxt.getContext()) ;
         }
         
+        @Override
+        protected QueryIterator execute(OpFilter opFilter, QueryIterator input)
+        {
+            Op sub = opFilter.getSubOp() ;
+            if ( ! ( sub instanceof OpBGP ) && ! ( sub instanceof OpQuadPattern ) )
+                return super.execute(opFilter, input) ;
+            Map<Var, List<NodeIdRange>> ranges = FilterRanges.ranges(opFilter.getExprs()) ;
+            if ( ranges == null )
+                return super.execute(opFilter, input) ;
+            
+            QueryIterator qIter = ( sub instanceof OpBGP ) 
+                ? execute((OpBGP)sub, input, ranges)
+                : execute((OpQuadPattern)sub, input, ranges) ;
+            for ( Expr expr : opFilter.getExprs() )
+                qIter = new QueryIterFilterExpr(qIter, expr, execCxt) ;
+            return qIter ;
+        }
+        
         @Override
         public QueryIterator execute(OpBGP opBGP, QueryIterator input)
+        {
+            return execute(opBGP, input, null) ;
+        }
+        
+        private QueryIterator execute(OpBGP opBGP, QueryIterator input, Map<Var, List<NodeIdRange>> ranges)
         {
             Graph g = execCxt.getActiveGraph() ;
             
@@ -374,7 +428,7 @@ public class OpExecutorTDB1 extends OpExecutor
                 //return SolverLib.execute((GraphTDB)g, bgp, input, filter, execCxt) ;
                 GraphTDB gtdb = (GraphTDB)g ;
                 Node gn = decideGraphNode(gtdb.getGraphName(), execCxt) ;
-                return SolverLib.execute(gtdb.getDSG(), gn, bgp, input, filter, execCxt) ;
+                return SolverLib.execute(gtdb.getDSG(), gn, bgp, input, filter, ranges, execCxt) ;
             }
             Log.warn(this, "Non-GraphTDB passed to OpExecutorPlainTDB") ;
             return super.execute(opBGP, input) ;
@@ -382,6 +436,11 @@ public class OpExecutorTDB1 extends OpExecutor
         
         @Override
         public QueryIterator execute(OpQuadPattern opQuadPattern, QueryIterator input)
+        {
+            return execute(opQuadPattern, input, null) ;
+        }
+        
+        private QueryIterator execute(OpQuadPattern opQuadPattern, QueryIterator input, Map<Var, List<NodeIdRange>> ranges)
         {
             Node gn = opQuadPattern.getGraphNode() ;
             gn = decideGraphNode(gn, execCxt) ;
@@ -391,7 +450,7 @@ public class OpExecutorTDB1 extends OpExecutor
                 DatasetGraphTDB ds = (DatasetGraphTDB)execCxt.getDataset() ;
                 Explain.explain("Execute", opQuadPattern.getPattern(), execCxt.getContext()) ;
                 BasicPattern bgp = opQuadPattern.getBasicPattern() ;
-                return SolverLib.execute(ds, gn, bgp, input, filter, execCxt) ;
+                return SolverLib.execute(ds, gn, bgp, input, filter, ranges, execCxt) ;
             }
             // Maybe a TDB named graph inside a non-TDB dataset.
             Graph g = execCxt.getActiveGraph() ;
@@ -402,7 +461,7 @@ public class OpExecutorTDB1 extends OpExecutor
                 BasicPattern bgp = opQuadPattern.getBasicPattern() ;
                 Explain.explain("Execute", bgp, execCxt.getContext()) ;
                 // Don't pass in G -- gn may be different.
-                return SolverLib.execute(((GraphTDB)g).getDSG(), gn, bgp, input, filter, execCxt) ;
+                return SolverLib.execute(((GraphTDB)g).getDSG(), gn, bgp, input, filter, ranges, execCxt) ;
             }
             Log.warn(this, "Non-DatasetGraphTDB passed to OpExecutorPlainTDB") ;
             return super.execute(opQuadPattern, input) ;
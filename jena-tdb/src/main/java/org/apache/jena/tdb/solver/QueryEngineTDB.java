@@ -19,6 +19,7 @@
 package org.apache.jena.tdb.solver;
 
 import org.apache.jena.atlas.lib.Lib ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.query.Query ;
 import org.apache.jena.sparql.algebra.Algebra ;
 import org.apache.jena.sparql.algebra.Op ;
@@ -34,12 +35,16 @@ import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.engine.iterator.QueryIteratorWrapper ;
 import org.apache.jena.sparql.engine.main.QueryEngineMain ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
 import org.apache.jena.sparql.mgt.Explain ;
 import org.apache.jena.sparql.util.Context ;
 import org.apache.jena.tdb.TDB ;
 import org.apache.jena.tdb.TDBException ;
+import org.apache.jena.tdb.base.file.Location ;
 import org.apache.jena.tdb.migrate.A2 ;
+import org.apache.jena.tdb.solver.stats.Stats ;
 import org.apache.jena.tdb.store.DatasetGraphTDB ;
+import org.apache.jena.tdb.sys.Names ;
 import org.apache.jena.tdb.transaction.DatasetGraphTransaction ;
 
 // This exists to intercept the query execution setup.
@@ -97,6 +102,28 @@ public class QueryEngineTDB extends QueryEngineMain
         return op ;
     }
 
+    /** Statistics for cost-based join ordering: the statistics kept up to date for the database,
+     * else the statistics file of the database, if there is one.
+     * Like the weighted reorder transformation, the file is read once and kept with the dataset.
+     */
+    @Override
+    protected CostStats createCostStats()
+    {
+        if ( dataset instanceof DatasetGraphTDB )
+        {
+            if ( ((DatasetGraphTDB)dataset).getCostStats() != null )
+                return ((DatasetGraphTDB)dataset).getCostStats() ;
+            Location location = ((DatasetGraphTDB)dataset).getLocation() ;
+            if ( ! location.isMem() && location.exists(Names.optStats) )
+            {
+                CostStats stats = Stats.readCostStats(location.getPath(Names.optStats)) ;
+                dataset.getContext().set(ARQ.costStats, stats) ;
+                return stats ;
+            }
+        }
+        return super.createCostStats() ;
+    }
+
     @Override
     public QueryIterator eval(Op op, DatasetGraph dsg, Binding input, Context context)
     {
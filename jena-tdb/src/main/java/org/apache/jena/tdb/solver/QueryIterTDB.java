@@ -21,6 +21,7 @@ package org.apache.jena.tdb.solver;
 import java.util.Iterator ;
 import java.util.List ;
 
+import org.apache.jena.atlas.lib.Closeable ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.sparql.engine.QueryIterator ;
 import org.apache.jena.sparql.engine.binding.Binding ;
@@ -44,6 +45,11 @@ public class QueryIterTDB extends QueryIterPlainWrapper
     { 
         if ( originalInput != null )
             originalInput.close();
+        // Stages that hold resources, such as worker threads.
+        if ( killList != null )
+            for ( Abortable it : killList )
+                if ( it instanceof Closeable )
+                    ((Closeable)it).close() ;
         super.closeIterator() ;
     }
 
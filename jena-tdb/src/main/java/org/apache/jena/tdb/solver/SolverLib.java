@@ -31,6 +31,7 @@ import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.atlas.lib.tuple.TupleFactory ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.query.QueryCancelledException ;
 import org.apache.jena.sparql.core.BasicPattern ;
 import org.apache.jena.sparql.core.Quad ;
@@ -41,14 +42,19 @@ import org.apache.jena.sparql.engine.binding.Binding ;
 import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.engine.binding.BindingMap ;
 import org.apache.jena.sparql.engine.iterator.QueryIterNullIterator ;
+import org.apache.jena.sparql.engine.optimizer.CostModel ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.tdb.TDB ;
 import org.apache.jena.tdb.TDBException ;
 import org.apache.jena.tdb.lib.NodeLib ;
 import org.apache.jena.tdb.store.DatasetGraphTDB ;
 import org.apache.jena.tdb.store.GraphTDB ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
 import org.apache.jena.tdb.sys.TDBInternal ;
+import org.apache.jena.tdb.transaction.NodeTableTrans ;
 import org.slf4j.Logger ;
 import org.slf4j.LoggerFactory ;
 
@@ -61,10 +67,21 @@ public class SolverLib
     public static QueryIterator execute(GraphTDB graph, BasicPattern pattern, 
                                         QueryIterator input, Predicate<Tuple<NodeId>> filter,
                                         ExecutionContext execCxt)
+    {
+        return execute(graph, pattern, input, filter, null, execCxt) ;
+    }
+    
+    /** Non-reordering execution of a basic graph pattern, given a iterator of bindings as input,
+     *  with NodeId ranges, which may be null, for variables to limit index scans.
+     */ 
+    public static QueryIterator execute(GraphTDB graph, BasicPattern pattern, 
+                                        QueryIterator input, Predicate<Tuple<NodeId>> filter,
+                                        Map<Var, List<NodeIdRange>> ranges,
+                                        ExecutionContext execCxt)
     {
         // Maybe default graph or named graph.
         NodeTupleTable ntt = graph.getNodeTupleTable() ;
-        return execute(ntt, graph.getGraphName(), pattern, input, filter, execCxt) ;
+        return execute(ntt, graph.getGraphName(), pattern, input, filter, ranges, execCxt) ;
     }
     
     /** Non-reordering execution of a quad pattern, given a iterator of bindings as input.
@@ -74,9 +91,20 @@ public class SolverLib
     public static QueryIterator execute(DatasetGraphTDB ds, Node graphNode, BasicPattern pattern,
                                         QueryIterator input, Predicate<Tuple<NodeId>> filter,
                                         ExecutionContext execCxt)
+    {
+        return execute(ds, graphNode, pattern, input, filter, null, execCxt) ;
+    }
+    
+    /** Non-reordering execution of a quad pattern, given a iterator of bindings as input,
+     *  with NodeId ranges, which may be null, for variables to limit index scans.
+     */ 
+    public static QueryIterator execute(DatasetGraphTDB ds, Node graphNode, BasicPattern pattern,
+                                        QueryIterator input, Predicate<Tuple<NodeId>> filter,
+                                        Map<Var, List<NodeIdRange>> ranges,
+                                        ExecutionContext execCxt)
     {
         NodeTupleTable ntt = ds.chooseNodeTupleTable(graphNode) ;
-        return execute(ntt, graphNode, pattern, input, filter, execCxt) ;
+        return execute(ntt, graphNode, pattern, input, filter, ranges, execCxt) ;
     }
     
     public static Iterator<BindingNodeId> convertToIds(Iterator<Binding> iterBindings, NodeTable nodeTable)
@@ -92,8 +120,23 @@ public class SolverLib
     //     graphNode may be Node.ANY, meaning we should make triples unique.
     //     graphNode may be null, meaning default graph
 
+    /** Whether both patterns are estimated to have enough matches for a merge join to be worth
+     * the full scans. Without statistics, the merge join is used as requested.
+     */
+    private static boolean largeScans(Triple first, Triple second, ExecutionContext execCxt)
+    {
+        Object x = execCxt.getContext().get(ARQ.costStats) ;
+        if ( ! ( x instanceof CostStats ) )
+            return true ;
+        CostModel model = new CostModel((CostStats)x) ;
+        Set<Var> bound = Collections.emptySet() ;
+        return model.cardinality(first, bound) >= StageMergeJoin.MinScanSize
+            && model.cardinality(second, bound) >= StageMergeJoin.MinScanSize ;
+    }
+
     private static QueryIterator execute(NodeTupleTable nodeTupleTable, Node graphNode, BasicPattern pattern, 
                                          QueryIterator input, Predicate<Tuple<NodeId>> filter,
+                                         Map<Var, List<NodeIdRange>> ranges,
                                          ExecutionContext execCxt)
     {
         if ( Quad.isUnionGraph(graphNode) )
@@ -118,19 +161,67 @@ public class SolverLib
         
         Iterator<BindingNodeId> chain = Iter.map(input, SolverLib.convFromBinding(nodeTable)) ;
         List<Abortable> killList = new ArrayList<>() ;
+        boolean batch = execCxt.getContext().isTrue(TDB.symBatchExecution) ;
+        Iterator<BindingNodeIdBlock> blocks = batch ? BindingNodeIdBlock.blocks(chain, BindingNodeIdBlock.DftBlockSize) : null ;
+        
+        if ( ! batch && ! anyGraph && triples.size() >= 2 && execCxt.getContext().isTrue(TDB.symMergeJoin)
+             && largeScans(triples.get(0), triples.get(1), execCxt) )
+        {
+            // Merge join the first two patterns if they share a variable.
+            // Whether the index scans give the right order is decided for each input binding.
+            Tuple<Node> left = asTuple(graphNode, triples.get(0)) ;
+            Tuple<Node> right = asTuple(graphNode, triples.get(1)) ;
+            List<Var> joinVars = StageMergeJoin.joinVars(left, right) ;
+            if ( ! joinVars.isEmpty() )
+            {
+                chain = new StageMergeJoin(nodeTupleTable, chain, left, right, joinVars, anyGraph, filter, ranges, execCxt) ;
+                chain = makeAbortable(chain, killList) ;
+                triples = triples.subList(2, triples.size()) ;
+            }
+        }
+        
+        int workers = ( batch || anyGraph ) ? 0 : StageParallel.workers(execCxt.getContext()) ;
+        if ( workers > 1 && ! isWritable(nodeTable) )
+        {
+            // Parallel execution of the pattern after the first step.
+            if ( triples.size() == pattern.size() && triples.size() >= 2 )
+            {
+                chain = solve(nodeTupleTable, asTuple(graphNode, triples.get(0)), false, chain, filter, ranges, execCxt) ;
+                triples = triples.subList(1, triples.size()) ;
+            }
+            if ( triples.size() < pattern.size() && ! triples.isEmpty() )
+            {
+                List<Tuple<Node>> rest = new ArrayList<>() ;
+                for ( Triple triple : triples )
+                    rest.add(asTuple(graphNode, triple)) ;
+                Function<Iterator<BindingNodeId>, Iterator<BindingNodeId>> pipeline = (rows) -> {
+                    Iterator<BindingNodeId> iter = rows ;
+                    for ( Tuple<Node> tuple : rest )
+                        iter = solve(nodeTupleTable, tuple, false, iter, filter, ranges, execCxt) ;
+                    return iter ;
+                } ;
+                StageParallel stage = new StageParallel(chain, pipeline, workers, StageParallel.DftBatchSize) ;
+                killList.add(stage) ;
+                chain = stage ;
+                triples = Collections.emptyList() ;
+            }
+        }
         
         for ( Triple triple : triples )
         {
-            Tuple<Node> tuple = null ;
-            if ( graphNode == null )
-                // 3-tuples
-                tuple = tuple(triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
-            else
-                // 4-tuples.
-                tuple = tuple(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
-            chain = solve(nodeTupleTable, tuple, anyGraph, chain, filter, execCxt) ;
+            Tuple<Node> tuple = asTuple(graphNode, triple) ;
+            if ( batch ) {
+                blocks = new StageMatchTupleBlock(nodeTupleTable, blocks, tuple, anyGraph, filter, ranges,
+                                                  BindingNodeIdBlock.DftBlockSize, execCxt) ;
+                blocks = makeAbortable(blocks, killList) ;
+                continue ;
+            }
+            chain = solve(nodeTupleTable, tuple, anyGraph, chain, filter, ranges, execCxt) ;
             chain = makeAbortable(chain, killList) ; 
         }
+        if ( batch )
+            // Back to one row at a time.
+            chain = BindingNodeIdBlock.rows(blocks) ;
         
         // DEBUG POINT
         if ( false )
@@ -156,6 +247,26 @@ public class SolverLib
         return new QueryIterTDB(iterBinding, killList, input, execCxt) ;
     }
     
+    // Write transactions use node tables that are not safe for use by several threads.
+    private static boolean isWritable(NodeTable nodeTable)
+    {
+        for ( NodeTable nt = nodeTable ; nt != null ; nt = nt.wrapped() )
+        {
+            if ( nt instanceof NodeTableTrans )
+                return true ;
+        }
+        return false ;
+    }
+    
+    private static Tuple<Node> asTuple(Node graphNode, Triple triple)
+    {
+        if ( graphNode == null )
+            // 3-tuples
+            return tuple(triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+        // 4-tuples.
+        return tuple(graphNode, triple.getSubject(), triple.getPredicate(), triple.getObject()) ;
+    }
+    
     /** Create an abortable iterator, storing it in the killList.
      *  Just return the input iterator if kilList is null. 
      */
@@ -210,7 +321,17 @@ public class SolverLib
                                                 Iterator<BindingNodeId> chain, Predicate<Tuple<NodeId>> filter,
                                                 ExecutionContext execCxt)
     {
-        return new StageMatchTuple(nodeTupleTable, chain, tuple, anyGraph, filter, execCxt) ;
+        return solve(nodeTupleTable, tuple, anyGraph, chain, filter, null, execCxt) ;
+    }
+
+    public static Iterator<BindingNodeId> solve(NodeTupleTable nodeTupleTable, 
+                                                Tuple<Node> tuple,
+                                                boolean anyGraph,
+                                                Iterator<BindingNodeId> chain, Predicate<Tuple<NodeId>> filter,
+                                                Map<Var, List<NodeIdRange>> ranges,
+                                                ExecutionContext execCxt)
+    {
+        return new StageMatchTuple(nodeTupleTable, chain, tuple, anyGraph, filter, ranges, execCxt) ;
     }
 
     public static Binding convToBinding(BindingNodeId bindingNodeIds, NodeTable nodeTable) {
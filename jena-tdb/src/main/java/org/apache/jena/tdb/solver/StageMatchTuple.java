@@ -23,6 +23,7 @@ import static org.apache.jena.atlas.lib.tuple.TupleFactory.* ;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -35,6 +36,7 @@ import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
 
@@ -46,14 +48,29 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
     private final ExecutionContext execCxt ;
     private boolean anyGraphs ;
     private Predicate<Tuple<NodeId>> filter ;
+    private final Map<Var, List<NodeIdRange>> ranges ;
 
     public StageMatchTuple(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input, 
                             Tuple<Node> tuple, boolean anyGraphs, 
                             Predicate<Tuple<NodeId>> filter, 
                             ExecutionContext execCxt)
+    {
+        this(nodeTupleTable, input, tuple, anyGraphs, filter, null, execCxt) ;
+    }
+
+    /** Match with, optionally, NodeId ranges for variables.
+     * A variable with ranges only matches NodeIds in the ranges;
+     * the ranges are used to limit index scans, not to replace the FILTER they came from.
+     */
+    public StageMatchTuple(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input, 
+                            Tuple<Node> tuple, boolean anyGraphs, 
+                            Predicate<Tuple<NodeId>> filter, 
+                            Map<Var, List<NodeIdRange>> ranges,
+                            ExecutionContext execCxt)
     {
         super(input) ;
         this.filter = filter ;
+        this.ranges = ranges ;
         this.nodeTupleTable = nodeTupleTable ; 
         this.patternTuple = tuple ;
         this.execCxt = execCxt ;
@@ -92,7 +109,7 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
 
         prepare(nodeTupleTable.getNodeTable(), patternTuple, input, ids, var) ;
         
-        Iterator<Tuple<NodeId>> iterMatches = nodeTupleTable.find(asTuple(ids)) ;  
+        Iterator<Tuple<NodeId>> iterMatches = find(asTuple(ids), var) ;  
         
         // ** Allow a triple or quad filter here.
         if ( filter != null )
@@ -143,6 +160,23 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         return Iter.iter(iterMatches).map(binder).removeNulls() ;
     }
     
+    private Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern, Var[] var)
+    {
+        // Union graph matching relies on the index choice of the plain find.
+        if ( ranges != null && ! anyGraphs )
+        {
+            for ( int i = 0 ; i < var.length ; i++ )
+            {
+                if ( var[i] == null )
+                    continue ;
+                List<NodeIdRange> r = ranges.get(var[i]) ;
+                if ( r != null )
+                    return nodeTupleTable.find(pattern, i, r) ;
+            }
+        }
+        return nodeTupleTable.find(pattern) ;
+    }
+    
     private static Iterator<Tuple<NodeId>> print(Iterator<Tuple<NodeId>> iter)
     {
         if ( ! iter.hasNext() )
@@ -189,7 +223,7 @@ public class StageMatchTuple extends RepeatApplyIterator<BindingNodeId>
         return nodeTable.getNodeIdForNode(node) ;
     }
     
-    private static Function<Tuple<NodeId>, Tuple<NodeId>> quadsToAnyTriples = item -> {
+    /*package*/ static Function<Tuple<NodeId>, Tuple<NodeId>> quadsToAnyTriples = item -> {
         return TupleFactory.create4(NodeId.NodeIdAny, item.get(1), item.get(2), item.get(3) ) ;
     } ;
 }
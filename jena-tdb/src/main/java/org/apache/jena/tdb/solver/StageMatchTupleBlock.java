@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.* ;
+import java.util.function.Predicate ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.tuple.Tuple ;
+import org.apache.jena.atlas.lib.tuple.TupleFactory ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
+import org.apache.jena.tdb.store.nodetable.NodeTable ;
+import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
+
+/** Batch-at-a-time version of {@link StageMatchTuple}.
+ * Takes blocks of rows and, for each row, matches the pattern,
+ * filling output blocks with the input row extended by the new variables of the pattern.
+ * Constants in the pattern are turned into NodeIds once, not once per row.
+ */
+public class StageMatchTupleBlock implements Iterator<BindingNodeIdBlock>
+{
+    private final NodeTupleTable nodeTupleTable ;
+    private final Iterator<BindingNodeIdBlock> input ;
+    private final boolean anyGraphs ;
+    private final Predicate<Tuple<NodeId>> filter ;
+    private final Map<Var, List<NodeIdRange>> ranges ;
+    private final int blockSize ;
+
+    // Pattern : constants as NodeIds, variables as null.
+    private final NodeId[] constants ;
+    private final Var[] patternVars ;
+    private final boolean noMatch ;
+
+    // Current input block and the layout of the output for it.
+    private BindingNodeIdBlock inBlock = null ;
+    private int inRow = 0 ;
+    private Var[] outVars ;
+    // For each pattern slot : the output column.
+    private int[] slotColumn ;
+    private int numInputColumns ;
+    private Iterator<Tuple<NodeId>> matches = null ;
+
+    private BindingNodeIdBlock outBlock = null ;
+    private BindingNodeIdBlock slot = null ;
+    private long[] rowValues ;
+
+    public StageMatchTupleBlock(NodeTupleTable nodeTupleTable, Iterator<BindingNodeIdBlock> input,
+                                Tuple<Node> tuple, boolean anyGraphs,
+                                Predicate<Tuple<NodeId>> filter,
+                                Map<Var, List<NodeIdRange>> ranges,
+                                int blockSize,
+                                ExecutionContext execCxt)
+    {
+        this.nodeTupleTable = nodeTupleTable ;
+        this.input = input ;
+        this.anyGraphs = anyGraphs ;
+        this.filter = filter ;
+        this.ranges = ranges ;
+        this.blockSize = blockSize ;
+
+        NodeTable nodeTable = nodeTupleTable.getNodeTable() ;
+        int N = tuple.len() ;
+        this.constants = new NodeId[N] ;
+        this.patternVars = new Var[N] ;
+        boolean b = false ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            Node n = tuple.get(i) ;
+            if ( Var.isVar(n) ) {
+                patternVars[i] = Var.alloc(n) ;
+                continue ;
+            }
+            // May be NodeId.NodeDoesNotExist.
+            NodeId id = nodeTable.getNodeIdForNode(n) ;
+            if ( NodeId.isDoesNotExist(id) )
+                b = true ;
+            constants[i] = id ;
+        }
+        this.noMatch = b ;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( slot != null )
+            return true ;
+        if ( noMatch )
+            return false ;
+        fill() ;
+        return slot != null ;
+    }
+
+    @Override
+    public BindingNodeIdBlock next() {
+        if ( ! hasNext() )
+            throw new NoSuchElementException() ;
+        BindingNodeIdBlock b = slot ;
+        slot = null ;
+        return b ;
+    }
+
+    /** Fill output blocks until one is ready or the input is exhausted. */
+    private void fill() {
+        for ( ;; ) {
+            if ( matches != null ) {
+                while ( matches.hasNext() ) {
+                    Tuple<NodeId> t = matches.next() ;
+                    if ( ! bind(t) )
+                        continue ;
+                    outBlock.add(inBlock.getParent(inRow), rowValues) ;
+                    if ( outBlock.isFull() ) {
+                        emit() ;
+                        return ;
+                    }
+                }
+                matches = null ;
+                inRow++ ;
+            }
+            // Next row
+            if ( inBlock == null || inRow >= inBlock.size() ) {
+                // Different input blocks may have different variables.
+                if ( outBlock != null && ! outBlock.isEmpty() ) {
+                    emit() ;
+                    return ;
+                }
+                outBlock = null ;
+                if ( ! input.hasNext() )
+                    return ;
+                startBlock(input.next()) ;
+                continue ;
+            }
+            matches = find(inRow) ;
+        }
+    }
+
+    private void emit() {
+        slot = outBlock ;
+        outBlock = ( inBlock != null && inRow < inBlock.size() ) ? new BindingNodeIdBlock(outVars, blockSize) : null ;
+    }
+
+    private void startBlock(BindingNodeIdBlock block) {
+        inBlock = block ;
+        inRow = 0 ;
+        Var[] inVars = block.getVars() ;
+        List<Var> vars = new ArrayList<>(Arrays.asList(inVars)) ;
+        slotColumn = new int[patternVars.length] ;
+        for ( int i = 0 ; i < patternVars.length ; i++ ) {
+            Var v = patternVars[i] ;
+            if ( v == null ) {
+                slotColumn[i] = -1 ;
+                continue ;
+            }
+            int idx = vars.indexOf(v) ;
+            if ( idx < 0 ) {
+                idx = vars.size() ;
+                vars.add(v) ;
+            }
+            slotColumn[i] = idx ;
+        }
+        numInputColumns = inVars.length ;
+        outVars = vars.toArray(new Var[vars.size()]) ;
+        outBlock = new BindingNodeIdBlock(outVars, blockSize) ;
+        rowValues = new long[outVars.length] ;
+    }
+
+    /** Find the matches for one input row */
+    private Iterator<Tuple<NodeId>> find(int row) {
+        NodeId[] ids = new NodeId[patternVars.length] ;
+        int rangeSlot = -1 ;
+        for ( int i = 0 ; i < ids.length ; i++ ) {
+            if ( constants[i] != null ) {
+                ids[i] = constants[i] ;
+                continue ;
+            }
+            int col = slotColumn[i] ;
+            long v = ( col < numInputColumns ) ? inBlock.get(row, col) : BindingNodeIdBlock.Unbound ;
+            if ( v == BindingNodeIdBlock.Unbound ) {
+                ids[i] = null ;
+                if ( rangeSlot < 0 && ranges != null && ! anyGraphs && ranges.containsKey(patternVars[i]) )
+                    rangeSlot = i ;
+            } else
+                ids[i] = NodeId.create(v) ;
+        }
+        Tuple<NodeId> pattern = TupleFactory.tuple(ids) ;
+        Iterator<Tuple<NodeId>> iterMatches = ( rangeSlot >= 0 )
+            ? nodeTupleTable.find(pattern, rangeSlot, ranges.get(patternVars[rangeSlot]))
+            : nodeTupleTable.find(pattern) ;
+        if ( filter != null )
+            iterMatches = Iter.filter(iterMatches, filter) ;
+        if ( anyGraphs ) {
+            // See StageMatchTuple.
+            iterMatches = Iter.map(iterMatches, StageMatchTuple.quadsToAnyTriples) ;
+            iterMatches = Iter.distinctAdjacent(iterMatches) ;
+        }
+        return iterMatches ;
+    }
+
+    /** Set rowValues for the current input row and a match. Return false if the match is rejected. */
+    private boolean bind(Tuple<NodeId> t) {
+        for ( int i = 0 ; i < numInputColumns ; i++ )
+            rowValues[i] = inBlock.get(inRow, i) ;
+        for ( int i = numInputColumns ; i < rowValues.length ; i++ )
+            rowValues[i] = BindingNodeIdBlock.Unbound ;
+        for ( int i = 0 ; i < slotColumn.length ; i++ ) {
+            int col = slotColumn[i] ;
+            if ( col < 0 )
+                continue ;
+            long v = t.get(i).getId() ;
+            long current = rowValues[col] ;
+            if ( current == BindingNodeIdBlock.Unbound )
+                rowValues[col] = v ;
+            else if ( current != v )
+                // Variable repeated in the pattern.
+                return false ;
+        }
+        return true ;
+    }
+}
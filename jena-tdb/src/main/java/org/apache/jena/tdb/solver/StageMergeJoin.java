@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import static org.apache.jena.atlas.lib.tuple.TupleFactory.asTuple ;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.Map ;
+import java.util.NoSuchElementException ;
+import java.util.function.Predicate ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.iterator.PeekIterator ;
+import org.apache.jena.atlas.iterator.RepeatApplyIterator ;
+import org.apache.jena.atlas.lib.tuple.Tuple ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
+import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
+import org.apache.jena.tdb.store.tupletable.TupleIndex ;
+
+/** Match two patterns that share variables by a merge join: when, for an input
+ * binding, both patterns can be found by an index scan in NodeId order of a
+ * shared variable, the two scans are run side by side instead of
+ * probing the index for the second pattern once for each match of the first.
+ * Otherwise, the two patterns are matched as {@link StageMatchTuple} does.
+ * <p>
+ * NodeId ranges for variables, from FILTERs, limit both scans as they do for {@link StageMatchTuple}.
+ */
+public class StageMergeJoin extends RepeatApplyIterator<BindingNodeId>
+{
+    /** With statistics, the merge join is only used when both patterns are
+     * estimated to have at least this many matches. */
+    public static double MinScanSize = 1000 ;
+
+    private final NodeTupleTable nodeTupleTable ;
+    private final Tuple<Node> left ;
+    private final Tuple<Node> right ;
+    private final List<Var> joinVars ;
+    private final boolean anyGraphs ;
+    private final Predicate<Tuple<NodeId>> filter ;
+    private final Map<Var, List<NodeIdRange>> ranges ;
+    private final ExecutionContext execCxt ;
+
+    public StageMergeJoin(NodeTupleTable nodeTupleTable, Iterator<BindingNodeId> input,
+                          Tuple<Node> left, Tuple<Node> right, List<Var> joinVars, boolean anyGraphs,
+                          Predicate<Tuple<NodeId>> filter,
+                          Map<Var, List<NodeIdRange>> ranges,
+                          ExecutionContext execCxt)
+    {
+        super(input) ;
+        this.nodeTupleTable = nodeTupleTable ;
+        this.left = left ;
+        this.right = right ;
+        this.joinVars = joinVars ;
+        this.anyGraphs = anyGraphs ;
+        this.filter = filter ;
+        this.ranges = ranges ;
+        this.execCxt = execCxt ;
+    }
+
+    /** The variables in both patterns */
+    public static List<Var> joinVars(Tuple<Node> left, Tuple<Node> right)
+    {
+        List<Var> vars = new ArrayList<>() ;
+        for ( Node n : left )
+        {
+            if ( ! Var.isVar(n) )
+                continue ;
+            Var v = Var.alloc(n) ;
+            if ( vars.contains(v) )
+                continue ;
+            for ( Node n2 : right )
+            {
+                if ( n.equals(n2) )
+                {
+                    vars.add(v) ;
+                    break ;
+                }
+            }
+        }
+        return vars ;
+    }
+
+    @Override
+    protected Iterator<BindingNodeId> makeNextStage(BindingNodeId input)
+    {
+        // Union graph matching relies on the index choice of the plain find. 
+        if ( anyGraphs )
+            return nestedLoop(input) ;
+
+        NodeId ids1[] = new NodeId[left.len()] ;
+        Var[] var1 = new Var[left.len()] ;
+        StageMatchTuple.prepare(nodeTupleTable.getNodeTable(), left, input, ids1, var1) ;
+        NodeId ids2[] = new NodeId[right.len()] ;
+        Var[] var2 = new Var[right.len()] ;
+        StageMatchTuple.prepare(nodeTupleTable.getNodeTable(), right, input, ids2, var2) ;
+
+        for ( Var joinVar : joinVars )
+        {
+            int slot1 = slot(joinVar, var1) ;
+            int slot2 = slot(joinVar, var2) ;
+            if ( slot1 < 0 || slot2 < 0 )
+                // Join variable bound by the input.
+                continue ;
+            Iterator<Tuple<NodeId>> iter1 = findSorted(asTuple(ids1), slot1, var1) ;
+            if ( iter1 == null )
+                continue ;
+            Iterator<Tuple<NodeId>> iter2 = findSorted(asTuple(ids2), slot2, var2) ;
+            if ( iter2 == null ) {
+                Iter.close(iter1) ;
+                continue ;
+            }
+            if ( filter != null ) {
+                iter1 = Iter.filter(iter1, filter) ;
+                iter2 = Iter.filter(iter2, filter) ;
+            }
+            return new MergeJoin(input, iter1, slot1, var1, iter2, slot2, var2) ;
+        }
+        return nestedLoop(input) ;
+    }
+
+    /** Scan in order of the slot, limited by any ranges of the variables. */
+    private Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> pattern, int slot, Var[] var)
+    {
+        List<NodeIdRange> r = ( ranges == null ) ? null : ranges.get(var[slot]) ;
+        Iterator<Tuple<NodeId>> iter = ( r == null )
+            ? nodeTupleTable.findSorted(pattern, slot)
+            : nodeTupleTable.findSorted(pattern, slot, r) ;
+        if ( iter == null || ranges == null )
+            return iter ;
+        // Ranges of other variables: checking keeps the order.
+        for ( int i = 0 ; i < var.length ; i++ )
+        {
+            if ( i == slot || var[i] == null )
+                continue ;
+            List<NodeIdRange> r2 = ranges.get(var[i]) ;
+            if ( r2 != null )
+                iter = TupleIndex.scan(iter, i, r2) ;
+        }
+        return iter ;
+    }
+
+    private static int slot(Var joinVar, Var[] vars)
+    {
+        for ( int i = 0 ; i < vars.length ; i++ )
+            if ( joinVar.equals(vars[i]) )
+                return i ;
+        return -1 ;
+    }
+
+    private Iterator<BindingNodeId> nestedLoop(BindingNodeId input)
+    {
+        Iterator<BindingNodeId> iter = Iter.singleton(input) ;
+        iter = new StageMatchTuple(nodeTupleTable, iter, left, anyGraphs, filter, ranges, execCxt) ;
+        return new StageMatchTuple(nodeTupleTable, iter, right, anyGraphs, filter, ranges, execCxt) ;
+    }
+
+    /** Merge two iterators of tuples, both sorted by the NodeId in their join slot. */
+    private static class MergeJoin implements Iterator<BindingNodeId>
+    {
+        private final BindingNodeId input ;
+        private final PeekIterator<Tuple<NodeId>> iter1 ;
+        private final PeekIterator<Tuple<NodeId>> iter2 ;
+        private final int slot1 ;
+        private final int slot2 ;
+        private final Var[] var1 ;
+        private final Var[] var2 ;
+        // Results for the current join key.
+        private final List<BindingNodeId> pending = new ArrayList<>() ;
+        private int idx = 0 ;
+
+        MergeJoin(BindingNodeId input, 
+                  Iterator<Tuple<NodeId>> iter1, int slot1, Var[] var1,
+                  Iterator<Tuple<NodeId>> iter2, int slot2, Var[] var2)
+        {
+            this.input = input ;
+            this.iter1 = PeekIterator.create(iter1) ;
+            this.iter2 = PeekIterator.create(iter2) ;
+            this.slot1 = slot1 ;
+            this.slot2 = slot2 ;
+            this.var1 = var1 ;
+            this.var2 = var2 ;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( idx >= pending.size() )
+            {
+                pending.clear() ;
+                idx = 0 ;
+                if ( ! advance() )
+                    return false ;
+            }
+            return true ;
+        }
+
+        @Override
+        public BindingNodeId next()
+        {
+            if ( ! hasNext() )
+                throw new NoSuchElementException() ;
+            return pending.get(idx++) ;
+        }
+
+        /** Find the next key in both sides and fill pending. Return false at the end. */ 
+        private boolean advance()
+        {
+            while ( iter1.hasNext() && iter2.hasNext() )
+            {
+                long k1 = iter1.peek().get(slot1).getId() ;
+                long k2 = iter2.peek().get(slot2).getId() ;
+                // Indexes order NodeIds as unsigned values.
+                int x = Long.compareUnsigned(k1, k2) ;
+                if ( x < 0 ) { iter1.next() ; continue ; }
+                if ( x > 0 ) { iter2.next() ; continue ; }
+                List<Tuple<NodeId>> group1 = group(iter1, slot1, k1) ;
+                List<Tuple<NodeId>> group2 = group(iter2, slot2, k2) ;
+                for ( Tuple<NodeId> t1 : group1 )
+                {
+                    for ( Tuple<NodeId> t2 : group2 )
+                    {
+                        BindingNodeId output = new BindingNodeId(input) ;
+                        if ( bind(output, var1, t1) && bind(output, var2, t2) )
+                            pending.add(output) ;
+                    }
+                }
+                return true ;
+            }
+            return false ;
+        }
+
+        private static List<Tuple<NodeId>> group(PeekIterator<Tuple<NodeId>> iter, int slot, long key)
+        {
+            List<Tuple<NodeId>> x = new ArrayList<>() ;
+            while ( iter.hasNext() && iter.peek().get(slot).getId() == key )
+                x.add(iter.next()) ;
+            return x ;
+        }
+
+        private static boolean bind(BindingNodeId output, Var[] vars, Tuple<NodeId> tuple)
+        {
+            for ( int i = 0 ; i < vars.length ; i++ )
+            {
+                Var v = vars[i] ;
+                if ( v == null )
+                    continue ;
+                NodeId id = tuple.get(i) ;
+                if ( output.containsKey(v) )
+                {
+                    if ( ! output.get(v).equals(id) )
+                        return false ;
+                    continue ;
+                }
+                output.put(v, id) ;
+            }
+            return true ;
+        }
+    }
+}
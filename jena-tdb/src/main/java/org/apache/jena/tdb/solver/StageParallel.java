@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.* ;
+import java.util.concurrent.ArrayBlockingQueue ;
+import java.util.concurrent.BlockingQueue ;
+import java.util.concurrent.ConcurrentHashMap ;
+import java.util.concurrent.CountDownLatch ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.TimeUnit ;
+import java.util.function.Function ;
+
+import org.apache.jena.atlas.lib.Closeable ;
+import org.apache.jena.atlas.lib.ThreadLib ;
+import org.apache.jena.query.QueryCancelledException ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.tdb.TDB ;
+import org.apache.jena.tdb.TDBException ;
+
+/** Exchange-style parallel execution of a basic graph pattern.
+ * <p>
+ * The rows from the first step of pattern matching are read on the calling thread
+ * and cut into batches; each batch is a contiguous key range of the first index scan.
+ * Each batch is given to a worker thread which runs the rest of the pattern on it,
+ * passing results back through a bounded buffer.
+ * Results are returned in the order of the batches, so they are in the same order as
+ * for single threaded execution.
+ * <p>
+ * At most one batch for each worker is in progress at a time.
+ * {@link #close} and {@link #abort} return only when no worker is still
+ * running, so the indexes are not used after the iterator, or its transaction, ends.
+ *
+ * @see TDB#symParallelBGP
+ */
+public class StageParallel implements Iterator<BindingNodeId>, Abortable, Closeable
+{
+    public static final int DftBatchSize    = 500 ;
+    public static final int BufferSize      = 1000 ;
+
+    private static final ExecutorService executor = ThreadLib.daemonExecutor() ;
+
+    // End marker - compared by identity.
+    private static final BindingNodeId endMarker = new BindingNodeId() ;
+
+    /** The number of workers for parallel execution of basic graph patterns; 0 for none. */
+    public static int workers(Context context)
+    {
+        if ( context.isTrue(TDB.symParallelBGP) )
+            return Runtime.getRuntime().availableProcessors() ;
+        if ( context.isFalseOrUndef(TDB.symParallelBGP) )
+            return 0 ;
+        return context.getInt(TDB.symParallelBGP, 0) ;
+    }
+
+    private final Iterator<BindingNodeId> input ;
+    private final Function<Iterator<BindingNodeId>, Iterator<BindingNodeId>> pipeline ;
+    private final int workers ;
+    private final int batchSize ;
+    private final Deque<Batch> inProgress = new ArrayDeque<>() ;
+    // Batches given to the executor and not yet finished; abort() is called from other threads.
+    private final Set<Batch> running = ConcurrentHashMap.newKeySet() ;
+    private volatile boolean stopped = false ;
+    private volatile boolean aborted = false ;
+    private BindingNodeId slot = null ;
+
+    /**
+     * @param input     The rows from the first step.
+     * @param pipeline  Build the rest of the pattern matching over a batch of rows.
+     * @param workers   The number of batches to have in progress at once.
+     * @param batchSize Rows of the input in each batch.
+     */
+    public StageParallel(Iterator<BindingNodeId> input,
+                         Function<Iterator<BindingNodeId>, Iterator<BindingNodeId>> pipeline,
+                         int workers, int batchSize)
+    {
+        this.input = input ;
+        this.pipeline = pipeline ;
+        this.workers = workers ;
+        this.batchSize = batchSize ;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if ( aborted )
+            throw new QueryCancelledException() ;
+        if ( slot != null )
+            return true ;
+        if ( stopped )
+            return false ;
+        for (;;)
+        {
+            startBatches() ;
+            Batch batch = inProgress.peekFirst() ;
+            if ( batch == null )
+                return false ;
+            BindingNodeId b = batch.take() ;
+            if ( b != null )
+            {
+                slot = b ;
+                return true ;
+            }
+            inProgress.removeFirst() ;
+        }
+    }
+
+    @Override
+    public BindingNodeId next()
+    {
+        if ( ! hasNext() )
+            throw new NoSuchElementException() ;
+        BindingNodeId b = slot ;
+        slot = null ;
+        return b ;
+    }
+
+    private void startBatches()
+    {
+        while ( inProgress.size() < workers && input.hasNext() )
+        {
+            List<BindingNodeId> rows = new ArrayList<>(batchSize) ;
+            while ( rows.size() < batchSize && input.hasNext() )
+                rows.add(input.next()) ;
+            Batch batch = new Batch(rows) ;
+            // Register before checking "stopped" so stop() either sees the batch or it is not started.
+            running.add(batch) ;
+            if ( stopped )
+            {
+                running.remove(batch) ;
+                return ;
+            }
+            inProgress.addLast(batch) ;
+            executor.execute(batch) ;
+        }
+    }
+
+    /** Can call asynchronously at anytime */
+    @Override
+    public void abort()
+    {
+        aborted = true ;
+        stop() ;
+    }
+
+    @Override
+    public void close()
+    {
+        stop() ;
+    }
+
+    // Workers check this between results, and while waiting on a full buffer,
+    // so they finish soon after; wait for them so none is left inside an index.
+    private void stop()
+    {
+        stopped = true ;
+        boolean interrupted = false ;
+        for ( Batch batch : running )
+        {
+            for (;;)
+            {
+                try { batch.finished.await() ; break ; }
+                catch (InterruptedException ex) { interrupted = true ; }
+            }
+        }
+        if ( interrupted )
+            Thread.currentThread().interrupt() ;
+    }
+
+    /** One batch of the input and its results. */
+    private class Batch implements Runnable
+    {
+        private final List<BindingNodeId> rows ;
+        private final BlockingQueue<BindingNodeId> queue = new ArrayBlockingQueue<>(BufferSize) ;
+        private final CountDownLatch finished = new CountDownLatch(1) ;
+        private volatile Throwable exception = null ;
+
+        Batch(List<BindingNodeId> rows) { this.rows = rows ; }
+
+        @Override
+        public void run()
+        {
+            try {
+                Iterator<BindingNodeId> iter = pipeline.apply(rows.iterator()) ;
+                while ( ! stopped && iter.hasNext() )
+                    put(iter.next()) ;
+            } catch (Throwable th) {
+                if ( ! stopped )
+                    exception = th ;
+            } finally {
+                putEnd() ;
+                running.remove(this) ;
+                finished.countDown() ;
+            }
+        }
+
+        private void put(BindingNodeId b) throws InterruptedException
+        {
+            while ( ! queue.offer(b, 100, TimeUnit.MILLISECONDS) )
+            {
+                if ( stopped )
+                    return ;
+            }
+        }
+
+        // Always delivered so the consumer does not wait forever.
+        private void putEnd()
+        {
+            try {
+                while ( ! queue.offer(endMarker, 100, TimeUnit.MILLISECONDS) )
+                {
+                    if ( stopped )
+                        queue.clear() ;
+                }
+            } catch (InterruptedException ex) {
+                queue.clear() ;
+                queue.offer(endMarker) ;
+            }
+        }
+
+        /** Next result, or null at the end of the batch. */
+        BindingNodeId take()
+        {
+            BindingNodeId b ;
+            try { b = queue.take() ; }
+            catch (InterruptedException ex) { throw new QueryCancelledException() ; }
+            if ( b != endMarker )
+                return b ;
+            Throwable th = exception ;
+            if ( th instanceof RuntimeException )
+                throw (RuntimeException)th ;
+            if ( th instanceof Error )
+                throw (Error)th ;
+            if ( th != null )
+                throw new TDBException(th) ;
+            return null ;
+        }
+    }
+}
@@ -0,0 +1,649 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver.stats;
+
+import java.io.BufferedOutputStream ;
+import java.io.File ;
+import java.io.FileOutputStream ;
+import java.io.IOException ;
+import java.io.OutputStream ;
+import java.nio.file.AtomicMoveNotSupportedException ;
+import java.nio.file.Files ;
+import java.nio.file.StandardCopyOption ;
+import java.util.* ;
+
+import org.apache.jena.atlas.lib.tuple.Tuple ;
+import org.apache.jena.atlas.logging.Log ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.engine.optimizer.CharacteristicSet ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.sparql.engine.optimizer.CostStatsBase ;
+import org.apache.jena.sparql.engine.optimizer.Histogram ;
+import org.apache.jena.sparql.expr.NodeValue ;
+import org.apache.jena.sparql.sse.Item ;
+import org.apache.jena.sparql.sse.ItemList ;
+import org.apache.jena.sparql.sse.ItemWriter ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.store.DatasetGraphTDB ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.nodetable.NodeTable ;
+import org.apache.jena.tdb.store.nodetable.NodeTableInline ;
+import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
+import org.apache.jena.tdb.store.tupletable.TupleIndex ;
+import org.apache.jena.tdb.sys.Names ;
+
+/** Statistics of the default graph of a database for cost-based join ordering:
+ * the triple count, for each predicate the count and the number of distinct
+ * subjects and objects, characteristic sets and equi-depth histograms of the
+ * inline numeric and dateTime values of objects.
+ * <p>
+ * The statistics are built by scanning the SPO and POS indexes, then updated with the
+ * changes of write transactions after they commit (see {@link #update}).
+ * They are kept in the file {@link Names#optCostStats} of the database.
+ * <p>
+ * Only inline values are put in histograms, using the inline NodeId format of the database.
+ * <p>
+ * A histogram keeps its buckets as values are added and removed;
+ * it is rebuilt when the number of values has doubled or halved.
+ */
+public class CostStatsTDB implements CostStats
+{
+    public static final String TAG          = "coststats" ;
+
+    /** Maximum number of values used to build a histogram; larger predicates are sampled. */
+    public static int HistogramSample       = 100*1000 ;
+
+    /** Maximum number of characteristic sets kept; the ones with most subjects are kept. */
+    public static int MaxCharacteristicSets = 10*1000 ;
+
+    private final Location location ;
+    // NodeId format version, for which values are inline.
+    private final int nodeIdVersion ;
+
+    // Guarded by "this".
+    private long count = 0 ;
+    // Predicate -> {count, distinct subjects, distinct objects}
+    private final Map<Node, long[]> predicates = new HashMap<>() ;
+    private final Map<Set<Node>, CharacteristicSet> charSets = new HashMap<>() ;
+    private final Map<Node, Histogram> histograms = new HashMap<>() ;
+    // Number of values when a histogram was built.
+    private final Map<Node, Long> histogramBuilt = new HashMap<>() ;
+
+    // Read-only copy for query planning, made when needed after a change.
+    private volatile CostStatsBase snapshot = null ;
+
+    private CostStatsTDB(Location location, int nodeIdVersion)
+    {
+        this.location = location ;
+        this.nodeIdVersion = nodeIdVersion ;
+    }
+
+    /** The statistics of a database: read from its statistics file, if there is one,
+     *  else built if <code>build</code> is true, else null.
+     */
+    public static CostStatsTDB create(DatasetGraphTDB dsg, boolean build)
+    {
+        Location location = dsg.getLocation() ;
+        int version = NodeTableInline.versionOf(dsg.getTripleTable().getNodeTupleTable().getNodeTable()) ;
+        if ( ! location.isMem() && location.exists(Names.optCostStats) )
+        {
+            try {
+                return read(location, version) ;
+            } catch (RuntimeException ex) {
+                Log.warn(CostStatsTDB.class, "Problem reading statistics file - rebuilding: "+ex.getMessage()) ;
+            }
+        }
+        else if ( ! build )
+            return null ;
+        CostStatsTDB stats = new CostStatsTDB(location, version) ;
+        synchronized(stats) {
+            stats.build(dsg) ;
+            stats.write() ;
+        }
+        return stats ;
+    }
+
+    // ---- CostStats
+
+    @Override
+    public long getCount()                              { return snapshot().getCount() ; }
+
+    @Override
+    public long getCount(Node predicate)                { return snapshot().getCount(predicate) ; }
+
+    @Override
+    public long getDistinctSubjects(Node predicate)     { return snapshot().getDistinctSubjects(predicate) ; }
+
+    @Override
+    public long getDistinctObjects(Node predicate)      { return snapshot().getDistinctObjects(predicate) ; }
+
+    @Override
+    public double getStarCount(Collection<Node> preds)  { return snapshot().getStarCount(preds) ; }
+
+    @Override
+    public double getRangeSelectivity(Node predicate, NodeValue low, NodeValue high)
+    { return snapshot().getRangeSelectivity(predicate, low, high) ; }
+
+    /** A copy of the current statistics. */
+    public CostStatsBase snapshot()
+    {
+        CostStatsBase x = snapshot ;
+        if ( x != null )
+            return x ;
+        synchronized(this) {
+            if ( snapshot == null )
+                snapshot = copy() ;
+            return snapshot ;
+        }
+    }
+
+    private CostStatsBase copy()
+    {
+        CostStatsBase x = new CostStatsBase() ;
+        x.setCount(count) ;
+        predicates.forEach((p, v) -> x.setPredicate(p, v[0], v[1], v[2])) ;
+        for ( CharacteristicSet cs : charSets.values() )
+            x.addCharacteristicSet(copy(cs)) ;
+        histograms.forEach((p, h) -> x.setHistogram(p, new Histogram(h.getBounds().clone(), h.getCounts().clone()))) ;
+        return x ;
+    }
+
+    private static CharacteristicSet copy(CharacteristicSet cs)
+    {
+        CharacteristicSet cs2 = new CharacteristicSet(cs.getPredicates()) ;
+        Map<Node, Long> occurrences = new HashMap<>() ;
+        for ( Node p : cs.getPredicates() )
+            occurrences.put(p, cs.getOccurrences(p)) ;
+        cs2.add(cs.getSubjectCount(), occurrences) ;
+        return cs2 ;
+    }
+
+    // ---- Build
+
+    private void reset()
+    {
+        count = 0 ;
+        predicates.clear() ;
+        charSets.clear() ;
+        histograms.clear() ;
+        histogramBuilt.clear() ;
+        snapshot = null ;
+    }
+
+    /** Build the statistics from the triples of the dataset. */
+    private void build(DatasetGraphTDB dsg)
+    {
+        reset() ;
+        NodeTupleTable ntt = dsg.getTripleTable().getNodeTupleTable() ;
+        NodeTable nodeTable = ntt.getNodeTable() ;
+        TupleIndex spo = index(ntt, "SPO") ;
+        TupleIndex pos = index(ntt, "POS") ;
+
+        Map<NodeId, long[]> preds = new HashMap<>() ;
+        Map<Set<NodeId>, CharSetIds> sets = new HashMap<>() ;
+        Map<NodeId, Sample> samples = new HashMap<>() ;
+
+        // Subjects are in order in the SPO index.
+        Iterator<Tuple<NodeId>> iter = ( spo != null ) ? spo.all() : ntt.findAll() ;
+        NodeId subject = null ;
+        Map<NodeId, Long> current = new HashMap<>() ;
+        while ( iter.hasNext() )
+        {
+            Tuple<NodeId> t = iter.next() ;
+            NodeId s = t.get(0) ;
+            NodeId p = t.get(1) ;
+            NodeId o = t.get(2) ;
+            if ( ! s.equals(subject) )
+            {
+                endSubject(current, preds, sets) ;
+                subject = s ;
+            }
+            count++ ;
+            current.merge(p, 1L, Long::sum) ;
+            preds.computeIfAbsent(p, (k)->new long[]{0, 0, spo == null ? UNKNOWN : 0})[0]++ ;
+            double v = value(o) ;
+            if ( ! Double.isNaN(v) )
+                samples.computeIfAbsent(p, (k)->new Sample()).add(v) ;
+        }
+        endSubject(current, preds, sets) ;
+        if ( spo == null )
+        {
+            // Subjects were not in order.
+            for ( long[] x : preds.values() )
+                x[1] = UNKNOWN ;
+            sets.clear() ;
+        }
+
+        // Distinct objects: (predicate, object) pairs are in order in the POS index.
+        if ( pos != null )
+        {
+            Iterator<Tuple<NodeId>> iter2 = pos.all() ;
+            NodeId lastP = null ;
+            NodeId lastO = null ;
+            while ( iter2.hasNext() )
+            {
+                Tuple<NodeId> t = iter2.next() ;
+                NodeId p = t.get(1) ;
+                NodeId o = t.get(2) ;
+                if ( p.equals(lastP) && o.equals(lastO) )
+                    continue ;
+                preds.get(p)[2]++ ;
+                lastP = p ;
+                lastO = o ;
+            }
+        }
+        else
+        {
+            for ( long[] x : preds.values() )
+                x[2] = UNKNOWN ;
+        }
+
+        preds.forEach((p, x) -> predicates.put(nodeTable.getNodeForNodeId(p), x)) ;
+        samples.forEach((p, sample) -> {
+            Node pn = nodeTable.getNodeForNodeId(p) ;
+            histograms.put(pn, sample.histogram()) ;
+            histogramBuilt.put(pn, sample.total) ;
+        }) ;
+        List<CharSetIds> all = new ArrayList<>(sets.values()) ;
+        if ( all.size() > MaxCharacteristicSets )
+        {
+            all.sort((a, b) -> Long.compare(b.subjects, a.subjects)) ;
+            all = all.subList(0, MaxCharacteristicSets) ;
+        }
+        for ( CharSetIds ids : all )
+        {
+            Map<Node, Long> occurrences = new HashMap<>() ;
+            ids.occurrences.forEach((p, n) -> occurrences.put(nodeTable.getNodeForNodeId(p), n)) ;
+            CharacteristicSet cs = new CharacteristicSet(occurrences.keySet()) ;
+            cs.add(ids.subjects, occurrences) ;
+            charSets.put(new HashSet<>(occurrences.keySet()), cs) ;
+        }
+    }
+
+    private static void endSubject(Map<NodeId, Long> current, Map<NodeId, long[]> preds, Map<Set<NodeId>, CharSetIds> sets)
+    {
+        if ( current.isEmpty() )
+            return ;
+        for ( NodeId p : current.keySet() )
+            preds.get(p)[1]++ ;
+        CharSetIds cs = sets.computeIfAbsent(new HashSet<>(current.keySet()), (k)->new CharSetIds()) ;
+        cs.subjects++ ;
+        current.forEach((p, n) -> cs.occurrences.merge(p, n, Long::sum)) ;
+        current.clear() ;
+    }
+
+    private static TupleIndex index(NodeTupleTable ntt, String name)
+    {
+        for ( TupleIndex idx : ntt.getTupleTable().getIndexes() )
+        {
+            if ( idx.getName().equals(name) )
+                return idx ;
+        }
+        return null ;
+    }
+
+    // Characteristic set accumulated by NodeId.
+    private static class CharSetIds
+    {
+        long subjects = 0 ;
+        Map<NodeId, Long> occurrences = new HashMap<>() ;
+    }
+
+    // Reservoir sample of the values of a predicate.
+    private static class Sample
+    {
+        private final Random random = new Random(0) ;
+        private double[] values = new double[16] ;
+        private int size = 0 ;
+        long total = 0 ;
+
+        void add(double v)
+        {
+            total++ ;
+            if ( size < HistogramSample )
+            {
+                if ( size == values.length )
+                    values = Arrays.copyOf(values, Math.min(HistogramSample, 2*size)) ;
+                values[size++] = v ;
+                return ;
+            }
+            long i = (long)(random.nextDouble()*total) ;
+            if ( i < size )
+                values[(int)i] = v ;
+        }
+
+        Histogram histogram()
+        {
+            Histogram h = Histogram.create(Arrays.copyOf(values, size), Histogram.DftBuckets) ;
+            if ( total == size )
+                return h ;
+            // Scale up from the sample.
+            long[] counts = h.getCounts() ;
+            double f = (double)total / size ;
+            for ( int i = 0 ; i < counts.length ; i++ )
+                counts[i] = Math.round(counts[i]*f) ;
+            return new Histogram(h.getBounds(), counts) ;
+        }
+    }
+
+    // Inline numbers and dateTimes. 
+    // The NodeIds in the indexes were made with the database's NodeId format version.
+    private static double value(NodeId id)
+    {
+        if ( ! NodeId.isInline(id) )
+            return Double.NaN ;
+        return Histogram.value(NodeId.extract(id)) ;
+    }
+
+    // The same values as value(NodeId) for the NodeId the database has for the node.
+    private double value(Node node)
+    {
+        NodeId id = NodeId.inline(node, nodeIdVersion) ;
+        if ( id == null )
+            return Double.NaN ;
+        return value(id) ;
+    }
+
+    // ---- Update
+
+    /** Update the statistics with the changes made by one or more write transactions.
+     * The dataset is a view of the database just after the changes, such as a read
+     * transaction started before any later commit. The statistics file is rewritten.
+     */
+    public synchronized void update(TripleChanges changes, DatasetGraphTDB dsg)
+    {
+        if ( changes.isEmpty() )
+            return ;
+        snapshot = null ;
+        if ( changes.isOverflow() )
+        {
+            build(dsg) ;
+            write() ;
+            return ;
+        }
+        if ( changes.isCleared() )
+            reset() ;
+
+        Map<Node, Map<Node, Long>> subjects = new LinkedHashMap<>() ;
+        Map<Triple, Long> objects = new LinkedHashMap<>() ;
+        Set<Node> rebuild = new HashSet<>() ;
+
+        for ( Map.Entry<Triple, Integer> e : changes.getChanges().entrySet() )
+        {
+            Triple t = e.getKey() ;
+            long delta = e.getValue() ;
+            Node p = t.getPredicate() ;
+            count += delta ;
+            long[] x = predicates.computeIfAbsent(p, (k)->new long[]{0, 0, 0}) ;
+            x[0] += delta ;
+            subjects.computeIfAbsent(t.getSubject(), (k)->new HashMap<>()).merge(p, delta, Long::sum) ;
+            objects.merge(Triple.create(Node.ANY, p, t.getObject()), delta, Long::sum) ;
+            double v = value(t.getObject()) ;
+            if ( ! Double.isNaN(v) )
+            {
+                Histogram h = histograms.get(p) ;
+                if ( h == null )
+                    rebuild.add(p) ;
+                else
+                    h.add(v, delta) ;
+            }
+        }
+
+        for ( Map.Entry<Node, Map<Node, Long>> e : subjects.entrySet() )
+            updateSubject(dsg, e.getKey(), e.getValue()) ;
+
+        for ( Map.Entry<Triple, Long> e : objects.entrySet() )
+        {
+            long[] x = predicates.get(e.getKey().getPredicate()) ;
+            if ( x[2] == UNKNOWN )
+                continue ;
+            long delta = e.getValue() ;
+            if ( delta == 0 )
+                continue ;
+            Triple t = e.getKey() ;
+            // Count the matches after the changes, as far as needed to see whether there were any before.
+            long after = 0 ;
+            Iterator<Triple> iter = dsg.getTripleTable().find(Node.ANY, t.getPredicate(), t.getObject()) ;
+            while ( iter.hasNext() && after <= Math.max(0, delta) )
+            {
+                iter.next() ;
+                after++ ;
+            }
+            boolean existsBefore = after - delta > 0 ;
+            boolean existsAfter = after > 0 ;
+            if ( existsAfter && ! existsBefore )
+                x[2]++ ;
+            if ( existsBefore && ! existsAfter )
+                x[2]-- ;
+        }
+
+        for ( Map.Entry<Node, Histogram> e : histograms.entrySet() )
+        {
+            long built = histogramBuilt.getOrDefault(e.getKey(), 0L) ;
+            long now = e.getValue().getTotal() ;
+            if ( now > 2*built || 2*now < built )
+                rebuild.add(e.getKey()) ;
+        }
+        for ( Node p : rebuild )
+            rebuildHistogram(dsg, p) ;
+
+        predicates.values().removeIf(x -> x[0] <= 0) ;
+        write() ;
+    }
+
+    private void updateSubject(DatasetGraphTDB dsg, Node subject, Map<Node, Long> deltas)
+    {
+        Map<Node, Long> after = new HashMap<>() ;
+        Iterator<Triple> iter = dsg.getTripleTable().find(subject, Node.ANY, Node.ANY) ;
+        while ( iter.hasNext() )
+            after.merge(iter.next().getPredicate(), 1L, Long::sum) ;
+        Map<Node, Long> before = new HashMap<>(after) ;
+        deltas.forEach((p, d) -> before.merge(p, -d, Long::sum)) ;
+        before.values().removeIf(n -> n <= 0) ;
+
+        Set<Node> preds = new HashSet<>(before.keySet()) ;
+        preds.addAll(after.keySet()) ;
+        for ( Node p : preds )
+        {
+            long[] x = predicates.get(p) ;
+            if ( x == null || x[1] == UNKNOWN )
+                continue ;
+            boolean b = before.containsKey(p) ;
+            boolean a = after.containsKey(p) ;
+            if ( a && ! b )
+                x[1]++ ;
+            if ( b && ! a )
+                x[1]-- ;
+        }
+
+        if ( before.keySet().equals(after.keySet()) && ! charSets.containsKey(after.keySet()) && ! after.isEmpty() )
+            // A subject of a characteristic set that is not kept.
+            return ;
+        if ( ! before.isEmpty() )
+        {
+            CharacteristicSet cs = charSets.get(before.keySet()) ;
+            if ( cs != null )
+            {
+                Map<Node, Long> negated = new HashMap<>() ;
+                before.forEach((p, n) -> negated.put(p, -n)) ;
+                cs.add(-1, negated) ;
+                if ( cs.getSubjectCount() <= 0 )
+                    charSets.remove(before.keySet()) ;
+            }
+        }
+        if ( ! after.isEmpty() )
+        {
+            CharacteristicSet cs = charSets.get(after.keySet()) ;
+            if ( cs == null )
+            {
+                if ( charSets.size() >= MaxCharacteristicSets )
+                    return ;
+                cs = new CharacteristicSet(after.keySet()) ;
+                charSets.put(new HashSet<>(after.keySet()), cs) ;
+            }
+            cs.add(1, after) ;
+        }
+    }
+
+    private void rebuildHistogram(DatasetGraphTDB dsg, Node predicate)
+    {
+        Sample sample = new Sample() ;
+        Iterator<Triple> iter = dsg.getTripleTable().find(Node.ANY, predicate, Node.ANY) ;
+        while ( iter.hasNext() )
+        {
+            double v = value(iter.next().getObject()) ;
+            if ( ! Double.isNaN(v) )
+                sample.add(v) ;
+        }
+        if ( sample.total == 0 )
+        {
+            histograms.remove(predicate) ;
+            histogramBuilt.remove(predicate) ;
+            return ;
+        }
+        histograms.put(predicate, sample.histogram()) ;
+        histogramBuilt.put(predicate, sample.total) ;
+    }
+
+    // ---- Persistence
+
+    /** Write the statistics file. Does nothing for an in-memory database. */
+    private void write()
+    {
+        if ( location.isMem() )
+            return ;
+        String filename = location.getPath(Names.optCostStats) ;
+        File tmp = new File(filename+".tmp") ;
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+                ItemWriter.write(out, format()) ;
+            }
+            // Readers see the old file or the new one, never a partial file.
+            try {
+                Files.move(tmp.toPath(), new File(filename).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE) ;
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp.toPath(), new File(filename).toPath(), StandardCopyOption.REPLACE_EXISTING) ;
+            }
+        } catch (IOException ex)
+        { Log.warn(this, "Problem when writing statistics file", ex) ; }
+    }
+
+    private Item format()
+    {
+        Item stats = Item.createList() ;
+        ItemList list = stats.getList() ;
+        list.add(TAG) ;
+        list.add(tagged("count", number(count))) ;
+        predicates.forEach((p, x) ->
+            list.add(tagged("predicate", Item.createNode(p), number(x[0]), number(x[1]), number(x[2])))) ;
+        for ( CharacteristicSet cs : charSets.values() )
+        {
+            Item item = tagged("charset", number(cs.getSubjectCount())) ;
+            for ( Node p : cs.getPredicates() )
+                item.getList().add(list(Item.createNode(p), number(cs.getOccurrences(p)))) ;
+            list.add(item) ;
+        }
+        histograms.forEach((p, h) -> {
+            Item bounds = tagged("bounds") ;
+            for ( double b : h.getBounds() )
+                bounds.getList().add(NodeValue.makeDouble(b).asNode()) ;
+            Item counts = tagged("counts") ;
+            for ( long c : h.getCounts() )
+                counts.getList().add(number(c)) ;
+            list.add(tagged("histogram", Item.createNode(p), number(histogramBuilt.getOrDefault(p, 0L)), bounds, counts)) ;
+        }) ;
+        return stats ;
+    }
+
+    private static Item number(long x)
+    {
+        return Item.createNode(NodeValue.makeInteger(x).asNode()) ;
+    }
+
+    private static Item tagged(String tag, Item... items)
+    {
+        Item x = Item.createTagged(tag) ;
+        for ( Item i : items )
+            x.getList().add(i) ;
+        return x ;
+    }
+
+    private static Item list(Item... items)
+    {
+        Item x = Item.createList() ;
+        for ( Item i : items )
+            x.getList().add(i) ;
+        return x ;
+    }
+
+    private static CostStatsTDB read(Location location, int nodeIdVersion)
+    {
+        Item item = SSE.readFile(location.getPath(Names.optCostStats)) ;
+        if ( ! item.isTagged(TAG) )
+            throw new IllegalArgumentException("Not a statistics file: "+location.getPath(Names.optCostStats)) ;
+        CostStatsTDB stats = new CostStatsTDB(location, nodeIdVersion) ;
+        for ( ItemList list = item.getList().cdr() ; ! list.isEmpty() ; list = list.cdr() )
+        {
+            Item elt = list.car() ;
+            ItemList x = elt.getList() ;
+            if ( elt.isTagged("count") )
+                stats.count = longValue(x.get(1)) ;
+            else if ( elt.isTagged("predicate") )
+                stats.predicates.put(x.get(1).getNode(),
+                                     new long[]{longValue(x.get(2)), longValue(x.get(3)), longValue(x.get(4))}) ;
+            else if ( elt.isTagged("charset") )
+            {
+                Map<Node, Long> occurrences = new HashMap<>() ;
+                for ( int i = 2 ; i < x.size() ; i++ )
+                    occurrences.put(x.get(i).getList().get(0).getNode(), longValue(x.get(i).getList().get(1))) ;
+                CharacteristicSet cs = new CharacteristicSet(occurrences.keySet()) ;
+                cs.add(longValue(x.get(1)), occurrences) ;
+                stats.charSets.put(new HashSet<>(occurrences.keySet()), cs) ;
+            }
+            else if ( elt.isTagged("histogram") )
+            {
+                Node p = x.get(1).getNode() ;
+                ItemList b = x.get(3).getList() ;
+                ItemList c = x.get(4).getList() ;
+                double[] bounds = new double[b.size()-1] ;
+                for ( int i = 1 ; i < b.size() ; i++ )
+                    bounds[i-1] = b.get(i).getDouble() ;
+                long[] counts = new long[c.size()-1] ;
+                for ( int i = 1 ; i < c.size() ; i++ )
+                    counts[i-1] = longValue(c.get(i)) ;
+                stats.histograms.put(p, new Histogram(bounds, counts)) ;
+                stats.histogramBuilt.put(p, longValue(x.get(2))) ;
+            }
+        }
+        return stats ;
+    }
+
+    private static long longValue(Item item)
+    {
+        return Long.parseLong(item.getNode().getLiteralLexicalForm()) ;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return format().toString() ;
+    }
+}
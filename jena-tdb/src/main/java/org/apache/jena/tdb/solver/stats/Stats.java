@@ -34,11 +34,14 @@ import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.graph.Triple ;
+import org.apache.jena.sparql.engine.optimizer.CostStats ;
+import org.apache.jena.sparql.engine.optimizer.CostStatsBase ;
 import org.apache.jena.sparql.engine.optimizer.StatsMatcher ;
 import org.apache.jena.sparql.graph.NodeConst ;
 import org.apache.jena.sparql.sse.Item ;
 import org.apache.jena.sparql.sse.ItemList ;
 import org.apache.jena.sparql.sse.ItemWriter ;
+import org.apache.jena.sparql.sse.SSE ;
 import org.apache.jena.sparql.util.NodeFactoryExtra ;
 
 public class Stats
@@ -88,6 +91,35 @@ public class Stats
         return stats ;
     }
 
+    /** Read the total and the predicate counts of a statistics file as statistics for cost-based join ordering.
+     * Distinct subject and object counts are not recorded in the file and are left unknown. */
+    public static CostStatsBase readCostStats(String filename)
+    {
+        CostStatsBase stats = new CostStatsBase() ;
+        Item item = SSE.readFile(filename) ;
+        if ( ! item.isTagged(StatsMatcher.STATS) )
+            return stats ;
+        ItemList list = item.getList().cdr() ;
+        for ( ; ! list.isEmpty() ; list = list.cdr() )
+        {
+            Item elt = list.car() ;
+            if ( elt.isTagged(StatsMatcher.META) )
+            {
+                Item x = Item.find(elt.getList(), StatsMatcher.COUNT) ;
+                if ( x != null )
+                    stats.setCount(x.getList().get(1).asInteger()) ;
+                continue ;
+            }
+            // (<uri> count) ; patterns and the default rule are for the weighted reorder. 
+            if ( ! elt.isList() || elt.getList().size() != 2 )
+                continue ;
+            Item pat = elt.getList().get(0) ;
+            if ( pat.isNode() && pat.getNode().isURI() )
+                stats.setPredicate(pat.getNode(), elt.getList().get(1).asInteger(), CostStats.UNKNOWN, CostStats.UNKNOWN) ;
+        }
+        return stats ;
+    }
+
     public static Item format(StatsResults stats)
     {
         return format(stats.getPredicates(), stats.getTypes(), stats.getCount()) ;
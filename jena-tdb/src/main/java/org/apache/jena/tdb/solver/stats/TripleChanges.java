@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver.stats;
+
+import java.util.Collections ;
+import java.util.LinkedHashMap ;
+import java.util.Map ;
+
+import org.apache.jena.graph.Triple ;
+
+/** The changes to the triples of a database made by a write transaction,
+ * for keeping statistics up to date.
+ * Only changes that take effect (adding a triple that was not present,
+ * deleting one that was) should be recorded.
+ * <p>
+ * An add and a delete of the same triple cancel out. If there are more than
+ * {@link #MaxChanges} different triples changed, the changes are no longer recorded
+ * and the statistics are rebuilt instead.
+ */
+public class TripleChanges
+{
+    public static int MaxChanges = 1000*1000 ;
+
+    // +1 for added, -1 for deleted.
+    private final Map<Triple, Integer> changes = new LinkedHashMap<>() ;
+    private boolean cleared = false ;
+    private boolean overflow = false ;
+
+    public void add(Triple triple)      { change(triple, 1) ; }
+
+    public void delete(Triple triple)   { change(triple, -1) ; }
+
+    private void change(Triple triple, int delta)
+    {
+        if ( overflow )
+            return ;
+        int x = changes.getOrDefault(triple, 0) + delta ;
+        if ( x == 0 )
+            changes.remove(triple) ;
+        else
+            changes.put(triple, x) ;
+        if ( changes.size() > MaxChanges )
+        {
+            overflow = true ;
+            changes.clear() ;
+        }
+    }
+
+    /** All the triples have been removed. */
+    public void clear()
+    {
+        changes.clear() ;
+        cleared = true ;
+        overflow = false ;
+    }
+
+    /** Add the changes of a later transaction. */
+    public void addAll(TripleChanges later)
+    {
+        if ( later.cleared )
+            clear() ;
+        if ( later.overflow )
+        {
+            overflow = true ;
+            changes.clear() ;
+            return ;
+        }
+        later.changes.forEach(this::change) ;
+    }
+
+    /** Whether all the triples were removed before the recorded changes. */
+    public boolean isCleared()                  { return cleared ; }
+
+    /** Whether there were too many changes to record. */
+    public boolean isOverflow()                 { return overflow ; }
+
+    public boolean isEmpty()                    { return ! cleared && ! overflow && changes.isEmpty() ; }
+
+    /** The changed triples: +1 for added, -1 for deleted. */
+    public Map<Triple, Integer> getChanges()    { return Collections.unmodifiableMap(changes) ; }
+}
@@ -29,6 +29,7 @@ import org.apache.jena.atlas.lib.Sync ;
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
 import org.apache.jena.query.ReadWrite ;
 import org.apache.jena.sparql.core.DatasetGraphTriplesQuads ;
 import org.apache.jena.sparql.core.Quad ;
@@ -37,6 +38,9 @@ import org.apache.jena.sparql.core.TransactionalNotSupported ;
 import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation ;
 import org.apache.jena.tdb.base.file.Location ;
 import org.apache.jena.tdb.lib.NodeLib ;
+import org.apache.jena.tdb.lib.TupleLib ;
+import org.apache.jena.tdb.solver.stats.CostStatsTDB ;
+import org.apache.jena.tdb.solver.stats.TripleChanges ;
 import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
 import org.apache.jena.tdb.transaction.DatasetGraphTransaction ;
 import org.apache.jena.tdb.transaction.DatasetGraphTxn ;
@@ -63,6 +67,9 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
     
     private GraphTDB effectiveDefaultGraph ;
     private boolean closed = false ;
+    // Statistics kept up to date for the database, and the changes of a write transaction.
+    private CostStatsTDB costStats = null ;
+    private TripleChanges changes = null ;
 
     public DatasetGraphTDB(TripleTable tripleTable, QuadTable quadTable, DatasetPrefixesTDB prefixes, 
                            ReorderTransformation transform, StorageConfig config) {
@@ -91,7 +98,10 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
 
     @Override
     protected void addToDftGraph(Node s, Node p, Node o)
-    { getTripleTable().add(s,p,o) ; }
+    {
+        if ( getTripleTable().add(s,p,o) && changes != null )
+            changes.add(Triple.create(s, p, o)) ;
+    }
 
     @Override
     protected void addToNamedGraph(Node g, Node s, Node p, Node o)
@@ -99,7 +109,10 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
 
     @Override
     protected void deleteFromDftGraph(Node s, Node p, Node o)
-    { getTripleTable().delete(s,p,o) ; }
+    {
+        if ( getTripleTable().delete(s,p,o) && changes != null )
+            changes.delete(Triple.create(s, p, o)) ;
+    }
 
     @Override
     protected void deleteFromNamedGraph(Node g, Node s, Node p, Node o)
@@ -182,6 +195,8 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
     {
         // Leave the node table alone.
         getTripleTable().clearTriples() ;
+        if ( changes != null )
+            changes.clear() ;
         getQuadTable().clearQuads() ;
     }
     
@@ -228,7 +243,8 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
 
             // Delete them.
             for (int i = 0; i < len; i++) {
-                t.getTupleTable().delete(array[i]) ;
+                if ( t.getTupleTable().delete(array[i]) && changes != null && array[i].len() == 3 )
+                    changes.delete(TupleLib.triple(t.getNodeTable(), array[i])) ;
                 array[i] = null ;
             }
             // Finished?
@@ -239,6 +255,16 @@ public class DatasetGraphTDB extends DatasetGraphTriplesQuads
     
     public Location getLocation()       { return config.location ; }
 
+    /** Statistics for cost-based join ordering kept up to date for the database, or null. */
+    public CostStatsTDB getCostStats()                      { return costStats ; }
+
+    public void setCostStats(CostStatsTDB costStats)        { this.costStats = costStats ; }
+
+    /** The recorder of changes to the triples, for keeping statistics up to date, or null. */
+    public TripleChanges getTripleChanges()                 { return changes ; }
+
+    public void setTripleChanges(TripleChanges changes)     { this.changes = changes ; }
+
     @Override
     public void sync()
     {
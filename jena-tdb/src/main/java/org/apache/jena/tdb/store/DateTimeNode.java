@@ -133,23 +133,14 @@ public class DateTimeNode
         // Whitespace facet processing.
         lex = lex.trim() ;
         
-        boolean containsZ = (lex.indexOf('Z') > 0 ) ;
-        
         // Bug in Java 1.6 (build 5 at least)
         // T24:00:00 not accepted.
         // See also TestNodeId.nodeId_date_time_7
         
         XMLGregorianCalendar xcal = datatypeFactory.newXMLGregorianCalendar(lex) ;
         
-        if ( xcal.getFractionalSecond() != null )
-        { 
-            BigDecimal fs = xcal.getFractionalSecond() ;
-            // Were there sub-millisecond resolution fractional seconds?
-            // This isn't perfect but it needs a very long fractional part to break it,
-            // less than observable quantum of time.
-            if ( fs.doubleValue() != xcal.getMillisecond()/1000.0 )
-                return -1 ;
-        }
+        if ( ! millisecondsOnly(xcal) )
+            return -1 ;
         
         int y = xcal.getYear() ;
         
@@ -158,7 +149,57 @@ public class DateTimeNode
         
         v = date(v, xcal.getYear(), xcal.getMonth(), xcal.getDay() ) ;
         v = time(v, xcal.getHour(), xcal.getMinute(), xcal.getSecond()*1000+xcal.getMillisecond()) ;
-        
+        return tz(v, lex, xcal) ;
+    }
+
+    // From string.  Assumed legal xsd:time.
+    // Returns -1 for unpackable.
+    public static long packTime(String lex)
+    {
+        try {
+            lex = lex.trim() ;
+            XMLGregorianCalendar xcal = datatypeFactory.newXMLGregorianCalendar(lex) ;
+            if ( ! millisecondsOnly(xcal) )
+                return -1 ;
+            long v = time(0, xcal.getHour(), xcal.getMinute(), xcal.getSecond()*1000+xcal.getMillisecond()) ;
+            return tz(v, lex, xcal) ;
+        }
+        catch (Exception ex) { return -1 ; }
+    }
+
+    // From string.  Assumed legal xsd:gYear.
+    // Returns -1 for unpackable.
+    public static long packGYear(String lex)
+    {
+        try {
+            lex = lex.trim() ;
+            XMLGregorianCalendar xcal = datatypeFactory.newXMLGregorianCalendar(lex) ;
+            int y = xcal.getYear() ;
+            if ( y < 0 || y >= 8000 )
+                return -1 ;
+            long v = date(0, y, 0, 0) ;
+            return tz(v, lex, xcal) ;
+        }
+        catch (Exception ex) { return -1 ; }
+    }
+
+    private static boolean millisecondsOnly(XMLGregorianCalendar xcal)
+    {
+        if ( xcal.getFractionalSecond() != null )
+        { 
+            BigDecimal fs = xcal.getFractionalSecond() ;
+            // Were there sub-millisecond resolution fractional seconds?
+            // This isn't perfect but it needs a very long fractional part to break it,
+            // less than observable quantum of time.
+            if ( fs.doubleValue() != xcal.getMillisecond()/1000.0 )
+                return false ;
+        }
+        return true ;
+    }
+
+    private static long tz(long v, String lex, XMLGregorianCalendar xcal)
+    {
+        boolean containsZ = (lex.indexOf('Z') > 0 ) ;
         if ( containsZ )
             return tz(v, TZ_Z) ;
         
@@ -176,16 +217,26 @@ public class DateTimeNode
 
     public static String unpackDateTime(long v)
     {
-        return unpack(v, true) ;
+        return unpack(v, true, true, true) ;
     }
 
     public static String unpackDate(long v)
     {
-        return unpack(v, false) ;
+        return unpack(v, true, true, false) ;
+    }
+
+    public static String unpackTime(long v)
+    {
+        return unpack(v, false, false, true) ;
+    }
+
+    public static String unpackGYear(long v)
+    {
+        return unpack(v, true, false, false) ;
     }
 
     // Avoid calls to String.format
-    private static String unpack(long v, boolean isDateTime)
+    private static String unpack(long v, boolean withYear, boolean withMonthDay, boolean withTime)
     {
         // YYYY:MM:DD => 13 bits year, 4 bits month, 5 bits day => 22 bits
         int years = (int)BitsLong.unpack(v, YEAR, YEAR+YEAR_LEN) ;
@@ -203,14 +254,19 @@ public class DateTimeNode
         int fractionSec = milliSeconds % 1000 ;
         
         StringBuilder sb = new StringBuilder(50) ;
-        NumberUtils.formatInt(sb, years, 4) ;
-        sb.append('-') ;
-        NumberUtils.formatInt(sb, months, 2) ;
-        sb.append('-') ;
-        NumberUtils.formatInt(sb, days, 2) ;
-        if ( isDateTime )
+        if ( withYear )
+            NumberUtils.formatInt(sb, years, 4) ;
+        if ( withMonthDay )
+        {
+            sb.append('-') ;
+            NumberUtils.formatInt(sb, months, 2) ;
+            sb.append('-') ;
+            NumberUtils.formatInt(sb, days, 2) ;
+        }
+        if ( withTime )
         {
-            sb.append('T') ;
+            if ( withYear )
+                sb.append('T') ;
             NumberUtils.formatInt(sb, hours, 2) ;
             sb.append(':') ;
             NumberUtils.formatInt(sb, minutes, 2) ;
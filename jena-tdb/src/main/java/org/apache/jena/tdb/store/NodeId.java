@@ -20,6 +20,7 @@ package org.apache.jena.tdb.store;
 
 import java.math.BigDecimal ;
 import java.nio.ByteBuffer ;
+import java.nio.charset.StandardCharsets ;
 
 import org.apache.jena.atlas.lib.BitsLong ;
 import org.apache.jena.atlas.lib.Bytes ;
@@ -139,6 +140,16 @@ public class NodeId
      *  Date format:
      *  DateTime format:
      *  Boolean format:
+     *  
+     *  Version 2 (INLINE_V2) adds:
+     *  Short string format: up to 7 bytes of UTF-8, zero padded.
+     *  Double format: the high 56 bits of the IEEE 754 bits; the low 8 bits must be zero.
+     *  Float format: the 32 bits of IEEE 754.
+     *  Time format: as DateTime with a zero date.
+     *  GYear format: as Date with zero month and day.
+     *  
+     *  The version is a property of the database (StoreParams) - a NodeId
+     *  for a value depends on the version so it must not change once there is data.
      */
     
     // Type codes.
@@ -151,10 +162,31 @@ public class NodeId
     public static final int DATETIME           = 4 ;
     public static final int BOOLEAN            = 5 ;
     public static final int SHORT_STRING       = 6 ;
+    public static final int DOUBLE             = 7 ;
+    public static final int FLOAT              = 8 ;
+    public static final int TIME               = 9 ;
+    public static final int GYEAR              = 10 ;
     public static final int SPECIAL            = 0xFF ;
     
-    /** Encode a node as an inline literal.  Return null if it can't be done */
+    /** NodeId format: inline integer, decimal, date, dateTime and boolean. */
+    public static final int INLINE_V1          = 1 ;
+    /** NodeId format: {@link #INLINE_V1} and inline short strings, double, float, time and gYear. */
+    public static final int INLINE_V2          = 2 ;
+    
+    public static void checkVersion(int version)
+    {
+        if ( version != INLINE_V1 && version != INLINE_V2 )
+            throw new TDBException("Unrecognized NodeId version: "+version) ;
+    }
+    
+    /** Encode a node as an inline literal using the {@link #INLINE_V1} format.  Return null if it can't be done */
     public static NodeId inline(Node node)
+    {
+        return inline(node, INLINE_V1) ;
+    }
+    
+    /** Encode a node as an inline literal.  Return null if it can't be done */
+    public static NodeId inline(Node node, int version)
     {
         if ( node == null )
         {
@@ -168,10 +200,18 @@ public class NodeId
         if ( ! node.isLiteral() )  
             return null ;
         
-        if ( NodeUtils.isSimpleString(node) || NodeUtils.isLangString(node) )
+        if ( NodeUtils.isLangString(node) )
             return null ;
         
-        try { return inline$(node) ; }
+        if ( NodeUtils.isSimpleString(node) )
+            return version >= INLINE_V2 ? inlineString(node.getLiteralLexicalForm()) : null ;
+        
+        try {
+            NodeId nid = inline$(node) ;
+            if ( nid == null && version >= INLINE_V2 )
+                nid = inlineV2(node) ;
+            return nid ;
+        }
         catch (Throwable th) {
             Log.warn(NodeId.class, "Failed to process "+node) ;
             return null ; 
@@ -198,14 +238,31 @@ public class NodeId
         XSDDatatype.XSDboolean
     } ;
 
+    /** Additional datatypes that are candidates for inlining in {@link #INLINE_V2} */ 
+    private static RDFDatatype[] datatypesV2 = { 
+        XSDDatatype.XSDstring,
+        XSDDatatype.XSDdouble,
+        XSDDatatype.XSDfloat,
+        XSDDatatype.XSDtime,
+        XSDDatatype.XSDgYear
+    } ;
+
     /** Return true if this node has a datatype that look sliek it is inlineable.
      * The node may still be out of range (e.g. very large integer).
      * Only inline(Node)->NodeId can determine that. 
      */
     public static boolean hasInlineDatatype(Node node) {
+        return hasInlineDatatype(node, INLINE_V1) ;
+    }
+
+    public static boolean hasInlineDatatype(Node node, int version) {
         RDFDatatype dtn = node.getLiteralDatatype() ;
         for ( RDFDatatype dt : datatypes )
             if ( dt.equals(dtn) ) return true ;
+        if ( version >= INLINE_V2 ) {
+            for ( RDFDatatype dt : datatypesV2 )
+                if ( dt.equals(dtn) ) return true ;
+        }
         return false ;
     }
      
@@ -294,6 +351,108 @@ public class NodeId
         return null ;
     }
     
+    private static final int ShortStringLen = 7 ;
+    
+    private static NodeId inlineString(String lex)
+    {
+        if ( lex.length() > ShortStringLen )
+            return null ;
+        long v = 0 ;
+        int bytes = 0 ;
+        for ( int i = 0 ; i < lex.length() ; i++ )
+        {
+            char ch = lex.charAt(i) ;
+            // Zero is the padding; surrogates are not worth the complexity.
+            if ( ch == 0 || Character.isSurrogate(ch) )
+                return null ;
+            // UTF-8
+            if ( ch < 0x80 ) {
+                if ( ++bytes > ShortStringLen ) return null ;
+                v = (v << 8) | ch ;
+            } else if ( ch < 0x800 ) {
+                bytes += 2 ;
+                if ( bytes > ShortStringLen ) return null ;
+                v = (v << 8) | ( 0xC0 | (ch >> 6) ) ;
+                v = (v << 8) | ( 0x80 | (ch & 0x3F) ) ;
+            } else {
+                bytes += 3 ;
+                if ( bytes > ShortStringLen ) return null ;
+                v = (v << 8) | ( 0xE0 | (ch >> 12) ) ;
+                v = (v << 8) | ( 0x80 | ((ch >> 6) & 0x3F) ) ;
+                v = (v << 8) | ( 0x80 | (ch & 0x3F) ) ;
+            }
+        }
+        // Left align, zero padded.
+        v = v << (8*(ShortStringLen-bytes)) ;
+        return new NodeId(setType(v, SHORT_STRING)) ;
+    }
+    
+    private static Node extractString(long v)
+    {
+        byte[] b = new byte[ShortStringLen] ;
+        int len = 0 ;
+        for ( ; len < ShortStringLen ; len++ )
+        {
+            byte x = (byte)(v >>> (8*(ShortStringLen-1-len))) ;
+            if ( x == 0 )
+                break ;
+            b[len] = x ;
+        }
+        return NodeFactory.createLiteral(new String(b, 0, len, StandardCharsets.UTF_8)) ;
+    }
+    
+    private static NodeId inlineV2(Node node)
+    {
+        LiteralLabel lit = node.getLiteral() ;
+        RDFDatatype dt = node.getLiteralDatatype() ;
+        
+        if ( dt.equals(XSDDatatype.XSDdouble) )
+        {
+            if ( ! XSDDatatype.XSDdouble.isValidLiteral(lit) )
+                return null ;
+            double d = ((Number)lit.getValue()).doubleValue() ;
+            if ( Double.isNaN(d) || Double.isInfinite(d) )
+                return null ;
+            long bits = Double.doubleToRawLongBits(d) ;
+            // Only if no precision is lost.
+            if ( ( bits & 0xFF ) != 0 )
+                return null ;
+            return new NodeId(setType(bits >>> 8, DOUBLE)) ;
+        }
+        
+        if ( dt.equals(XSDDatatype.XSDfloat) )
+        {
+            if ( ! XSDDatatype.XSDfloat.isValidLiteral(lit) )
+                return null ;
+            float f = ((Number)lit.getValue()).floatValue() ;
+            if ( Float.isNaN(f) || Float.isInfinite(f) )
+                return null ;
+            long bits = Float.floatToRawIntBits(f) & 0xFFFFFFFFL ;
+            return new NodeId(setType(bits, FLOAT)) ;
+        }
+        
+        if ( dt.equals(XSDDatatype.XSDtime) )
+        {
+            if ( ! XSDDatatype.XSDtime.isValidLiteral(lit) )
+                return null ;
+            long v = DateTimeNode.packTime(lit.getLexicalForm()) ;
+            if ( v == -1 )
+                return null ;
+            return new NodeId(setType(v, TIME)) ;
+        }
+        
+        if ( dt.equals(XSDDatatype.XSDgYear) )
+        {
+            if ( ! XSDDatatype.XSDgYear.isValidLiteral(lit) )
+                return null ;
+            long v = DateTimeNode.packGYear(lit.getLexicalForm()) ;
+            if ( v == -1 )
+                return null ;
+            return new NodeId(setType(v, GYEAR)) ;
+        }
+        return null ;
+    }
+    
     public static boolean isInline(NodeId nodeId)
     {
         if ( nodeId == NodeId.NodeDoesNotExist )
@@ -312,6 +471,11 @@ public class NodeId
             case DATETIME:
             case DATE:
             case BOOLEAN:
+            case SHORT_STRING:
+            case DOUBLE:
+            case FLOAT:
+            case TIME:
+            case GYEAR:
                 return true ;
             default:
                 throw new TDBException("Unrecognized node id type: "+type) ;
@@ -359,6 +523,26 @@ public class NodeId
                     return NodeConst.nodeTrue ;
                 throw new TDBException("Unrecognized boolean node id : " + val) ;
             }
+            case SHORT_STRING :
+                return extractString(v) ;
+            case DOUBLE : {
+                double d = Double.longBitsToDouble(v << 8) ;
+                return NodeFactory.createLiteral(Double.toString(d), XSDDatatype.XSDdouble) ;
+            }
+            case FLOAT : {
+                float f = Float.intBitsToFloat((int)v) ;
+                return NodeFactory.createLiteral(Float.toString(f), XSDDatatype.XSDfloat) ;
+            }
+            case TIME : {
+                long val = BitsLong.clear(v, 56, 64) ;
+                String lex = DateTimeNode.unpackTime(val) ;
+                return NodeFactory.createLiteral(lex, XSDDatatype.XSDtime) ;
+            }
+            case GYEAR : {
+                long val = BitsLong.clear(v, 56, 64) ;
+                String lex = DateTimeNode.unpackGYear(val) ;
+                return NodeFactory.createLiteral(lex, XSDDatatype.XSDgYear) ;
+            }
             default :
                 throw new TDBException("Unrecognized node id type: " + type) ;
         }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store;
+
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.Comparator ;
+import java.util.List ;
+
+/** A range of NodeIds, from {@code min} (inclusive) to {@code max} (exclusive),
+ * in the order NodeIds are kept in indexes.
+ * <p>
+ * Inline integers keep their value order within the NodeId type block for
+ * non-negative values and for negative values so a range of integer values
+ * is one or two NodeId ranges.
+ */
+public final class NodeIdRange
+{
+    private static final long TypeBlock = 1L<<56 ;
+
+    public final long min ;
+    public final long max ;
+
+    public NodeIdRange(long min, long max) {
+        this.min = min ;
+        this.max = max ;
+    }
+
+    /** The range of all NodeIds of one type. */
+    public static NodeIdRange typeBlock(int type) {
+        return new NodeIdRange(type*TypeBlock, (type+1)*TypeBlock) ;
+    }
+
+    public boolean contains(NodeId nodeId) {
+        long v = nodeId.getId() ;
+        return v >= min && v < max ;
+    }
+
+    public static boolean contains(List<NodeIdRange> ranges, NodeId nodeId) {
+        for ( NodeIdRange r : ranges )
+            if ( r.contains(nodeId) )
+                return true ;
+        return false ;
+    }
+
+    /**
+     * NodeIds that may be for a numeric value that is in the integer range
+     * {@code [lo, hi]} or is not an integer. It is a superset: numbers in the
+     * node table and inline decimals, doubles and floats are included whatever
+     * their value; other inline types are excluded.
+     */
+    public static List<NodeIdRange> numeric(long lo, long hi) {
+        List<NodeIdRange> ranges = new ArrayList<>() ;
+        ranges.add(typeBlock(NodeId.NONE)) ;
+        lo = Math.max(lo, IntegerNode.MIN) ;
+        hi = Math.min(hi, IntegerNode.MAX) ;
+        if ( lo <= hi ) {
+            if ( lo < 0 && hi >= 0 ) {
+                // Negatives sort after non-negatives.
+                ranges.add(integers(0, hi)) ;
+                ranges.add(integers(lo, -1)) ;
+            } else
+                ranges.add(integers(lo, hi)) ;
+        }
+        ranges.add(typeBlock(NodeId.DECIMAL)) ;
+        ranges.add(typeBlock(NodeId.DOUBLE)) ;
+        ranges.add(typeBlock(NodeId.FLOAT)) ;
+        return normalize(ranges) ;
+    }
+
+    // Same sign.
+    private static NodeIdRange integers(long lo, long hi) {
+        return new NodeIdRange(IntegerNode.pack(lo), IntegerNode.pack(hi)+1) ;
+    }
+
+    /** Sort by start and merge overlapping or adjacent ranges. */
+    public static List<NodeIdRange> normalize(List<NodeIdRange> ranges) {
+        List<NodeIdRange> x = new ArrayList<>(ranges) ;
+        Collections.sort(x, Comparator.comparingLong(r -> r.min)) ;
+        List<NodeIdRange> result = new ArrayList<>() ;
+        NodeIdRange current = null ;
+        for ( NodeIdRange r : x ) {
+            if ( r.min >= r.max )
+                continue ;
+            if ( current != null && r.min <= current.max ) {
+                current = new NodeIdRange(current.min, Math.max(current.max, r.max)) ;
+                continue ;
+            }
+            if ( current != null )
+                result.add(current) ;
+            current = r ;
+        }
+        if ( current != null )
+            result.add(current) ;
+        return result ;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(min) ^ Long.hashCode(max) ;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if ( this == other ) return true ;
+        if ( !(other instanceof NodeIdRange) ) return false ;
+        NodeIdRange r = (NodeIdRange)other ;
+        return min == r.min && max == r.max ;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%016X, %016X)", min, max) ;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.bulkloader2;
+
+import java.util.ArrayList ;
+import java.util.Collections ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.NoSuchElementException ;
+import java.util.concurrent.ArrayBlockingQueue ;
+import java.util.concurrent.BlockingQueue ;
+import java.util.concurrent.TimeUnit ;
+import java.util.function.Consumer ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.Closeable ;
+import org.apache.jena.atlas.lib.Sink ;
+
+/** Run a producer on its own thread and iterate over what it produces.
+ * Items are passed across in batches through a bounded queue
+ * so the producer can not run arbitrarily far ahead of the consumer.
+ * <p>
+ * An exception in the producer is rethrown to the consumer
+ * when it reaches the end of the items produced.
+ * <p>
+ * If the consumer stops early, it must call {@link #close}, which stops the producer.
+ */
+public class IteratorPipelined<T> implements Iterator<T>, Closeable
+{
+    public static final int DftBatchSize    = 1000 ;
+    public static final int DftQueueSize    = 16 ;
+
+    // End marker - compared by identity.
+    private static final List<Object> End = Collections.unmodifiableList(new ArrayList<>()) ;
+
+    private final BlockingQueue<List<T>> queue ;
+    private final Thread thread ;
+    private volatile Throwable producerException = null ;
+    private volatile boolean cancelled = false ;
+
+    private List<T> batch = null ;
+    private int idx = 0 ;
+    private boolean finished = false ;
+
+    /** Iterate over another iterator, which is run on a separate thread. */
+    public static <T> IteratorPipelined<T> create(Iterator<T> source, String name) {
+        return new IteratorPipelined<>((sink)-> {
+                                            try { while(source.hasNext()) sink.send(source.next()) ; }
+                                            finally { Iter.close(source) ; }
+                                        }, name, DftBatchSize, DftQueueSize) ;
+    }
+
+    /** Iterate over the items the producer sends to a sink. The producer is run on a separate thread. */
+    public static <T> IteratorPipelined<T> create(Consumer<Sink<T>> producer, String name) {
+        return new IteratorPipelined<>(producer, name, DftBatchSize, DftQueueSize) ;
+    }
+
+    public IteratorPipelined(Consumer<Sink<T>> producer, String name, int batchSize, int queueSize) {
+        this.queue = new ArrayBlockingQueue<>(queueSize) ;
+        this.thread = new Thread(()->{
+            SinkBatch sink = new SinkBatch(batchSize) ;
+            try {
+                producer.accept(sink) ;
+                sink.flush() ;
+            } catch (Throwable th) {
+                if ( ! cancelled )
+                    producerException = th ;
+            } finally {
+                sink.end() ;
+            }
+        }, name) ;
+        thread.setDaemon(true) ;
+        thread.start() ;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( finished )
+            return false ;
+        while ( batch == null || idx >= batch.size() ) {
+            batch = take() ;
+            idx = 0 ;
+            if ( batch == End ) {
+                finished = true ;
+                batch = null ;
+                if ( producerException != null )
+                    throw new AtlasException("Pipeline producer failed: "+thread.getName(), producerException) ;
+                return false ;
+            }
+        }
+        return true ;
+    }
+
+    @Override
+    public T next() {
+        if ( ! hasNext() )
+            throw new NoSuchElementException() ;
+        return batch.get(idx++) ;
+    }
+
+    private List<T> take() {
+        try { return queue.take() ; }
+        catch (InterruptedException ex) { throw new AtlasException(ex) ; }
+    }
+
+    /** Stop early: the producer stops at its next item. Safe to call more than once. */
+    @Override
+    public void close() {
+        if ( cancelled )
+            return ;
+        cancelled = true ;
+        finished = true ;
+        batch = null ;
+        // Free space for a producer waiting to put.
+        queue.clear() ;
+    }
+
+    /** Collect items into batches for the queue */
+    private class SinkBatch implements Sink<T> {
+        private final int batchSize ;
+        private List<T> current ;
+
+        SinkBatch(int batchSize) {
+            this.batchSize = batchSize ;
+            this.current = new ArrayList<>(batchSize) ;
+        }
+
+        @Override
+        public void send(T item) {
+            current.add(item) ;
+            if ( current.size() >= batchSize )
+                flush() ;
+        }
+
+        @Override
+        public void flush() {
+            if ( current.isEmpty() )
+                return ;
+            put(current) ;
+            current = new ArrayList<>(batchSize) ;
+        }
+
+        @SuppressWarnings("unchecked")
+        void end() {
+            // No consumer if cancelled.
+            if ( ! cancelled )
+                put((List<T>)(List<?>)End) ;
+        }
+
+        // Throws an exception if the consumer has closed the iterator, to stop the producer.
+        private void put(List<T> x) {
+            try {
+                while ( ! queue.offer(x, 100, TimeUnit.MILLISECONDS) ) {
+                    if ( cancelled )
+                        throw new AtlasException("Pipeline cancelled: "+thread.getName()) ;
+                }
+            }
+            catch (InterruptedException ex) { throw new AtlasException(ex) ; }
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -19,7 +19,6 @@
 package org.apache.jena.tdb.store.bulkloader2;
 
 import java.io.InputStream ;
-import java.util.Iterator ;
 
 import org.apache.jena.atlas.AtlasException ;
 import org.apache.jena.atlas.io.IO ;
@@ -97,8 +96,11 @@ public class ProcIndexBuild
         BlockMgr blkMgrRecords = BlockMgrFactory.create(destination, Names.bptExtRecords, blockSizeRecords, readCacheSize, writeCacheSize);
 
         int rowBlock = 1000;
-        Iterator<Record> iter = new RecordsFromInput(input, tupleLength, colMap, rowBlock);
-        BPlusTree bpt2 = BPlusTreeRewriter.packIntoBPlusTree(iter, bptParams, recordFactory, blkMgrNodes, blkMgrRecords);
-        bpt2.close();
+        // Decode the input on one thread, pack the B+Tree on another.
+        IteratorPipelined<Record> iter = IteratorPipelined.create(new RecordsFromInput(input, tupleLength, colMap, rowBlock), "Input-"+indexName);
+        try {
+            BPlusTree bpt2 = BPlusTreeRewriter.packIntoBPlusTree(iter, bptParams, recordFactory, blkMgrNodes, blkMgrRecords);
+            bpt2.close();
+        } finally { iter.close() ; }
     }
 }
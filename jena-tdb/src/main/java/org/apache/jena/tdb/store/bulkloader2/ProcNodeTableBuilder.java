@@ -26,10 +26,14 @@ import java.util.List ;
 import org.apache.jena.atlas.AtlasException ;
 import org.apache.jena.atlas.io.IO ;
 import org.apache.jena.atlas.lib.DateTimeUtils ;
+import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.atlas.lib.ProgressMonitor ;
+import org.apache.jena.atlas.lib.Sink ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.graph.Triple ;
 import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.riot.system.StreamRDF ;
+import org.apache.jena.riot.system.StreamRDFBase ;
 import org.apache.jena.sparql.core.Quad ;
 import org.apache.jena.tdb.TDB ;
 import org.apache.jena.tdb.base.file.Location ;
@@ -72,11 +76,29 @@ public class ProcNodeTableBuilder {
         NodeTableBuilder sink = new NodeTableBuilder(dsg, monitor, outputTriples, outputQuads, collectStats) ; 
         monitor.start() ;
         sink.startBulk() ;
-        for( String filename : datafiles) {
-            if ( datafiles.size() > 0 )
-                cmdLog.info("Load: "+filename+" -- "+DateTimeUtils.nowAsString()) ;
-            RDFDataMgr.parse(sink, filename) ;
-        }
+        // Parse on a separate thread; allocate node ids and write rows on this one.
+        IteratorPipelined<Object> parsed = IteratorPipelined.create((Sink<Object> items)-> {
+            StreamRDF parserOutput = new ParserOutput(items) ;
+            for( String filename : datafiles) {
+                if ( datafiles.size() > 0 )
+                    cmdLog.info("Load: "+filename+" -- "+DateTimeUtils.nowAsString()) ;
+                RDFDataMgr.parse(parserOutput, filename) ;
+            }
+        }, "Parser") ;
+        try {
+            while ( parsed.hasNext() ) {
+                Object item = parsed.next() ;
+                if ( item instanceof Triple )
+                    sink.triple((Triple)item) ;
+                else if ( item instanceof Quad )
+                    sink.quad((Quad)item) ;
+                else {
+                    @SuppressWarnings("unchecked")
+                    Pair<String, String> prefix = (Pair<String, String>)item ;
+                    sink.prefix(prefix.getLeft(), prefix.getRight()) ;
+                }
+            }
+        } finally { parsed.close() ; }
         sink.finishBulk() ;
         IO.close(outputTriples) ;
         IO.close(outputQuads) ;
@@ -97,6 +119,23 @@ public class ProcNodeTableBuilder {
         cmdLog.info(str) ;
     }
 
+    /** Parser output, passed as triples, quads and prefix pairs to the node table builder */
+    static class ParserOutput extends StreamRDFBase
+    {
+        private final Sink<Object> items ;
+
+        ParserOutput(Sink<Object> items)            { this.items = items ; }
+
+        @Override
+        public void triple(Triple triple)           { items.send(triple) ; }
+
+        @Override
+        public void quad(Quad quad)                 { items.send(quad) ; }
+
+        @Override
+        public void prefix(String prefix, String iri) { items.send(Pair.create(prefix, iri)) ; }
+    }
+
     static class NodeTableBuilder implements BulkStreamRDF
     {
         private DatasetGraphTDB dsg ;
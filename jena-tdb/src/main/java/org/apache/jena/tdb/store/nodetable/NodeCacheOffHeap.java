@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.nodetable;
+
+import java.nio.ByteBuffer ;
+import java.util.concurrent.locks.ReadWriteLock ;
+import java.util.concurrent.locks.ReentrantReadWriteLock ;
+
+/** A fixed size cache of (id, encoded node) entries held in direct memory,
+ * outside the Java heap, so that very large caches do not add to GC work.
+ * <p>
+ * The cache is set-associative: a key hashes to one set of {@link #Ways} slots
+ * and can only be stored in that set. Each slot is {@link #SlotSize} bytes:
+ * <pre>
+ *   id:8 hash:4 length:2 ref:1 pad:1 encoding:(SlotSize-16)
+ * </pre>
+ * Eviction within a set is CLOCK: a slot has a reference bit set on each hit,
+ * and the clock hand for the set clears bits until it finds an unreferenced slot.
+ * <p>
+ * Sets are grouped into segments, each with its own block of direct memory and
+ * its own read-write lock, so readers run concurrently and writers only block
+ * access to one segment.
+ * <p>
+ * The cache is keyed either by id ({@link #get(long)}) or by the encoded node
+ * ({@link #get(byte[], int, int)}); a node table uses one of each.
+ * Encodings longer than {@link #MaxEncodedLength} are not cached.
+ * <p>
+ * Each cache uses about {@code capacity*SlotSize} bytes of direct memory;
+ * {@code -XX:MaxDirectMemorySize} may need to be raised for large caches.
+ * Direct memory is returned when the cache object is garbage collected.
+ */
+public class NodeCacheOffHeap
+{
+    /** Bytes per cache entry, including the slot header. */
+    public static final int SlotSize            = 128 ;
+    /** Number of slots in a set. */
+    public static final int Ways                = 8 ;
+    /** Returned by {@link #get(byte[], int, int)} when there is no entry. */
+    public static final long NotFound           = -1 ;
+
+    private static final int OffsetId           = 0 ;
+    private static final int OffsetHash         = 8 ;
+    private static final int OffsetLength       = 12 ;      // 0 is "empty slot"
+    private static final int OffsetRef          = 14 ;
+    private static final int HeaderSize         = 16 ;
+
+    /** Longest encoding that can be cached. */
+    public static final int MaxEncodedLength    = SlotSize - HeaderSize ;
+
+    private static final int SetSize            = Ways * SlotSize ;
+    // Keep each direct buffer well under the 2G limit.
+    private static final int MaxSetsPerSegment  = (1<<30) / SetSize ;
+
+    private static final class Segment {
+        final ByteBuffer slots ;
+        final byte[] hands ;        // The clock hand for each set.
+        final ReadWriteLock lock = new ReentrantReadWriteLock() ;
+
+        Segment(int numSets) {
+            slots = ByteBuffer.allocateDirect(numSets * SetSize) ;
+            hands = new byte[numSets] ;
+        }
+    }
+
+    private final boolean keyById ;
+    private final int capacity ;
+    private final int segmentBits ;
+    private final int segmentMask ;
+    private final int setsPerSegment ;
+    private final Segment[] segments ;
+
+    /**
+     * @param capacity          Approximate number of entries.
+     * @param concurrencyLevel  Approximate number of segments (independently locked parts).
+     * @param keyById           Whether entries are found by id, or by the encoded node.
+     */
+    public NodeCacheOffHeap(int capacity, int concurrencyLevel, boolean keyById) {
+        this.keyById = keyById ;
+        int numSets = Math.max(1, (capacity+Ways-1)/Ways) ;
+        // Power of two segments; any number of sets in a segment. 
+        int numSegments = Math.min(ceilPowerOf2(Math.max(1, concurrencyLevel)), ceilPowerOf2(numSets)) ;
+        while ( numSets/numSegments > MaxSetsPerSegment )
+            numSegments = numSegments*2 ;
+        int setsPerSegment = (numSets+numSegments-1)/numSegments ;
+
+        this.capacity = numSegments*setsPerSegment*Ways ;
+        this.segmentBits = Integer.numberOfTrailingZeros(numSegments) ;
+        this.segmentMask = numSegments-1 ;
+        this.setsPerSegment = setsPerSegment ;
+        Segment[] segs = new Segment[numSegments] ;
+        for ( int i = 0 ; i < numSegments ; i++ )
+            segs[i] = new Segment(setsPerSegment) ;
+        this.segments = segs ;
+    }
+
+    /** Number of entries the cache can hold. */
+    public int capacity()       { return capacity ; }
+
+    /** Whether the cache is keyed by id (else by encoded node). */
+    public boolean isKeyById()  { return keyById ; }
+
+    /** Get the encoded node for an id, or null. The cache must be keyed by id. */
+    public byte[] get(long id) {
+        int hash = hash(id) ;
+        Segment seg = segment(hash) ;
+        int base = setStart(hash) ;
+        seg.lock.readLock().lock() ;
+        try {
+            ByteBuffer slots = seg.slots ;
+            for ( int i = 0 ; i < Ways ; i++ ) {
+                int p = base + i*SlotSize ;
+                int len = slots.getShort(p+OffsetLength) ;
+                if ( len != 0 && slots.getLong(p+OffsetId) == id ) {
+                    // Concurrent readers only ever set the bit.
+                    slots.put(p+OffsetRef, (byte)1) ;
+                    byte[] bytes = new byte[len] ;
+                    for ( int j = 0 ; j < len ; j++ )
+                        bytes[j] = slots.get(p+HeaderSize+j) ;
+                    return bytes ;
+                }
+            }
+            return null ;
+        } finally { seg.lock.readLock().unlock() ; }
+    }
+
+    /** Get the id for an encoded node, or {@link #NotFound}. The cache must be keyed by encoding.
+     * @param bytes     The encoding
+     * @param len       Length of the encoding in the byte array.
+     * @param hash      Hash of the encoding, from {@link #hash(byte[], int)}.
+     */
+    public long get(byte[] bytes, int len, int hash) {
+        if ( len > MaxEncodedLength )
+            return NotFound ;
+        Segment seg = segment(hash) ;
+        int base = setStart(hash) ;
+        seg.lock.readLock().lock() ;
+        try {
+            int p = find(seg.slots, base, 0, hash, bytes, len) ;
+            if ( p < 0 )
+                return NotFound ;
+            seg.slots.put(p+OffsetRef, (byte)1) ;
+            return seg.slots.getLong(p+OffsetId) ;
+        } finally { seg.lock.readLock().unlock() ; }
+    }
+
+    /** Add an entry, evicting another entry in the same set if necessary.
+     * Encodings that are too long are ignored.
+     * @param id        The id
+     * @param bytes     The encoding
+     * @param len       Length of the encoding in the byte array.
+     * @param hash      Hash of the encoding, from {@link #hash(byte[], int)}.
+     */
+    public void put(long id, byte[] bytes, int len, int hash) {
+        if ( len > MaxEncodedLength || len <= 0 )
+            return ;
+        int keyHash = keyById ? hash(id) : hash ;
+        Segment seg = segment(keyHash) ;
+        int base = setStart(keyHash) ;
+        seg.lock.writeLock().lock() ;
+        try {
+            ByteBuffer slots = seg.slots ;
+            int p = find(slots, base, id, hash, bytes, len) ;
+            if ( p < 0 )
+                p = victim(seg, base, keyHash) ;
+            slots.putLong(p+OffsetId, id) ;
+            slots.putInt(p+OffsetHash, hash) ;
+            slots.putShort(p+OffsetLength, (short)len) ;
+            slots.put(p+OffsetRef, (byte)1) ;
+            for ( int j = 0 ; j < len ; j++ )
+                slots.put(p+HeaderSize+j, bytes[j]) ;
+        } finally { seg.lock.writeLock().unlock() ; }
+    }
+
+    /** Remove all entries. */
+    public void clear() {
+        for ( Segment seg : segments ) {
+            seg.lock.writeLock().lock() ;
+            try {
+                for ( int p = 0 ; p < seg.slots.capacity() ; p += SlotSize )
+                    seg.slots.putShort(p+OffsetLength, (short)0) ;
+            } finally { seg.lock.writeLock().unlock() ; }
+        }
+    }
+
+    /** Count the entries (scans the cache). */
+    public long size() {
+        long count = 0 ;
+        for ( Segment seg : segments ) {
+            seg.lock.readLock().lock() ;
+            try {
+                for ( int p = 0 ; p < seg.slots.capacity() ; p += SlotSize )
+                    if ( seg.slots.getShort(p+OffsetLength) != 0 )
+                        count++ ;
+            } finally { seg.lock.readLock().unlock() ; }
+        }
+        return count ;
+    }
+
+    /** Find the slot with the key (id or encoding) in a set; return -1 if none. */
+    private int find(ByteBuffer slots, int base, long id, int hash, byte[] bytes, int len) {
+        for ( int i = 0 ; i < Ways ; i++ ) {
+            int p = base + i*SlotSize ;
+            int slotLen = slots.getShort(p+OffsetLength) ;
+            if ( slotLen == 0 )
+                continue ;
+            if ( keyById ) {
+                if ( slots.getLong(p+OffsetId) == id )
+                    return p ;
+                continue ;
+            }
+            if ( slotLen != len || slots.getInt(p+OffsetHash) != hash )
+                continue ;
+            if ( sameBytes(slots, p+HeaderSize, bytes, len) )
+                return p ;
+        }
+        return -1 ;
+    }
+
+    /** Choose a slot to use in a set: an empty one, else by CLOCK. */
+    private int victim(Segment seg, int base, int keyHash) {
+        ByteBuffer slots = seg.slots ;
+        for ( int i = 0 ; i < Ways ; i++ ) {
+            int p = base + i*SlotSize ;
+            if ( slots.getShort(p+OffsetLength) == 0 )
+                return p ;
+        }
+        int setIdx = setIndex(keyHash) ;
+        int hand = seg.hands[setIdx] ;
+        // At most one full sweep clearing bits, then the hand slot is unreferenced. 
+        for ( int i = 0 ; i <= Ways ; i++ ) {
+            int p = base + hand*SlotSize ;
+            hand = (hand+1) % Ways ;
+            if ( slots.get(p+OffsetRef) == 0 ) {
+                seg.hands[setIdx] = (byte)hand ;
+                return p ;
+            }
+            slots.put(p+OffsetRef, (byte)0) ;
+        }
+        // Not reached.
+        seg.hands[setIdx] = (byte)hand ;
+        return base ;
+    }
+
+    private static boolean sameBytes(ByteBuffer slots, int start, byte[] bytes, int len) {
+        for ( int j = 0 ; j < len ; j++ ) {
+            if ( slots.get(start+j) != bytes[j] )
+                return false ;
+        }
+        return true ;
+    }
+
+    private Segment segment(int hash)   { return segments[hash & segmentMask] ; }
+    private int setIndex(int hash)      { return (hash >>> segmentBits) % setsPerSegment ; }
+    private int setStart(int hash)      { return setIndex(hash) * SetSize ; }
+
+    /** Hash of an id. */
+    public static int hash(long x) {
+        // MurmurHash3 finalizer.
+        x ^= x >>> 33 ;
+        x *= 0xff51afd7ed558ccdL ;
+        x ^= x >>> 33 ;
+        x *= 0xc4ceb9fe1a85ec53L ;
+        x ^= x >>> 33 ;
+        return (int)x ;
+    }
+
+    /** Hash of an encoded node. */
+    public static int hash(byte[] bytes, int len) {
+        // FNV-1a, then spread the bits. 
+        long h = 0xcbf29ce484222325L ;
+        for ( int i = 0 ; i < len ; i++ ) {
+            h ^= (bytes[i] & 0xFF) ;
+            h *= 0x100000001b3L ;
+        }
+        return hash(h) ;
+    }
+
+    private static int ceilPowerOf2(int x) {
+        if ( x <= 1 )
+            return 1 ;
+        int v = Integer.highestOneBit(x-1) << 1 ;
+        // Overflow guard.
+        return v > 0 ? v : 1<<30 ;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeCacheOffHeap["+(keyById?"id":"node")+", capacity="+capacity+", segments="+segments.length+"]" ;
+    }
+}
@@ -49,7 +49,10 @@ public class NodeTableCache implements NodeTable
     private NodeTable baseTable ;
     private Object lock = new Object() ;
 
+    /** Create the cache wrapper chosen by {@link StoreParams#getNodeCacheType()}. */
     public static NodeTable create(NodeTable nodeTable, StoreParams params) {
+        if ( params.getNodeCacheType() == NodeCacheType.offheap )
+            return NodeTableCacheOffHeap.create(nodeTable, params) ;
         int nodeToIdCacheSize = params.getNode2NodeIdCacheSize() ;
         int idToNodeCacheSize = params.getNodeId2NodeCacheSize() ;
         if ( nodeToIdCacheSize <= 0 && idToNodeCacheSize <= 0 )
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.nodetable;
+
+import java.nio.ByteBuffer ;
+import java.util.Iterator ;
+
+import org.apache.jena.atlas.lib.CacheFactory ;
+import org.apache.jena.atlas.lib.CacheSet ;
+import org.apache.jena.atlas.lib.Pair ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.tdb.TDBException ;
+import org.apache.jena.tdb.lib.NodeLib ;
+import org.apache.jena.tdb.setup.StoreParams ;
+import org.apache.jena.tdb.store.NodeId ;
+
+/** Cache wrapper around a NodeTable, with the caches held off the Java heap
+ * in {@link NodeCacheOffHeap}s.
+ * <p>
+ * Nodes are cached in their node table encoding. Compared to {@link NodeTableCache},
+ * a hit costs decoding (NodeId to Node) or encoding (Node to NodeId) but
+ * the cached entries do not occupy the heap, and cache hits do not contend
+ * on a single lock.  Cache misses are serialized, as they are in the
+ * underlying {@link NodeTableNative}.
+ * <p>
+ * Assumes all access goes through this wrapper.
+ * Read-cache - write caching is done via the object file used by the base NodeTable.
+ * 
+ * @see NodeCacheType
+ */
+public class NodeTableCacheOffHeap implements NodeTable
+{
+    /** Default number of independently locked segments per cache. */
+    public static final int ConcurrencyLevel = 4*Runtime.getRuntime().availableProcessors() ;
+
+    private NodeCacheOffHeap node2id_Cache = null ;
+    private NodeCacheOffHeap id2node_Cache = null ;
+
+    // Small, on-heap, "known unknowns".  Only accessed holding missLock.
+    private CacheSet<Node> notPresent = null ;
+    private NodeTable baseTable ;
+    // Cache misses go to the base table which is synchronized anyway.
+    // This lock keeps the "notPresent" cache consistent with allocation.
+    private final Object missLock = new Object() ;
+
+    public static NodeTable create(NodeTable nodeTable, StoreParams params) {
+        return create(nodeTable, params.getNode2NodeIdCacheSize(), params.getNodeId2NodeCacheSize(), params.getNodeMissCacheSize()) ;
+    }
+
+    public static NodeTable create(NodeTable nodeTable, int nodeToIdCacheSize, int idToNodeCacheSize, int nodeMissesCacheSize) {
+        if ( nodeToIdCacheSize <= 0 && idToNodeCacheSize <= 0 )
+            return nodeTable ;
+        return new NodeTableCacheOffHeap(nodeTable, nodeToIdCacheSize, idToNodeCacheSize, nodeMissesCacheSize) ;
+    }
+
+    private NodeTableCacheOffHeap(NodeTable baseTable, int nodeToIdCacheSize, int idToNodeCacheSize, int nodeMissesCacheSize) {
+        this.baseTable = baseTable ;
+        if ( nodeToIdCacheSize > 0 )
+            node2id_Cache = new NodeCacheOffHeap(nodeToIdCacheSize, ConcurrencyLevel, false) ;
+        if ( idToNodeCacheSize > 0 )
+            id2node_Cache = new NodeCacheOffHeap(idToNodeCacheSize, ConcurrencyLevel, true) ;
+        if ( nodeMissesCacheSize > 0 )
+            notPresent = CacheFactory.createCacheSet(nodeMissesCacheSize) ;
+    }
+
+    @Override
+    public final NodeTable wrapped() { return baseTable ; }
+
+    /** Get the Node for this NodeId, or null if none */
+    @Override
+    public Node getNodeForNodeId(NodeId id) {
+        if ( NodeId.isDoesNotExist(id) )
+            return null ;
+        if ( NodeId.isAny(id) )
+            return null ;
+        NodeCacheOffHeap cache = id2node_Cache ;
+        if ( cache != null ) {
+            byte[] bytes = cache.get(id.getId()) ;
+            if ( bytes != null )
+                return NodeLib.decode(ByteBuffer.wrap(bytes)) ;
+        }
+        // The base table is thread safe and
+        // caching is idempotent: no need to lock.
+        Node n = baseTable.getNodeForNodeId(id) ;
+        if ( n != null )
+            cacheUpdate(n, encode(n), id) ;
+        return n ;
+    }
+
+    /** Find the NodeId for a node, or return NodeId.NodeDoesNotExist */
+    @Override
+    public NodeId getNodeIdForNode(Node node)  { return _idForNode(node, false) ; }
+
+    /** Find the NodeId for a node, allocating a new NodeId if the Node does not yet have a NodeId */
+    @Override
+    public NodeId getAllocateNodeId(Node node)  { return _idForNode(node, true) ; }
+
+    @Override
+    public boolean containsNode(Node node) {
+        NodeId x = getNodeIdForNode(node) ;
+        return NodeId.isDoesNotExist(x) ;
+    }
+
+    @Override
+    public boolean containsNodeId(NodeId nodeId) {
+        Node x = getNodeForNodeId(nodeId) ;
+        return x == null ;
+    }
+
+    // Node ==> NodeId
+    private NodeId _idForNode(Node node, boolean allocate) {
+        if ( node == Node.ANY )
+            return NodeId.NodeIdAny ;
+        ByteBuffer bb = encode(node) ;
+        NodeCacheOffHeap cache = node2id_Cache ;
+        if ( cache != null && bb != null ) {
+            long x = cache.get(bb.array(), bb.limit(), NodeCacheOffHeap.hash(bb.array(), bb.limit())) ;
+            if ( x != NodeCacheOffHeap.NotFound )
+                return NodeId.create(x) ;
+        }
+        synchronized (missLock) {
+            if ( ! allocate && notPresent != null && notPresent.contains(node) )
+                return NodeId.NodeDoesNotExist ;
+            NodeId nodeId = allocate 
+                ? baseTable.getAllocateNodeId(node)
+                : baseTable.getNodeIdForNode(node) ;
+            if ( NodeId.isDoesNotExist(nodeId) ) {
+                if ( notPresent != null )
+                    notPresent.add(node) ;
+                return nodeId ;
+            }
+            if ( notPresent != null && notPresent.contains(node) )
+                notPresent.remove(node) ;
+            cacheUpdate(node, bb, nodeId) ;
+            return nodeId ;
+        }
+    }
+
+    // The binary encoding is compact and decodes without parsing.
+    private static final Nodec cacheNodec = NodeLib.nodec(NodeEncoding.binary) ;
+
+    /** Encode a node for the caches, or return null if it can not be cached. */
+    private static ByteBuffer encode(Node node) {
+        try {
+            ByteBuffer bb = NodeLib.encode(node, cacheNodec) ;
+            if ( bb.limit() > NodeCacheOffHeap.MaxEncodedLength )
+                return null ;
+            return bb ;
+        } catch (TDBException ex) {
+            // Unencodable: let the base table decide what happens.
+            return null ;
+        }
+    }
+
+    /** Update the caches (both directions) */
+    private void cacheUpdate(Node node, ByteBuffer bb, NodeId id) {
+        if ( bb == null )
+            return ;
+        byte[] bytes = bb.array() ;
+        int len = bb.limit() ;
+        int hash = NodeCacheOffHeap.hash(bytes, len) ;
+        NodeCacheOffHeap c1 = node2id_Cache ;
+        if ( c1 != null )
+            c1.put(id.getId(), bytes, len, hash) ;
+        NodeCacheOffHeap c2 = id2node_Cache ;
+        if ( c2 != null )
+            c2.put(id.getId(), bytes, len, hash) ;
+    }
+
+    @Override
+    public NodeId allocOffset() {
+        return baseTable.allocOffset() ;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return baseTable.isEmpty() ;
+    }
+
+    @Override
+    public synchronized void close() {
+        if ( baseTable == null )
+            // Already closed (NodeTables can be shared so .close via two routes).
+            return ;
+        baseTable.close() ;
+        // Direct memory is released when the caches are garbage collected.
+        node2id_Cache = null ;
+        id2node_Cache = null ;
+        notPresent = null ;
+        baseTable = null ;
+    }
+
+    @Override
+    public void sync() { baseTable.sync() ; }
+
+    @Override
+    public Iterator<Pair<NodeId, Node>> all() {
+        return baseTable.all() ;
+    }
+
+    @Override
+    public String toString() { return "CacheOffHeap("+baseTable.toString()+")" ; }
+}
@@ -33,20 +33,44 @@ public class NodeTableInline extends NodeTableWrapper
 {
     // Stack order: Inline > Cache > Actual
     
+    private final int version ;
+    
     public static NodeTable create(NodeTable nodeTable)
     {
-        return new NodeTableInline(nodeTable) ;
+        return create(nodeTable, NodeId.INLINE_V1) ;
+    }
+    
+    /** Inline node ids in the given NodeId format version ({@link NodeId#INLINE_V1}, {@link NodeId#INLINE_V2}) */ 
+    public static NodeTable create(NodeTable nodeTable, int version)
+    {
+        NodeId.checkVersion(version) ;
+        return new NodeTableInline(nodeTable, version) ;
     }
     
-    private NodeTableInline(NodeTable nodeTable)
+    private NodeTableInline(NodeTable nodeTable, int version)
     {
         super(nodeTable) ;
+        this.version = version ;
+    }
+    
+    public int getVersion() { return version ; }
+    
+    /** The NodeId format version of the inline node ids of a node table stack,
+     *  {@link NodeId#INLINE_V1} if there is no {@link NodeTableInline}. */
+    public static int versionOf(NodeTable nodeTable)
+    {
+        for ( NodeTable nt = nodeTable ; nt != null ; nt = nt.wrapped() )
+        {
+            if ( nt instanceof NodeTableInline )
+                return ((NodeTableInline)nt).getVersion() ;
+        }
+        return NodeId.INLINE_V1 ;
     }
     
     @Override
     public final NodeId getAllocateNodeId(Node node)
     {
-        NodeId nid = NodeId.inline(node) ;
+        NodeId nid = NodeId.inline(node, version) ;
         if ( nid != null ) return nid ;
         return super.getAllocateNodeId(node) ;
     }
@@ -54,7 +78,7 @@ public class NodeTableInline extends NodeTableWrapper
     @Override
     public final NodeId getNodeIdForNode(Node node)
     {
-        NodeId nid = NodeId.inline(node) ;
+        NodeId nid = NodeId.inline(node, version) ;
         if ( nid != null ) return nid ;
         return super.getNodeIdForNode(node) ;
     }
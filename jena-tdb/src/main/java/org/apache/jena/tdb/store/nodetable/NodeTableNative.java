@@ -43,6 +43,7 @@ public class NodeTableNative implements NodeTable
     
     protected ObjectFile objects ;
     protected Index nodeHashToId ;        // hash -> int
+    private Nodec nodec = NodeLib.nodec(NodeEncoding.sse) ;
     private boolean syncNeeded = false ;
     
     // Delayed construction - must call init explicitly.
@@ -54,6 +55,13 @@ public class NodeTableNative implements NodeTable
         this() ;
         init(nodeToId, objectFile) ;
     }
+
+    /** Node table that writes new nodes with the given encoder. Reading detects the encoding used. */
+    public NodeTableNative(Index nodeToId, ObjectFile objectFile, Nodec nodec)
+    {
+        this(nodeToId, objectFile) ;
+        this.nodec = nodec ;
+    }
     
     protected void init(Index nodeToId, ObjectFile objectFile)
     {
@@ -61,6 +69,9 @@ public class NodeTableNative implements NodeTable
         this.objects = objectFile;
     }
 
+    /** The encoder used for new nodes. */
+    public Nodec getNodec()         { return nodec ; }
+
     // ---- Public interface for Node <==> NodeId
 
     /** Get the Node for this NodeId, or null if none */
@@ -172,7 +183,7 @@ public class NodeTableNative implements NodeTable
     {
         syncNeeded = true ;
         // Synchronized in accessIndex
-        long x = NodeLib.encodeStore(node, getObjects()) ;
+        long x = NodeLib.encodeStore(node, getObjects(), nodec) ;
         return NodeId.create(x);
     }
     
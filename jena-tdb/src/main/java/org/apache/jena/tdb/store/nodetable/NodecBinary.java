@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.nodetable;
+
+import java.nio.ByteBuffer ;
+
+import org.apache.jena.atlas.io.BlockUTF8 ;
+import org.apache.jena.datatypes.TypeMapper ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.riot.web.LangTag ;
+import org.apache.jena.shared.PrefixMapping ;
+import org.apache.jena.sparql.util.NodeUtils ;
+import org.apache.jena.tdb.TDBException ;
+
+/** Encoder/decoder for nodes that uses a tag byte then the UTF-8 strings of the node.
+ * <p>
+ * Layout:
+ * <pre>
+ *   URI              : TagURI      uri
+ *   Blank node       : TagBNode    label
+ *   Simple literal   : TagString   lex
+ *   Lang literal     : TagLang     int(len) lang lex
+ *   Datatype literal : TagDatatype int(len) datatype lex
+ *   Variable         : TagVar      name
+ * </pre>
+ * The last string runs to the end of the encoding. Decoding does not need
+ * to tokenize or unescape, so it works directly from the bytes read from the
+ * object file.
+ * <p>
+ * All tags have the high bit set and a {@link NodecSSE} encoding always starts
+ * with an ASCII character, so the two encodings can be told apart by the first
+ * byte &ndash; see {@link #isBinary(ByteBuffer)}.
+ */
+
+public class NodecBinary implements Nodec
+{
+    static final byte TagURI        = (byte)0x81 ;
+    static final byte TagBNode      = (byte)0x82 ;
+    static final byte TagString     = (byte)0x83 ;
+    static final byte TagLang       = (byte)0x84 ;
+    static final byte TagDatatype   = (byte)0x85 ;
+    static final byte TagVar        = (byte)0x86 ;
+
+    // Tag and one length.
+    private static final int HeaderSize = 1+Integer.BYTES ;
+
+    public NodecBinary() {}
+
+    /** Does the encoding starting at position zero look like a binary encoding? */
+    public static boolean isBinary(ByteBuffer bb) {
+        return bb.limit() > 0 && ( bb.get(0) & 0x80 ) != 0 ;
+    }
+
+    @Override
+    public int maxSize(Node node) {
+        if ( node.isURI() )
+            return HeaderSize+maxLength(node.getURI()) ;
+        if ( node.isBlank() )
+            return HeaderSize+maxLength(node.getBlankNodeLabel()) ;
+        if ( node.isLiteral() )
+            return HeaderSize+maxLength(node.getLiteralLexicalForm())
+                             +maxLength(node.getLiteralLanguage())
+                             +maxLength(node.getLiteralDatatypeURI()) ;
+        if ( node.isVariable() )
+            return HeaderSize+maxLength(node.getName()) ;
+        throw new TDBException("Unrecognized node type: "+node) ;
+    }
+
+    private static int maxLength(String string) {
+        // Max 3 bytes UTF-8 per char (surrogate pairs are 2 chars, 4 bytes).
+        return string == null ? 0 : string.length()*3 ;
+    }
+
+    @Override
+    public int encode(Node node, ByteBuffer bb, PrefixMapping pmap) {
+        if ( node.isURI() ) {
+            bb.put(TagURI) ;
+            BlockUTF8.fromChars(node.getURI(), bb) ;
+        } else if ( node.isBlank() ) {
+            bb.put(TagBNode) ;
+            BlockUTF8.fromChars(node.getBlankNodeLabel(), bb) ;
+        } else if ( node.isLiteral() ) {
+            if ( NodeUtils.isSimpleString(node) ) {
+                bb.put(TagString) ;
+            } else if ( NodeUtils.isLangString(node) ) {
+                String lang = node.getLiteralLanguage() ;
+                // Check syntactically valid.
+                if ( ! LangTag.check(lang) )
+                    throw new TDBException("bad language tag: "+node) ;
+                bb.put(TagLang) ;
+                putString(bb, lang) ;
+            } else {
+                bb.put(TagDatatype) ;
+                putString(bb, node.getLiteralDatatypeURI()) ;
+            }
+            BlockUTF8.fromChars(node.getLiteralLexicalForm(), bb) ;
+        } else if ( node.isVariable() ) {
+            bb.put(TagVar) ;
+            BlockUTF8.fromChars(node.getName(), bb) ;
+        } else
+            throw new TDBException("Unrecognized node type: "+node) ;
+        bb.flip() ;
+        return bb.limit() ;
+    }
+
+    // Length prefixed string.
+    private static void putString(ByteBuffer bb, String string) {
+        int lenIdx = bb.position() ;
+        bb.putInt(0) ;
+        BlockUTF8.fromChars(string, bb) ;
+        bb.putInt(lenIdx, bb.position()-lenIdx-Integer.BYTES) ;
+    }
+
+    @Override
+    public Node decode(ByteBuffer bb, PrefixMapping pmap) {
+        byte tag = bb.get() ;
+        switch (tag) {
+            case TagURI :
+                return NodeFactory.createURI(BlockUTF8.toString(bb)) ;
+            case TagBNode :
+                return NodeFactory.createBlankNode(BlockUTF8.toString(bb)) ;
+            case TagString :
+                return NodeFactory.createLiteral(BlockUTF8.toString(bb)) ;
+            case TagLang : {
+                String lang = getString(bb) ;
+                return NodeFactory.createLiteral(BlockUTF8.toString(bb), lang) ;
+            }
+            case TagDatatype : {
+                String dt = getString(bb) ;
+                String lex = BlockUTF8.toString(bb) ;
+                return NodeFactory.createLiteral(lex, TypeMapper.getInstance().getSafeTypeByName(dt)) ;
+            }
+            case TagVar :
+                return NodeFactory.createVariable(BlockUTF8.toString(bb)) ;
+            default :
+                throw new TDBException("Bad tag for binary node encoding: "+tag) ;
+        }
+    }
+
+    private static String getString(ByteBuffer bb) {
+        int len = bb.getInt() ;
+        int limit = bb.limit() ;
+        bb.limit(bb.position()+len) ;
+        String str = BlockUTF8.toString(bb) ;
+        bb.limit(limit) ;
+        return str ;
+    }
+}
@@ -19,12 +19,14 @@
 package org.apache.jena.tdb.store.nodetupletable ;
 
 import java.util.Iterator ;
+import java.util.List ;
 
 import org.apache.jena.atlas.lib.Closeable ;
 import org.apache.jena.atlas.lib.Sync ;
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.tupletable.TupleTable ;
 import org.apache.jena.tdb.sys.DatasetControl ;
@@ -47,6 +49,20 @@ public interface NodeTupleTable extends Sync, Closeable
     /** Find by NodeId. */
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> ids) ;
 
+    /** Find by NodeId, where the NodeId in slot {@code slot}, which must be "any", is also in one of the ranges. */
+    public Iterator<Tuple<NodeId>> find(Tuple<NodeId> ids, int slot, List<NodeIdRange> ranges) ;
+
+    /** Find by NodeId, in NodeId order of slot {@code slot}, which must be "any".
+     * Returns null if the tuples can not be found in that order by an index scan.
+     */
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> ids, int slot) ;
+
+    /** Find by NodeId, in NodeId order of slot {@code slot}, which must be "any", where that NodeId is also
+     * in one of the ranges. The ranges are in increasing order, as from {@link NodeIdRange#normalize}.
+     * Returns null if the tuples can not be found in that order by an index scan.
+     */
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> ids, int slot, List<NodeIdRange> ranges) ;
+
     /** Find all tuples */ 
     public Iterator<Tuple<NodeId>> findAll() ;
 
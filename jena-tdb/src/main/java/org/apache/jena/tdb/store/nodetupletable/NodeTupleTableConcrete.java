@@ -21,6 +21,7 @@ package org.apache.jena.tdb.store.nodetupletable ;
 import static java.lang.String.format ;
 
 import java.util.Iterator ;
+import java.util.List ;
 
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.iterator.NullIterator ;
@@ -30,6 +31,7 @@ import org.apache.jena.graph.Node ;
 import org.apache.jena.tdb.TDBException ;
 import org.apache.jena.tdb.lib.TupleLib ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.tupletable.TupleIndex ;
 import org.apache.jena.tdb.store.tupletable.TupleTable ;
@@ -169,6 +171,40 @@ public class NodeTupleTableConcrete implements NodeTupleTable
         } finally { finishRead() ; }
     }
 
+    @Override
+    public Iterator<Tuple<NodeId>> find(Tuple<NodeId> tuple, int slot, List<NodeIdRange> ranges)
+    {
+        try {
+            startRead() ;
+            Iterator<Tuple<NodeId>> iter = tupleTable.find(tuple, slot, ranges) ;
+            return iteratorControl(iter) ;
+        } finally { finishRead() ; }
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> tuple, int slot)
+    {
+        try {
+            startRead() ;
+            Iterator<Tuple<NodeId>> iter = tupleTable.findSorted(tuple, slot) ;
+            if ( iter == null )
+                return null ;
+            return iteratorControl(iter) ;
+        } finally { finishRead() ; }
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> tuple, int slot, List<NodeIdRange> ranges)
+    {
+        try {
+            startRead() ;
+            Iterator<Tuple<NodeId>> iter = tupleTable.findSorted(tuple, slot, ranges) ;
+            if ( iter == null )
+                return null ;
+            return iteratorControl(iter) ;
+        } finally { finishRead() ; }
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> findAll()
     {
@@ -19,11 +19,14 @@
 package org.apache.jena.tdb.store.nodetupletable;
 
 import java.util.Iterator ;
+import java.util.List ;
 
 import org.apache.jena.atlas.lib.ArrayUtils ;
 import org.apache.jena.atlas.lib.tuple.Tuple ;
+import org.apache.jena.atlas.lib.tuple.TupleFactory ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.store.tupletable.TupleTable ;
 
 /** (Read-only?) projection of another NodeTupleTable. 
@@ -94,6 +97,27 @@ public class NodeTupleTableView extends NodeTupleTableWrapper
         return nodeTupleTable.find(ids2) ;
     }
 
+    @Override
+    public Iterator<Tuple<NodeId>> find(Tuple<NodeId> ids, int slot, List<NodeIdRange> ranges)
+    {
+        NodeId[] ids2 = push(NodeId.class, prefixId, ids) ;
+        return nodeTupleTable.find(TupleFactory.tuple(ids2), slot+1, ranges) ;
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> ids, int slot)
+    {
+        NodeId[] ids2 = push(NodeId.class, prefixId, ids) ;
+        return nodeTupleTable.findSorted(TupleFactory.tuple(ids2), slot+1) ;
+    }
+
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> ids, int slot, List<NodeIdRange> ranges)
+    {
+        NodeId[] ids2 = push(NodeId.class, prefixId, ids) ;
+        return nodeTupleTable.findSorted(TupleFactory.tuple(ids2), slot+1, ranges) ;
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> findAsNodeIds(Node... nodes)
     {
@@ -19,10 +19,12 @@
 package org.apache.jena.tdb.store.nodetupletable;
 
 import java.util.Iterator ;
+import java.util.List ;
 
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.tupletable.TupleTable ;
 import org.apache.jena.tdb.sys.DatasetControl ;
@@ -63,6 +65,18 @@ public class NodeTupleTableWrapper implements NodeTupleTable
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> tuple)
     { return nodeTupleTable.find(tuple) ; }
     
+    @Override
+    public Iterator<Tuple<NodeId>> find(Tuple<NodeId> tuple, int slot, List<NodeIdRange> ranges)
+    { return nodeTupleTable.find(tuple, slot, ranges) ; }
+    
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> tuple, int slot)
+    { return nodeTupleTable.findSorted(tuple, slot) ; }
+    
+    @Override
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> tuple, int slot, List<NodeIdRange> ranges)
+    { return nodeTupleTable.findSorted(tuple, slot, ranges) ; }
+    
     @Override
     public Iterator<Tuple<NodeId>> findAsNodeIds(Node... nodes)
     { return nodeTupleTable.findAsNodeIds(nodes) ; }
@@ -19,6 +19,7 @@
 package org.apache.jena.tdb.store.tupletable;
 
 import java.util.Iterator ;
+import java.util.List ;
 import java.util.function.Predicate ;
 
 import org.apache.jena.atlas.iterator.Iter ;
@@ -27,6 +28,7 @@ import org.apache.jena.atlas.lib.Sync ;
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.tdb.lib.ColumnMap ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 
 public interface TupleIndex extends Sync, Closeable
 {
@@ -50,6 +52,12 @@ public interface TupleIndex extends Sync, Closeable
 
     public Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern) ;
     
+    /** Find all matching tuples where also the NodeId in slot {@code slot}, which must be
+     *  "any" in the pattern, is in one of the ranges.
+     *  Input pattern and slot in natural order, not index order.
+     */
+    public Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges) ;
+    
     /** return an iterator of everything */
     public Iterator<Tuple<NodeId>> all() ;
     
@@ -57,6 +65,10 @@ public interface TupleIndex extends Sync, Closeable
      * Large numbers means better match. */
     public int weight(Tuple<NodeId> pattern) ;
 
+    /** Weight a pattern with a range on slot {@code slot} - specified in normal order (not index order).
+     * Large numbers means better match; -1 means the index can not be used to scan the range. */
+    public int weight(Tuple<NodeId> pattern, int slot) ;
+
     /** Length of tuple supported */
     public int getTupleLength() ;
 
@@ -91,4 +103,8 @@ public interface TupleIndex extends Sync, Closeable
         
         return Iter.filter(iter, filter) ;
     }
+    
+    public static Iterator<Tuple<NodeId>> scan(Iterator<Tuple<NodeId>> iter, int slot, List<NodeIdRange> ranges) {
+        return Iter.filter(iter, item -> NodeIdRange.contains(ranges, item.get(slot))) ;
+    }
 }
@@ -19,11 +19,13 @@
 package org.apache.jena.tdb.store.tupletable;
 
 import java.util.Iterator ;
+import java.util.List ;
 
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.tdb.TDBException ;
 import org.apache.jena.tdb.lib.ColumnMap ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 
 public abstract class TupleIndexBase implements TupleIndex
 {
@@ -50,6 +52,14 @@ public abstract class TupleIndexBase implements TupleIndex
     /** Find tuples worker: Tuple passed in unmaped (untouched) order */
     protected abstract Iterator<Tuple<NodeId>> performFind(Tuple<NodeId> tuple) ;
 
+    /** Find tuples with a range on one slot worker: Tuple and slot passed in unmaped (untouched) order.
+     * Unless overridden, finds by the pattern then checks the range.
+     */
+    protected Iterator<Tuple<NodeId>> performFind(Tuple<NodeId> tuple, int slot, List<NodeIdRange> ranges)
+    {
+        return TupleIndex.scan(performFind(tuple), slot, ranges) ;
+    }
+
     /** Insert a tuple - return true if it was really added, false if it was a duplicate */
     @Override
     public final boolean add(Tuple<NodeId> tuple) 
@@ -88,6 +98,17 @@ public abstract class TupleIndexBase implements TupleIndex
         // null to NodeId.NodIdAny ??
         return performFind(pattern) ;
     }
+
+    @Override
+    public final Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges)
+    {
+        if ( Check )
+        {
+            if ( tupleLength != pattern.len() )
+            throw new TDBException(String.format("Mismatch: tuple length %d / index for length %d", pattern.len(), tupleLength)) ;
+        } 
+        return performFind(pattern, slot, ranges) ;
+    }
     
     @Override
     public final int weight(Tuple<NodeId> pattern)
@@ -101,6 +122,16 @@ public abstract class TupleIndexBase implements TupleIndex
         }
         return tupleLength ;
     }
+
+    @Override
+    public final int weight(Tuple<NodeId> pattern, int slot)
+    {
+        int w = weight(pattern) ;
+        // The range slot must come straight after the fixed terms.
+        if ( w < tupleLength && colMap.mapSlotIdx(slot) == w )
+            return w ;
+        return -1 ;
+    }
     
     @Override
     public final String getMapping()          { return colMap.getLabel() ; }
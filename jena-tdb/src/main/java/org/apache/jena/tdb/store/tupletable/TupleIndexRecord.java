@@ -22,6 +22,7 @@ import static java.lang.String.format;
 import static org.apache.jena.tdb.sys.SystemTDB.SizeOfNodeId ;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jena.atlas.iterator.* ;
 import org.apache.jena.atlas.lib.Bytes ;
@@ -33,6 +34,7 @@ import org.apache.jena.tdb.index.RangeIndex ;
 import org.apache.jena.tdb.lib.ColumnMap ;
 import org.apache.jena.tdb.lib.TupleLib ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 
 public class TupleIndexRecord extends TupleIndexBase
 {
@@ -169,6 +171,50 @@ public class TupleIndexRecord extends TupleIndexBase
         return tuples;
     }
     
+    @Override
+    protected Iterator<Tuple<NodeId>> performFind(Tuple<NodeId> patternNaturalOrder, int slot, List<NodeIdRange> ranges) {
+        // Convert to index order.
+        Tuple<NodeId> pattern = colMap.map(patternNaturalOrder);
+        int rangeIdx = colMap.mapSlotIdx(slot);
+
+        // Leading fixed slots.
+        int prefixLen = 0;
+        while ( prefixLen < pattern.len() && !NodeId.isAny(pattern.get(prefixLen)) )
+            prefixLen++;
+        if ( prefixLen != rangeIdx )
+            // The range is not next in this index.
+            return super.performFind(patternNaturalOrder, slot, ranges);
+
+        // One index range scan for each NodeId range, started when reached.
+        IteratorConcat<Record> iter = new IteratorConcat<>();
+        for ( NodeIdRange range : ranges ) {
+            Record minRec = factory.createKeyOnly();
+            Record maxRec = factory.createKeyOnly();
+            for ( int i = 0 ; i < prefixLen ; i++ ) {
+                Bytes.setLong(pattern.get(i).getId(), minRec.getKey(), i * SizeOfNodeId);
+                Bytes.setLong(pattern.get(i).getId(), maxRec.getKey(), i * SizeOfNodeId);
+            }
+            Bytes.setLong(range.min, minRec.getKey(), rangeIdx * SizeOfNodeId);
+            Bytes.setLong(range.max, maxRec.getKey(), rangeIdx * SizeOfNodeId);
+            iter.add(new IteratorDelayedInitialization<Record>() {
+                @Override
+                protected Iterator<Record> initializeIterator() {
+                    return index.iterator(minRec, maxRec);
+                }
+            });
+        }
+        Iterator<Tuple<NodeId>> tuples = Iter.map(iter, item -> TupleLib.tuple(item, colMap));
+
+        // Any other fixed slots.
+        for ( int i = rangeIdx + 1 ; i < pattern.len() ; i++ ) {
+            if ( !NodeId.isAny(pattern.get(i)) ) {
+                tuples = TupleIndex.scan(tuples, patternNaturalOrder);
+                break;
+            }
+        }
+        return tuples;
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> all() {
         Iterator<Record> iter = index.iterator();
@@ -19,10 +19,12 @@
 package org.apache.jena.tdb.store.tupletable;
 
 import java.util.Iterator ;
+import java.util.List ;
 
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.tdb.lib.ColumnMap ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.store.tupletable.TupleIndex ;
 
 public class TupleIndexWrapper implements TupleIndex
@@ -46,6 +48,11 @@ public class TupleIndexWrapper implements TupleIndex
         return index.find(pattern) ;
     }
 
+    @Override
+    public Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges) {
+        return index.find(pattern, slot, ranges) ;
+    }
+
     @Override
     public Iterator<Tuple<NodeId>> all() {
         return index.all() ;
@@ -76,6 +83,11 @@ public class TupleIndexWrapper implements TupleIndex
         return index.weight(pattern) ;
     }
 
+    @Override
+    public int weight(Tuple<NodeId> pattern, int slot) {
+        return index.weight(pattern, slot) ;
+    }
+
     @Override
     public long size() {
         return index.size() ;
@@ -21,6 +21,7 @@ package org.apache.jena.tdb.store.tupletable;
 import static java.lang.String.format ;
 
 import java.util.Iterator ;
+import java.util.List ;
 
 import org.apache.jena.atlas.lib.Closeable ;
 import org.apache.jena.atlas.lib.Sync ;
@@ -28,6 +29,7 @@ import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.tdb.TDBException ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.sys.SystemTDB ;
 import org.slf4j.Logger ;
 import org.slf4j.LoggerFactory ;
@@ -200,6 +202,74 @@ public class TupleTable implements Sync, Closeable
         return index.find(pattern) ;
     }
     
+    /** Find all matching tuples where the NodeId in slot {@code slot}, which must be "any" in the
+     * pattern, is also in one of the ranges. An index with the slot straight after the fixed terms
+     * is used to scan just the ranges unless another index fixes more of the pattern;
+     * otherwise the pattern is found and the slot checked.
+     */
+    public Iterator<Tuple<NodeId>> find(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges)
+    {
+        TupleIndex index = chooseIndex(pattern, slot) ;
+        if ( index == null )
+            // No index puts the range slot next, or a better index for the pattern.
+            return TupleIndex.scan(find(pattern), slot, ranges) ;
+        return index.find(pattern, slot, ranges) ;
+    }
+    
+    /** Find all matching tuples, in NodeId order of slot {@code slot}, which must be "any" in the pattern.
+     * Returns null if there is no index with the slot straight after the fixed terms 
+     * that is as good for the pattern as the index {@link #find(Tuple)} would use.
+     */
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> pattern, int slot)
+    {
+        TupleIndex index = chooseIndex(pattern, slot) ;
+        if ( index == null )
+            return null ;
+        return index.find(pattern) ;
+    }
+    
+    /** Find all matching tuples, in NodeId order of slot {@code slot}, where that NodeId is also in one of the ranges.
+     * The ranges must be in increasing order and not overlap, as from {@link NodeIdRange#normalize}.
+     * Returns null if there is no suitable index, as for {@link #findSorted(Tuple, int)}.
+     */
+    public Iterator<Tuple<NodeId>> findSorted(Tuple<NodeId> pattern, int slot, List<NodeIdRange> ranges)
+    {
+        TupleIndex index = chooseIndex(pattern, slot) ;
+        if ( index == null )
+            return null ;
+        // The index has the slot straight after the fixed terms so each range is one scan, in order.
+        return index.find(pattern, slot, ranges) ;
+    }
+    
+    /** The index with the slot next after the fixed terms of the pattern, or null */ 
+    private TupleIndex chooseIndex(Tuple<NodeId> pattern, int slot)
+    {
+        if ( tupleLen != pattern.len() )
+            throw new TDBException(format("Mismatch: finding tuple of length %d in a table of tuples of length %d", pattern.len(), tupleLen)) ;
+        if ( ! NodeId.isAny(pattern.get(slot)) )
+            throw new TDBException(format("Slot %d is not \"any\": %s", slot, pattern)) ;
+        
+        int indexNumSlots = -1 ;
+        int patternNumSlots = 0 ;
+        TupleIndex index = null ;
+        for ( TupleIndex idx : indexes )
+        {
+            if ( idx != null )
+            {
+                int w = idx.weight( pattern, slot );
+                if ( w > indexNumSlots )
+                {
+                    indexNumSlots = w;
+                    index = idx;
+                }
+                patternNumSlots = Math.max(patternNumSlots, idx.weight(pattern)) ;
+            }
+        }
+        if ( indexNumSlots < patternNumSlots )
+            return null ;
+        return index ;
+    }
+    
     @Override
     final public void close()
     {
@@ -62,6 +62,7 @@ public class Names
     
     /** Optimizer / stats */
     public static final String optStats                 = "stats.opt" ;
+    public static final String optCostStats             = "coststats.opt" ;
     public static final String optFixed                 = "fixed.opt" ;
     public static final String optNone                  = "none.opt" ; 
     public static final String optDefault               = optFixed ;
@@ -36,6 +36,7 @@ import org.apache.jena.tdb.setup.BlockMgrBuilder ;
 import org.apache.jena.tdb.setup.DatasetBuilderStd ;
 import org.apache.jena.tdb.setup.NodeTableBuilder ;
 import org.apache.jena.tdb.setup.StoreParams ;
+import org.apache.jena.tdb.solver.stats.TripleChanges ;
 import org.apache.jena.tdb.store.DatasetGraphTDB ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.nodetable.NodeTableInline ;
@@ -83,7 +84,7 @@ public class DatasetBuilderTxn
         NodeTableBuilder nodeTableBuilder = new NodeTableBuilderReadonly() ;
         DatasetBuilderStd x = new DatasetBuilderStd(blockMgrBuilder, nodeTableBuilder) ;
         DatasetGraphTDB dsg2 = x._build(dsg.getLocation(), dsg.getConfig().params, false, dsg.getReorderTransform()) ;
-
+        dsg2.setCostStats(dsg.getCostStats()) ;
         return dsg2 ;
     }
 
@@ -93,6 +94,9 @@ public class DatasetBuilderTxn
         DatasetBuilderStd x = new DatasetBuilderStd(blockMgrBuilder, nodeTableBuilder) ;
         DatasetGraphTDB dsg2 = x._build(dsg.getLocation(), dsg.getConfig().params, true, dsg.getReorderTransform()) ;
         dsg2.getContext().putAll(dsg.getContext()) ;
+        dsg2.setCostStats(dsg.getCostStats()) ;
+        if ( dsg.getCostStats() != null )
+            dsg2.setTripleChanges(new TripleChanges()) ;
         return dsg2 ;
     }
 
@@ -139,7 +143,7 @@ public class DatasetBuilderTxn
             txn.addComponent(ntt) ;
 
             // Add inline wrapper.
-            NodeTable nt = NodeTableInline.create(ntt) ;
+            NodeTable nt = NodeTableInline.create(ntt, params.getNodeIdVersion()) ;
             return nt ;
         }
     }
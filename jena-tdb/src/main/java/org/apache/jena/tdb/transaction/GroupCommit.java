@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.transaction;
+
+import java.util.concurrent.TimeUnit ;
+import java.util.concurrent.locks.Condition ;
+import java.util.concurrent.locks.Lock ;
+import java.util.concurrent.locks.ReentrantLock ;
+import java.util.function.BooleanSupplier ;
+
+/** Journal sync for commits.
+ * <p>
+ * With a max latency of zero (the default), each commit syncs the journal as
+ * it writes its commit record.
+ * <p>
+ * With group commit (max latency greater than zero), a commit record is
+ * written, the writer lock released, and the committing thread then waits for
+ * a journal sync that covers its commit record. The first waiting thread becomes
+ * the leader: it waits, for at most the max latency, for further writers to
+ * write their commit records, then syncs once for all of them.
+ * The leader does not wait if no other writer is active or waiting.
+ * <p>
+ * Group commit relaxes durability: changes are visible to later transactions
+ * before the journal sync, so other transactions can act on a commit that is lost
+ * if the system crashes before the sync. It is only used when asked for.
+ * {@link #syncNow} must be called before the journal is written back
+ * to the base database.
+ */
+class GroupCommit
+{
+    private final Journal journal ;
+    private final BooleanSupplier moreWriters ;
+    private volatile long maxLatencyMillis ;
+
+    private final Lock lock = new ReentrantLock() ;
+    private final Condition changed = lock.newCondition() ;
+
+    // Commit records written; commit records known to be on disk.
+    private long written = 0 ;
+    private long synced = 0 ;
+    private boolean leader = false ;
+    // The last sync failure and the commits it covered.
+    private RuntimeException failure = null ;
+    private long failedUpTo = 0 ;
+
+    // Stats
+    private long batchCount = 0 ;
+    private long batchedCommits = 0 ;
+    private long maxBatchSize = 0 ;
+
+    /*package*/ GroupCommit(Journal journal, long maxLatencyMillis, BooleanSupplier moreWriters) {
+        this.journal = journal ;
+        this.maxLatencyMillis = maxLatencyMillis ;
+        this.moreWriters = moreWriters ;
+    }
+
+    /** Maximum time, in milliseconds, a commit waits for others to join its journal sync. 0 means "sync every commit". */
+    public long getMaxLatency()                 { return maxLatencyMillis ; }
+
+    public void setMaxLatency(long millis)      { maxLatencyMillis = Math.max(0, millis) ; }
+
+    public boolean isGroupCommit()              { return maxLatencyMillis > 0 ; }
+
+    /** Note that a commit record has been written to the journal.
+     * Syncs the journal unless group commit is enabled.
+     * Returns the ticket to pass to {@link #await}.
+     */
+    public long committed() {
+        long ticket ;
+        lock.lock() ;
+        try {
+            ticket = ++written ;
+            changed.signalAll() ;
+        } finally { lock.unlock() ; }
+        if ( ! isGroupCommit() )
+            sync(ticket) ;
+        return ticket ;
+    }
+
+    /** Wait until the commit record for the ticket is on disk. */
+    public void await(long ticket) {
+        lock.lock() ;
+        try {
+            while ( synced < ticket ) {
+                checkFailure(ticket) ;
+                if ( leader ) {
+                    changed.awaitUninterruptibly() ;
+                    continue ;
+                }
+                leader = true ;
+                try {
+                    waitForBatch(ticket) ;
+                    if ( synced < ticket ) {
+                        long target = written ;
+                        lock.unlock() ;
+                        try { sync(target) ; }
+                        finally { lock.lock() ; }
+                    }
+                } finally {
+                    leader = false ;
+                    changed.signalAll() ;
+                }
+            }
+        } finally { lock.unlock() ; }
+    }
+
+    // Called with the lock held.
+    private void waitForBatch(long ticket) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis) ;
+        while ( synced < ticket && moreWriters.getAsBoolean() ) {
+            long remaining = deadline - System.nanoTime() ;
+            if ( remaining <= 0 )
+                return ;
+            try { changed.awaitNanos(remaining) ; }
+            catch (InterruptedException ex) { Thread.currentThread().interrupt() ; return ; }
+        }
+    }
+
+    /** Wake up a waiting leader, e.g. because a writer aborted. */
+    public void wakeup() {
+        lock.lock() ;
+        try { changed.signalAll() ; }
+        finally { lock.unlock() ; }
+    }
+
+    /** Make sure all written commit records are on disk. */
+    public void syncNow() {
+        long target ;
+        lock.lock() ;
+        try {
+            target = written ;
+            if ( target <= synced )
+                return ;
+        } finally { lock.unlock() ; }
+        sync(target) ;
+    }
+
+    // Called without the lock held.
+    private void sync(long target) {
+        try {
+            journal.sync() ;
+        } catch (RuntimeException ex) {
+            lock.lock() ;
+            try {
+                failure = ex ;
+                failedUpTo = Math.max(failedUpTo, target) ;
+                changed.signalAll() ;
+            } finally { lock.unlock() ; }
+            throw ex ;
+        }
+        lock.lock() ;
+        try {
+            long n = target - synced ;
+            if ( n > 0 ) {
+                synced = target ;
+                batchCount++ ;
+                batchedCommits += n ;
+                maxBatchSize = Math.max(maxBatchSize, n) ;
+            }
+            changed.signalAll() ;
+        } finally { lock.unlock() ; }
+    }
+
+    // Called with the lock held.
+    private void checkFailure(long ticket) {
+        if ( failure != null && ticket <= failedUpTo )
+            throw new TDBTransactionException("Journal sync failed", failure) ;
+    }
+
+    /** Number of journal syncs for commits */
+    public long getBatchCount() {
+        lock.lock() ;
+        try { return batchCount ; }
+        finally { lock.unlock() ; }
+    }
+
+    /** Number of commits made durable by journal syncs */
+    public long getBatchedCommitCount() {
+        lock.lock() ;
+        try { return batchedCommits ; }
+        finally { lock.unlock() ; }
+    }
+
+    /** Largest number of commits covered by one journal sync */
+    public long getMaxBatchSize() {
+        lock.lock() ;
+        try { return maxBatchSize ; }
+        finally { lock.unlock() ; }
+    }
+}
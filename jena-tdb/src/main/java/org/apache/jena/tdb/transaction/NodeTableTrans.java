@@ -31,11 +31,14 @@ import org.apache.jena.tdb.TDBException ;
 import org.apache.jena.tdb.base.objectfile.ObjectFile ;
 import org.apache.jena.tdb.base.record.Record ;
 import org.apache.jena.tdb.index.Index ;
+import org.apache.jena.tdb.lib.NodeLib ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.nodetable.NodeEncoding ;
 import org.apache.jena.tdb.store.nodetable.NodeTable ;
 import org.apache.jena.tdb.store.nodetable.NodeTableCache ;
 import org.apache.jena.tdb.store.nodetable.NodeTableInline ;
 import org.apache.jena.tdb.store.nodetable.NodeTableNative ;
+import org.apache.jena.tdb.store.nodetable.Nodec ;
 import org.slf4j.Logger ;
 import org.slf4j.LoggerFactory ;
 
@@ -188,10 +191,26 @@ public class NodeTableTrans implements NodeTable, TransactionLifecycle
             warn(log, "%s journalStartOffset not zero: %d/0x%02X",txn.getLabel(), journalObjFileStartOffset, journalObjFileStartOffset) ;
         allocOffset += journalObjFileStartOffset ;
         
-        this.nodeTableJournal = new NodeTableNative(nodeIndex, journalObjFile) ;
+        // append() expects the base to allocate the same ids so the journal must use the same encoding.
+        this.nodeTableJournal = new NodeTableNative(nodeIndex, journalObjFile, baseNodec()) ;
         this.nodeTableJournal = NodeTableCache.create(nodeTableJournal, CacheSize, CacheSize, 100) ;
         // This class knows about non-mappable inline values.   mapToJournal(NodeId)/mapFromJournal. 
-        this.nodeTableJournal = NodeTableInline.create(nodeTableJournal) ;
+        this.nodeTableJournal = NodeTableInline.create(nodeTableJournal, baseNodeIdVersion()) ;
+    }
+    
+    private Nodec baseNodec()
+    {
+        for ( NodeTable nt = base ; nt != null ; nt = nt.wrapped() )
+        {
+            if ( nt instanceof NodeTableNative )
+                return ((NodeTableNative)nt).getNodec() ;
+        }
+        return NodeLib.nodec(NodeEncoding.sse) ;
+    }
+    
+    private int baseNodeIdVersion()
+    {
+        return NodeTableInline.versionOf(base) ;
     }
     
     static public boolean APPEND_LOG = false ; 
@@ -51,6 +51,8 @@ public class Transaction
     private TxnOutcome outcome ;
     
     private boolean changesPending ;
+    // Set when the commit record has been written.
+    private long commitTicket = 0 ;
     
     public Transaction(DatasetGraphTDB dsg, ReadWrite mode, long id, String label, TransactionManager txnMgr) {
         this.id = id ;
@@ -126,7 +128,10 @@ public class Transaction
                     
                     try {
                         journal.write(JournalEntryType.Commit, FileRef.Journal, null) ;
-                        journal.sync() ;        // Commit point.
+                        // Commit point, unless group commit in which case
+                        // the sync happens after the writer lock is released,
+                        // and the changes are visible, by notifyCommit (relaxed durability).
+                        commitTicket = txnMgr.getGroupCommit().committed() ;
                     } catch (RuntimeException ex) {
                         // It either did all commit or didn't but we don't know which.
                         // Some low level system error - probably a sign of something
@@ -153,6 +158,15 @@ public class Transaction
                 SystemTDB.errlog.warn("Exception after commit point : transaction commited but internal status not recorded properly", ex) ;
             throw new TDBTransactionException("Exception after commit point - transaction did commit", ex) ;
         }
+        
+        if ( commitTicket > 0 ) {
+            // Wait for the journal sync - a no-op unless group commit.
+            try { txnMgr.getGroupCommit().await(commitTicket) ; }
+            catch (RuntimeException ex) {
+                SystemTDB.errlog.warn("Exception during group commit : transaction status not known (but not a partial commit): ",ex) ;
+                throw new TDBTransactionException("Exception at commit point", ex) ;
+            }
+        }
     }
     
     private boolean isIOException(Throwable ex) {
@@ -66,4 +66,33 @@ public class TransactionInfo implements TransactionInfoMBean {
 		return transactionManager.activeReaders.get() ;
 	}
 
+	@Override
+	public long getCommitMaxLatency() {
+		return transactionManager.getGroupCommit().getMaxLatency() ;
+	}
+
+	@Override
+	public long getCommitBatchCount() {
+		return transactionManager.getGroupCommit().getBatchCount() ;
+	}
+
+	@Override
+	public long getCommitBatchMaxSize() {
+		return transactionManager.getGroupCommit().getMaxBatchSize() ;
+	}
+
+	@Override
+	public double getCommitBatchAverageSize() {
+		GroupCommit groupCommit = transactionManager.getGroupCommit() ;
+		long batches = groupCommit.getBatchCount() ;
+		if ( batches == 0 )
+			return 0 ;
+		return (double)groupCommit.getBatchedCommitCount() / batches ;
+	}
+
+	@Override
+	public long getWritebackCount() {
+		return transactionManager.writebacks.get() ;
+	}
+
 }
@@ -44,4 +44,20 @@ public interface TransactionInfoMBean
 
     /** Number of read transactions executing */
     long getCurrentReadTransactionCount() ; 
+
+    /** Maximum time, in milliseconds, a commit waits to share a journal sync
+     * (0 : group commit off; otherwise commits are visible before they are durable) */
+    long getCommitMaxLatency() ; 
+
+    /** Number of journal syncs for committing write transactions */
+    long getCommitBatchCount() ; 
+
+    /** Largest number of write transactions made durable by one journal sync */
+    long getCommitBatchMaxSize() ; 
+
+    /** Average number of write transactions made durable by one journal sync */
+    double getCommitBatchAverageSize() ; 
+
+    /** Number of times the background writeback has held up transactions to write the journal to the base database */
+    long getWritebackCount() ; 
 }
@@ -29,8 +29,14 @@ import java.util.HashSet ;
 import java.util.List ;
 import java.util.Set ;
 import java.util.concurrent.BlockingQueue ;
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.RejectedExecutionException ;
+import java.util.concurrent.TimeUnit ;
 import java.util.concurrent.LinkedBlockingDeque ;
 import java.util.concurrent.Semaphore ;
+import java.util.concurrent.atomic.AtomicBoolean ;
 import java.util.concurrent.atomic.AtomicLong ;
 import java.util.concurrent.atomic.AtomicReference ;
 import java.util.concurrent.locks.ReadWriteLock ;
@@ -40,6 +46,8 @@ import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.atlas.logging.Log ;
 import org.apache.jena.query.ReadWrite ;
 import org.apache.jena.shared.Lock ;
+import org.apache.jena.tdb.solver.stats.CostStatsTDB ;
+import org.apache.jena.tdb.solver.stats.TripleChanges ;
 import org.apache.jena.tdb.store.DatasetGraphTDB ;
 import org.apache.jena.tdb.sys.SystemTDB ;
 import org.slf4j.Logger ;
@@ -77,6 +85,44 @@ public class TransactionManager
         return 0 ;
     }
     
+    /** Maximum time, in milliseconds, that a commit waits for other writers
+     *  so that they share one sync of the journal ("group commit").
+     *  0, the default, means each commit syncs the journal itself before the
+     *  transaction's changes become visible.
+     *  <p>
+     *  Group commit relaxes durability. It works by releasing the writer
+     *  lock before the journal sync, and that also makes the changes visible: later
+     *  transactions can see, and act on, a commit that is not yet on disk and
+     *  that a crash before the sync would lose. The committing thread itself does
+     *  not return from {@code commit} until its commit is durable.
+     *  Only set this if that is acceptable.
+     *  <p>
+     *  Applies to transaction managers created after it is set; see also
+     *  {@link #setGroupCommitMaxLatency}.
+     */
+    public static /*final*/ long GroupCommitMaxLatency = 0 ;
+    
+    /** When this many committed write transactions are waiting to be written
+     *  back to the main database, or the journal reaches {@link #WritebackJournalSize},
+     *  a background thread writes the journal back. This bounds the journal size and the
+     *  depth of the layered views seen by transactions, on systems where there
+     *  is rarely a moment with no active readers.
+     *  <p>
+     *  The writeback takes the exclusivity lock: no new transaction starts until
+     *  every active transaction has finished and the journal has been written back.
+     *  This stalls the database for the length of the longest running reader.
+     *  A thread that holds a read transaction open while it waits for a writer
+     *  (for example, on another thread) deadlocks.
+     *  <p>
+     *  Zero or less, the default, disables background writeback.
+     */
+    public static /*final*/ int WritebackQueueDepth = 0 ;
+    
+    /** Journal size, in bytes, that triggers background writeback.
+     * @see #WritebackQueueDepth
+     */
+    public static /*final*/ long WritebackJournalSize = 512L*1024*1024 ;
+    
     // Records the states that a transaction goes though.
     enum TxnPoint { BEGIN, COMMIT, ABORT, CLOSE, QUEUE, UNQUEUE }
     private List<Pair<Transaction, TxnPoint>> transactionStateTransition ;
@@ -128,6 +174,18 @@ public class TransactionManager
 
     private DatasetGraphTDB baseDataset ;
     private Journal journal ;
+    private GroupCommit groupCommit ;
+    
+    // Background writeback: a single daemon thread, created when first needed.
+    private ExecutorService writebackExecutor = null ;
+    private final AtomicBoolean writebackScheduled = new AtomicBoolean(false) ;
+    /*package*/ AtomicLong writebacks = new AtomicLong(0) ;
+    
+    // Statistics: changes of committed transactions not yet applied, guarded by "this",
+    // and a single daemon thread to apply them, created when first needed.
+    private TripleChanges pendingChanges = null ;
+    private ExecutorService statisticsExecutor = null ;
+    private final AtomicBoolean statisticsScheduled = new AtomicBoolean(false) ;
     
     /*
      * The order of calls is: 
@@ -277,16 +335,16 @@ public class TransactionManager
     {
         this.baseDataset = dsg ; 
         this.journal = Journal.create(dsg.getLocation()) ;
-        // LATER
-//        Committer c = new Committer() ;
-//        this.committerThread = new Thread(c) ;
-//        committerThread.setDaemon(true) ;
-//        committerThread.start() ;
+        this.groupCommit = new GroupCommit(journal, GroupCommitMaxLatency,
+                                           ()-> activeWriters.get() > 0 || writersWaiting.hasQueuedThreads()) ;
     }
 
     public void closedown()
     {
+        stopStatistics() ;
+        stopWriteback() ;
         processDelayedReplayQueue(null) ;
+        groupCommit.syncNow() ;
         journal.close() ;
     }
 
@@ -453,6 +511,7 @@ public class TransactionManager
             case READ: break ;
             case WRITE:
                 currentReaderView.set(null) ;       // Clear the READ transaction cache.
+                recordStatistics(transaction) ;
                 releaseWriterLock();
         }
     }
@@ -469,7 +528,10 @@ public class TransactionManager
         switch ( transaction.getMode() )
         {
             case READ: break ;
-            case WRITE: releaseWriterLock();
+            case WRITE: 
+                releaseWriterLock();
+                // A group commit leader may be waiting for this writer.
+                groupCommit.wakeup() ;
         }
     }
     
@@ -617,6 +679,8 @@ public class TransactionManager
             // Ensure the queue is empty though.
             // Could simply add txn to the commit queue and do it that way.  
             if ( log() ) log("Commit immediately", txn) ; 
+            // Write-back needs the commit record on disk.
+            groupCommit.syncNow() ;
             
             // Currently, all we need is 
             //    JournalControl.replay(txn) ;
@@ -635,6 +699,8 @@ public class TransactionManager
             maxQueue = Math.max(commitedAwaitingFlush.size(), maxQueue) ;
             if ( log() ) log("Add to pending queue", txn) ; 
             queue.add(txn) ;
+            if ( needsWriteback() )
+                scheduleWriteback() ;
         }
 
     }
@@ -668,6 +734,9 @@ public class TransactionManager
         // against the updated database.
         currentReaderView.set(null) ;
         
+        // Write-back needs all commit records on disk.
+        groupCommit.syncNow() ;
+        
         while ( queue.size() > 0 )
         {
             // Currently, replay is replay everything
@@ -802,6 +871,27 @@ public class TransactionManager
     {
         return journal ;
     }
+    
+    /*package*/ GroupCommit getGroupCommit()
+    {
+        return groupCommit ;
+    }
+
+    /** Set the group commit latency, in milliseconds, for this transaction manager.
+     *  0 means each commit syncs the journal itself.
+     *  Greater than 0 relaxes durability: changes are visible to other transactions
+     *  before they are on disk.
+     *  @see #GroupCommitMaxLatency
+     */
+    public void setGroupCommitMaxLatency(long millis)
+    {
+        groupCommit.setMaxLatency(millis) ;
+    }
+
+    public long getGroupCommitMaxLatency()
+    {
+        return groupCommit.getMaxLatency() ;
+    }
 
     // ---- Logging
     // Choose log output once when this object is created.
@@ -846,31 +936,174 @@ public class TransactionManager
         return new SysTxnState(this) ;
     }
     
-    // LATER.
-    class Committer implements Runnable
+    // ---- Background writeback
+    
+    private boolean needsWriteback()
     {
-        @Override
-        public void run()
-        {
-            for(;;)
-            {
-                // Wait until the reader count goes to zero.
-                
-                // This wakes up for every transation but maybe 
-                // able to play several transactions at once (later).
-                try {
-                    Transaction txn = queue.take() ;
-                    // This takes a Write lock on the  DSG - this is where it blocks.
-                    JournalControl.replay(txn) ;
-                    synchronized(TransactionManager.this)
-                    {
-                        commitedAwaitingFlush.remove(txn) ;
-                    }
-                } catch (InterruptedException ex)
-                { Log.fatal(this, "Interruped!", ex) ; }
+        if ( WritebackQueueDepth <= 0 )
+            return false ;
+        return queue.size() >= WritebackQueueDepth || journal.size() >= WritebackJournalSize ;
+    }
+    
+    // Called inside synchronized methods.
+    private void scheduleWriteback()
+    {
+        if ( ! writebackScheduled.compareAndSet(false, true) )
+            return ;
+        if ( writebackExecutor == null )
+            writebackExecutor = Executors.newSingleThreadExecutor((r)->{
+                Thread t = new Thread(r, "TDB-Writeback") ;
+                t.setDaemon(true) ;
+                return t ;
+            }) ;
+        if ( log() ) log("Schedule writeback: queue="+queue.size(), null) ;
+        writebackExecutor.execute(this::writeback) ;
+    }
+    
+    /** Write the journal back to the main database. 
+     *  Taking the exclusivity write lock waits for active transactions
+     *  to finish and holds up new ones until the writeback is done.
+     */
+    private void writeback()
+    {
+        try {
+            exclusivitylock.writeLock().lockInterruptibly() ;
+        } catch (InterruptedException ex) {
+            // Shutting down.
+            writebackScheduled.set(false) ;
+            return ;
+        }
+        try {
+            synchronized(this) {
+                if ( queue.size() > 0 ) {
+                    processDelayedReplayQueue(null) ;
+                    inc(writebacks) ;
+                }
             }
+        } catch (RuntimeException ex) {
+            SystemTDB.errlog.warn("Exception during background writeback", ex) ;
+        } finally {
+            writebackScheduled.set(false) ;
+            exclusivitylock.writeLock().unlock() ;
+        }
+    }
+    
+    // ---- Statistics
+    
+    /** Note the changes of a committed write transaction for the statistics of the database, if it has any.
+     *  The statistics are updated later, on another thread.
+     *  Called inside synchronized methods.
+     */
+    private void recordStatistics(Transaction txn)
+    {
+        if ( baseDataset.getCostStats() == null || txn.getActiveDataset() == null )
+            return ;
+        TripleChanges changes = txn.getActiveDataset().getView().getTripleChanges() ;
+        if ( changes == null || changes.isEmpty() )
+            return ;
+        if ( pendingChanges == null )
+            pendingChanges = new TripleChanges() ;
+        pendingChanges.addAll(changes) ;
+        if ( ! statisticsScheduled.compareAndSet(false, true) )
+            return ;
+        if ( statisticsExecutor == null )
+            statisticsExecutor = Executors.newSingleThreadExecutor((r)->{
+                Thread t = new Thread(r, "TDB-Statistics") ;
+                t.setDaemon(true) ;
+                return t ;
+            }) ;
+        statisticsExecutor.execute(this::updateStatistics) ;
+    }
+    
+    /** Apply the pending changes to the statistics, outside the writer lock.
+     *  The changes are taken and a read transaction started with no commit in between
+     *  so the read transaction sees the database just after the changes.
+     */
+    private void updateStatistics()
+    {
+        CostStatsTDB stats = baseDataset.getCostStats() ;
+        TripleChanges changes ;
+        DatasetGraphTxn dsgTxn ;
+        // As begin(READ).
+        exclusivitylock.readLock().lock() ;
+        synchronized(this) {
+            statisticsScheduled.set(false) ;
+            changes = pendingChanges ;
+            pendingChanges = null ;
+            if ( changes == null || stats == null ) {
+                exclusivitylock.readLock().unlock() ;
+                return ;
+            }
+            try {
+                dsgTxn = begin$(ReadWrite.READ, "statistics") ;
+            } catch (RuntimeException ex) {
+                exclusivitylock.readLock().unlock() ;
+                SystemTDB.errlog.warn("Exception starting statistics update", ex) ;
+                return ;
+            }
+        }
+        try { stats.update(changes, dsgTxn.getView()) ; }
+        catch (RuntimeException ex)
+        { SystemTDB.errlog.warn("Exception updating statistics", ex) ; }
+        finally { dsgTxn.end() ; }
+    }
+    
+    /** Wait until the changes of transactions that have committed are in the statistics. */
+    public void awaitStatistics()
+    {
+        ExecutorService executor ;
+        synchronized(this) {
+            executor = statisticsExecutor ;
+        }
+        if ( executor == null )
+            return ;
+        try {
+            // The executor runs tasks in order.
+            executor.submit(()->{}).get() ;
+        } catch (RejectedExecutionException ex) {
+            // Shut down.
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt() ;
+        } catch (ExecutionException ex) {}
+    }
+    
+    private void stopStatistics()
+    {
+        ExecutorService executor ;
+        synchronized(this) {
+            executor = statisticsExecutor ;
+            statisticsExecutor = null ;
+        }
+        if ( executor == null )
+            return ;
+        // Let a scheduled update finish.
+        executor.shutdown() ;
+        try {
+            if ( ! executor.awaitTermination(60, TimeUnit.SECONDS) )
+                executor.shutdownNow() ;
+        } catch (InterruptedException ex) {
+            executor.shutdownNow() ;
+            Thread.currentThread().interrupt() ;
+        }
+    }
+    
+    private void stopWriteback()
+    {
+        ExecutorService executor ;
+        synchronized(this) {
+            executor = writebackExecutor ;
+            writebackExecutor = null ;
+        }
+        if ( executor == null )
+            return ;
+        executor.shutdown() ;
+        try {
+            if ( ! executor.awaitTermination(60, TimeUnit.SECONDS) )
+                executor.shutdownNow() ;
+        } catch (InterruptedException ex) {
+            executor.shutdownNow() ;
+            Thread.currentThread().interrupt() ;
         }
-        
     }
     
     private void transactionStarts(Transaction txn)
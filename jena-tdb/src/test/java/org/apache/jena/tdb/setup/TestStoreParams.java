@@ -26,6 +26,9 @@ import org.apache.jena.tdb.base.block.FileMode ;
 import org.apache.jena.tdb.setup.StoreParams ;
 import org.apache.jena.tdb.setup.StoreParamsBuilder ;
 import org.apache.jena.tdb.setup.StoreParamsCodec ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.nodetable.NodeCacheType ;
+import org.apache.jena.tdb.store.nodetable.NodeEncoding ;
 import org.junit.Test ;
 
 public class TestStoreParams extends BaseTest {
@@ -94,6 +97,40 @@ public class TestStoreParams extends BaseTest {
         assertArrayEquals(expected, params.getTripleIndexes()) ;
     }
 
+    @Test public void store_params_15() {
+        StoreParams params = StoreParams.builder().nodeCacheType(NodeCacheType.offheap).build() ;
+        StoreParams params2 = roundTrip(params) ;
+        assertEqualsStoreParams(params,params2) ;
+        assertEquals(NodeCacheType.offheap, params2.getNodeCacheType()) ;
+        assertTrue(params2.isSetNodeCacheType()) ;
+    }
+
+    @Test public void store_params_16() {
+        String xs = "{ \"tdb.node_cache_type\": \"offheap\" }" ;
+        JsonObject x = JSON.parse(xs) ;
+        StoreParams paramsExpected = StoreParams.builder().nodeCacheType(NodeCacheType.offheap).build() ;
+        StoreParams paramsActual = StoreParamsCodec.decode(x) ;
+        assertEqualsStoreParams(paramsExpected,paramsActual) ;
+        assertEquals(NodeCacheType.heap, StoreParams.getDftStoreParams().getNodeCacheType()) ;
+    }
+
+    @Test public void store_params_17() {
+        StoreParams params = StoreParams.builder().nodeEncoding(NodeEncoding.binary).build() ;
+        StoreParams params2 = roundTrip(params) ;
+        assertEqualsStoreParams(params,params2) ;
+        assertEquals(NodeEncoding.binary, params2.getNodeEncoding()) ;
+        assertEquals(NodeEncoding.sse, StoreParams.getDftStoreParams().getNodeEncoding()) ;
+    }
+
+    @Test public void store_params_18() {
+        StoreParams params = StoreParams.builder().nodeIdVersion(NodeId.INLINE_V2).build() ;
+        StoreParams params2 = roundTrip(params) ;
+        assertEqualsStoreParams(params,params2) ;
+        assertEquals(NodeId.INLINE_V2, params2.getNodeIdVersion()) ;
+        // Existing databases.
+        assertEquals(NodeId.INLINE_V1, StoreParams.getDftStoreParams().getNodeIdVersion()) ;
+    }
+
     // Check that setting gets recorded and propagated.
 
     @Test public void store_params_20() {
@@ -25,6 +25,11 @@ import org.junit.runners.Suite ;
 @Suite.SuiteClasses( {
     TestSolverTDB.class     // Tests the TDB connectivity
     , TestStats.class
+    , TestFilterRanges.class
+    , TestBatchExecution.class
+    , TestMergeJoin.class
+    , TestParallelBGP.class
+    , TestCostStatsTDB.class
 })
 
 public class TS_SolverTDB
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.query.* ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.resultset.ResultSetCompare ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.tdb.TDB ;
+import org.apache.jena.tdb.TDBFactory ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+/** Batch-at-a-time BGP execution gives the same results as row-at-a-time */
+public class TestBatchExecution extends BaseTest
+{
+    static Dataset dataset = null ;
+
+    @BeforeClass static public void beforeClass()
+    {
+        dataset = TDBFactory.createDataset() ;
+        DatasetGraph dsg = dataset.asDatasetGraph() ;
+        // More than one block of rows.
+        int N = 2*BindingNodeIdBlock.DftBlockSize+10 ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            dsg.add(SSE.parseQuad("(_ <http://example/s"+i+"> <http://example/p> "+i+")")) ;
+            if ( i % 3 == 0 )
+                dsg.add(SSE.parseQuad("(_ <http://example/s"+i+"> <http://example/q> <http://example/s"+(i+1)+">)")) ;
+        }
+        dsg.add(SSE.parseQuad("(_ <http://example/x> <http://example/r> <http://example/x>)")) ;
+        dsg.add(SSE.parseQuad("(_ <http://example/x> <http://example/r> <http://example/y>)")) ;
+        dsg.add(SSE.parseQuad("(<http://example/g1> <http://example/s1> <http://example/p> 1)")) ;
+        dsg.add(SSE.parseQuad("(<http://example/g2> <http://example/s1> <http://example/p> 1)")) ;
+        dsg.add(SSE.parseQuad("(<http://example/g2> <http://example/s2> <http://example/p> 2)")) ;
+    }
+
+    private static ResultSetRewindable exec(String qs, boolean batch)
+    {
+        Query query = QueryFactory.create("PREFIX : <http://example/> "+qs) ;
+        try(QueryExecution qExec = QueryExecutionFactory.create(query, dataset)) {
+            qExec.getContext().set(TDB.symBatchExecution, batch) ;
+            return ResultSetFactory.copyResults(qExec.execSelect()) ;
+        }
+    }
+
+    private static void test(String qs, int expected)
+    {
+        ResultSetRewindable rs1 = exec(qs, false) ;
+        ResultSetRewindable rs2 = exec(qs, true) ;
+        assertEquals(expected, rs1.size()) ;
+        assertEquals(expected, rs2.size()) ;
+        rs1.reset() ;
+        rs2.reset() ;
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2)) ;
+    }
+
+    @Test public void batch_01() { test("SELECT * { ?s :p ?o }", 2*BindingNodeIdBlock.DftBlockSize+10) ; }
+    @Test public void batch_02() { test("SELECT * { ?s :q ?s2 . ?s2 :p ?o }", 686) ; }
+    @Test public void batch_03() { test("SELECT * { ?s :p ?o OPTIONAL { ?s :q ?z } ?s :p ?o2 }", 2*BindingNodeIdBlock.DftBlockSize+10) ; }
+    @Test public void batch_04() { test("SELECT * { ?x :r ?x }", 1) ; }
+    @Test public void batch_05() { test("SELECT * { ?x :notThere ?o }", 0) ; }
+    @Test public void batch_06() { test("SELECT * { GRAPH ?g { ?s :p ?o } }", 3) ; }
+    @Test public void batch_07() { test("SELECT * { GRAPH <"+Quad.unionGraph+"> { ?s :p ?o } }", 2) ; }
+    @Test public void batch_08() { test("SELECT * { ?s :p ?o FILTER(?o < 10) ?s :q ?z }", 4) ; }
+}
@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.Arrays ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.query.ReadWrite ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.expr.NodeValue ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.tdb.ConfigTest ;
+import org.apache.jena.tdb.StoreConnection ;
+import org.apache.jena.tdb.TDB ;
+import org.apache.jena.tdb.TDBFactory ;
+import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.setup.StoreParams ;
+import org.apache.jena.tdb.solver.stats.CostStatsTDB ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.sys.Names ;
+import org.apache.jena.tdb.sys.TDBInternal ;
+import org.apache.jena.tdb.transaction.DatasetGraphTxn ;
+import org.junit.After ;
+import org.junit.Before ;
+import org.junit.Test ;
+
+/** Statistics for cost-based join ordering kept up to date on commit */
+public class TestCostStatsTDB extends BaseTest
+{
+    private static Node p = NodeFactory.createURI("http://example/p") ;
+    private static Node q = NodeFactory.createURI("http://example/q") ;
+
+    @Before public void before()    { TDB.getContext().set(TDB.symCostStats, true) ; }
+
+    @After public void after()      { TDB.getContext().unset(TDB.symCostStats) ; }
+
+    private static void write(DatasetGraph dsg, String... quads)
+    {
+        dsg.begin(ReadWrite.WRITE) ;
+        try {
+            for ( String x : quads )
+                dsg.add(SSE.parseQuad("(prefix ((: <http://example/>)) "+x+")")) ;
+            dsg.commit() ;
+        } finally { dsg.end() ; }
+        // Statistics are updated in the background.
+        TDBInternal.getTransactionManager(dsg).awaitStatistics() ;
+    }
+
+    private static void delete(DatasetGraph dsg, String quad)
+    {
+        dsg.begin(ReadWrite.WRITE) ;
+        try {
+            dsg.delete(SSE.parseQuad("(prefix ((: <http://example/>)) "+quad+")")) ;
+            dsg.commit() ;
+        } finally { dsg.end() ; }
+        // Statistics are updated in the background.
+        TDBInternal.getTransactionManager(dsg).awaitStatistics() ;
+    }
+
+    private static CostStatsTDB stats(DatasetGraph dsg)
+    {
+        return TDBInternal.getBaseDatasetGraphTDB(dsg).getCostStats() ;
+    }
+
+    @Test public void coststats_01()
+    {
+        DatasetGraph dsg = TDBFactory.createDatasetGraph() ;
+        CostStatsTDB stats = stats(dsg) ;
+        assertNotNull(stats) ;
+        assertEquals(0, stats.getCount()) ;
+        write(dsg, "(_ :s1 :p 1)", "(_ :s1 :q :o)", "(_ :s2 :p 2)", "(_ :s2 :p 3)", "(_ :s3 :p 1)") ;
+        assertEquals(5, stats.getCount()) ;
+        assertEquals(4, stats.getCount(p)) ;
+        assertEquals(3, stats.getDistinctSubjects(p)) ;
+        assertEquals(3, stats.getDistinctObjects(p)) ;
+        assertEquals(1, stats.getCount(q)) ;
+        // One subject has both :p and :q
+        assertEquals(1, stats.getStarCount(Arrays.asList(p, q)), 0.001) ;
+        double sel = stats.getRangeSelectivity(p, NodeValue.makeInteger(2), null) ;
+        assertTrue(sel > 0 && sel < 1) ;
+    }
+
+    @Test public void coststats_02()
+    {
+        DatasetGraph dsg = TDBFactory.createDatasetGraph() ;
+        CostStatsTDB stats = stats(dsg) ;
+        write(dsg, "(_ :s1 :p 1)", "(_ :s1 :q :o)", "(_ :s2 :p 1)") ;
+        assertEquals(1, stats.getStarCount(Arrays.asList(p, q)), 0.001) ;
+        delete(dsg, "(_ :s1 :q :o)") ;
+        assertEquals(2, stats.getCount()) ;
+        assertEquals(0, stats.getCount(q)) ;
+        assertEquals(0, stats.getStarCount(Arrays.asList(p, q)), 0.001) ;
+        assertEquals(2, stats.getStarCount(Arrays.asList(p)), 0.001) ;
+        delete(dsg, "(_ :s2 :p 1)") ;
+        assertEquals(1, stats.getDistinctSubjects(p)) ;
+        assertEquals(1, stats.getDistinctObjects(p)) ;
+    }
+
+    @Test public void coststats_03()
+    {
+        // Not a change to the data.
+        DatasetGraph dsg = TDBFactory.createDatasetGraph() ;
+        CostStatsTDB stats = stats(dsg) ;
+        write(dsg, "(_ :s1 :p 1)") ;
+        write(dsg, "(_ :s1 :p 1)") ;
+        delete(dsg, "(_ :s1 :p 2)") ;
+        assertEquals(1, stats.getCount()) ;
+        assertEquals(1, stats.getCount(p)) ;
+    }
+
+    @Test public void coststats_04()
+    {
+        // Kept in the database.
+        String dir = ConfigTest.getCleanDir() ;
+        Location location = Location.create(dir) ;
+        DatasetGraph dsg = TDBFactory.createDatasetGraph(location) ;
+        write(dsg, "(_ :s1 :p 1)", "(_ :s1 :q :o)", "(_ :s2 :p 2)") ;
+        assertTrue(location.exists(Names.optCostStats)) ;
+        StoreConnection.release(location) ;
+
+        TDB.getContext().unset(TDB.symCostStats) ;
+        dsg = TDBFactory.createDatasetGraph(location) ;
+        CostStatsTDB stats = stats(dsg) ;
+        assertNotNull(stats) ;
+        assertEquals(3, stats.getCount()) ;
+        assertEquals(2, stats.getDistinctSubjects(p)) ;
+        assertEquals(1, stats.getStarCount(Arrays.asList(p, q)), 0.001) ;
+        write(dsg, "(_ :s3 :q :o)") ;
+        assertEquals(2, stats.getCount(q)) ;
+        StoreConnection.release(location) ;
+    }
+
+    @Test public void coststats_05()
+    {
+        // Inline values are those of the NodeId format of the database: doubles in version 2.
+        StoreParams params = StoreParams.builder().nodeIdVersion(NodeId.INLINE_V2).build() ;
+        StoreConnection sConn = StoreConnection.make(Location.mem(), params) ;
+        CostStatsTDB stats = sConn.getBaseDataset().getCostStats() ;
+        DatasetGraphTxn dsg = sConn.begin(ReadWrite.WRITE) ;
+        try {
+            for ( int i = 1 ; i <= 4 ; i++ )
+                dsg.add(SSE.parseQuad("(_ <http://example/s"+i+"> <http://example/p> '"+i+".0e0'^^<http://www.w3.org/2001/XMLSchema#double>)")) ;
+            dsg.commit() ;
+        } finally { dsg.end() ; }
+        sConn.getTransactionManager().awaitStatistics() ;
+        assertEquals(4, stats.getCount(p)) ;
+        // A histogram of the doubles, 3.0 and 4.0 of which are in the range.
+        double sel = stats.getRangeSelectivity(p, NodeValue.makeDouble(2.5), null) ;
+        assertTrue(sel > 0.2 && sel < 0.8) ;
+    }
+
+    @Test public void coststats_06()
+    {
+        // Changes of a series of commits, applied in the background.
+        DatasetGraph dsg = TDBFactory.createDatasetGraph() ;
+        CostStatsTDB stats = stats(dsg) ;
+        for ( int i = 0 ; i < 20 ; i++ )
+        {
+            dsg.begin(ReadWrite.WRITE) ;
+            try {
+                dsg.add(SSE.parseQuad("(_ <http://example/s"+i+"> <http://example/p> "+i+")")) ;
+                dsg.commit() ;
+            } finally { dsg.end() ; }
+        }
+        TDBInternal.getTransactionManager(dsg).awaitStatistics() ;
+        assertEquals(20, stats.getCount()) ;
+        assertEquals(20, stats.getDistinctSubjects(p)) ;
+        assertEquals(20, stats.getDistinctObjects(p)) ;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.query.* ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.expr.ExprList ;
+import org.apache.jena.sparql.util.ExprUtils ;
+import org.apache.jena.tdb.TDBFactory ;
+import org.apache.jena.tdb.store.NodeIdRange ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+/** FILTER comparisons as NodeId range scans */
+public class TestFilterRanges extends BaseTest
+{
+    static Dataset dsMem = null ;
+    static Dataset dsTDB = null ;
+
+    @BeforeClass static public void beforeClass()
+    {
+        String data = StrUtils.strjoinNL
+            ("PREFIX : <http://example/>"
+            ,":s :p 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 ."
+            ,":s :p -3, -1, 5.5, 7e0, 6.5e0, 'abc', 100000000000000000000, :x ."
+            ,":s :q 5 ."
+            ) ;
+        dsMem = DatasetFactory.create() ;
+        RDFDataMgr.read(dsMem, new java.io.StringReader(data), null, Lang.TTL) ;
+        dsTDB = TDBFactory.createDataset() ;
+        RDFDataMgr.read(dsTDB, new java.io.StringReader(data), null, Lang.TTL) ;
+    }
+
+    private static Var x = Var.alloc("x") ;
+
+    private static void testRanges(String exprStr, long lo, long hi)
+    {
+        Map<Var, List<NodeIdRange>> ranges = FilterRanges.ranges(new ExprList(ExprUtils.parse(exprStr))) ;
+        assertNotNull(ranges) ;
+        assertEquals(NodeIdRange.numeric(lo, hi), ranges.get(x)) ;
+    }
+
+    private static void testNoRanges(String exprStr)
+    {
+        Map<Var, List<NodeIdRange>> ranges = FilterRanges.ranges(new ExprList(ExprUtils.parse(exprStr))) ;
+        assertNull(ranges) ;
+    }
+
+    @Test public void filter_ranges_01() { testRanges("?x > 2", 3, Long.MAX_VALUE) ; }
+    @Test public void filter_ranges_02() { testRanges("?x >= 2.5", 3, Long.MAX_VALUE) ; }
+    @Test public void filter_ranges_03() { testRanges("2.5 <= ?x", 3, Long.MAX_VALUE) ; }
+    @Test public void filter_ranges_04() { testRanges("?x < -2.5", Long.MIN_VALUE, -3) ; }
+    @Test public void filter_ranges_05() { testRanges("?x >= -1 && ?x < 2.5", -1, 2) ; }
+    @Test public void filter_ranges_06() { testRanges("?x = 5", 5, 5) ; }
+    @Test public void filter_ranges_07() { testRanges("?x = 5.5", 6, 5) ; }
+    @Test public void filter_ranges_08() { testRanges("3 > ?x", Long.MIN_VALUE, 2) ; }
+
+    @Test public void filter_ranges_09() { testNoRanges("?x > 'abc'") ; }
+    @Test public void filter_ranges_10() { testNoRanges("?x > ?y") ; }
+    @Test public void filter_ranges_11() { testNoRanges("?x != 3") ; }
+    @Test public void filter_ranges_12() { testNoRanges("?x < 'NaN'^^<http://www.w3.org/2001/XMLSchema#double>") ; }
+
+    private static void testQuery(String filter, int expected)
+    {
+        String qs = "PREFIX : <http://example/> SELECT * { ?s :p ?o FILTER("+filter+") }" ;
+        assertEquals(expected, count(dsMem, qs)) ;
+        assertEquals(expected, count(dsTDB, qs)) ;
+    }
+
+    private static int count(Dataset ds, String qs)
+    {
+        try(QueryExecution qExec = QueryExecutionFactory.create(qs, ds)) {
+            return ResultSetFormatter.consume(qExec.execSelect()) ;
+        }
+    }
+
+    @Test public void filter_query_01() { testQuery("?o > 4 && ?o <= 7", 6) ; }
+    @Test public void filter_query_02() { testQuery("?o >= -2 && ?o < 3", 3) ; }
+    @Test public void filter_query_03() { testQuery("?o = 5", 1) ; }
+    @Test public void filter_query_04() { testQuery("?o > 10", 1) ; }
+    @Test public void filter_query_05() { testQuery("?o < -1", 1) ; }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.Collections ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.Map ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.StrUtils ;
+import org.apache.jena.atlas.lib.tuple.Tuple ;
+import org.apache.jena.atlas.lib.tuple.TupleFactory ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.query.* ;
+import org.apache.jena.riot.Lang ;
+import org.apache.jena.riot.RDFDataMgr ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.resultset.ResultSetCompare ;
+import org.apache.jena.sparql.util.NodeFactoryExtra ;
+import org.apache.jena.tdb.TDB ;
+import org.apache.jena.tdb.TDBFactory ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
+import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable ;
+import org.apache.jena.tdb.sys.TDBInternal ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+/** Merge joins give the same results as index nested loop joins */
+public class TestMergeJoin extends BaseTest
+{
+    static Dataset dataset = null ;
+
+    @BeforeClass static public void beforeClass()
+    {
+        String data = StrUtils.strjoinNL
+            ("PREFIX : <http://example/>"
+            ,":x1 a :A, :B ."
+            ,":x2 a :A ."
+            ,":x3 a :A, :B, :C ."
+            ,":x4 a :B ."
+            ,":a1 :p1 :v1, :v2 ."
+            ,":a2 :p1 :v1 ."
+            ,":b1 :p2 :v1, :v3 ."
+            ,":b2 :p2 :v2, :v1 ."
+            ,":v1 :p1 :v1 ."
+            ,":v1 :p2 :v1 ."
+            ,":n1 :n 1, 2, 3, 4, 5 ."
+            ,":m1 :m 2, 4, 6 ."
+            ,":m2 :m 5, 'abc' ."
+            ) ;
+        dataset = TDBFactory.createDataset() ;
+        RDFDataMgr.read(dataset, new java.io.StringReader(data), null, Lang.TRIG) ;
+        String data2 = StrUtils.strjoinNL
+            ("PREFIX : <http://example/>"
+            ,":g1 { :x1 a :A, :B . :x2 a :A }"
+            ,":g2 { :x1 a :A . :x2 a :A, :B }"
+            ) ;
+        RDFDataMgr.read(dataset, new java.io.StringReader(data2), null, Lang.TRIG) ;
+    }
+
+    private static ResultSetRewindable exec(String qs, boolean mergeJoin)
+    {
+        Query query = QueryFactory.create("PREFIX : <http://example/> "+qs) ;
+        try(QueryExecution qExec = QueryExecutionFactory.create(query, dataset)) {
+            qExec.getContext().set(TDB.symMergeJoin, mergeJoin) ;
+            return ResultSetFactory.copyResults(qExec.execSelect()) ;
+        }
+    }
+
+    private static void test(String qs, int expected)
+    {
+        ResultSetRewindable rs1 = exec(qs, false) ;
+        ResultSetRewindable rs2 = exec(qs, true) ;
+        assertEquals(expected, rs1.size()) ;
+        assertEquals(expected, rs2.size()) ;
+        rs1.reset() ;
+        rs2.reset() ;
+        assertTrue(ResultSetCompare.equalsByTerm(rs1, rs2)) ;
+    }
+
+    // Both POS, sorted by S.
+    @Test public void merge_join_01() { test("SELECT * { ?s a :A . ?s a :B }", 2) ; }
+    // Both POS, sorted by O, several on each side.
+    @Test public void merge_join_02() { test("SELECT * { ?a :p1 ?x . ?b :p2 ?x }", 10) ; }
+    // Also the same variable in other slots.
+    @Test public void merge_join_03() { test("SELECT * { ?a :p1 ?x . ?a :p2 ?x }", 1) ; }
+    @Test public void merge_join_04() { test("SELECT * { ?s a :A . ?s a :notThere }", 0) ; }
+    // Not sorted : nested loop.
+    @Test public void merge_join_05() { test("SELECT * { :a1 :p1 ?x . ?x :p2 ?y }", 1) ; }
+    @Test public void merge_join_06() { test("SELECT * { ?s a :A . ?s a :B . ?s a ?t }", 5) ; }
+    @Test public void merge_join_07() { test("SELECT * { GRAPH ?g { ?s a :A . ?s a :B } }", 2) ; }
+    @Test public void merge_join_08() { test("SELECT * { GRAPH :g1 { ?s a :A . ?s a :B } }", 1) ; }
+    @Test public void merge_join_09() { test("SELECT * { VALUES ?s { :x1 :x2 } ?s a :A . ?s a :B }", 1) ; }
+
+    // With FILTER ranges.
+    @Test public void merge_join_ranges_01() { test("SELECT * { ?a :n ?x . ?b :m ?x FILTER(?x > 2) }", 2) ; }
+    @Test public void merge_join_ranges_02() { test("SELECT * { ?a :n ?x . ?a :n ?y FILTER(?x > 2 && ?y < 3) }", 6) ; }
+    @Test public void merge_join_ranges_03() { test("SELECT * { ?a :n ?x . ?a :n ?y FILTER(?y >= 4) }", 10) ; }
+
+    private static Tuple<Node> pattern(String s, String p, String o)
+    {
+        return TupleFactory.tuple(NodeFactoryExtra.parseNode(s, null), NodeFactoryExtra.parseNode(p, null), NodeFactoryExtra.parseNode(o, null)) ;
+    }
+
+    private static int count(Tuple<Node> left, Tuple<Node> right, Map<Var, List<NodeIdRange>> ranges)
+    {
+        NodeTupleTable ntt = TDBInternal.getBaseDatasetGraphTDB(dataset.asDatasetGraph()).getTripleTable().getNodeTupleTable() ;
+        Iterator<BindingNodeId> input = Iter.singleton(new BindingNodeId()) ;
+        List<Var> joinVars = StageMergeJoin.joinVars(left, right) ;
+        return (int)Iter.count(new StageMergeJoin(ntt, input, left, right, joinVars, false, null, ranges, null)) ;
+    }
+
+    // The ranges limit the scans without the FILTER.
+    @Test public void merge_join_ranges_04()
+    {
+        Tuple<Node> left = pattern("?a", "<http://example/n>", "?x") ;
+        Tuple<Node> right = pattern("?b", "<http://example/m>", "?x") ;
+        assertEquals(3, count(left, right, null)) ;
+        Map<Var, List<NodeIdRange>> ranges = Collections.singletonMap(Var.alloc("x"), NodeIdRange.numeric(3, Long.MAX_VALUE)) ;
+        assertEquals(2, count(left, right, ranges)) ;
+    }
+
+    // Ranges in the nested loop when there is no index in the order of the join variable.
+    @Test public void merge_join_ranges_05()
+    {
+        Tuple<Node> left = pattern("?a", "<http://example/n>", "?x") ;
+        Tuple<Node> right = pattern("?a", "<http://example/n>", "?y") ;
+        assertEquals(25, count(left, right, null)) ;
+        Map<Var, List<NodeIdRange>> ranges = Collections.singletonMap(Var.alloc("y"), NodeIdRange.numeric(4, Long.MAX_VALUE)) ;
+        assertEquals(10, count(left, right, ranges)) ;
+    }
+
+    // Ranges of a variable other than the join variable.
+    @Test public void merge_join_ranges_06()
+    {
+        Tuple<Node> left = pattern("?a", "<http://example/n>", "?x") ;
+        Tuple<Node> right = pattern("?b", "<http://example/m>", "?x") ;
+        // Subjects are IRIs, not inline integers.
+        List<NodeIdRange> integers = Collections.singletonList(NodeIdRange.typeBlock(NodeId.INTEGER)) ;
+        assertEquals(0, count(left, right, Collections.singletonMap(Var.alloc("b"), integers))) ;
+        List<NodeIdRange> stored = Collections.singletonList(NodeIdRange.typeBlock(NodeId.NONE)) ;
+        assertEquals(3, count(left, right, Collections.singletonMap(Var.alloc("b"), stored))) ;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.solver;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.concurrent.atomic.AtomicInteger ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.query.* ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.resultset.ResultSetCompare ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.tdb.TDB ;
+import org.apache.jena.tdb.TDBFactory ;
+import org.junit.BeforeClass ;
+import org.junit.Test ;
+
+/** Parallel BGP execution gives the same results, in the same order, as single threaded execution */
+public class TestParallelBGP extends BaseTest
+{
+    static Dataset dataset = null ;
+    static final int N = 5*StageParallel.DftBatchSize+10 ;
+
+    @BeforeClass static public void beforeClass()
+    {
+        dataset = TDBFactory.createDataset() ;
+        DatasetGraph dsg = dataset.asDatasetGraph() ;
+        for ( int i = 0 ; i < N ; i++ ) {
+            dsg.add(SSE.parseQuad("(_ <http://example/s"+i+"> <http://example/p> "+i+")")) ;
+            if ( i % 3 == 0 )
+                dsg.add(SSE.parseQuad("(_ <http://example/s"+i+"> <http://example/q> <http://example/s"+(i+1)+">)")) ;
+        }
+    }
+
+    private static ResultSetRewindable exec(String qs, Object parallel)
+    {
+        Query query = QueryFactory.create("PREFIX : <http://example/> "+qs) ;
+        try(QueryExecution qExec = QueryExecutionFactory.create(query, dataset)) {
+            if ( parallel != null )
+                qExec.getContext().set(TDB.symParallelBGP, parallel) ;
+            return ResultSetFactory.copyResults(qExec.execSelect()) ;
+        }
+    }
+
+    private static void test(String qs, int expected)
+    {
+        ResultSetRewindable rs1 = exec(qs, null) ;
+        ResultSetRewindable rs2 = exec(qs, 4) ;
+        assertEquals(expected, rs1.size()) ;
+        assertEquals(expected, rs2.size()) ;
+        rs1.reset() ;
+        rs2.reset() ;
+        assertTrue(ResultSetCompare.equalsByTermAndOrder(rs1, rs2)) ;
+    }
+
+    @Test public void parallel_01() { test("SELECT * { ?s :p ?o . ?s :q ?z }", (N+2)/3) ; }
+    @Test public void parallel_02() { test("SELECT * { ?s :q ?s2 . ?s2 :p ?o }", (N+2)/3) ; }
+    @Test public void parallel_03() { test("SELECT * { ?s :p ?o . ?s :p ?o2 . ?s :q ?z . ?z :p ?v }", (N+2)/3) ; }
+    @Test public void parallel_04() { test("SELECT * { ?s :p ?o . ?s :notThere ?z }", 0) ; }
+    @Test public void parallel_05() { test("SELECT * { ?s :p ?o }", N) ; }
+
+    @Test public void parallel_limit_01()
+    {
+        // Stop before the workers finish.
+        ResultSetRewindable rs = exec("SELECT * { ?s :p ?o . ?s :p ?o2 } LIMIT 5", 4) ;
+        assertEquals(5, rs.size()) ;
+    }
+
+    @Test public void parallel_workers_01()
+    {
+        ResultSetRewindable rs = exec("SELECT * { ?s :p ?o . ?s :q ?z }", "true") ;
+        assertEquals((N+2)/3, rs.size()) ;
+    }
+
+    @Test public void parallel_txn_01()
+    {
+        // Not used for write transactions but results are the same.
+        dataset.begin(ReadWrite.WRITE) ;
+        try {
+            ResultSetRewindable rs = exec("SELECT * { ?s :p ?o . ?s :q ?z }", 4) ;
+            assertEquals((N+2)/3, rs.size()) ;
+        } finally { dataset.end() ; }
+        dataset.begin(ReadWrite.READ) ;
+        try {
+            ResultSetRewindable rs = exec("SELECT * { ?s :p ?o . ?s :q ?z }", 4) ;
+            assertEquals((N+2)/3, rs.size()) ;
+        } finally { dataset.end() ; }
+    }
+
+    @Test public void parallel_close_01()
+    {
+        // close() returns only after the workers have left their iterators.
+        List<BindingNodeId> rows = new ArrayList<>() ;
+        for ( int i = 0 ; i < 100 ; i++ )
+            rows.add(new BindingNodeId()) ;
+        AtomicInteger active = new AtomicInteger(0) ;
+        StageParallel stage = new StageParallel(rows.iterator(), (iter)->slow(iter, active), 4, 10) ;
+        assertTrue(stage.hasNext()) ;
+        stage.next() ;
+        stage.close() ;
+        assertEquals(0, active.get()) ;
+    }
+
+    @Test public void parallel_abort_01()
+    {
+        List<BindingNodeId> rows = new ArrayList<>() ;
+        for ( int i = 0 ; i < 100 ; i++ )
+            rows.add(new BindingNodeId()) ;
+        AtomicInteger active = new AtomicInteger(0) ;
+        StageParallel stage = new StageParallel(rows.iterator(), (iter)->slow(iter, active), 4, 10) ;
+        assertTrue(stage.hasNext()) ;
+        stage.abort() ;
+        assertEquals(0, active.get()) ;
+    }
+
+    /** Each step takes a while and is counted in "active" while in progress. */
+    private static Iterator<BindingNodeId> slow(Iterator<BindingNodeId> iter, AtomicInteger active)
+    {
+        return Iter.map(iter, (b)->{
+            active.incrementAndGet() ;
+            try { Thread.sleep(20) ; }
+            catch (InterruptedException ex) {}
+            finally { active.decrementAndGet() ; }
+            return b ;
+        }) ;
+    }
+}
@@ -37,6 +37,7 @@ import org.junit.runners.Suite ;
     , TestDatasetGraphTDBFind.class
     , TestDatasetGraphTDBFindPattern.class
     , TestLoader.class
+    , TestIteratorPipelined.class
     // The script suite
     , TestSuiteGraphTDB.class
     , Test_SPARQL_TDB.class
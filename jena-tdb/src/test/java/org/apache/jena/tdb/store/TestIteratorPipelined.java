@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.concurrent.CountDownLatch ;
+import java.util.concurrent.TimeUnit ;
+
+import org.apache.jena.atlas.AtlasException ;
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.apache.jena.atlas.lib.Closeable ;
+import org.apache.jena.atlas.lib.Sink ;
+import org.apache.jena.tdb.store.bulkloader2.IteratorPipelined ;
+import org.junit.Test ;
+
+public class TestIteratorPipelined extends BaseTest
+{
+    private static List<Integer> list(int n) {
+        List<Integer> x = new ArrayList<>() ;
+        for ( int i = 0 ; i < n ; i++ )
+            x.add(i) ;
+        return x ;
+    }
+
+    private static void test(int n, int batchSize, int queueSize) {
+        List<Integer> data = list(n) ;
+        Iterator<Integer> iter = new IteratorPipelined<>((Sink<Integer> sink) -> data.forEach(sink::send), "test", batchSize, queueSize) ;
+        List<Integer> results = new ArrayList<>() ;
+        iter.forEachRemaining(results::add) ;
+        assertEquals(data, results) ;
+        assertFalse(iter.hasNext()) ;
+    }
+
+    @Test public void pipeline_01() { test(0, 10, 2) ; }
+    @Test public void pipeline_02() { test(1, 10, 2) ; }
+    @Test public void pipeline_03() { test(10, 10, 2) ; }
+    @Test public void pipeline_04() { test(10000, 7, 2) ; }
+
+    @Test public void pipeline_05() {
+        Iterator<Integer> iter = IteratorPipelined.create(list(100).iterator(), "test") ;
+        int count = 0 ;
+        while(iter.hasNext()) { iter.next() ; count++ ; }
+        assertEquals(100, count) ;
+    }
+
+    @Test(expected=AtlasException.class)
+    public void pipeline_06() {
+        Iterator<Integer> iter = IteratorPipelined.create((Sink<Integer> sink) -> {
+            sink.send(1) ;
+            throw new RuntimeException("Producer failure") ;
+        }, "test") ;
+        while(iter.hasNext())
+            iter.next() ;
+    }
+
+    @Test public void pipeline_07() throws Exception {
+        // Consumer stops early: the producer finishes.
+        CountDownLatch done = new CountDownLatch(1) ;
+        IteratorPipelined<Integer> iter = new IteratorPipelined<>((Sink<Integer> sink) -> {
+            try {
+                for ( int i = 0 ; ; i++ )
+                    sink.send(i) ;
+            } finally { done.countDown() ; }
+        }, "test", 10, 2) ;
+        for ( int i = 0 ; i < 5 ; i++ )
+            assertEquals(i, iter.next().intValue()) ;
+        iter.close() ;
+        assertFalse(iter.hasNext()) ;
+        assertTrue(done.await(10, TimeUnit.SECONDS)) ;
+    }
+
+    @Test public void pipeline_08() throws Exception {
+        // The source is closed.
+        CountDownLatch closed = new CountDownLatch(1) ;
+        class Source implements Iterator<Integer>, Closeable {
+            int i = 0 ;
+            @Override public boolean hasNext() { return true ; }
+            @Override public Integer next()    { return i++ ; }
+            @Override public void close()      { closed.countDown() ; }
+        }
+        IteratorPipelined<Integer> iter = IteratorPipelined.create(new Source(), "test") ;
+        iter.next() ;
+        iter.close() ;
+        assertTrue(closed.await(10, TimeUnit.SECONDS)) ;
+    }
+}
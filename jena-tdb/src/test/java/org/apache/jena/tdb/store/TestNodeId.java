@@ -225,6 +225,77 @@ public class TestNodeId extends BaseTest
     @Test public void nodeId_boolean_4()
     { test("'0'^^xsd:boolean", NodeFactoryExtra.parseNode("'false'^^xsd:boolean")) ; }
 
+    // Version 2 inlines.
+    
+    @Test public void nodeId_v2_string_1()
+    { testV2("'abc'", "'abc'") ; }
+
+    @Test public void nodeId_v2_string_2()
+    { testV2("''", "''") ; }
+
+    @Test public void nodeId_v2_string_3()
+    { testV2("'abcdefg'", "'abcdefg'") ; }
+
+    @Test public void nodeId_v2_string_4()
+    { testV2("'abcdefgh'", (Node)null) ; }
+
+    @Test public void nodeId_v2_string_5()
+    // 2 + 2 + 3 bytes of UTF-8
+    { testV2("'éé€'", "'éé€'") ; }
+
+    @Test public void nodeId_v2_string_6()
+    { testV2("'ééé€'", (Node)null) ; }
+
+    @Test public void nodeId_v2_string_7()
+    { testV2("'abc'^^xsd:string", "'abc'") ; }
+
+    @Test public void nodeId_v2_string_8()
+    { testV2("'abc'@en", (Node)null) ; }
+
+    @Test public void nodeId_v2_double_1()
+    { testV2("'1.5'^^xsd:double", "'1.5'^^xsd:double") ; }
+
+    @Test public void nodeId_v2_double_2()
+    { testV2("1.0e0", "'1.0'^^xsd:double") ; }
+
+    @Test public void nodeId_v2_double_3()
+    { testV2("'-0.0'^^xsd:double", "'-0.0'^^xsd:double") ; }
+
+    @Test public void nodeId_v2_double_4()
+    // Needs all 64 bits.
+    { testV2("'0.1'^^xsd:double", (Node)null) ; }
+
+    @Test public void nodeId_v2_double_5()
+    { testV2("'NaN'^^xsd:double", (Node)null) ; }
+
+    @Test public void nodeId_v2_float_1()
+    { testV2("'0.1'^^xsd:float", "'0.1'^^xsd:float") ; }
+
+    @Test public void nodeId_v2_float_2()
+    { testV2("'INF'^^xsd:float", (Node)null) ; }
+
+    @Test public void nodeId_v2_time_1()
+    { testV2("'12:34:56'^^xsd:time", "'12:34:56'^^xsd:time") ; }
+
+    @Test public void nodeId_v2_time_2()
+    { testV2("'12:34:56.5Z'^^xsd:time", "'12:34:56.5Z'^^xsd:time") ; }
+
+    @Test public void nodeId_v2_time_3()
+    { testV2("'23:59:59.123+05:30'^^xsd:time", "'23:59:59.123+05:30'^^xsd:time") ; }
+
+    @Test public void nodeId_v2_gYear_1()
+    { testV2("'2016'^^xsd:gYear", "'2016'^^xsd:gYear") ; }
+
+    @Test public void nodeId_v2_gYear_2()
+    { testV2("'2001-05:00'^^xsd:gYear", "'2001-05:00'^^xsd:gYear") ; }
+
+    @Test public void nodeId_v2_gYear_3()
+    { testV2("'9999'^^xsd:gYear", (Node)null) ; }
+
+    @Test public void nodeId_v2_int_1()
+    // Version 1 inlines are unchanged.
+    { testV2("123", "123") ; }
+
     private void test(String x) { test(x, x) ; }
     
     private void test(String x, String expected)
@@ -232,11 +303,26 @@ public class TestNodeId extends BaseTest
         test(x, NodeFactoryExtra.parseNode(expected)) ;
     }
 
+    private void testV2(String x, String expected)
+    {
+        testV2(x, NodeFactoryExtra.parseNode(expected)) ;
+    }
+
     private void test(String x, Node correct)
+    {
+        test(x, correct, NodeId.INLINE_V1) ;
+    }
+
+    private void testV2(String x, Node correct)
+    {
+        test(x, correct, NodeId.INLINE_V2) ;
+    }
+
+    private void test(String x, Node correct, int version)
     {
         Node n = NodeFactoryExtra.parseNode(x) ;
-        NodeId nodeId = NodeId.inline(n) ;
-        boolean b = NodeId.hasInlineDatatype(n) ;
+        NodeId nodeId = NodeId.inline(n, version) ;
+        boolean b = NodeId.hasInlineDatatype(n, version) ;
 
         if ( nodeId != null )
             assertTrue("Converted NodeId but datatype test was false", b) ;
@@ -26,6 +26,10 @@ import org.junit.runners.Suite ;
     TestCodec.class
     , TestNodeTableStored.class
     , TestNodeTable.class
+    , TestNodeTableOffHeap.class
+    , TestNodeTableBinary.class
+    , TestNodeTableInlineV2.class
+    , TestNodeCacheOffHeap.class
 })
 public class TS_NodeTable
 {
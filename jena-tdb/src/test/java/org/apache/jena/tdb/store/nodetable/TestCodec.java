@@ -49,7 +49,7 @@ public class TestCodec extends BaseTest
     @Parameters public static Collection<Object[]> data()
     { 
         return Arrays.asList(new Object[][]
-                                        { { new NodecSSE() } } 
+                                        { { new NodecSSE() } , { new NodecBinary() } } 
                                         ) ;                                        
     }
 
@@ -99,6 +99,8 @@ public class TestCodec extends BaseTest
     @Test public void nodec_blank_02()  { test (org.apache.jena.graph.NodeFactory.createBlankNode("a:b:c-d")) ; }
     @Test public void nodec_blank_03()  { test (org.apache.jena.graph.NodeFactory.createBlankNode()) ; }
     
+    @Test public void nodec_var_01()    { test ("?x") ; }
+    
     private void test(String sseString)
     {
         Node n = NodeFactoryExtra.parseNode(sseString) ;
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.nodetable;
+
+import java.nio.charset.StandardCharsets ;
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.concurrent.* ;
+
+import org.apache.jena.atlas.junit.BaseTest ;
+import org.junit.Test ;
+
+public class TestNodeCacheOffHeap extends BaseTest
+{
+    private static byte[] bytes(String str) { return str.getBytes(StandardCharsets.UTF_8) ; }
+    
+    private static void put(NodeCacheOffHeap cache, long id, String str) {
+        byte[] b = bytes(str) ;
+        cache.put(id, b, b.length, NodeCacheOffHeap.hash(b, b.length)) ;
+    }
+    
+    private static long get(NodeCacheOffHeap cache, String str) {
+        byte[] b = bytes(str) ;
+        return cache.get(b, b.length, NodeCacheOffHeap.hash(b, b.length)) ;
+    }
+
+    @Test public void offheap_cache_01() {
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(100, 4, true) ;
+        assertNull(cache.get(1)) ;
+        put(cache, 1, "<http://example/a>") ;
+        assertArrayEquals(bytes("<http://example/a>"), cache.get(1)) ;
+        assertNull(cache.get(2)) ;
+        assertEquals(1, cache.size()) ;
+    }
+
+    @Test public void offheap_cache_02() {
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(100, 4, false) ;
+        assertEquals(NodeCacheOffHeap.NotFound, get(cache, "<http://example/a>")) ;
+        put(cache, 99, "<http://example/a>") ;
+        assertEquals(99, get(cache, "<http://example/a>")) ;
+        assertEquals(NodeCacheOffHeap.NotFound, get(cache, "<http://example/b>")) ;
+    }
+
+    @Test public void offheap_cache_03() {
+        // Replace
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(100, 4, true) ;
+        put(cache, 1, "'abc'") ;
+        put(cache, 1, "'def'") ;
+        assertArrayEquals(bytes("'def'"), cache.get(1)) ;
+        assertEquals(1, cache.size()) ;
+    }
+
+    @Test public void offheap_cache_04() {
+        // Eviction: size bounded by capacity.
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(64, 2, true) ;
+        for ( int i = 0 ; i < 1000 ; i++ )
+            put(cache, i, "'"+i+"'") ;
+        assertTrue(cache.size() <= cache.capacity()) ;
+        // Most recent is present.
+        assertArrayEquals(bytes("'999'"), cache.get(999)) ;
+        // Anything found is correct.
+        for ( int i = 0 ; i < 1000 ; i++ ) {
+            byte[] b = cache.get(i) ;
+            if ( b != null )
+                assertArrayEquals(bytes("'"+i+"'"), b) ;
+        }
+    }
+
+    @Test public void offheap_cache_05() {
+        // Too long - not cached.
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(100, 4, true) ;
+        StringBuilder sb = new StringBuilder() ;
+        while ( sb.length() <= NodeCacheOffHeap.MaxEncodedLength )
+            sb.append("x") ;
+        put(cache, 1, sb.toString()) ;
+        assertNull(cache.get(1)) ;
+    }
+
+    @Test public void offheap_cache_06() {
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(100, 4, false) ;
+        put(cache, 1, "'abc'") ;
+        cache.clear() ;
+        assertEquals(0, cache.size()) ;
+        assertEquals(NodeCacheOffHeap.NotFound, get(cache, "'abc'")) ;
+    }
+
+    @Test public void offheap_cache_concurrent_01() throws Exception {
+        NodeCacheOffHeap cache = new NodeCacheOffHeap(500, 8, true) ;
+        int N = 4 ;
+        ExecutorService executor = Executors.newFixedThreadPool(N) ;
+        try {
+            List<Future<Boolean>> results = new ArrayList<>() ;
+            for ( int t = 0 ; t < N ; t++ ) {
+                results.add(executor.submit(()->{
+                    for ( int i = 0 ; i < 5000 ; i++ ) {
+                        long id = i % 1000 ;
+                        byte[] b = cache.get(id) ;
+                        if ( b == null )
+                            put(cache, id, "<http://example/"+id+">") ;
+                        else if ( ! new String(b, StandardCharsets.UTF_8).equals("<http://example/"+id+">") )
+                            return false ;
+                    }
+                    return true ;
+                })) ;
+            }
+            for ( Future<Boolean> f : results )
+                assertTrue(f.get()) ;
+        } finally { executor.shutdownNow() ; }
+    }
+}
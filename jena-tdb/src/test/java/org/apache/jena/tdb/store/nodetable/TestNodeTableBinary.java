@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.nodetable;
+
+import java.nio.ByteBuffer ;
+
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.sparql.util.NodeFactoryExtra ;
+import org.apache.jena.tdb.base.file.FileFactory ;
+import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.base.objectfile.ObjectFile ;
+import org.apache.jena.tdb.lib.NodeLib ;
+import org.apache.jena.tdb.setup.Build ;
+import org.apache.jena.tdb.setup.StoreParams ;
+import org.junit.Test ;
+
+public class TestNodeTableBinary extends AbstractTestNodeTable
+{
+    @Override
+    protected NodeTable createEmptyNodeTable()
+    {
+        StoreParams params = StoreParams.builder().nodeEncoding(NodeEncoding.binary).build() ;
+        return Build.makeNodeTable(Location.mem(), params) ;
+    }
+
+    @Test public void nodetable_binary_01() {
+        NodeTable x = createEmptyNodeTable() ;
+        while ( x != null && ! ( x instanceof NodeTableNative ) )
+            x = x.wrapped() ;
+        assertNotNull("No NodeTableNative", x) ;
+        assertTrue(((NodeTableNative)x).getNodec() instanceof NodecBinary) ;
+    }
+
+    @Test public void nodetable_binary_02() {
+        // Both encodings in one object file.
+        ObjectFile file = FileFactory.createObjectFileMem("nodes") ;
+        Node n1 = NodeFactoryExtra.parseNode("'abc'@en") ;
+        Node n2 = NodeFactoryExtra.parseNode("'abc'^^<http://example/dt>") ;
+        long id1 = NodeLib.encodeStore(n1, file, NodeLib.nodec(NodeEncoding.sse)) ;
+        long id2 = NodeLib.encodeStore(n2, file, NodeLib.nodec(NodeEncoding.binary)) ;
+        assertEquals(n1, NodeLib.fetchDecode(id1, file)) ;
+        assertEquals(n2, NodeLib.fetchDecode(id2, file)) ;
+    }
+
+    @Test public void nodetable_binary_03() {
+        // Spaces are hex encoded by NodecSSE.
+        Node n = NodeFactory.createURI("http://example/a b") ;
+        ByteBuffer bb = NodeLib.encode(n, NodeLib.nodec(NodeEncoding.binary)) ;
+        assertTrue(NodecBinary.isBinary(bb)) ;
+        assertEquals(n, NodeLib.decode(bb)) ;
+        assertFalse(NodecBinary.isBinary(NodeLib.encode(n))) ;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.nodetable;
+
+import org.apache.jena.graph.NodeFactory ;
+import org.apache.jena.tdb.TDBException ;
+import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.setup.Build ;
+import org.apache.jena.tdb.setup.StoreParams ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.junit.Test ;
+
+public class TestNodeTableInlineV2 extends AbstractTestNodeTable
+{
+    @Override
+    protected NodeTable createEmptyNodeTable()
+    {
+        StoreParams params = StoreParams.builder().nodeIdVersion(NodeId.INLINE_V2).build() ;
+        return Build.makeNodeTable(Location.mem(), params) ;
+    }
+
+    @Test public void nodetable_v2_01() {
+        NodeTable nt = createEmptyNodeTable() ;
+        NodeId before = nt.allocOffset() ;
+        writeNode(nt, "'abc'") ;
+        writeNode(nt, "'1.5'^^xsd:double") ;
+        writeNode(nt, "'12:00:00Z'^^xsd:time") ;
+        // All inline : nothing written to the node table.
+        assertEquals(before, nt.allocOffset()) ;
+        assertTrue(NodeId.isInline(nt.getNodeIdForNode(NodeFactory.createLiteral("abc")))) ;
+    }
+
+    @Test public void nodetable_v2_02() {
+        NodeTable nt = createEmptyNodeTable() ;
+        NodeId before = nt.allocOffset() ;
+        writeNode(nt, "'abcdefghijk'") ;
+        assertNotEquals(before, nt.allocOffset()) ;
+    }
+
+    @Test(expected=TDBException.class)
+    public void nodetable_v2_03() {
+        StoreParams params = StoreParams.builder().nodeIdVersion(99).build() ;
+        Build.makeNodeTable(Location.mem(), params) ;
+    }
+}
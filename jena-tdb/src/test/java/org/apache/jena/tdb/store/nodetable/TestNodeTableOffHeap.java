@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.store.nodetable;
+
+import org.apache.jena.tdb.base.file.Location ;
+import org.apache.jena.tdb.setup.Build ;
+import org.apache.jena.tdb.setup.StoreParams ;
+import org.apache.jena.tdb.store.NodeId ;
+import org.junit.Test ;
+
+public class TestNodeTableOffHeap extends AbstractTestNodeTable
+{
+    @Override
+    protected NodeTable createEmptyNodeTable()
+    {
+        StoreParams params = StoreParams.builder()
+            .nodeCacheType(NodeCacheType.offheap)
+            .node2NodeIdCacheSize(10).nodeId2NodeCacheSize(10).nodeMissCacheSize(10)
+            .build() ;
+        return Build.makeNodeTable(Location.mem(), params) ;
+    }
+    
+    @Test public void nodetable_offheap_01() {
+        NodeTable nt = createEmptyNodeTable() ;
+        NodeTable x = nt ;
+        while ( x != null && ! ( x instanceof NodeTableCacheOffHeap ) )
+            x = x.wrapped() ;
+        assertNotNull("No off-heap cache", x) ;
+    }
+
+    @Test public void nodetable_offheap_02() {
+        // More nodes than the cache size.
+        NodeTable nt = createEmptyNodeTable() ;
+        for ( int i = 0 ; i < 100 ; i++ )
+            writeNode(nt, "<http://example/node"+i+">") ;
+        for ( int i = 0 ; i < 100 ; i++ )
+            writeNode(nt, "<http://example/node"+i+">") ;
+    }
+
+    @Test public void nodetable_offheap_03() {
+        // Not in the node table, then added. 
+        NodeTable nt = createEmptyNodeTable() ;
+        assertEquals(NodeId.NodeDoesNotExist, nt.getNodeIdForNode(n1)) ;
+        writeNode(nt, n1) ;
+    }
+    
+    @Test public void nodetable_offheap_04() {
+        // Long literal : not cached.
+        StringBuilder sb = new StringBuilder() ;
+        for ( int i = 0 ; i < 50 ; i++ )
+            sb.append("abcdefgh") ;
+        testNode("'"+sb.toString()+"'") ;
+    }
+}
@@ -26,7 +26,9 @@ import org.apache.jena.atlas.junit.BaseTest ;
 import org.apache.jena.atlas.lib.tuple.Tuple ;
 import org.apache.jena.atlas.lib.tuple.TupleFactory ;
 import org.apache.jena.tdb.base.record.RecordFactory ;
+import org.apache.jena.tdb.store.IntegerNode ;
 import org.apache.jena.tdb.store.NodeId ;
+import org.apache.jena.tdb.store.NodeIdRange ;
 import org.apache.jena.tdb.sys.SystemTDB ;
 import org.junit.Test;
 
@@ -153,5 +155,86 @@ public class TestTupleTable extends BaseTest
         Tuple<NodeId> e1 = x.get(0) ;
         assertEquals(TupleFactory.tuple(n1, n2, n3) , e1) ;
     }
-
+    
+    static NodeId integer(long v) { return new NodeId(IntegerNode.pack(v)) ; }
+    
+    private static int findRange(TupleTable table, Tuple<NodeId> pat)
+    {
+        List<NodeIdRange> ranges = NodeIdRange.numeric(-2, 3) ;
+        List<Tuple<NodeId>> x = Iter.toList(table.find(pat, 2, ranges)) ;
+        for ( Tuple<NodeId> t : x )
+            assertTrue(NodeIdRange.contains(ranges, t.get(2))) ;
+        return x.size() ;
+    }
+    
+    private static void addRangeData(TupleTable table)
+    {
+        for ( long i = -5 ; i <= 5 ; i++ )
+            add(table, n1, n2, integer(i)) ;
+        // Not inline : in the range.
+        add(table, n1, n2, n3) ;
+        // Not numeric : not in the range.
+        add(table, n1, n2, n4) ;
+    }
+    
+    @Test public void createFindRange1()
+    {
+        // Range scan of POS
+        TupleTable table = create() ;
+        addRangeData(table) ;
+        Tuple<NodeId> pat = TupleFactory.tuple(null, n2, null) ;
+        assertEquals(7, findRange(table, pat)) ;
+    }
+    
+    @Test public void createFindRange2()
+    {
+        // Scan of SPO then check the range.
+        TupleTable table = create2() ;
+        addRangeData(table) ;
+        Tuple<NodeId> pat = TupleFactory.tuple(null, n2, null) ;
+        assertEquals(7, findRange(table, pat)) ;
+    }
+    
+    @Test public void createFindRange3()
+    {
+        // SPO is better than the OSP range scan.
+        TupleTable table = create() ;
+        addRangeData(table) ;
+        add(table, n5, n2, integer(1)) ;
+        Tuple<NodeId> pat = TupleFactory.tuple(n1, null, null) ;
+        assertEquals(7, findRange(table, pat)) ;
+        Tuple<NodeId> pat2 = TupleFactory.tuple((NodeId)null, null, null) ;
+        assertEquals(8, findRange(table, pat2)) ;
+    }
+    
+    @Test public void createFindSorted1()
+    {
+        // POS : sorted by O.
+        TupleTable table = create() ;
+        addRangeData(table) ;
+        Tuple<NodeId> pat = TupleFactory.tuple(null, n2, null) ;
+        List<Tuple<NodeId>> x = Iter.toList(table.findSorted(pat, 2)) ;
+        assertEquals(13, x.size()) ;
+        for ( int i = 1 ; i < x.size() ; i++ )
+            assertTrue(Long.compareUnsigned(x.get(i-1).get(2).getId(), x.get(i).get(2).getId()) < 0) ;
+    }
+    
+    @Test public void createFindSorted2()
+    {
+        // Only SPO : not sorted by O.
+        TupleTable table = create2() ;
+        addRangeData(table) ;
+        Tuple<NodeId> pat = TupleFactory.tuple(null, n2, null) ;
+        assertNull(table.findSorted(pat, 2)) ;
+    }
+    
+    @Test public void createFindSorted3()
+    {
+        // SPO with S fixed is better than OSP. 
+        TupleTable table = create() ;
+        addRangeData(table) ;
+        Tuple<NodeId> pat = TupleFactory.tuple(n1, null, null) ;
+        assertNull(table.findSorted(pat, 2)) ;
+        assertNotNull(table.findSorted(pat, 1)) ;
+    }
 }
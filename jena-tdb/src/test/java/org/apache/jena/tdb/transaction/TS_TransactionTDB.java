@@ -41,6 +41,8 @@ import org.junit.runners.Suite ;
     , TestTransactionUnionGraph.class
     , TestMiscTDB.class
     , TestTDBInternal.class
+    , TestGroupCommit.class
+    , TestTransWriteback.class
 })
 public class TS_TransactionTDB
 {
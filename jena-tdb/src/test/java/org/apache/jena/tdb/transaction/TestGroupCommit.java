@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.transaction;
+
+import static org.junit.Assert.assertEquals ;
+import static org.junit.Assert.assertTrue ;
+
+import java.util.ArrayList ;
+import java.util.Iterator ;
+import java.util.List ;
+import java.util.concurrent.Callable ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+
+import org.apache.jena.query.ReadWrite ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.core.Quad ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.tdb.TDBFactory ;
+import org.apache.jena.tdb.base.file.BufferChannelMem ;
+import org.apache.jena.tdb.sys.TDBInternal ;
+import org.junit.Test ;
+
+public class TestGroupCommit
+{
+    @Test public void groupcommit_01() {
+        // Default : each commit syncs.
+        GroupCommit gc = new GroupCommit(new Journal(BufferChannelMem.create()), 0, ()->false) ;
+        long t1 = gc.committed() ;
+        gc.await(t1) ;
+        long t2 = gc.committed() ;
+        gc.await(t2) ;
+        assertEquals(2, gc.getBatchCount()) ;
+        assertEquals(1, gc.getMaxBatchSize()) ;
+    }
+
+    @Test public void groupcommit_02() {
+        // Two commits, one sync.
+        GroupCommit gc = new GroupCommit(new Journal(BufferChannelMem.create()), 1000, ()->false) ;
+        long t1 = gc.committed() ;
+        long t2 = gc.committed() ;
+        gc.await(t2) ;
+        gc.await(t1) ;
+        assertEquals(1, gc.getBatchCount()) ;
+        assertEquals(2, gc.getMaxBatchSize()) ;
+        assertEquals(2, gc.getBatchedCommitCount()) ;
+    }
+
+    @Test public void groupcommit_03() {
+        GroupCommit gc = new GroupCommit(new Journal(BufferChannelMem.create()), 1000, ()->true) ;
+        long t1 = gc.committed() ;
+        gc.syncNow() ;
+        // Already synced - does not wait.
+        gc.await(t1) ;
+        gc.syncNow() ;
+        assertEquals(1, gc.getBatchCount()) ;
+    }
+
+    @Test public void groupcommit_04() throws Exception {
+        DatasetGraph dsg = TDBFactory.createDatasetGraph() ;
+        TransactionManager txnMgr = TDBInternal.getTransactionManager(dsg) ;
+        txnMgr.setGroupCommitMaxLatency(20) ;
+        TransactionInfo info = new TransactionInfo(txnMgr) ;
+        assertEquals(20, info.getCommitMaxLatency()) ;
+
+        int threads = 4 ;
+        int perThread = 10 ;
+        ExecutorService executor = Executors.newFixedThreadPool(threads) ;
+        List<Future<?>> results = new ArrayList<>() ;
+        for ( int i = 0 ; i < threads ; i++ ) {
+            final int t = i ;
+            Callable<Void> writer = () -> {
+                for ( int j = 0 ; j < perThread ; j++ ) {
+                    dsg.begin(ReadWrite.WRITE) ;
+                    try {
+                        dsg.add(SSE.parseQuad("(_ <s"+t+"> <p> "+j+")")) ;
+                        dsg.commit() ;
+                    } finally { dsg.end() ; }
+                }
+                return null ;
+            } ;
+            results.add(executor.submit(writer)) ;
+        }
+        for ( Future<?> f : results )
+            f.get() ;
+        executor.shutdown() ;
+
+        dsg.begin(ReadWrite.READ) ;
+        try {
+            long count = 0 ;
+            for ( Iterator<Quad> iter = dsg.find() ; iter.hasNext() ; iter.next() )
+                count++ ;
+            assertEquals(threads*perThread, count) ;
+        } finally { dsg.end() ; }
+
+        long batches = info.getCommitBatchCount() ;
+        assertTrue(batches > 0) ;
+        assertTrue(batches <= threads*perThread) ;
+        assertTrue(info.getCommitBatchAverageSize() >= 1.0) ;
+        assertTrue(info.getCommitBatchMaxSize() >= 1) ;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb.transaction;
+
+import static org.junit.Assert.assertEquals ;
+import static org.junit.Assert.assertFalse ;
+import static org.junit.Assert.assertTrue ;
+
+import org.apache.jena.query.ReadWrite ;
+import org.apache.jena.sparql.core.DatasetGraph ;
+import org.apache.jena.sparql.sse.SSE ;
+import org.apache.jena.tdb.TDBFactory ;
+import org.apache.jena.tdb.sys.TDBInternal ;
+import org.junit.After ;
+import org.junit.Before ;
+import org.junit.Test ;
+
+/** Background writeback of the journal when the queue of committed transactions is long */
+public class TestTransWriteback
+{
+    private int depth ;
+
+    @Before public void before() {
+        depth = TransactionManager.WritebackQueueDepth ;
+        TransactionManager.WritebackQueueDepth = 2 ;
+    }
+
+    @After public void after() {
+        TransactionManager.WritebackQueueDepth = depth ;
+    }
+
+    private static void write(DatasetGraph dsg, String quad) {
+        Thread t = new Thread(()->{
+            dsg.begin(ReadWrite.WRITE) ;
+            try {
+                dsg.add(SSE.parseQuad(quad)) ;
+                dsg.commit() ;
+            } finally { dsg.end() ; }
+        }) ;
+        t.start() ;
+        try { t.join() ; } catch (InterruptedException ex) { throw new RuntimeException(ex) ; }
+    }
+
+    @Test public void writeback_01() throws Exception {
+        DatasetGraph dsg = TDBFactory.createDatasetGraph() ;
+        TransactionManager txnMgr = TDBInternal.getTransactionManager(dsg) ;
+        TransactionInfo info = new TransactionInfo(txnMgr) ;
+
+        // An active reader stops the usual write back at the end of each writer.
+        dsg.begin(ReadWrite.READ) ;
+        write(dsg, "(_ <s> <p> 1)") ;
+        write(dsg, "(_ <s> <p> 2)") ;
+        assertEquals(2, info.getWriteCommitTransactionPendingCount()) ;
+        // Reader isolation.
+        assertFalse(dsg.find().hasNext()) ;
+        dsg.end() ;
+
+        // The background writeback was waiting for the reader.
+        for ( int i = 0 ; i < 100 && info.getWritebackCount() == 0 ; i++ )
+            Thread.sleep(50) ;
+        assertEquals(1, info.getWritebackCount()) ;
+        assertEquals(0, info.getWriteCommitTransactionPendingCount()) ;
+
+        dsg.begin(ReadWrite.READ) ;
+        try {
+            assertTrue(dsg.contains(SSE.parseQuad("(_ <s> <p> 1)"))) ;
+            assertTrue(dsg.contains(SSE.parseQuad("(_ <s> <p> 2)"))) ;
+        } finally { dsg.end() ; }
+    }
+
+    @Test public void writeback_02() {
+        // Disabled.
+        TransactionManager.WritebackQueueDepth = 0 ;
+        DatasetGraph dsg = TDBFactory.createDatasetGraph() ;
+        TransactionManager txnMgr = TDBInternal.getTransactionManager(dsg) ;
+        TransactionInfo info = new TransactionInfo(txnMgr) ;
+        dsg.begin(ReadWrite.READ) ;
+        write(dsg, "(_ <s> <p> 1)") ;
+        write(dsg, "(_ <s> <p> 2)") ;
+        write(dsg, "(_ <s> <p> 3)") ;
+        dsg.end() ;
+        assertEquals(0, info.getWritebackCount()) ;
+    }
+}